@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Minimal timing harness for the benchmarks in this package.
+ * <p>
+ * Each task is run several times to warm up the JIT, then the median 
+ * of the measured runs is reported.
+ * 
+ * @author thothbot
+ *
+ */
+public abstract class Benchmark
+{
+	public interface Task
+	{
+		void run();
+	}
+
+	private static final int WARMUP_RUNS = 5;
+	private static final int MEASURED_RUNS = 11;
+
+	/**
+	 * Returns median time of the task in milliseconds.
+	 */
+	public static double time(Task task)
+	{
+		for ( int i = 0; i < WARMUP_RUNS; i++ )
+			task.run();
+
+		double[] times = new double[ MEASURED_RUNS ];
+		for ( int i = 0; i < MEASURED_RUNS; i++ )
+		{
+			long start = System.nanoTime();
+			task.run();
+			times[ i ] = ( System.nanoTime() - start ) / 1000000.0;
+		}
+
+		Arrays.sort( times );
+		return times[ MEASURED_RUNS / 2 ];
+	}
+
+	/**
+	 * Returns number of bytes allocated by the current thread while 
+	 * running the task once, or -1 if the JVM can not report it.
+	 */
+	public static long allocatedBytes(Task task)
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if ( ! ( bean instanceof com.sun.management.ThreadMXBean ) )
+			return -1;
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		long id = Thread.currentThread().getId();
+
+		long start = threadBean.getThreadAllocatedBytes( id );
+		task.run();
+		return threadBean.getThreadAllocatedBytes( id ) - start;
+	}
+
+	/**
+	 * Returns heap used by live objects after the full garbage collection.
+	 */
+	public static long usedHeap()
+	{
+		for ( int i = 0; i < 3; i++ )
+			System.gc();
+
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	public static void print(String name, String value)
+	{
+		System.out.println( String.format( "%-40s %s", name, value ) );
+	}
+
+	public static void printTime(String name, double ms)
+	{
+		print( name, String.format( "%.3f ms", ms ) );
+	}
+
+	public static void printBytes(String name, long bytes)
+	{
+		print( name, String.format( "%.1f KB", bytes / 1024.0 ) );
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.benchmark;
+
+import thothbot.parallax.core.shared.geometries.SphereGeometry;
+import thothbot.parallax.loader.shared.BinaryLoader;
+import thothbot.parallax.loader.shared.BinaryModelWriter;
+import thothbot.parallax.loader.shared.json.JsoObject;
+import thothbot.parallax.loader.shared.json.JsoObjectFactory;
+import thothbot.parallax.loader.shared.json.JsonModelParser;
+
+import com.google.gwt.typedarrays.shared.ArrayBuffer;
+import com.google.web.bindery.autobean.shared.AutoBeanCodex;
+import com.google.web.bindery.autobean.vm.AutoBeanFactorySource;
+
+/**
+ * Compares {@link BinaryLoader} with reading of the same model from 
+ * JSON by the streaming {@link JsonModelParser}.
+ * <p>
+ * The binary model is ready for the GPU after the parse. The JSON model 
+ * still needs the Geometry and its staging arrays, which are not measured 
+ * here, so the JSON numbers are a lower bound.
+ * <p>
+ * The JVM typed arrays of GWT 2.5 ignore the byte offset of a view in 
+ * ArrayBufferViewImpl.checkRange(), so the sections of the binary model 
+ * can not be read there. The benchmark should be run with that check 
+ * corrected, the class placed before gwt-user on the classpath.
+ * 
+ * @author thothbot
+ *
+ */
+public class BinaryParseBenchmark extends Benchmark
+{
+	private static final JsoObjectFactory FACTORY = AutoBeanFactorySource.create( JsoObjectFactory.class );
+
+	public static void main(String[] args)
+	{
+		int[][] sizes = { { 64, 32 }, { 256, 128 }, { 512, 256 } };
+
+		for ( int[] size : sizes )
+			run( new SphereGeometry( 100, size[0], size[1] ) );
+	}
+
+	private static void run(SphereGeometry geometry)
+	{
+		final String json = JsonModels.write( geometry );
+		final ArrayBuffer buffer = BinaryModelWriter.write( geometry );
+		final int[] checksum = new int[1];
+
+		Task binary = new Task() {
+			public void run()
+			{
+				BinaryLoader loader = new BinaryLoader();
+				loader.parse( buffer );
+				checksum[0] += loader.getGeometry().getWebGlVertexArray().length();
+			}
+		};
+
+		Task streaming = new Task() {
+			public void run()
+			{
+				JsonModelParser parser = new JsonModelParser( json );
+				parser.parse();
+				AutoBeanCodex.decode( FACTORY, JsoObject.class, parser.getRemainder() ).as();
+				checksum[0] += parser.getVerticesLength();
+			}
+		};
+
+		print( "faces", String.valueOf( geometry.getFaces().size() ) );
+		print( "  json / binary size", String.format( "%.1f KB / %.1f KB", json.length() / 1024.0, buffer.byteLength() / 1024.0 ) );
+
+		double jsonTime = time( streaming );
+		double binaryTime = time( binary );
+
+		printTime( "  json streaming, time", jsonTime );
+		printTime( "  binary, time", binaryTime );
+		print( "  speedup", String.format( "%.0fx", jsonTime / binaryTime ) );
+
+		printBytes( "  json streaming, allocated", allocatedBytes( streaming ) );
+		printBytes( "  binary, allocated", allocatedBytes( binary ) );
+	}
+}
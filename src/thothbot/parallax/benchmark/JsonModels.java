@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.benchmark;
+
+import java.util.List;
+
+import thothbot.parallax.core.shared.core.Face3;
+import thothbot.parallax.core.shared.core.Face4;
+import thothbot.parallax.core.shared.core.Geometry;
+import thothbot.parallax.core.shared.core.UV;
+import thothbot.parallax.core.shared.core.Vector3;
+
+/**
+ * Writes a Geometry as the three.js JSON model, format version 3, 
+ * with vertex normals and one uv layer per face vertex. Numbers 
+ * are rounded to 6 decimals, as the exporters do.
+ * 
+ * @author thothbot
+ *
+ */
+class JsonModels
+{
+	private static final int FACE_QUAD = 1;
+	private static final int FACE_VERTEX_UV = 1 << 3;
+	private static final int FACE_VERTEX_NORMAL = 1 << 5;
+
+	public static String write(Geometry geometry)
+	{
+		StringBuilder vertices = new StringBuilder();
+		for ( Vector3 vertex : geometry.getVertices() )
+			append( vertices, vertex.getX() ).append( ',' )
+				.append( format( vertex.getY() ) ).append( ',' )
+				.append( format( vertex.getZ() ) );
+
+		StringBuilder normals = new StringBuilder();
+		StringBuilder uvs = new StringBuilder();
+		StringBuilder faces = new StringBuilder();
+
+		List<List<UV>> faceUvs = geometry.getFaceVertexUvs().get( 0 );
+		int corner = 0;
+
+		for ( int f = 0; f < geometry.getFaces().size(); f++ )
+		{
+			Face3 face = geometry.getFaces().get( f );
+			boolean isQuad = face instanceof Face4;
+			int corners = isQuad ? 4 : 3;
+
+			append( faces, ( isQuad ? FACE_QUAD : 0 ) | FACE_VERTEX_UV | FACE_VERTEX_NORMAL );
+			append( faces, face.getA() );
+			append( faces, face.getB() );
+			append( faces, face.getC() );
+			if ( isQuad )
+				append( faces, ((Face4) face).getD() );
+
+			for ( int i = 0; i < corners; i++ )
+			{
+				UV uv = faceUvs.get( f ).get( i );
+				append( uvs, uv.getU() ).append( ',' ).append( format( uv.getV() ) );
+				append( faces, corner + i );
+			}
+
+			for ( int i = 0; i < corners; i++ )
+			{
+				Vector3 normal = face.getVertexNormals().get( i );
+				append( normals, normal.getX() ).append( ',' )
+					.append( format( normal.getY() ) ).append( ',' )
+					.append( format( normal.getZ() ) );
+				append( faces, corner + i );
+			}
+
+			corner += corners;
+		}
+
+		return "{\"metadata\":{\"formatVersion\":3},\"scale\":1.0,\"materials\":[],"
+			+ "\"vertices\":[" + vertices + "],"
+			+ "\"morphTargets\":[],\"morphColors\":[],"
+			+ "\"normals\":[" + normals + "],"
+			+ "\"colors\":[],"
+			+ "\"uvs\":[[" + uvs + "]],"
+			+ "\"faces\":[" + faces + "]}";
+	}
+
+	private static StringBuilder append(StringBuilder builder, double value)
+	{
+		if ( builder.length() > 0 )
+			builder.append( ',' );
+
+		return builder.append( format( value ) );
+	}
+
+	private static StringBuilder append(StringBuilder builder, int value)
+	{
+		if ( builder.length() > 0 )
+			builder.append( ',' );
+
+		return builder.append( value );
+	}
+
+	private static String format(double value)
+	{
+		double rounded = Math.round( value * 1e6 ) / 1e6;
+		return rounded == (long) rounded ? String.valueOf( (long) rounded ) : String.valueOf( rounded );
+	}
+}
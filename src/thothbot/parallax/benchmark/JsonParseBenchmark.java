@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.benchmark;
+
+import java.util.List;
+
+import thothbot.parallax.core.shared.geometries.SphereGeometry;
+import thothbot.parallax.loader.shared.json.JsoObject;
+import thothbot.parallax.loader.shared.json.JsoObjectFactory;
+import thothbot.parallax.loader.shared.json.JsonModelParser;
+
+import com.google.web.bindery.autobean.shared.AutoBeanCodex;
+import com.google.web.bindery.autobean.vm.AutoBeanFactorySource;
+
+/**
+ * Compares reading of the JSON model geometry arrays by the streaming 
+ * {@link JsonModelParser} with the AutoBean codex, which creates boxed lists.
+ * <p>
+ * Only the steps which differ between two modes of 
+ * {@link thothbot.parallax.loader.shared.JsonLoader} are measured: 
+ * decoding and reading every number of the arrays. Building of the 
+ * Geometry is shared by both modes. The AutoBean codex of the JVM is 
+ * used here, so absolute numbers differ from the browser.
+ * 
+ * @author thothbot
+ *
+ */
+public class JsonParseBenchmark extends Benchmark
+{
+	private static final JsoObjectFactory FACTORY = AutoBeanFactorySource.create( JsoObjectFactory.class );
+
+	public static void main(String[] args)
+	{
+		int[][] sizes = { { 64, 32 }, { 256, 128 } };
+
+		for ( int[] size : sizes )
+			run( JsonModels.write( new SphereGeometry( 100, size[0], size[1] ) ) );
+	}
+
+	private static void run(final String json)
+	{
+		final Object[] result = new Object[1];
+		final double[] checksum = new double[2];
+
+		Task lists = new Task() {
+			public void run()
+			{
+				JsoObject object = AutoBeanCodex.decode( FACTORY, JsoObject.class, json ).as();
+				checksum[0] = sumDoubles( object.getVertices() ) + sumDoubles( object.getNormals() ) 
+						+ sumDoubles( object.getUvs().get( 0 ) ) + sumIntegers( object.getFaces() );
+				result[0] = object;
+			}
+		};
+
+		Task streaming = new Task() {
+			public void run()
+			{
+				JsonModelParser parser = new JsonModelParser( json );
+				parser.parse();
+				AutoBeanCodex.decode( FACTORY, JsoObject.class, parser.getRemainder() ).as();
+				checksum[1] = sum( parser.getVertices(), parser.getVerticesLength() ) 
+						+ sum( parser.getNormals(), parser.getNormalsLength() ) 
+						+ sum( parser.getUvs()[0], parser.getUvsLengths()[0] ) 
+						+ sum( parser.getFaces(), parser.getFacesLength() );
+				result[0] = parser;
+			}
+		};
+
+		print( "document", String.format( "%.1f KB", json.length() / 1024.0 ) );
+
+		printTime( "  lists, time", time( lists ) );
+		printTime( "  streaming, time", time( streaming ) );
+
+		printBytes( "  lists, allocated", allocatedBytes( lists ) );
+		printBytes( "  streaming, allocated", allocatedBytes( streaming ) );
+
+		printBytes( "  lists, retained after parse", retainedBytes( lists, result ) );
+		printBytes( "  streaming, retained after parse", retainedBytes( streaming, result ) );
+
+		print( "  same numbers", String.valueOf( Math.abs( checksum[0] - checksum[1] ) < 1e-6 * Math.abs( checksum[0] ) ) );
+	}
+
+	private static long retainedBytes(Task task, Object[] result)
+	{
+		result[0] = null;
+		long before = usedHeap();
+		task.run();
+		long after = usedHeap();
+		result[0] = null;
+
+		return after - before;
+	}
+
+	private static double sumDoubles(List<Double> list)
+	{
+		double sum = 0;
+		for ( int i = 0, l = list.size(); i < l; i++ )
+			sum += list.get( i );
+
+		return sum;
+	}
+
+	private static double sumIntegers(List<Integer> list)
+	{
+		double sum = 0;
+		for ( int i = 0, l = list.size(); i < l; i++ )
+			sum += list.get( i );
+
+		return sum;
+	}
+
+	private static double sum(double[] array, int length)
+	{
+		double sum = 0;
+		for ( int i = 0; i < length; i++ )
+			sum += array[ i ];
+
+		return sum;
+	}
+
+	private static double sum(int[] array, int length)
+	{
+		double sum = 0;
+		for ( int i = 0; i < length; i++ )
+			sum += array[ i ];
+
+		return sum;
+	}
+}
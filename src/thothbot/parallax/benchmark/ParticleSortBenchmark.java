@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import thothbot.parallax.core.client.shaders.Attribute;
+import thothbot.parallax.core.shared.core.Color;
+import thothbot.parallax.core.shared.core.Geometry;
+import thothbot.parallax.core.shared.core.Matrix4;
+import thothbot.parallax.core.shared.core.RadixSort;
+import thothbot.parallax.core.shared.core.Vector3;
+import thothbot.parallax.core.shared.materials.ShaderMaterial;
+import thothbot.parallax.core.shared.objects.ParticleSystem;
+
+import com.google.gwt.typedarrays.shared.TypedArrays;
+
+/**
+ * Compares the particle depth sorting by {@link RadixSort} with the 
+ * previous sorting of boxed (depth, index) lists by a Comparator, 
+ * and measures the whole per-frame path of the sorted {@link ParticleSystem}: 
+ * {@link ParticleSystem#sortBuffers(Matrix4)}, which is called by setBuffers() 
+ * and reorders the vertex, colour and custom attribute arrays.
+ * <p>
+ * Each frame looks at the particles from another direction, so the 
+ * input is never sorted already.
+ * 
+ * @author thothbot
+ *
+ */
+public class ParticleSortBenchmark extends Benchmark
+{
+	private static final int FRAMES = 10;
+
+	public static void main(String[] args)
+	{
+		int[] sizes = { 1000, 10000, 100000, 1000000 };
+
+		for ( int size : sizes )
+			run( size );
+	}
+
+	private static void run(final int count)
+	{
+		print( "particles", String.valueOf( count ) );
+
+		final double[] positions = new double[ count * 3 ];
+		Random random = new Random( 1 );
+		for ( int i = 0; i < positions.length; i++ )
+			positions[ i ] = ( random.nextDouble() - 0.5 ) * 2000;
+
+		final RadixSort radixSort = new RadixSort( count );
+
+		// Keeps the sorted results alive for the JIT
+		final int[] checksum = new int[1];
+
+		Task radix = new Task() {
+			public void run()
+			{
+				for ( int frame = 0; frame < FRAMES; frame++ )
+				{
+					double angle = frame * 0.3, dx = Math.cos( angle ), dz = Math.sin( angle );
+					double[] depths = radixSort.getDepths();
+
+					for ( int v = 0; v < count; v++ )
+						depths[ v ] = dx * positions[ v * 3 ] + dz * positions[ v * 3 + 2 ];
+
+					int[] order = radixSort.sort( count, true );
+					checksum[0] += order[0];
+				}
+			}
+		};
+
+		Task boxed = new Task() {
+			public void run()
+			{
+				for ( int frame = 0; frame < FRAMES; frame++ )
+				{
+					double angle = frame * 0.3, dx = Math.cos( angle ), dz = Math.sin( angle );
+					List<List<Integer>> sortArray = new ArrayList<List<Integer>>();
+
+					for ( int v = 0; v < count; v++ )
+					{
+						double depth = dx * positions[ v * 3 ] + dz * positions[ v * 3 + 2 ];
+						sortArray.add( v, new ArrayList<Integer>( Arrays.asList( (int)-depth, v ) ) );
+					}
+
+					Collections.sort( sortArray, new Comparator<List<Integer>>() {
+						@Override
+						public int compare(List<Integer> o1, List<Integer> o2)
+						{
+							return o1.get(0).compareTo( o2.get(0) );
+						}
+					});
+
+					checksum[0] += sortArray.get(0).get(1);
+				}
+			}
+		};
+
+		double radixTime = time( radix ) / FRAMES;
+		double boxedTime = time( boxed ) / FRAMES;
+
+		long radixBytes = allocatedBytes( radix ) / FRAMES;
+		long boxedBytes = allocatedBytes( boxed ) / FRAMES;
+
+		printTime( "  boxed lists, per frame", boxedTime );
+		printTime( "  radix sort, per frame", radixTime );
+		print( "  speedup", String.format( "%.1fx", boxedTime / radixTime ) );
+		printBytes( "  boxed lists, allocated per frame", boxedBytes );
+		printBytes( "  radix sort, allocated per frame", radixBytes );
+		print( "  radix order is back to front", String.valueOf( isBackToFront( radixSort, positions, count ) ) );
+
+		final ParticleSystem particles = createParticles( positions, count );
+
+		// Camera orbits the particles, matrices are prepared outside of the measured task
+		final Matrix4[] projScreenMatrices = new Matrix4[ FRAMES ];
+		Matrix4 projectionMatrix = new Matrix4().makePerspective( 45, 1, 1, 10000 );
+		Vector3 target = new Vector3(), up = new Vector3( 0, 1, 0 );
+
+		for ( int frame = 0; frame < FRAMES; frame++ )
+		{
+			double angle = frame * 0.3;
+			Vector3 eye = new Vector3( Math.cos( angle ) * 3000, 0, Math.sin( angle ) * 3000 );
+			Matrix4 cameraMatrix = new Matrix4().lookAt( eye, target, up ).setPosition( eye );
+
+			projScreenMatrices[ frame ] = new Matrix4().multiply( projectionMatrix, new Matrix4().getInverse( cameraMatrix ) );
+		}
+
+		Task sortBuffers = new Task() {
+			public void run()
+			{
+				for ( int frame = 0; frame < FRAMES; frame++ )
+					particles.sortBuffers( projScreenMatrices[ frame ] );
+			}
+		};
+
+		printTime( "  sortBuffers(), per frame", time( sortBuffers ) / FRAMES );
+		printBytes( "  sortBuffers(), allocated per frame", allocatedBytes( sortBuffers ) / FRAMES );
+	}
+
+	/*
+	 * Sets up the WebGL arrays like ParticleSystem.initBuffers(): 
+	 * vertices, colors and one float custom attribute.
+	 */
+	private static ParticleSystem createParticles(double[] positions, int count)
+	{
+		Geometry geometry = new Geometry();
+		List<Double> sizes = new ArrayList<Double>();
+
+		for ( int v = 0; v < count; v++ )
+		{
+			geometry.getVertices().add( new Vector3( positions[ v * 3 ], positions[ v * 3 + 1 ], positions[ v * 3 + 2 ] ) );
+			geometry.getColors().add( new Color( v & 0xffffff ) );
+			sizes.add( (double)( v % 10 ) );
+		}
+
+		geometry.setWebGlVertexArray( TypedArrays.createFloat32Array( count * 3 ) );
+		geometry.setWebGlColorArray( TypedArrays.createFloat32Array( count * 3 ) );
+		geometry.sortArray = new RadixSort( count );
+
+		Attribute size = new Attribute( Attribute.TYPE.F, sizes );
+		size.size = 1;
+		size.array = TypedArrays.createFloat32Array( count );
+
+		geometry.__webglCustomAttributesList = new ArrayList<Attribute>();
+		geometry.__webglCustomAttributesList.add( size );
+
+		ParticleSystem particles = new ParticleSystem( geometry, new ShaderMaterial( "", "" ) );
+		particles.sortParticles = true;
+		particles.updateMatrixWorld( true );
+
+		return particles;
+	}
+
+	private static boolean isBackToFront(RadixSort radixSort, double[] positions, int count)
+	{
+		double[] depths = radixSort.getDepths();
+		for ( int v = 0; v < count; v++ )
+			depths[ v ] = positions[ v * 3 ];
+
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for ( int v = 0; v < count; v++ )
+		{
+			min = Math.min( min, depths[ v ] );
+			max = Math.max( max, depths[ v ] );
+		}
+
+		int[] order = radixSort.sort( count, true );
+
+		// Depths closer than one key step may keep any order
+		double epsilon = ( max - min ) / Integer.MAX_VALUE * 2;
+		for ( int i = 1; i < count; i++ )
+			if ( depths[ order[ i ] ] > depths[ order[ i - 1 ] ] + epsilon )
+				return false;
+
+		return true;
+	}
+}
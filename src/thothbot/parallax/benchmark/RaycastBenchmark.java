@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.benchmark;
+
+import java.util.List;
+import java.util.Random;
+
+import thothbot.parallax.core.shared.core.GeometryBvh;
+import thothbot.parallax.core.shared.core.Ray;
+import thothbot.parallax.core.shared.core.Vector3;
+import thothbot.parallax.core.shared.geometries.SphereGeometry;
+import thothbot.parallax.core.shared.materials.MeshBasicMaterial;
+import thothbot.parallax.core.shared.objects.Mesh;
+
+/**
+ * Compares Ray picking of one large mesh with and without 
+ * {@link thothbot.parallax.core.shared.core.GeometryBvh}.
+ * 
+ * @author thothbot
+ *
+ */
+public class RaycastBenchmark extends Benchmark
+{
+	private static final int RAYS = 200;
+
+	public static void main(String[] args)
+	{
+		int[][] sizes = { { 64, 32 }, { 128, 64 }, { 256, 128 }, { 512, 256 } };
+
+		for ( int[] size : sizes )
+			run( size[0], size[1] );
+	}
+
+	private static void run(int widthSegments, int heightSegments)
+	{
+		SphereGeometry geometry = new SphereGeometry( 100, widthSegments, heightSegments );
+		geometry.computeBoundingSphere();
+
+		final Mesh mesh = new Mesh( geometry, new MeshBasicMaterial() );
+		mesh.updateMatrixWorld( true );
+
+		final Ray[] rays = new Ray[ RAYS ];
+		Random random = new Random( 1 );
+		for ( int i = 0; i < RAYS; i++ )
+		{
+			Vector3 origin = new Vector3( random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5 )
+				.normalize().multiply( 300 );
+			Vector3 target = new Vector3( random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5 )
+				.multiply( 150 );
+			rays[ i ] = new Ray( origin, target.sub( origin ).normalize() );
+		}
+
+		final int[] hits = new int[1];
+		Task pick = new Task() {
+			public void run()
+			{
+				hits[0] = 0;
+				for ( int i = 0; i < RAYS; i++ )
+				{
+					List<Ray.Intersect> intersects = rays[ i ].intersectObject( mesh );
+					hits[0] += intersects.size();
+				}
+			}
+		};
+
+		print( "faces", String.valueOf( geometry.getFaces().size() ) );
+
+		geometry.setUseBvh( false );
+		double linear = time( pick );
+		int linearHits = hits[0];
+
+		final SphereGeometry bvhGeometry = geometry;
+		double build = time( new Task() {
+			public void run()
+			{
+				new GeometryBvh( bvhGeometry );
+			}
+		});
+
+		geometry.setUseBvh( true );
+		double bvh = time( pick );
+
+		printTime( "  linear, per ray", linear / RAYS );
+		printTime( "  bvh, per ray", bvh / RAYS );
+		printTime( "  bvh build", build );
+		print( "  speedup", String.format( "%.1fx", linear / bvh ) );
+		print( "  hits linear / bvh", linearHits + " / " + hits[0] );
+	}
+}
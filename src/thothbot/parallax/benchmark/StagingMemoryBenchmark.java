@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.benchmark;
+
+import thothbot.parallax.core.shared.core.GeometryBuffer;
+import thothbot.parallax.core.shared.core.Vector3;
+import thothbot.parallax.core.shared.geometries.SphereGeometry;
+
+import com.google.gwt.typedarrays.shared.Float32Array;
+import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.TypedArrays;
+
+/**
+ * Accounts the bytes per vertex held by the CPU staging arrays of 
+ * a fully attributed {@link GeometryBuffer}: positions, normals, tangents, 
+ * colors and uvs. The same arrays are accounted for the old Float64 layout 
+ * and for the current Float32 layout, and the check fails if the 
+ * Float32 layout does not take exactly half of the memory.
+ * 
+ * @author thothbot
+ *
+ */
+public class StagingMemoryBenchmark extends Benchmark
+{
+	public static void main(String[] args)
+	{
+		int[][] sizes = { { 32, 16 }, { 128, 64 }, { 256, 128 } };
+
+		for ( int[] size : sizes )
+			run( size[0], size[1] );
+	}
+
+	private static void run(int widthSegments, int heightSegments)
+	{
+		SphereGeometry geometry = new SphereGeometry( 100, widthSegments, heightSegments );
+		int vertices = geometry.getVertices().size();
+
+		GeometryBuffer buffer = new GeometryBuffer();
+		buffer.setWebGlVertexArray( TypedArrays.createFloat32Array( vertices * 3 ) );
+		buffer.setWebGlNormalArray( TypedArrays.createFloat32Array( vertices * 3 ) );
+		buffer.setWebGlTangentArray( TypedArrays.createFloat32Array( vertices * 4 ) );
+		buffer.setWebGlColorArray( TypedArrays.createFloat32Array( vertices * 3 ) );
+		buffer.setWebGlUvArray( TypedArrays.createFloat32Array( vertices * 2 ) );
+
+		for ( int i = 0; i < vertices; i++ )
+		{
+			Vector3 vertex = geometry.getVertices().get( i );
+			set( buffer.getWebGlVertexArray(), i * 3, vertex.getX(), vertex.getY(), vertex.getZ() );
+
+			Vector3 normal = vertex.clone().normalize();
+			set( buffer.getWebGlNormalArray(), i * 3, normal.getX(), normal.getY(), normal.getZ() );
+			set( buffer.getWebGlTangentArray(), i * 4, -normal.getZ(), 0, normal.getX(), 1 );
+			set( buffer.getWebGlColorArray(), i * 3, 1, 1, 1 );
+			set( buffer.getWebGlUvArray(), i * 2, (double)i / vertices, 0 );
+		}
+
+		Float32Array[] arrays = {
+			buffer.getWebGlVertexArray(), buffer.getWebGlNormalArray(), buffer.getWebGlTangentArray(),
+			buffer.getWebGlColorArray(), buffer.getWebGlUvArray()
+		};
+
+		long float32Bytes = 0, float64Bytes = 0;
+		for ( Float32Array array : arrays )
+		{
+			float32Bytes += array.byteLength();
+			float64Bytes += (long)array.length() * Float64Array.BYTES_PER_ELEMENT;
+		}
+
+		print( "vertices", String.valueOf( vertices ) );
+		printBytes( "  Float64 layout", float64Bytes );
+		printBytes( "  Float32 layout", float32Bytes );
+		print( "  bytes per vertex", float64Bytes / vertices + " -> " + float32Bytes / vertices );
+
+		if ( float64Bytes != 2 * float32Bytes )
+			throw new IllegalStateException( "Float32 staging should take half of Float64: " 
+					+ float32Bytes + " of " + float64Bytes + " bytes" );
+	}
+
+	private static void set(Float32Array array, int offset, double... values)
+	{
+		for ( int i = 0; i < values.length; i++ )
+			array.set( offset + i, (float)values[ i ] );
+	}
+}
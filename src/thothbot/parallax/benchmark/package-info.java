@@ -0,0 +1,11 @@
+/**
+ * Benchmarks of the engine code, which run on the JVM outside GWT. 
+ * Each class has a main method, for example:
+ * <pre>
+ * java -cp parallax.jar:gwt-user.jar:gwt-dev.jar thothbot.parallax.benchmark.RaycastBenchmark
+ * </pre>
+ * gwt-dev is needed at run time by the classes which check GWT.isScript(), 
+ * and the loader benchmarks also need org.json for the AutoBean codex.
+ * These classes are not a part of any GWT module.
+ */
+package thothbot.parallax.benchmark;
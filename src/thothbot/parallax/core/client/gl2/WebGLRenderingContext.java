@@ -61,6 +61,7 @@ import com.google.gwt.dom.client.ImageElement;
 import com.google.gwt.dom.client.VideoElement;
 import com.google.gwt.typedarrays.shared.ArrayBuffer;
 import com.google.gwt.typedarrays.shared.ArrayBufferView;
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.Float64Array;
 import com.google.gwt.typedarrays.shared.Int32Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
@@ -290,6 +291,17 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.bufferData(target, data, usage);
   }-*/;
 
+  /**
+   * @see #bufferSubData(BufferTarget, int, TypedArrays)
+   */
+  public void bufferSubData(BufferTarget target, int offset, ArrayBufferView data) {
+	  bufferSubData(target.getValue(), offset, data);
+  }
+
+  private native void bufferSubData(int target, int offset, ArrayBufferView data) /*-{
+		this.bufferSubData(target, offset, data);
+  }-*/;
+
   /**
    * @see #bufferSubData(BufferTarget, int, TypedArrays)
    */
@@ -1841,6 +1853,18 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.uniform1fv(location, v);
   }-*/;
 
+  /**
+   * Sets the specified uniform to the values provided.
+   *  
+   * @param location must have been obtained from the currently used program 
+   * 				via an earlier call to getUniformLocation, or an INVALID_VALUE 
+   * 				error will be raised.
+   * @param v
+   */
+  public native void uniform1fv(WebGLUniformLocation location, Float32Array v) /*-{
+		this.uniform1fv(location, v);
+  }-*/;
+
   /**
    * Sets the specified uniform to the values provided.
    *  
@@ -1926,6 +1950,18 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.uniform2fv(location, v);
   }-*/;
 
+  /**
+   * Sets the specified uniform to the values provided.
+   *  
+   * @param location must have been obtained from the currently used program 
+   * 				via an earlier call to getUniformLocation, or an INVALID_VALUE 
+   * 				error will be raised.
+   * @param v
+   */
+  public native void uniform2fv(WebGLUniformLocation location, Float32Array v) /*-{
+		this.uniform2fv(location, v);
+  }-*/;
+
   /**
    * Sets the specified uniform to the values provided.
    *  
@@ -2025,6 +2061,18 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.uniform3fv(location, v);
   }-*/;
 
+  /**
+   * Sets the specified uniform to the values provided.
+   *  
+   * @param location must have been obtained from the currently used program 
+   * 				via an earlier call to getUniformLocation, or an INVALID_VALUE 
+   * 				error will be raised.
+   * @param v
+   */
+  public native void uniform3fv(WebGLUniformLocation location, Float32Array v) /*-{
+		this.uniform3fv(location, v);
+  }-*/;
+
   /**
    * Sets the specified uniform to the values provided.
    *  
@@ -2126,6 +2174,18 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.uniform4fv(location, v);
   }-*/;
 
+  /**
+   * Sets the specified uniform to the values provided.
+   *  
+   * @param location must have been obtained from the currently used program 
+   * 				via an earlier call to getUniformLocation, or an INVALID_VALUE 
+   * 				error will be raised.
+   * @param v
+   */
+  public native void uniform4fv(WebGLUniformLocation location, Float32Array v) /*-{
+		this.uniform4fv(location, v);
+  }-*/;
+
   /**
    * Sets the specified uniform to the values provided.
    *  
@@ -2216,6 +2276,20 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.uniformMatrix2fv(location, transpose, value);
   }-*/;
 
+  /**
+   * Sets the specified uniform to the values provided.
+   *  
+   * @param location must have been obtained from the currently used program 
+   * 				via an earlier call to getUniformLocation, or an INVALID_VALUE 
+   * 				error will be raised.
+   * @param transpose
+   * @param value
+   */
+  public native void uniformMatrix2fv(WebGLUniformLocation location, boolean transpose,
+      Float32Array value) /*-{
+		this.uniformMatrix2fv(location, transpose, value);
+  }-*/;
+
   /**
    * Sets the specified uniform to the values provided.
    *  
@@ -2257,6 +2331,20 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.uniformMatrix3fv(location, transpose, value);
   }-*/;
 
+  /**
+   * Sets the specified uniform to the values provided.
+   *  
+   * @param location must have been obtained from the currently used program 
+   * 				via an earlier call to getUniformLocation, or an INVALID_VALUE 
+   * 				error will be raised.
+   * @param transpose
+   * @param value
+   */
+  public native void uniformMatrix3fv(WebGLUniformLocation location, boolean transpose,
+      Float32Array value) /*-{
+		this.uniformMatrix3fv(location, transpose, value);
+  }-*/;
+
   /**
    * Sets the specified uniform to the values provided.
    *  
@@ -2298,6 +2386,20 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.uniformMatrix4fv(location, transpose, value);
   }-*/;
 
+  /**
+   * Sets the specified uniform to the values provided.
+   *  
+   * @param location must have been obtained from the currently used program 
+   * 				via an earlier call to getUniformLocation, or an INVALID_VALUE 
+   * 				error will be raised.
+   * @param transpose
+   * @param value
+   */
+  public native void uniformMatrix4fv(WebGLUniformLocation location, boolean transpose,
+      Float32Array value) /*-{
+		this.uniformMatrix4fv(location, transpose, value);
+  }-*/;
+
   /**
    * Sets the specified uniform to the values provided.
    *  
@@ -2367,6 +2469,18 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.vertexAttrib1fv(index, value);
   }-*/;
 
+  /**
+   * Specifies the value of a generic vertex attribute.
+   * 
+   * @param index Specifies the index of the generic vertex attribute to 
+   * 				be modified.
+   * @param value Specifies the new values to be used for the specified vertex 
+   * 				attribute.
+   */
+  public native void vertexAttrib1fv(int index, Float32Array value) /*-{
+		this.vertexAttrib1fv(index, value);
+  }-*/;
+
   /**
    * Specifies the value of a generic vertex attribute.
    * 
@@ -2416,6 +2530,18 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
   public native void vertexAttrib2fv(int index, Float64Array value) /*-{
 		this.vertexAttrib2fv(index, value);
   }-*/;
+
+  /**
+   * Specifies the value of a generic vertex attribute.
+   * 
+   * @param index Specifies the index of the generic vertex attribute to 
+   * 				be modified.
+   * @param value Specifies the new values to be used for the specified vertex 
+   * 				attribute.
+   */
+  public native void vertexAttrib2fv(int index, Float32Array value) /*-{
+		this.vertexAttrib2fv(index, value);
+  }-*/;
   
   /**
    * Specifies the value of a generic vertex attribute.
@@ -2469,6 +2595,18 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.vertexAttrib3fv(index, value);
   }-*/;
 
+  /**
+   * Specifies the value of a generic vertex attribute.
+   * 
+   * @param index Specifies the index of the generic vertex attribute to 
+   * 				be modified.
+   * @param value Specifies the new values to be used for the specified vertex 
+   * 				attribute.
+   */
+  public native void vertexAttrib3fv(int index, Float32Array value) /*-{
+		this.vertexAttrib3fv(index, value);
+  }-*/;
+
   /**
    * Specifies the value of a generic vertex attribute.
    * 
@@ -2523,6 +2661,18 @@ public final class WebGLRenderingContext extends JavaScriptObject implements Con
 		this.vertexAttrib4fv(index, value);
   }-*/;
 
+  /**
+   * Specifies the value of a generic vertex attribute.
+   * 
+   * @param index Specifies the index of the generic vertex attribute to 
+   * 				be modified.
+   * @param value Specifies the new values to be used for the specified vertex 
+   * 				attribute.
+   */
+  public native void vertexAttrib4fv(int index, Float32Array value) /*-{
+		this.vertexAttrib4fv(index, value);
+  }-*/;
+
   /**
    * Specifies the value of a generic vertex attribute.
    * 
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.core.client.gl2.extension;
+
+import thothbot.parallax.core.client.gl2.WebGLExtension;
+import thothbot.parallax.core.client.gl2.enums.BeginMode;
+import thothbot.parallax.core.client.gl2.enums.DrawElementsType;
+
+/**
+ * ANGLE_instanced_arrays extension: draws many instances of the same 
+ * geometry with one call, reading per-instance attributes with a divisor.
+ * 
+ * @author thothbot
+ *
+ */
+public class AngleInstancedArrays extends WebGLExtension 
+{
+	public static final int VERTEX_ATTRIB_ARRAY_DIVISOR_ANGLE = 0x88FE;
+	
+	protected AngleInstancedArrays() {
+		
+	}
+
+	/**
+	 * Renders instances of primitives from array data.
+	 * 
+	 * @param mode      the kind of primitives to render
+	 * @param first     the starting index in the enabled arrays
+	 * @param count     the number of vertices to be rendered
+	 * @param primcount the number of instances to be rendered
+	 */
+	public final void drawArraysInstancedANGLE(BeginMode mode, int first, int count, int primcount) {
+		drawArraysInstancedANGLE(mode.getValue(), first, count, primcount);
+	}
+
+	private native void drawArraysInstancedANGLE(int mode, int first, int count, int primcount) /*-{
+		this.drawArraysInstancedANGLE(mode, first, count, primcount);
+	}-*/;
+
+	/**
+	 * Renders instances of primitives from the bound element array buffer.
+	 * 
+	 * @param mode      the kind of primitives to render
+	 * @param count     the number of elements to be rendered
+	 * @param type      the type of the values in the element array buffer
+	 * @param offset    the byte offset in the element array buffer
+	 * @param primcount the number of instances to be rendered
+	 */
+	public final void drawElementsInstancedANGLE(BeginMode mode, int count, DrawElementsType type, int offset, int primcount) {
+		drawElementsInstancedANGLE(mode.getValue(), count, type.getValue(), offset, primcount);
+	}
+
+	private native void drawElementsInstancedANGLE(int mode, int count, int type, int offset, int primcount) /*-{
+		this.drawElementsInstancedANGLE(mode, count, type, offset, primcount);
+	}-*/;
+
+	/**
+	 * Sets the rate at which the generic vertex attribute advances.
+	 * 
+	 * @param index   the generic vertex attribute index
+	 * @param divisor 0 - advance per vertex, N - advance once per N instances
+	 */
+	public final native void vertexAttribDivisorANGLE(int index, int divisor) /*-{
+		this.vertexAttribDivisorANGLE(index, divisor);
+	}-*/;
+}
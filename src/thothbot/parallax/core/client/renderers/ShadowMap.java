@@ -20,7 +20,6 @@ package thothbot.parallax.core.client.renderers;
 
 import java.util.List;
 
-import thothbot.parallax.core.client.gl2.WebGLRenderingContext;
 import thothbot.parallax.core.client.gl2.enums.CullFaceMode;
 import thothbot.parallax.core.client.gl2.enums.EnableCap;
 import thothbot.parallax.core.client.gl2.enums.FrontFaceDirection;
@@ -50,7 +49,6 @@ import thothbot.parallax.core.shared.lights.VirtualLight;
 import thothbot.parallax.core.shared.materials.Material;
 import thothbot.parallax.core.shared.materials.ShaderMaterial;
 import thothbot.parallax.core.shared.objects.GeometryObject;
-import thothbot.parallax.core.shared.objects.Mesh;
 import thothbot.parallax.core.shared.objects.RendererObject;
 import thothbot.parallax.core.shared.objects.SkinnedMesh;
 import thothbot.parallax.core.shared.scenes.Scene;
@@ -62,6 +60,7 @@ public final class ShadowMap extends Plugin
 	private boolean isCullFrontFaces = true;
 	private boolean isDebugEnabled = false;
 	private boolean isCascade = false;
+	private boolean isCacheStatic = false;
 	
 	private ShaderMaterial depthMaterial, depthMaterialMorph, depthMaterialSkin, depthMaterialMorphSkin;
 
@@ -72,6 +71,9 @@ public final class ShadowMap extends Plugin
 	private Vector3 max;
 	
 	private static Projector projector = new Projector();
+
+	// Caster id, its geometry bounds version and its world matrix
+	private static final int CASTER_STATE_SIZE = 18;
 	
 	public ShadowMap(WebGLRenderer renderer, Scene scene) 
 	{
@@ -140,6 +142,19 @@ public final class ShadowMap extends Plugin
 		this.isCascade = isCascade;
 	}
 
+	/**
+	 * Checks if depth maps of the lights are reused while neither the light 
+	 * nor any of its shadow casters have been moved or changed their vertices.
+	 * Disabled by default.
+	 */
+	public boolean isCacheStatic() {
+		return isCacheStatic;
+	}
+
+	public void setCacheStatic(boolean isCacheStatic) {
+		this.isCacheStatic = isCacheStatic;
+	}
+
 	@Override
 	public TYPE getType() 
 	{
@@ -151,23 +166,23 @@ public final class ShadowMap extends Plugin
 	{
 		if ( ! ( isEnabled() && isAutoUpdate() ) ) return;
 
-		WebGLRenderingContext gl = getRenderer().getGL();
+		WebGLState state = getRenderer().getState();
 		
 		// set GL state for depth map
 
-		gl.clearColor( 1, 1, 1, 1 );
-		gl.disable( EnableCap.BLEND );
+		state.clearColor( 1, 1, 1, 1 );
+		state.disable( EnableCap.BLEND );
 
-		gl.enable( EnableCap.CULL_FACE );
-		gl.frontFace( FrontFaceDirection.CCW );
+		state.enable( EnableCap.CULL_FACE );
+		state.frontFace( FrontFaceDirection.CCW );
 
 		if ( isCullFrontFaces() ) 
 		{
-			gl.cullFace( CullFaceMode.FRONT );
+			state.cullFace( CullFaceMode.FRONT );
 		} 
 		else 
 		{
-			gl.cullFace( CullFaceMode.BACK );
+			state.cullFace( CullFaceMode.BACK );
 		}
 
 		getRenderer().setDepthTest( true );
@@ -308,15 +323,21 @@ public final class ShadowMap extends Plugin
 			shadowMatrix.multiply( shadowCamera.getProjectionMatrix() );
 			shadowMatrix.multiply( shadowCamera.getMatrixWorldInverse() );
 
-			// render shadow map
+			// cascaded lights follow the camera, so they are never cached
 
-			getRenderer().setRenderTarget( light.getShadowMap() );
-			getRenderer().clear();
+			boolean isShadowMapDirty = ! isCacheStatic() || light instanceof VirtualLight || light.isShadowMapNeedsUpdate();
+
+			if ( updateShadowCameraState( light, shadowCamera ) ) 
+				isShadowMapDirty = true;
 
 			// set object matrices & frustum culling
 
 			List<RendererObject> renderList = getScene().__webglObjects;
 
+			getScene().getOctree().cull( this.frustum );
+
+			int stateLength = 0;
+
 			for ( int j = 0, jl = renderList.size(); j < jl; j ++ ) 
 			{
 				RendererObject webglObject = renderList.get( j );
@@ -326,14 +347,38 @@ public final class ShadowMap extends Plugin
 
 				if ( object.isVisible() && object.isCastShadow() ) 
 				{
-					if ( ! ( object instanceof Mesh ) || ! ( object.isFrustumCulled() ) || this.frustum.contains( object ) ) 
+					if ( ! ( object.isFrustumCulled() ) || object.__inFrustum ) 
 					{
-						object._modelViewMatrix.multiply( shadowCamera.getMatrixWorldInverse(), object.getMatrixWorld() );
 						webglObject.render = true;
+
+						if ( isDynamicCaster( object ) ) 
+							isShadowMapDirty = true;
+
+						if ( updateCasterState( light, stateLength, object ) ) 
+							isShadowMapDirty = true;
+
+						stateLength += CASTER_STATE_SIZE;
 					}
 				}
 			}
 
+			if ( stateLength != light.__shadowCastersLength ) 
+				isShadowMapDirty = true;
+
+			light.__shadowCastersLength = stateLength;
+
+			// reuse the depth map rendered on the previous frames
+
+			if ( ! isShadowMapDirty ) 
+				continue;
+
+			light.setShadowMapNeedsUpdate( false );
+
+			// render shadow map
+
+			getRenderer().setRenderTarget( light.getShadowMap() );
+			getRenderer().clear();
+
 			// render regular objects
 
 			for ( int j = 0, jl = renderList.size(); j < jl; j ++ ) 
@@ -344,27 +389,14 @@ public final class ShadowMap extends Plugin
 				{
 					GeometryObject object = webglObject.object;
 					GeometryBuffer buffer = webglObject.buffer;
-					Material material;
+
+					// matrices are not needed if the depth map is reused
+					getRenderer().setupMatrices( object, shadowCamera );
 
 					// culling is overriden globally for all objects
 					// while rendering depth map
 
-					if ( object.getCustomDepthMaterial() != null ) 
-					{
-						material = object.getCustomDepthMaterial();
-					} 
-					else if ( object instanceof SkinnedMesh ) 
-					{
-						material = object.getGeometry().getMorphTargets().size() > 0 ? this.depthMaterialMorphSkin : this.depthMaterialSkin;
-					}
-					else if ( object.getGeometry().getMorphTargets().size() > 0 ) 
-					{
-						material = this.depthMaterialMorph;
-					}
-					else 
-					{
-						material = this.depthMaterial;
-					}
+					Material material = getDepthMaterial( object );
 
 					if ( buffer.getClass() == GeometryBuffer.class ) 
 					{
@@ -384,15 +416,130 @@ public final class ShadowMap extends Plugin
 		Color clearColor = getRenderer().getClearColor();
 		double clearAlpha = getRenderer().getClearAlpha();
 
-		gl.clearColor( clearColor.getR(), clearColor.getG(), clearColor.getB(), clearAlpha );
-		gl.enable( EnableCap.BLEND );
+		state.clearColor( clearColor.getR(), clearColor.getG(), clearColor.getB(), clearAlpha );
+		state.enable( EnableCap.BLEND );
 
 		if ( isCullFrontFaces() ) 
 		{
-			gl.cullFace( CullFaceMode.BACK );
+			state.cullFace( CullFaceMode.BACK );
 		}
 	}
 
+	/*
+	 * Stores shadow camera matrices used for the depth map and 
+	 * checks if they have been changed since the last render.
+	 */
+	private boolean updateShadowCameraState( ShadowLight light, Camera shadowCamera ) 
+	{
+		if ( light.__shadowCameraState == null ) 
+			light.__shadowCameraState = new double[ 32 ];
+
+		boolean isChanged = false;
+
+		if ( updateMatrixState( light.__shadowCameraState, 0, shadowCamera.getMatrixWorld() ) ) 
+			isChanged = true;
+
+		if ( updateMatrixState( light.__shadowCameraState, 16, shadowCamera.getProjectionMatrix() ) ) 
+			isChanged = true;
+
+		return isChanged;
+	}
+
+	/*
+	 * Gets material which is used to render the object to the depth map.
+	 */
+	Material getDepthMaterial( GeometryObject object ) 
+	{
+		if ( object.getCustomDepthMaterial() != null ) 
+		{
+			return object.getCustomDepthMaterial();
+		} 
+		else if ( object instanceof SkinnedMesh ) 
+		{
+			return object.getGeometry().getMorphTargets().size() > 0 ? this.depthMaterialMorphSkin : this.depthMaterialSkin;
+		}
+		else if ( object.getGeometry().getMorphTargets().size() > 0 ) 
+		{
+			return this.depthMaterialMorph;
+		}
+
+		return this.depthMaterial;
+	}
+
+	/*
+	 * Stores id, geometry bounds version and world matrix of the caster at 
+	 * the given offset and checks if the caster is the same and has not 
+	 * been moved or changed.
+	 */
+	private boolean updateCasterState( ShadowLight light, int offset, GeometryObject object ) 
+	{
+		double[] state = light.__shadowCastersState;
+
+		if ( state == null || state.length < offset + CASTER_STATE_SIZE ) 
+		{
+			double[] newState = new double[ ( offset + CASTER_STATE_SIZE ) * 2 ];
+
+			if ( state != null ) 
+				System.arraycopy( state, 0, newState, 0, state.length );
+
+			// Enforce caster mismatch for the new slots
+			for ( int i = state == null ? 0 : state.length; i < newState.length; i ++ ) 
+				newState[ i ] = Double.NaN;
+
+			state = light.__shadowCastersState = newState;
+		}
+
+		boolean isChanged = false;
+
+		if ( state[ offset ] != object.getId() ) 
+		{
+			state[ offset ] = object.getId();
+			isChanged = true;
+		}
+
+		GeometryBuffer geometry = object.getGeometryBuffer() != null ? object.getGeometryBuffer() : object.getGeometry();
+
+		if ( state[ offset + 1 ] != geometry.getBoundsVersion() ) 
+		{
+			state[ offset + 1 ] = geometry.getBoundsVersion();
+			isChanged = true;
+		}
+
+		if ( updateMatrixState( state, offset + 2, object.getMatrixWorld() ) ) 
+			isChanged = true;
+
+		return isChanged;
+	}
+
+	private static boolean updateMatrixState( double[] state, int offset, Matrix4 matrix ) 
+	{
+		boolean isChanged = false;
+
+		for ( int i = 0; i < 16; i ++ ) 
+		{
+			double value = matrix.getArray().get( i );
+
+			if ( state[ offset + i ] != value ) 
+			{
+				state[ offset + i ] = value;
+				isChanged = true;
+			}
+		}
+
+		return isChanged;
+	}
+
+	/*
+	 * Casters which geometry is changed on the GPU every frame
+	 * can not be tracked by the world matrix.
+	 */
+	private static boolean isDynamicCaster( GeometryObject object ) 
+	{
+		return object instanceof SkinnedMesh 
+				|| object.getGeometry().getMorphTargets().size() > 0 
+				|| object.getGeometry().isDynamic();
+	}
+
 	private VirtualLight createVirtualLight( DirectionalLight light, int cascade ) 
 	{
 		VirtualLight virtualLight = new VirtualLight(light.getColor().getHex());
@@ -19,7 +19,9 @@
 package thothbot.parallax.core.client.renderers;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +29,7 @@ import java.util.Map;
 import thothbot.parallax.core.client.context.Canvas3d;
 import thothbot.parallax.core.client.events.HasEventBus;
 import thothbot.parallax.core.client.events.ViewportResizeEvent;
+import thothbot.parallax.core.client.gl2.WebGLBuffer;
 import thothbot.parallax.core.client.gl2.WebGLConstants;
 import thothbot.parallax.core.client.gl2.WebGLFramebuffer;
 import thothbot.parallax.core.client.gl2.WebGLProgram;
@@ -47,14 +50,17 @@ import thothbot.parallax.core.client.gl2.enums.FrontFaceDirection;
 import thothbot.parallax.core.client.gl2.enums.PixelStoreParameter;
 import thothbot.parallax.core.client.gl2.enums.TextureMinFilter;
 import thothbot.parallax.core.client.gl2.enums.TextureTarget;
-import thothbot.parallax.core.client.gl2.enums.TextureUnit;
+import thothbot.parallax.core.client.gl2.extension.AngleInstancedArrays;
 import thothbot.parallax.core.client.gl2.extension.ExtTextureFilterAnisotropic;
+import thothbot.parallax.core.client.gl2.extension.OESElementIndexUint;
 import thothbot.parallax.core.client.gl2.extension.OESStandardDerivatives;
 import thothbot.parallax.core.client.gl2.extension.OESTextureFloat;
 import thothbot.parallax.core.client.gl2.extension.WebGLCompressedTextureS3tc;
 import thothbot.parallax.core.client.shaders.Attribute;
+import thothbot.parallax.core.client.shaders.ProgramKey;
 import thothbot.parallax.core.client.shaders.ProgramParameters;
 import thothbot.parallax.core.client.shaders.Shader;
+import thothbot.parallax.core.client.shaders.ShaderVariantRegistry;
 import thothbot.parallax.core.client.shaders.Uniform;
 import thothbot.parallax.core.client.shaders.Uniform.TYPE;
 import thothbot.parallax.core.client.textures.CompressedTexture;
@@ -90,6 +96,7 @@ import thothbot.parallax.core.shared.materials.MeshLambertMaterial;
 import thothbot.parallax.core.shared.materials.MeshPhongMaterial;
 import thothbot.parallax.core.shared.materials.ShaderMaterial;
 import thothbot.parallax.core.shared.objects.GeometryObject;
+import thothbot.parallax.core.shared.objects.InstancedMesh;
 import thothbot.parallax.core.shared.objects.Mesh;
 import thothbot.parallax.core.shared.objects.Object3D;
 import thothbot.parallax.core.shared.objects.ParticleSystem;
@@ -105,6 +112,7 @@ import com.google.gwt.dom.client.CanvasElement;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.ImageElement;
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.Float64Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 
@@ -115,6 +123,7 @@ public class WebGLRenderer implements HasEventBus
 {
 	// The HTML5 Canvas's 'webgl' context obtained from the canvas where the renderer will draw.
 	private WebGLRenderingContext gl;
+	private WebGLState state;
 
 	private WebGlRendererInfo info;
 				
@@ -126,6 +135,12 @@ public class WebGLRenderer implements HasEventBus
 	
 	// Integer, default is 4
 	private int maxLights = 4;
+
+	// Round light counts up to buckets: 0, 1, 2, 4, 8...
+	private boolean isLightBucketing = false;
+
+	// Max point and spot lights per object, 0 - all lights
+	private int maxLightsPerObject = 0;
 	
 	// Properties
 	private boolean isAutoClear = true;
@@ -161,6 +176,7 @@ public class WebGLRenderer implements HasEventBus
 	// internal state cache
 
 	private WebGLProgram cache_currentProgram = null;
+	private Shader cache_currentShader = null;
 	private WebGLFramebuffer cache_currentFramebuffer = null;
 	private int cache_currentMaterialId = -1;
 	private int cache_currentGeometryGroupHash = -1;
@@ -168,22 +184,9 @@ public class WebGLRenderer implements HasEventBus
 	
 	private int usedTextureUnits = 0;
 	
-	// GL state cache
-
-	private Material.SIDE cache_oldMaterialSided = null;
+	// GL state cache, the single GL calls are filtered by WebGLState
 
 	private Material.BLENDING cache_oldBlending = null;
-	private BlendEquationMode cache_oldBlendEquation = null;
-
-	private BlendingFactorSrc cache_oldBlendSrc = null;
-	private BlendingFactorDest cache_oldBlendDst = null;
-
-	private Boolean cache_oldDepthTest = null;
-	private Boolean cache_oldDepthWrite = null;
-
-	private Boolean cache_oldPolygonOffset = null;
-	private Double cache_oldPolygonOffsetFactor = null;
-	private Double cache_oldPolygonOffsetUnits = null;
 			
 	private int absoluteWidth = 0;
 	private int absoluteHeight = 0;
@@ -196,6 +199,28 @@ public class WebGLRenderer implements HasEventBus
 
 	private Frustum frustum;
 
+	// opaque objects order: program, material, geometry group and depth
+	private static final Comparator<RendererObject> SORT_KEY_COMPARATOR = new Comparator<RendererObject>() {
+		@Override
+		public int compare(RendererObject o1, RendererObject o2) 
+		{
+			return (o1.sortKey == o2.sortKey) ? 0 
+					: (o1.sortKey < o2.sortKey) ? -1 : 1;
+		}
+	};
+
+	// transparent objects order: back-to-front
+	private static final Comparator<RendererObject> DEPTH_COMPARATOR = new Comparator<RendererObject>() {
+		@Override
+		public int compare(RendererObject o1, RendererObject o2) 
+		{
+			return o1.compareTo(o2);
+		}
+	};
+
+	// insertion sort falls back to the merge sort after this number of shifts per object
+	private static final int MAX_SORT_SHIFTS_PER_OBJECT = 8;
+
 	 // camera matrices cache
 	private Matrix4 cache_projScreenMatrix;
 	private Vector4 cache_vector3;
@@ -203,8 +228,11 @@ public class WebGLRenderer implements HasEventBus
 	// light arrays cache
 	private boolean isLightsNeedUpdate = true;
 	private RendererLights cache_lights;
+	private Map<String, Integer> cache_lightCount;
+	private List<Uniform> cache_lightUniforms = new ArrayList<Uniform>();
 	
-	private Map<String, Shader> cache_programs;
+	private Map<ProgramKey, Shader> cache_programs;
+	private ShaderVariantRegistry shaderVariants;
 
 	// GPU capabilities
 	private int GPUmaxTextures;
@@ -220,6 +248,8 @@ public class WebGLRenderer implements HasEventBus
 	private OESStandardDerivatives GLExtensionStandardDerivatives;
 	private ExtTextureFilterAnisotropic GLExtensionTextureFilterAnisotropic;
 	private WebGLCompressedTextureS3tc GLExtensionCompressedTextureS3TC;
+	private AngleInstancedArrays GLExtensionInstancedArrays;
+	private OESElementIndexUint GLExtensionElementIndexUint;
 	
 	/**
 	 * The constructor will create renderer for the {@link Canvas3d} widget.
@@ -233,14 +263,15 @@ public class WebGLRenderer implements HasEventBus
 		this.gl = gl;
 
 		this.setInfo(new WebGlRendererInfo());
+		this.state = new WebGLState(gl, getInfo());
 		
 		this.frustum = new Frustum();
 		
 		this.cache_projScreenMatrix = new Matrix4();
 		this.cache_vector3          = new Vector4();
 		this.cache_lights           = new RendererLights();
-		this.cache_programs         = GWT.isScript() ? 
-				new FastMap<Shader>() : new HashMap<String, Shader>();
+		this.cache_programs         = new HashMap<ProgramKey, Shader>();
+		this.shaderVariants         = new ShaderVariantRegistry();
 			
 		this.GPUmaxTextures       = gl.getParameteri(WebGLConstants.MAX_TEXTURE_IMAGE_UNITS);
 		this.GPUmaxVertexTextures = gl.getParameteri(WebGLConstants.MAX_VERTEX_TEXTURE_IMAGE_UNITS);
@@ -277,6 +308,14 @@ public class WebGLRenderer implements HasEventBus
 		if(this.GLExtensionCompressedTextureS3TC == null)
 			Log.warn( "WebGLRenderer: S3TC compressed textures not supported." );
 
+		this.GLExtensionInstancedArrays = (AngleInstancedArrays) gl.getExtension( "ANGLE_instanced_arrays" );
+		if(this.GLExtensionInstancedArrays == null)
+			Log.warn( "WebGLRenderer: Instanced arrays not supported." );
+
+		this.GLExtensionElementIndexUint = (OESElementIndexUint) gl.getExtension( "OES_element_index_uint" );
+		if(this.GLExtensionElementIndexUint == null)
+			Log.warn( "WebGLRenderer: 32-bit element indices not supported." );
+
 
 		setSize(width, height);
 		setDefaultGLState();
@@ -323,6 +362,28 @@ public class WebGLRenderer implements HasEventBus
 		return GPUmaxAnisotropy;
 	}
 
+	/**
+	 * Gets ANGLE_instanced_arrays extension or null if it is not supported.
+	 */
+	public AngleInstancedArrays getInstancedArraysExtension() {
+		return GLExtensionInstancedArrays;
+	}
+
+	/**
+	 * Checks if OES_element_index_uint extension is supported, 
+	 * so geometry groups can be drawn with 32-bit indices.
+	 */
+	public boolean isGPUsupportsElementIndexUint() {
+		return GLExtensionElementIndexUint != null;
+	}
+
+	/**
+	 * Gets the shader of the program which is currently in use.
+	 */
+	public Shader getCurrentShader() {
+		return cache_currentShader;
+	}
+
 	/**
 	 * Gets {@link #setAutoClear(boolean)} flag.
 	 */
@@ -480,6 +541,14 @@ public class WebGLRenderer implements HasEventBus
 		this.info = info;
 	}
 
+	/**
+	 * Gets {@link ShaderVariantRegistry} instance with number of compiled 
+	 * program variants per shader template.
+	 */
+	public ShaderVariantRegistry getShaderVariantRegistry() {
+		return this.shaderVariants;
+	}
+
 	/**
 	 * Gets the WebGL context from the {@link Canvas3d} widget.
 	 * 
@@ -491,22 +560,33 @@ public class WebGLRenderer implements HasEventBus
 		return this.gl;
 	}
 
+	/**
+	 * Gets the GL state cache. State changes should be made through it, 
+	 * so the redundant calls are filtered out.
+	 * 
+	 * @return the {@link WebGLState} instance for the context.
+	 */
+	public WebGLState getState()
+	{
+		return this.state;
+	}
+
 	private void setDefaultGLState () 
 	{
-		getGL().clearColor( 0.0, 0.0, 0.0, 1.0 );
+		getState().clearColor( 0.0, 0.0, 0.0, 1.0 );
 		getGL().clearDepth( 1 );
 		getGL().clearStencil( 0 );
 
-		getGL().enable( EnableCap.DEPTH_TEST );
-		getGL().depthFunc( DepthFunction.LEQUAL );
+		getState().enable( EnableCap.DEPTH_TEST );
+		getState().depthFunc( DepthFunction.LEQUAL );
 
-		getGL().frontFace( FrontFaceDirection.CCW );
-		getGL().cullFace( CullFaceMode.BACK );
-		getGL().enable( EnableCap.CULL_FACE );
+		getState().frontFace( FrontFaceDirection.CCW );
+		getState().cullFace( CullFaceMode.BACK );
+		getState().enable( EnableCap.CULL_FACE );
 
-		getGL().enable( EnableCap.BLEND );
-		getGL().blendEquation( BlendEquationMode.FUNC_ADD );
-		getGL().blendFunc( BlendingFactorSrc.SRC_ALPHA, BlendingFactorDest.ONE_MINUS_SRC_ALPHA );
+		getState().enable( EnableCap.BLEND );
+		getState().blendEquation( BlendEquationMode.FUNC_ADD );
+		getState().blendFunc( BlendingFactorSrc.SRC_ALPHA, BlendingFactorDest.ONE_MINUS_SRC_ALPHA );
 	}
 
 	/**
@@ -542,7 +622,7 @@ public class WebGLRenderer implements HasEventBus
 		this.viewportWidth = width;
 		this.viewportHeight = height;
 
-		getGL().viewport(x, y, this.viewportWidth, this.viewportHeight);
+		getState().viewport(x, y, this.viewportWidth, this.viewportHeight);
 	}
 	
 	public int getAbsoluteWidth() {
@@ -562,7 +642,7 @@ public class WebGLRenderer implements HasEventBus
 	 */
 	public void setScissor(int x, int y, int width, int height)
 	{
-		getGL().scissor(x, y, width, height);
+		getState().scissor(x, y, width, height);
 	}
 
 	/**
@@ -573,9 +653,9 @@ public class WebGLRenderer implements HasEventBus
 	public void enableScissorTest(boolean enable)
 	{
 		if (enable)
-			getGL().enable(EnableCap.SCISSOR_TEST);
+			getState().enable(EnableCap.SCISSOR_TEST);
 		else
-			getGL().disable(EnableCap.SCISSOR_TEST);
+			getState().disable(EnableCap.SCISSOR_TEST);
 	}
 	
 	/**
@@ -589,6 +669,47 @@ public class WebGLRenderer implements HasEventBus
 		this.maxLights = maxLights;
 	}
 
+	/**
+	 * Gets {@link #setLightBucketing(boolean)} flag.
+	 */
+	public boolean isLightBucketing() {
+		return isLightBucketing;
+	}
+
+	/**
+	 * Defines whether the light counts of the shader programs should be 
+	 * rounded up to the buckets 0, 1, 2, 4, 8... (limited by 
+	 * {@link #setMaxLights(int)}). Unused light slots are filled 
+	 * with black lights, so adding or removing a light does not 
+	 * require a new program while the count stays within the bucket.
+	 * Default is false.
+	 * 
+	 * @param isLightBucketing false or true
+	 */
+	public void setLightBucketing(boolean isLightBucketing) {
+		this.isLightBucketing = isLightBucketing;
+	}
+
+	/**
+	 * Gets {@link #setMaxLightsPerObject(int)} value.
+	 */
+	public int getMaxLightsPerObject() {
+		return maxLightsPerObject;
+	}
+
+	/**
+	 * Specifies how many point and spot lights are used for each object. 
+	 * If non-zero, every object gets the lights which have the most 
+	 * influence on its bounding sphere, and the lights which can't reach 
+	 * the object are skipped. The shaders then loop over these lights only.
+	 * Default is 0 - all lights are used for all objects.
+	 * 
+	 * @param maxLightsPerObject
+	 */
+	public void setMaxLightsPerObject(int maxLightsPerObject) {
+		this.maxLightsPerObject = maxLightsPerObject;
+	}
+
 	/**
 	 * Sets the the background color, using hex for the color.<br>
 	 * 
@@ -612,7 +733,7 @@ public class WebGLRenderer implements HasEventBus
 		this.clearColor.setHex( hex );
 		this.clearAlpha = alpha;
 
-		getGL().clearColor( this.clearColor.getR(), this.clearColor.getG(), this.clearColor.getB(), this.clearAlpha );
+		getState().clearColor( this.clearColor.getR(), this.clearColor.getG(), this.clearColor.getB(), this.clearAlpha );
 	}
 	
 
@@ -629,7 +750,7 @@ public class WebGLRenderer implements HasEventBus
 		this.clearColor.copy(color);
 		this.clearAlpha = alpha;
 
-		getGL().clearColor( this.clearColor.getR(), this.clearColor.getG(), this.clearColor.getB(), this.clearAlpha );
+		getState().clearColor( this.clearColor.getR(), this.clearColor.getG(), this.clearColor.getB(), this.clearAlpha );
 	}
 
 	/**
@@ -692,19 +813,21 @@ public class WebGLRenderer implements HasEventBus
 	private void setupMorphTargets ( Material material, GeometryBuffer geometrybuffer, Mesh object ) 
 	{
 		// set base
-		Map<String, Integer> attributes = material.getShader().getAttributesLocations();
-		Map<String, Uniform> uniforms = material.getShader().getUniforms();
+		Shader shader = material.getShader();
+		int[] attributes = shader.getAttributeSlots();
+		int[] morphTargets = shader.getMorphTargetSlots();
+		int[] morphNormals = shader.getMorphNormalSlots();
 
 		if ( object.getMorphTargetBase() != - 1 ) 
 		{
-			getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphTargetsBuffers.get( object.getMorphTargetBase() ) );
-			getGL().vertexAttribPointer( attributes.get("position"), 3, DataType.FLOAT, false, 0, 0 );
+			bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphTargetsBuffers.get( object.getMorphTargetBase() ) );
+			getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_POSITION ], 3, DataType.FLOAT, false, 0, 0 );
 
 		} 
-		else if ( attributes.get("position") >= 0 ) 
+		else if ( attributes[ Shader.ATTRIBUTE_POSITION ] >= 0 ) 
 		{
-			getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglVertexBuffer );
-			getGL().vertexAttribPointer( attributes.get("position"), 3, DataType.FLOAT, false, 0, 0 );
+			bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglVertexBuffer );
+			getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_POSITION ], 3, DataType.FLOAT, false, 0, 0 );
 		}
 
 		if ( object.getMorphTargetForcedOrder().size() > 0 ) 
@@ -719,16 +842,16 @@ public class WebGLRenderer implements HasEventBus
 					&& m < ((HasSkinning)material).getNumSupportedMorphTargets() 
 					&& m < order.size() 
 			) {
-				getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphTargetsBuffers.get( order.get( m ) ) );
-				getGL().vertexAttribPointer( attributes.get("morphTarget" + m ), 3, DataType.FLOAT, false, 0, 0 );
+				bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphTargetsBuffers.get( order.get( m ) ) );
+				getGL().vertexAttribPointer( morphTargets[ m ], 3, DataType.FLOAT, false, 0, 0 );
 
 				if ( material instanceof HasSkinning && ((HasSkinning)material).isMorphNormals()) 
 				{
-					getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphNormalsBuffers.get( order.get( m ) ) );
-					getGL().vertexAttribPointer( attributes.get("morphNormal" + m ), 3, DataType.FLOAT, false, 0, 0 );
+					bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphNormalsBuffers.get( order.get( m ) ) );
+					getGL().vertexAttribPointer( morphNormals[ m ], 3, DataType.FLOAT, false, 0, 0 );
 				}
 
-				object.__webglMorphTargetInfluences.set( m , influences.get( order.get( m ) ));
+				object.__webglMorphTargetInfluences.set( m , influences.get( order.get( m ) ).floatValue());
 
 				m ++;
 			}
@@ -758,16 +881,16 @@ public class WebGLRenderer implements HasEventBus
 					}
 				}
 
-				getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphTargetsBuffers.get( candidate ) );
-				getGL().vertexAttribPointer( attributes.get( "morphTarget" + m ), 3, DataType.FLOAT, false, 0, 0 );
+				bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphTargetsBuffers.get( candidate ) );
+				getGL().vertexAttribPointer( morphTargets[ m ], 3, DataType.FLOAT, false, 0, 0 );
 
 				if ( material instanceof HasSkinning && ((HasSkinning)material).isMorphNormals() ) 
 				{
-					getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphNormalsBuffers.get( candidate ) );
-					getGL().vertexAttribPointer( attributes.get( "morphNormal" + m ), 3, DataType.FLOAT, false, 0, 0 );
+					bindBuffer( BufferTarget.ARRAY_BUFFER, geometrybuffer.__webglMorphNormalsBuffers.get( candidate ) );
+					getGL().vertexAttribPointer( morphNormals[ m ], 3, DataType.FLOAT, false, 0, 0 );
 				}
 
-				object.__webglMorphTargetInfluences.set( m, candidateInfluence);
+				object.__webglMorphTargetInfluences.set( m, (float)candidateInfluence);
 
 				used.put( candidate, true);
 				candidateInfluence = -1;
@@ -776,16 +899,10 @@ public class WebGLRenderer implements HasEventBus
 		}
 
 		// load updated influences uniform
-		if( uniforms.get("morphTargetInfluences").getLocation() != null ) 
+		WebGLUniformLocation influences = shader.getUniformSlots()[ Shader.UNIFORM_MORPH_TARGET_INFLUENCES ];
+		if( influences != null ) 
 		{
-			Float64Array vals = object.__webglMorphTargetInfluences;
-			double[] val2 = new double[vals.length()];
-			for (int i = 0; i < vals.length(); i++) 
-			{
-			    Double f = vals.get(i);
-			    val2[i] = (f != null ? f : Double.NaN); // Or whatever default you want.
-			}
-			getGL().uniform1fv( uniforms.get("morphTargetInfluences").getLocation(), val2 );
+			getGL().uniform1fv( influences, object.__webglMorphTargetInfluences );
 		}
 	}
 
@@ -836,8 +953,14 @@ public class WebGLRenderer implements HasEventBus
 		if ( this.isAutoUpdateObjects() ) 
 		{
 			scene.initWebGLObjects(this);
+
+			// buffers are uploaded directly to the context
+			getState().resetBuffers();
 		}
 
+		// relocate moved objects in the spatial index used for culling
+		scene.updateOctree();
+
 		// custom render plugins (pre pass)
 		renderPlugins( this.renderPluginsPre, camera );
 
@@ -845,6 +968,12 @@ public class WebGLRenderer implements HasEventBus
 		this.getInfo().getRender().vertices = 0;
 		this.getInfo().getRender().faces = 0;
 		this.getInfo().getRender().points = 0;
+		this.getInfo().getRender().programs = 0;
+		this.getInfo().getRender().buffers = 0;
+		this.getInfo().getRender().uniforms = 0;
+		this.getInfo().getRender().uniformsSkipped = 0;
+		this.getInfo().getRender().states = 0;
+		this.getInfo().getRender().statesSkipped = 0;
 
 		setRenderTarget( renderTarget );
 
@@ -857,20 +986,25 @@ public class WebGLRenderer implements HasEventBus
 		List<RendererObject> renderList = scene.__webglObjects;
 		Log.debug("render(): Render list size is: " + renderList.size());
 
-		for(RendererObject webglObject: renderList) 
+		double minZ = Double.POSITIVE_INFINITY;
+		double maxZ = Double.NEGATIVE_INFINITY;
+
+		// only objects found in the octree are marked as visible
+		scene.getOctree().cull( this.frustum );
+
+		for ( int i = 0, il = renderList.size(); i < il; i ++ ) 
 		{
+			RendererObject webglObject = renderList.get( i );
 			GeometryObject object = webglObject.object;
 			webglObject.render = false;
 
 			if ( object.isVisible() ) 
 			{
-				if ( ! ( object.getClass() == Mesh.class 
-						|| object.getClass() == ParticleSystem.class ) 
-						|| ! ( object.isFrustumCulled() ) 
-						|| frustum.contains( object ) )
+				if ( ! ( object.isFrustumCulled() ) || object.__inFrustum )
 				{
 					setupMatrices( (Object3D) object, camera );
 					webglObject.unrollBufferMaterial();
+					scene.updateRenderList( webglObject );
 					webglObject.render = true;
 
 					if ( this.isSortObjects() ) 
@@ -886,13 +1020,16 @@ public class WebGLRenderer implements HasEventBus
 
 							webglObject.z = cache_vector3.getZ();
 						}
+
+						if ( webglObject.z < minZ ) minZ = webglObject.z;
+						if ( webglObject.z > maxZ ) maxZ = webglObject.z;
 					}
 				}
 			}
 		}
 
 		if ( this.isSortObjects() )
-			Collections.sort(renderList);
+			sortRenderLists( scene, minZ, maxZ );
 
 		if ( scene.overrideMaterial != null ) 
 		{
@@ -912,11 +1049,11 @@ public class WebGLRenderer implements HasEventBus
 			// opaque pass (front-to-back order)
 			setBlending( Material.BLENDING.NORMAL);
 
-			// scene - camera - isMaterialTransparent - useBlending - reverse 
-			renderObjects(scene, camera, false, false, true);
+			// scene - camera - renderList - isMaterialTransparent - useBlending - reverse 
+			renderObjects(scene, camera, scene.__webglObjectsOpaque, false, false, false);
 
 			// transparent pass (back-to-front order)
-			renderObjects(scene, camera, true, true, false );
+			renderObjects(scene, camera, scene.__webglObjectsTransparent, true, true, false );
 		}
 
 		// custom render plugins (post pass)
@@ -928,6 +1065,7 @@ public class WebGLRenderer implements HasEventBus
 				&& renderTarget.getMinFilter() != TextureMinFilter.LINEAR)
 		{
 			renderTarget.updateRenderTargetMipmap(getGL());
+			getState().resetTextures();
 		}
 
 		// Ensure depth buffer writing is enabled so it can be cleared on next render
@@ -938,6 +1076,123 @@ public class WebGLRenderer implements HasEventBus
 //		 getGL().finish();
 	}
 
+	/**
+	 * Builds the shader programs for all objects of the scene ahead 
+	 * of time, so the first frames do not stall on shader compiling. 
+	 * The variants are chosen by the current lights, fog and 
+	 * shadow map settings, the same way as during the rendering. 
+	 * Objects outside the view and invisible objects are included, 
+	 * so the camera is not needed.
+	 * 
+	 * @param scene the {@link Scene} object.
+	 */
+	public void compile( Scene scene )
+	{
+		Log.debug("Called compile()");
+
+		scene.initWebGLObjects(this);
+
+		// buffers are uploaded directly to the context
+		getState().resetBuffers();
+
+		List<RendererObject> renderList = scene.__webglObjects;
+
+		for ( int i = 0, il = renderList.size(); i < il; i ++ ) 
+		{
+			RendererObject webglObject = renderList.get( i );
+			webglObject.unrollBufferMaterial();
+
+			compileMaterial( scene, webglObject.opaque, webglObject.object );
+			compileMaterial( scene, webglObject.transparent, webglObject.object );
+		}
+
+		// depth materials used by the shadow map
+		for ( Plugin plugin : this.renderPluginsPre )
+		{
+			if ( ! ( plugin instanceof ShadowMap ) || ! plugin.isEnabled() )
+				continue;
+
+			for ( int i = 0, il = renderList.size(); i < il; i ++ ) 
+			{
+				GeometryObject object = renderList.get( i ).object;
+
+				if ( object.isCastShadow() )
+					compileMaterial( plugin.getScene(), ((ShadowMap)plugin).getDepthMaterial( object ), object );
+			}
+		}
+	}
+
+	/**
+	 * Builds the program variants saved by 
+	 * {@link ShaderVariantRegistry#getVariantKeys()}, for example during 
+	 * the loading screen. The shader of each variant is created by the material 
+	 * from the list, which has the same shader class as the variant.
+	 * 
+	 * @param variantKeys the saved variant keys.
+	 * @param materials   the materials which provide the shaders.
+	 * 
+	 * @return the number of the built programs.
+	 */
+	public int compile( List<String> variantKeys, List<Material> materials )
+	{
+		Map<String, Material> templates = GWT.isScript() ? 
+				new FastMap<Material>() : new HashMap<String, Material>();
+
+		for ( Material material : materials )
+			templates.put( material.createShader().getClass().getName(), material );
+
+		int count = 0;
+		for ( String variantKey : variantKeys )
+		{
+			int separator = variantKey.indexOf( ':' );
+			Material material = separator > 0 ? templates.get( variantKey.substring( 0, separator ) ) : null;
+
+			if ( material == null )
+			{
+				Log.warn("compile(): no material for the shader variant " + variantKey);
+				continue;
+			}
+
+			// A new shader instance for each variant, because building changes its sources
+			Shader template = material.createShader();
+
+			int templateId = this.shaderVariants.getTemplateId( template );
+			ProgramKey key = ProgramKey.decode( templateId, this.shaderVariants.getTemplateHash( templateId ), 
+					variantKey.substring( separator + 1 ) );
+
+			if ( key == null )
+			{
+				Log.warn("compile(): malformed or outdated shader variant " + variantKey);
+				continue;
+			}
+
+			if ( this.cache_programs.containsKey( key ) )
+				continue;
+
+			Shader shader = material.getShader();
+			material.setShader( template );
+
+			buildProgram( key, material, key.getParameters() );
+
+			material.setShader( shader );
+			count ++;
+		}
+
+		return count;
+	}
+
+	private void compileMaterial( Scene scene, Material material, GeometryObject object )
+	{
+		if ( material == null )
+			return;
+
+		if ( material.getShader().getProgram() == null || material.isNeedsUpdate() ) 
+		{
+			initMaterial( scene, material, object );
+			material.setNeedsUpdate(false);
+		}
+	}
+
 	private void renderPlugins( List<Plugin> plugins, Camera camera ) 
 	{
 		if ( plugins.size() == 0 ) return;
@@ -957,9 +1212,6 @@ public class WebGLRenderer implements HasEventBus
 			this.cache_currentCamera = null;
 
 			this.cache_oldBlending = null;
-			this.cache_oldDepthTest = null;
-			this.cache_oldDepthWrite = null;
-			this.cache_oldMaterialSided = null;
 
 			this.cache_currentGeometryGroupHash = -1;
 			this.cache_currentMaterialId = -1;
@@ -974,9 +1226,6 @@ public class WebGLRenderer implements HasEventBus
 			this.cache_currentCamera = null;
 
 			this.cache_oldBlending = null;
-			this.cache_oldDepthTest = null;
-			this.cache_oldDepthWrite = null;
-			this.cache_oldMaterialSided = null;
 
 			this.cache_currentGeometryGroupHash = -1;
 			this.cache_currentMaterialId = -1;
@@ -987,14 +1236,82 @@ public class WebGLRenderer implements HasEventBus
 		}
 	}
 
-	private void renderObjects ( Scene scene, Camera camera, boolean isMaterialTransparent, boolean useBlending, boolean reverse ) 
+	/**
+	 * Re-sorts the persistent render lists of the Scene. 
+	 * Opaque objects are ordered by the packed key: program, material, 
+	 * geometry group and then coarse front-to-back depth, so the objects 
+	 * which share the same state are drawn one after another. 
+	 * Transparent objects are ordered back-to-front.
+	 * <p>
+	 * The lists keep their order between frames, so they are nearly sorted 
+	 * and insertion sort is close to linear here.
+	 */
+	private void sortRenderLists( Scene scene, double minZ, double maxZ ) 
 	{
-		renderObjects ( scene, camera, isMaterialTransparent, useBlending, reverse, null);
+		List<RendererObject> opaqueList = scene.__webglObjectsOpaque;
+
+		double depthScale = ( maxZ > minZ ) ? 0xffff / ( maxZ - minZ ) : 0;
+
+		for ( int i = 0, il = opaqueList.size(); i < il; i ++ ) 
+		{
+			RendererObject webglObject = opaqueList.get( i );
+			Material material = webglObject.opaque;
+
+			// Keep the last key for the hidden objects
+			if ( ! webglObject.render || material == null )
+				continue;
+
+			long programId = ( material.getShader() != null ) ? material.getShader().getId() & 0xffff : 0;
+			long materialId = material.getId() & 0xffff;
+			long geometryId = webglObject.buffer.getId() & 0xffff;
+			long depth = (long)( ( webglObject.z - minZ ) * depthScale ) & 0xffff;
+
+			webglObject.sortKey = ( programId << 48 ) | ( materialId << 32 ) | ( geometryId << 16 ) | depth;
+		}
+
+		insertionSort( opaqueList, SORT_KEY_COMPARATOR );
+		insertionSort( scene.__webglObjectsTransparent, DEPTH_COMPARATOR );
 	}
 
-	private void renderObjects ( Scene scene, Camera camera, boolean isMaterialTransparent, boolean useBlending, boolean reverse, Material overrideMaterial ) 
+	/*
+	 * The order changes little between frames, so the insertion sort is 
+	 * nearly linear. If the order is broken, for example by a camera cut, 
+	 * the shifts are counted and the list is sorted by Collections.sort().
+	 */
+	private static void insertionSort( List<RendererObject> list, Comparator<RendererObject> comparator ) 
+	{
+		int maxShifts = list.size() * MAX_SORT_SHIFTS_PER_OBJECT;
+		int shifts = 0;
+
+		for ( int i = 1, il = list.size(); i < il; i ++ ) 
+		{
+			RendererObject item = list.get( i );
+
+			int j = i - 1;
+			while ( j >= 0 && comparator.compare( list.get( j ), item ) > 0 ) 
+			{
+				list.set( j + 1, list.get( j ) );
+				j --;
+				shifts ++;
+			}
+
+			list.set( j + 1, item );
+
+			if ( shifts > maxShifts )
+			{
+				Collections.sort( list, comparator );
+				return;
+			}
+		}
+	}
+
+	private void renderObjects ( Scene scene, Camera camera, List<RendererObject> renderList, boolean isMaterialTransparent, boolean useBlending, boolean reverse ) 
+	{
+		renderObjects ( scene, camera, renderList, isMaterialTransparent, useBlending, reverse, null);
+	}
+
+	private void renderObjects ( Scene scene, Camera camera, List<RendererObject> renderList, boolean isMaterialTransparent, boolean useBlending, boolean reverse, Material overrideMaterial ) 
 	{
-		List<RendererObject> renderList = scene.__webglObjects;
 		Log.debug("Called renderObjects() render list contains = " + renderList.size());
 		
 		int start = 0;
@@ -1067,7 +1384,7 @@ public class WebGLRenderer implements HasEventBus
 
 		setProgram( scene, camera, material, object );
 
-		Map<String, Integer> attributes = material.getShader().getAttributesLocations();
+		int[] attributes = material.getShader().getAttributeSlots();
 
 		boolean updateBuffers = false;
 		int wireframeBit = material instanceof HasWireframe && ((HasWireframe)material).isWireframe() ? 1 : 0;
@@ -1088,13 +1405,16 @@ public class WebGLRenderer implements HasEventBus
 			updateBuffers = true;
 		}
 
+		boolean isInterleaved = geometryBuffer.isInterleavedBuffers() && geometryBuffer.__webglInterleavedBuffer != null;
+		boolean isMorphTargets = material instanceof HasSkinning && ((HasSkinning)material).isMorphTargets();
+
 		// vertices
-		if ( !(material instanceof HasSkinning && ((HasSkinning)material).isMorphTargets()) && attributes.get("position") >= 0 ) 
+		if ( !isMorphTargets && attributes[ Shader.ATTRIBUTE_POSITION ] >= 0 ) 
 		{
-			if ( updateBuffers ) 
+			if ( updateBuffers && !isInterleaved ) 
 			{
-				getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglVertexBuffer );
-				getGL().vertexAttribPointer( attributes.get("position"), 3, DataType.FLOAT, false, 0, 0 );
+				bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglVertexBuffer );
+				getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_POSITION ], 3, DataType.FLOAT, false, 0, 0 );
 			}
 
 		} 
@@ -1116,72 +1436,80 @@ public class WebGLRenderer implements HasEventBus
 				{
 					Attribute attribute = geometryBuffer.__webglCustomAttributesList.get( i );
 
-					if( attributes.get( attribute.belongsToAttribute ) >= 0 ) 
+					int location = material.getShader().getAttributeLocation( attribute );
+					if( location >= 0 ) 
 					{
-						getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, attribute.buffer );
-						getGL().vertexAttribPointer( attributes.get( attribute.belongsToAttribute ), attribute.size, DataType.FLOAT, false, 0, 0 );
+						bindBuffer( BufferTarget.ARRAY_BUFFER, attribute.buffer );
+						getGL().vertexAttribPointer( location, attribute.size, DataType.FLOAT, false, 0, 0 );
 					}
 				}
 			}
 
-			// colors
-			if ( attributes.get("color") >= 0 ) 
+			if ( isInterleaved ) 
 			{
-				getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglColorBuffer );
-				getGL().vertexAttribPointer( attributes.get("color"), 3, DataType.FLOAT, false, 0, 0 );
+				setupInterleavedAttributes( attributes, geometryBuffer, !isMorphTargets, 0 );
 			}
-
-			// normals
-			if ( attributes.get("normal") >= 0 ) 
+			else
 			{
-				getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglNormalBuffer );
-				getGL().vertexAttribPointer( attributes.get("normal"), 3, DataType.FLOAT, false, 0, 0 );
-			}
+				// colors
+				if ( attributes[ Shader.ATTRIBUTE_COLOR ] >= 0 ) 
+				{
+					bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglColorBuffer );
+					getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_COLOR ], 3, DataType.FLOAT, false, 0, 0 );
+				}
 
-			// tangents
-			if ( attributes.get("tangent") >= 0 ) 
-			{
-				getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglTangentBuffer );
-				getGL().vertexAttribPointer( attributes.get("tangent"), 4, DataType.FLOAT, false, 0, 0 );
-			}
+				// normals
+				if ( attributes[ Shader.ATTRIBUTE_NORMAL ] >= 0 ) 
+				{
+					bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglNormalBuffer );
+					getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_NORMAL ], 3, DataType.FLOAT, false, 0, 0 );
+				}
 
-			// uvs
-			if ( attributes.get("uv") >= 0 ) 
-			{
-				if ( geometryBuffer.__webglUVBuffer != null) 
+				// tangents
+				if ( attributes[ Shader.ATTRIBUTE_TANGENT ] >= 0 ) 
 				{
-					getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglUVBuffer );
-					getGL().vertexAttribPointer( attributes.get("uv"), 2, DataType.FLOAT, false, 0, 0 );
+					bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglTangentBuffer );
+					getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_TANGENT ], 4, DataType.FLOAT, false, 0, 0 );
+				}
 
-					getGL().enableVertexAttribArray( attributes.get("uv") );
+				// uvs
+				if ( attributes[ Shader.ATTRIBUTE_UV ] >= 0 ) 
+				{
+					if ( geometryBuffer.__webglUVBuffer != null) 
+					{
+						bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglUVBuffer );
+						getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_UV ], 2, DataType.FLOAT, false, 0, 0 );
+
+						getState().enableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV ] );
 
-				} else {
-					getGL().disableVertexAttribArray( attributes.get("uv") );
+					} else {
+						getState().disableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV ] );
+					}
 				}
-			}
 
-			if ( attributes.get("uv2") >= 0 ) 
-			{
-				if ( geometryBuffer.__webglUV2Buffer != null) 
+				if ( attributes[ Shader.ATTRIBUTE_UV2 ] >= 0 ) 
 				{
-					getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglUV2Buffer );
-					getGL().vertexAttribPointer( attributes.get("uv2"), 2, DataType.FLOAT, false, 0, 0 );
+					if ( geometryBuffer.__webglUV2Buffer != null) 
+					{
+						bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglUV2Buffer );
+						getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_UV2 ], 2, DataType.FLOAT, false, 0, 0 );
 
-					getGL().enableVertexAttribArray( attributes.get("uv2") );
+						getState().enableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV2 ] );
 
-				} else {
-					getGL().disableVertexAttribArray( attributes.get("uv2") );
+					} else {
+						getState().disableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV2 ] );
+					}
 				}
 			}
 
 			if ( material instanceof HasSkinning && ((HasSkinning)material).isSkinning() &&
-				 attributes.get("skinIndex") >= 0 && attributes.get("skinWeight") >= 0 ) 
+				 attributes[ Shader.ATTRIBUTE_SKIN_INDEX ] >= 0 && attributes[ Shader.ATTRIBUTE_SKIN_WEIGHT ] >= 0 ) 
 			{
-				getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglSkinIndicesBuffer );
-				getGL().vertexAttribPointer( attributes.get("skinIndex"), 4, DataType.FLOAT, false, 0, 0 );
+				bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglSkinIndicesBuffer );
+				getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_SKIN_INDEX ], 4, DataType.FLOAT, false, 0, 0 );
 
-				getGL().bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglSkinWeightsBuffer );
-				getGL().vertexAttribPointer( attributes.get("skinWeight"), 4, DataType.FLOAT, false, 0, 0 );
+				bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglSkinWeightsBuffer );
+				getGL().vertexAttribPointer( attributes[ Shader.ATTRIBUTE_SKIN_WEIGHT ], 4, DataType.FLOAT, false, 0, 0 );
 			}
 		}
 
@@ -1191,6 +1519,93 @@ public class WebGLRenderer implements HasEventBus
 		object.renderBuffer(this, geometryBuffer, updateBuffers);
 	}
 
+	/*
+	 * Points the attribute to the buffer of the direct geometry.
+	 * 
+	 * @return false if the buffer has no data
+	 */
+	private boolean setupDirectAttribute( int attribute, GeometryBuffer geometryBuffer, WebGLBuffer buffer, int size, int startIndex )
+	{
+		if ( attribute < 0 || geometryBuffer.getBufferDataSize( buffer ) == 0 )
+			return false;
+
+		bindBuffer( BufferTarget.ARRAY_BUFFER, buffer );
+		getGL().vertexAttribPointer( attribute, size, DataType.FLOAT, false, 0, startIndex * size * 4 ); // 4 bytes per Float32
+
+		return true;
+	}
+
+	/*
+	 * Points attributes to the interleaved buffer. Attributes which are 
+	 * missing in the interleaved layout stay on their own buffers.
+	 */
+	private void setupInterleavedAttributes( int[] attributes, GeometryBuffer geometryBuffer, boolean isPosition, int startIndex ) 
+	{
+		WebGLRenderingContext gl = getGL();
+
+		int stride = geometryBuffer.getInterleavedStride() * 4; // 4 bytes per Float32
+		int base = startIndex * stride;
+
+		bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglInterleavedBuffer );
+
+		if ( isPosition && attributes[ Shader.ATTRIBUTE_POSITION ] >= 0 )
+			gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_POSITION ], 3, DataType.FLOAT, false, stride, base );
+
+		if ( attributes[ Shader.ATTRIBUTE_NORMAL ] >= 0 && geometryBuffer.getInterleavedNormalOffset() >= 0 )
+			gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_NORMAL ], 3, DataType.FLOAT, false, stride, base + geometryBuffer.getInterleavedNormalOffset() * 4 );
+
+		if ( attributes[ Shader.ATTRIBUTE_COLOR ] >= 0 && geometryBuffer.getInterleavedColorOffset() >= 0 )
+			gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_COLOR ], 3, DataType.FLOAT, false, stride, base + geometryBuffer.getInterleavedColorOffset() * 4 );
+
+		if ( attributes[ Shader.ATTRIBUTE_TANGENT ] >= 0 && geometryBuffer.getInterleavedTangentOffset() >= 0 )
+			gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_TANGENT ], 4, DataType.FLOAT, false, stride, base + geometryBuffer.getInterleavedTangentOffset() * 4 );
+
+		if ( attributes[ Shader.ATTRIBUTE_UV ] >= 0 ) 
+		{
+			if ( geometryBuffer.getInterleavedUvOffset() >= 0 ) 
+			{
+				gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_UV ], 2, DataType.FLOAT, false, stride, base + geometryBuffer.getInterleavedUvOffset() * 4 );
+				getState().enableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV ] );
+			} 
+			else 
+			{
+				getState().disableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV ] );
+			}
+		}
+
+		if ( attributes[ Shader.ATTRIBUTE_UV2 ] >= 0 ) 
+		{
+			if ( geometryBuffer.getInterleavedUv2Offset() >= 0 ) 
+			{
+				gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_UV2 ], 2, DataType.FLOAT, false, stride, base + geometryBuffer.getInterleavedUv2Offset() * 4 );
+				getState().enableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV2 ] );
+			} 
+			else 
+			{
+				getState().disableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV2 ] );
+			}
+		}
+
+		// missing attributes
+		if ( attributes[ Shader.ATTRIBUTE_NORMAL ] >= 0 && geometryBuffer.getInterleavedNormalOffset() < 0 )
+		{
+			bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglNormalBuffer );
+			gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_NORMAL ], 3, DataType.FLOAT, false, 0, 0 );
+		}
+
+		if ( attributes[ Shader.ATTRIBUTE_COLOR ] >= 0 && geometryBuffer.getInterleavedColorOffset() < 0 )
+		{
+			bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglColorBuffer );
+			gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_COLOR ], 3, DataType.FLOAT, false, 0, 0 );
+		}
+
+		if ( attributes[ Shader.ATTRIBUTE_TANGENT ] >= 0 && geometryBuffer.getInterleavedTangentOffset() < 0 )
+		{
+			bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglTangentBuffer );
+			gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_TANGENT ], 4, DataType.FLOAT, false, 0, 0 );
+		}
+	}
+
 	public void renderBufferDirect( Scene scene, Camera camera, Material material, GeometryBuffer geometryBuffer, GeometryObject object ) 
 	{
 		if ( ! material.isVisible() ) 
@@ -1198,7 +1613,7 @@ public class WebGLRenderer implements HasEventBus
 
 		setProgram( scene, camera, material, object );
 
-		Map<String, Integer> attributes = material.getShader().getAttributesLocations();
+		int[] attributes = material.getShader().getAttributeSlots();
 		
 		boolean updateBuffers = false;
 		int wireframeBit = material instanceof HasWireframe && ((HasWireframe)material).isWireframe() ? 1 : 0;
@@ -1219,6 +1634,12 @@ public class WebGLRenderer implements HasEventBus
 		{
 			List<GeometryBuffer.Offset> offsets = geometryBuffer.offsets;
 
+			if ( geometryBuffer.isWebGlIndexArrayUint32() && ! isGPUsupportsElementIndexUint() )
+			{
+				Log.error("renderBufferDirect(): 32-bit indices are used, but OES_element_index_uint extension is not supported");
+				return;
+			}
+
 			// if there is more than 1 chunk
 			// must set attribute pointers to use new offsets for each chunk
 			// even if geometry and materials didn't change
@@ -1230,83 +1651,52 @@ public class WebGLRenderer implements HasEventBus
 			{
 				int startIndex = offsets.get( i ).index;
 
-				if ( updateBuffers ) 
+				if ( updateBuffers && geometryBuffer.isInterleavedBuffers() && geometryBuffer.__webglInterleavedBuffer != null ) 
 				{
-					// vertices
+					setupInterleavedAttributes( attributes, geometryBuffer, true, startIndex );
 
-					Float64Array position = geometryBuffer.getWebGlVertexArray();
-					position.length();
+					bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglIndexBuffer );
+				}
+				else if ( updateBuffers ) 
+				{
+					// the typed arrays of non-dynamic geometry are deleted after 
+					// loading, so only the buffers which have data are used
 
-					gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglVertexBuffer );
-					gl.vertexAttribPointer( attributes.get("position"), 3, DataType.FLOAT, false, 0, startIndex * 3 * 4 ); // 4 bytes per Float32
+					// vertices
 
-					// normals
+					bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglVertexBuffer );
+					gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_POSITION ], 3, DataType.FLOAT, false, 0, startIndex * 3 * 4 ); // 4 bytes per Float32
 
-					Float64Array normal = geometryBuffer.getWebGlNormalArray();
+					// normals
 
-					if ( attributes.get("normal") >= 0 && normal != null ) 
-					{
-						normal.length();
-
-						gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglNormalBuffer );
-						gl.vertexAttribPointer( attributes.get("normal"), 3, DataType.FLOAT, false, 0, startIndex * 3 * 4 );
-					}
+					setupDirectAttribute( attributes[ Shader.ATTRIBUTE_NORMAL ], geometryBuffer, geometryBuffer.__webglNormalBuffer, 3, startIndex );
 
 					// uvs
 
-					Float64Array uv = geometryBuffer.getWebGlUvArray();
-
-					if ( attributes.get("uv") >= 0 && uv != null ) 
+					if ( attributes[ Shader.ATTRIBUTE_UV ] >= 0 ) 
 					{
-						if ( geometryBuffer.__webglUVBuffer != null ) 
-						{
-							uv.length();
-
-							gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglUVBuffer );
-							gl.vertexAttribPointer( attributes.get("uv"), 3, DataType.FLOAT, false, 0, startIndex * 3 * 4 );
-
-							gl.enableVertexAttribArray( attributes.get("uv") );
-						} 
-						else 
-						{
-							gl.disableVertexAttribArray( attributes.get("uv") );
-						}
-
+						if ( setupDirectAttribute( attributes[ Shader.ATTRIBUTE_UV ], geometryBuffer, geometryBuffer.__webglUVBuffer, 2, startIndex ) )
+							getState().enableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV ] );
+						else
+							getState().disableVertexAttribArray( attributes[ Shader.ATTRIBUTE_UV ] );
 					}
 
 					// colors
 
-					Float64Array color = geometryBuffer.getWebGlColorArray();
-
-					if ( attributes.get("color") >= 0 && color != null ) 
-					{
-						color.length();
-
-						gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglColorBuffer );
-						gl.vertexAttribPointer( attributes.get("color"), 3, DataType.FLOAT, false, 0, startIndex * 3 * 4 );
-					}
+					setupDirectAttribute( attributes[ Shader.ATTRIBUTE_COLOR ], geometryBuffer, geometryBuffer.__webglColorBuffer, 3, startIndex );
 
 					// tangents
 
-					Float64Array tangent = geometryBuffer.getWebGlTangentArray();
-
-					if ( attributes.get("tangent") >= 0 && tangent != null )
-					{
-						tangent.length();
-
-						gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglTangentBuffer );
-						gl.vertexAttribPointer( attributes.get("tangent"), 3, DataType.FLOAT, false, 0, startIndex * 3 * 4 );
-					}
+					setupDirectAttribute( attributes[ Shader.ATTRIBUTE_TANGENT ], geometryBuffer, geometryBuffer.__webglTangentBuffer, 4, startIndex );
 
 					// indices
 
-					geometryBuffer.getWebGlIndexArray();
-
-					gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglIndexBuffer );
+					bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglIndexBuffer );
 				}
 
 				// render indexed triangles
-				gl.drawElements( BeginMode.TRIANGLES, offsets.get( i ).count, DrawElementsType.UNSIGNED_SHORT, offsets.get( i ).start * 2 ); // 2 bytes per Uint16
+				gl.drawElements( BeginMode.TRIANGLES, offsets.get( i ).count, geometryBuffer.getWebGlIndexArrayType(), 
+						offsets.get( i ).start * ( geometryBuffer.isWebGlIndexArrayUint32() ? 4 : 2 ) ); // bytes per Uint32 or Uint16
 
 				getInfo().getRender().calls ++;
 				getInfo().getRender().vertices += offsets.get( i ).count; // not really true, here vertices can be shared
@@ -1321,30 +1711,21 @@ public class WebGLRenderer implements HasEventBus
 //			{
 				// vertices
 
-				Float64Array position = geometryBuffer.getWebGlVertexArray();
-				position.length();
+				int nparticles = geometryBuffer.getBufferDataSize( geometryBuffer.__webglVertexBuffer ) / ( 3 * 4 );
 
-				gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglVertexBuffer );
-				gl.vertexAttribPointer( attributes.get("position"), 3, DataType.FLOAT, false, 0, 0 );
+				bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglVertexBuffer );
+				gl.vertexAttribPointer( attributes[ Shader.ATTRIBUTE_POSITION ], 3, DataType.FLOAT, false, 0, 0 );
 
 				// colors
 
-				Float64Array color = geometryBuffer.getWebGlColorArray();
-
-				if ( attributes.get("color") >= 0 && color != null ) 
-				{
-					color.length();
-
-					gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryBuffer.__webglColorBuffer );
-					gl.vertexAttribPointer( attributes.get("color"), 3, DataType.FLOAT, false, 0, 0 );
-				}
+				setupDirectAttribute( attributes[ Shader.ATTRIBUTE_COLOR ], geometryBuffer, geometryBuffer.__webglColorBuffer, 3, 0 );
 
 				// render particles
 
-				gl.drawArrays( BeginMode.POINTS, 0, position.length() / 3 );
+				gl.drawArrays( BeginMode.POINTS, 0, nparticles );
 
 				getInfo().getRender().calls ++;
-				getInfo().getRender().points += position.length() / 3;
+				getInfo().getRender().points += nparticles;
 //			}
 		}
 	}
@@ -1380,6 +1761,12 @@ public class WebGLRenderer implements HasEventBus
 			parameters.boneTextureHeight = ((SkinnedMesh)object).boneTextureHeight;
 		}
 
+		if(object instanceof InstancedMesh)
+		{
+			parameters.instancing = true;
+			parameters.instancingAttributes = ( this.GLExtensionInstancedArrays != null );
+		}
+
 		parameters.maxMorphTargets = this.maxMorphTargets;
 		parameters.maxMorphNormals = this.maxMorphNormals;
 
@@ -1402,61 +1789,32 @@ public class WebGLRenderer implements HasEventBus
 		material.updateProgramParameters(parameters);
 		Log.debug("initMaterial() called new Program");
 
-		String cashKey = material.getShader().getFragmentSource() 
-				+ material.getShader().getVertexSource()
-				+ parameters.toString();
+		int templateId = this.shaderVariants.getTemplateId(material.getShader());
+		ProgramKey cashKey = new ProgramKey(templateId, this.shaderVariants.getTemplateHash(templateId), parameters);
 
-		if(this.cache_programs.containsKey(cashKey))
+		Shader cachedShader = this.cache_programs.get(cashKey);
+		if(cachedShader != null)
 		{
-			material.setShader( this.cache_programs.get(cashKey) );
+			material.setShader( cachedShader );
 		}
 		else
 		{
-			Shader shader = material.buildShader(getGL(), parameters);
-
-			this.cache_programs.put(cashKey, shader);
-
-			this.getInfo().getMemory().programs = cache_programs.size();
+			buildProgram(cashKey, material, parameters);
 		}
 		
-		Map<String, Integer> attributes = material.getShader().getAttributesLocations();
-
-		if ( attributes.get("position") >= 0 ) 
-			getGL().enableVertexAttribArray( attributes.get("position") );
-
-		if ( attributes.get("color") >= 0 ) 
-			getGL().enableVertexAttribArray( attributes.get("color") );
-
-		if ( attributes.get("normal") >= 0 ) 
-			getGL().enableVertexAttribArray( attributes.get("normal") );
-
-		if ( attributes.get("tangent") >= 0 ) 
-			getGL().enableVertexAttribArray( attributes.get("tangent") );
-
-		if ( material instanceof HasSkinning && ((HasSkinning)material).isSkinning() &&
-			 attributes.get("skinIndex") >= 0 && attributes.get("skinWeight") >= 0 
-		) {
-			getGL().enableVertexAttribArray( attributes.get("skinIndex") );
-			getGL().enableVertexAttribArray( attributes.get("skinWeight") );
-		}
-
-		if ( attributes != null )
-			for ( Integer a : attributes.values() )
-				if( a != null && a >= 0 ) 
-					getGL().enableVertexAttribArray( a );
+		enableAttributes( material.getShader() );
 
 		if(material instanceof HasSkinning)
 		{
 			if ( ((HasSkinning)material).isMorphTargets()) 
 			{
 				int numSupportedMorphTargets = 0;
-				for ( int i = 0; i < this.maxMorphTargets; i ++ ) 
+				int[] morphTargets = material.getShader().getMorphTargetSlots();
+				for ( int i = 0; i < morphTargets.length; i ++ ) 
 				{
-					String id = "morphTarget" + i;
-
-					if ( attributes.get( id ) >= 0 ) 
+					if ( morphTargets[ i ] >= 0 ) 
 					{
-						getGL().enableVertexAttribArray( attributes.get( id ) );
+						getState().enableVertexAttribArray( morphTargets[ i ] );
 						numSupportedMorphTargets ++;
 					}
 				}
@@ -1467,13 +1825,12 @@ public class WebGLRenderer implements HasEventBus
 			if ( ((HasSkinning)material).isMorphNormals() ) 
 			{
 				int numSupportedMorphNormals = 0;
-				for ( int i = 0; i < this.maxMorphNormals; i ++ ) 
+				int[] morphNormals = material.getShader().getMorphNormalSlots();
+				for ( int i = 0; i < morphNormals.length; i ++ ) 
 				{
-					String id = "morphNormal" + i;
-
-					if ( attributes.get( id ) >= 0 ) 
+					if ( morphNormals[ i ] >= 0 ) 
 					{
-						getGL().enableVertexAttribArray( attributes.get( id ) );
+						getState().enableVertexAttribArray( morphNormals[ i ] );
 						numSupportedMorphNormals ++;
 					}
 				}
@@ -1483,6 +1840,51 @@ public class WebGLRenderer implements HasEventBus
 		}
 	}
 
+	/*
+	 * Vertex attribute arrays are global state, and the other program could 
+	 * disable the same locations, for example the instance attributes 
+	 * in InstancedMesh. So they are enabled each time the program is changed.
+	 */
+	private void enableAttributes( Shader shader )
+	{
+		int[] attributes = shader.getAttributeSlots();
+		for ( int i = 0; i < attributes.length; i ++ )
+			if( attributes[ i ] >= 0 ) 
+				getState().enableVertexAttribArray( attributes[ i ] );
+
+		// custom attributes
+		Map<String, Attribute> customAttributes = shader.getAttributes();
+		if ( customAttributes != null )
+			for ( String id : customAttributes.keySet() )
+			{
+				Integer location = shader.getAttributesLocations().get( id );
+				if( location != null && location >= 0 ) 
+					getState().enableVertexAttribArray( location );
+			}
+
+		int[] morphTargets = shader.getMorphTargetSlots();
+		for ( int i = 0; i < morphTargets.length; i ++ )
+			if ( morphTargets[ i ] >= 0 ) 
+				getState().enableVertexAttribArray( morphTargets[ i ] );
+
+		int[] morphNormals = shader.getMorphNormalSlots();
+		for ( int i = 0; i < morphNormals.length; i ++ )
+			if ( morphNormals[ i ] >= 0 ) 
+				getState().enableVertexAttribArray( morphNormals[ i ] );
+	}
+
+	private Shader buildProgram( ProgramKey key, Material material, ProgramParameters parameters )
+	{
+		Shader shader = material.buildShader(getGL(), parameters);
+
+		this.cache_programs.put(key, shader);
+		this.shaderVariants.addVariant(key);
+
+		this.getInfo().getMemory().programs = cache_programs.size();
+
+		return shader;
+	}
+
 	private WebGLProgram setProgram( Scene scene, Camera camera, Material material, GeometryObject object ) 
 	{
 		// Use new material units for new shader
@@ -1498,7 +1900,7 @@ public class WebGLRenderer implements HasEventBus
 		{
 			if ( object instanceof Mesh && ((Mesh)object).__webglMorphTargetInfluences == null ) 
 			{
-				((Mesh)object).__webglMorphTargetInfluences = TypedArrays.createFloat64Array( this.maxMorphTargets );
+				((Mesh)object).__webglMorphTargetInfluences = TypedArrays.createFloat32Array( this.maxMorphTargets );
 			}
 		}
 
@@ -1507,11 +1909,16 @@ public class WebGLRenderer implements HasEventBus
 		Shader shader = material.getShader(); 
 		WebGLProgram program = shader.getProgram();
 		Map<String, Uniform> m_uniforms = shader.getUniforms();
+		WebGLUniformLocation[] slots = shader.getUniformSlots();
+
+		this.cache_currentShader = shader;
 
 		if ( program != cache_currentProgram )
 		{
-			getGL().useProgram( program );
+			getState().useProgram( program );
 			this.cache_currentProgram = program;
+			enableAttributes( shader );
+			this.getInfo().getRender().programs ++;
 
 			refreshMaterial = true;
 			Log.error("program != cache_currentProgram");
@@ -1526,7 +1933,7 @@ public class WebGLRenderer implements HasEventBus
 
 		if ( refreshMaterial || camera != this.cache_currentCamera ) 
 		{
-			getGL().uniformMatrix4fv( m_uniforms.get("projectionMatrix").getLocation(), false, camera._projectionMatrixArray );
+			getGL().uniformMatrix4fv( slots[ Shader.UNIFORM_PROJECTION_MATRIX ], false, camera._projectionMatrixArray );
 
 			if ( camera != this.cache_currentCamera ) 
 				this.cache_currentCamera = camera;
@@ -1539,23 +1946,31 @@ public class WebGLRenderer implements HasEventBus
 		{
 			if ( object instanceof SkinnedMesh && ((SkinnedMesh)object).useVertexTexture && this.isGPUsupportsBoneTextures) 
 			{
-				if ( m_uniforms.get("boneTexture").getLocation() != null ) 
+				if ( slots[ Shader.UNIFORM_BONE_TEXTURE ] != null ) 
 				{
 					int textureUnit = getTextureUnit();
 
-					getGL().uniform1i( m_uniforms.get("boneTexture").getLocation(), textureUnit );
+					getGL().uniform1i( slots[ Shader.UNIFORM_BONE_TEXTURE ], textureUnit );
 					setTexture( ((SkinnedMesh)object).boneTexture, textureUnit );
 				}
 			} 
 			else 
 			{
-				if ( m_uniforms.get("boneGlobalMatrices").getLocation() != null ) 
+				if ( slots[ Shader.UNIFORM_BONE_GLOBAL_MATRICES ] != null ) 
 				{
-					getGL().uniformMatrix4fv( m_uniforms.get("boneGlobalMatrices").getLocation(), false, ((SkinnedMesh)object).boneMatrices );
+					getGL().uniformMatrix4fv( slots[ Shader.UNIFORM_BONE_GLOBAL_MATRICES ], false, ((SkinnedMesh)object).boneMatrices );
 				}
 			}
 		}
 		
+		boolean isLightsMaterial = material.getClass() == MeshPhongMaterial.class ||
+				 material.getClass() == MeshLambertMaterial.class ||
+				 (material.getClass() == ShaderMaterial.class && ((ShaderMaterial)material).isLights());
+
+		// lights selected for the object must be set even if material didn't change
+		if ( isLightsMaterial && this.maxLightsPerObject > 0 )
+			refreshUniformsObjectLights( m_uniforms, scene.getLights(), object, refreshMaterial );
+
 		if ( refreshMaterial ) 
 		{
 			List<Light> lights = scene.getLights(); 
@@ -1565,14 +1980,21 @@ public class WebGLRenderer implements HasEventBus
 			if ( fog != null && material instanceof HasFog && ((HasFog)material).isFog())
 				fog.refreshUniforms( m_uniforms );
 
-			if ( material.getClass() == MeshPhongMaterial.class ||
-				 material.getClass() == MeshLambertMaterial.class ||
-				 (material.getClass() == ShaderMaterial.class && ((ShaderMaterial)material).isLights())) 
+			if ( isLightsMaterial && this.maxLightsPerObject == 0 ) 
 			{
 
 				if (this.isLightsNeedUpdate ) 
 				{
 					this.cache_lights.setupLights( lights, this.isGammaInput );
+
+					if ( this.isLightBucketing )
+					{
+						Map<String, Integer> maxLightCount = allocateLights( lights );
+						this.cache_lights.padLights( 
+								maxLightCount.get("directional"), maxLightCount.get("point"),
+								maxLightCount.get("spot"), maxLightCount.get("hemi") );
+					}
+
 					this.isLightsNeedUpdate = false;
 				}
 
@@ -1585,7 +2007,7 @@ public class WebGLRenderer implements HasEventBus
 				refreshUniformsShadow( m_uniforms, lights );
 
 			// load common uniforms
-			loadUniformsGeneric( m_uniforms );
+			loadUniformsGeneric( m_uniforms.values() );
 
 			// load material specific uniforms
 			// (shader material also gets them for the sake of genericity)
@@ -1594,10 +2016,10 @@ public class WebGLRenderer implements HasEventBus
 				 material instanceof HasEnvMap 
 			) {
 
-				if ( m_uniforms.get("cameraPosition").getLocation() != null ) 
+				if ( slots[ Shader.UNIFORM_CAMERA_POSITION ] != null ) 
 				{
 					Vector3 position = camera.getMatrixWorld().getPosition();
-					getGL().uniform3f( m_uniforms.get("cameraPosition").getLocation(), position.getX(), position.getY(), position.getZ() );
+					getGL().uniform3f( slots[ Shader.UNIFORM_CAMERA_POSITION ], position.getX(), position.getY(), position.getZ() );
 				}
 			}
 
@@ -1607,19 +2029,61 @@ public class WebGLRenderer implements HasEventBus
 				 material instanceof HasSkinning && ((HasSkinning)material).isSkinning() 
 			) {
 
-				if ( m_uniforms.get("viewMatrix").getLocation() != null ) 
-					getGL().uniformMatrix4fv( m_uniforms.get("viewMatrix").getLocation(), false, camera._viewMatrixArray );
+				if ( slots[ Shader.UNIFORM_VIEW_MATRIX ] != null ) 
+					getGL().uniformMatrix4fv( slots[ Shader.UNIFORM_VIEW_MATRIX ], false, camera._viewMatrixArray );
 			}
 		}
 
-		loadUniformsMatrices( m_uniforms, object );
+		loadUniformsMatrices( slots, object );
+
+		if ( slots[ Shader.UNIFORM_MODEL_MATRIX ] != null )
+		{
+			if ( object._modelMatrixArray == null )
+				object._modelMatrixArray = TypedArrays.createFloat32Array( 16 );
 
-		if ( m_uniforms.get("modelMatrix").getLocation() != null )
-			getGL().uniformMatrix4fv( m_uniforms.get("modelMatrix").getLocation(), false, object.getMatrixWorld().getArray() );
+			getGL().uniformMatrix4fv( slots[ Shader.UNIFORM_MODEL_MATRIX ], false, object.getMatrixWorld().flattenToArray( object._modelMatrixArray ) );
+		}
 
 		return program;
 	}
 
+	private void refreshUniformsObjectLights( Map<String, Uniform> uniforms, List<Light> lights, 
+			GeometryObject object, boolean refreshMaterial )
+	{
+		Object3D objectImpl = (Object3D) object;
+		if ( objectImpl.__worldSphereCenter == null )
+			objectImpl.updateWorldBoundingSphere();
+
+		boolean isChanged = this.cache_lights.setupObjectLights( lights, this.isGammaInput, 
+				objectImpl.__worldSphereCenter, objectImpl.__worldSphereRadius, 
+				this.maxLightsPerObject, this.isLightsNeedUpdate );
+
+		if ( this.isLightsNeedUpdate )
+		{
+			this.cache_lightCount = allocateLights( lights );
+			this.isLightsNeedUpdate = false;
+		}
+
+		if ( isChanged )
+		{
+			// unused slots of the program must not keep the previous object's lights
+			this.cache_lights.padLights( 
+					this.cache_lightCount.get("directional"), this.cache_lightCount.get("point"),
+					this.cache_lightCount.get("spot"), this.cache_lightCount.get("hemi") );
+		}
+
+		if ( isChanged || refreshMaterial )
+			this.cache_lights.refreshUniformsLights( uniforms );
+
+		// otherwise all uniforms will be loaded with the material
+		if ( isChanged && ! refreshMaterial )
+		{
+			this.cache_lightUniforms.clear();
+			this.cache_lights.getUniformsLights( uniforms, this.cache_lightUniforms );
+			loadUniformsGeneric( this.cache_lightUniforms );
+		}
+	}
+
 	private void refreshUniformsShadow( Map<String, Uniform> uniforms, List<Light> lights ) 
 	{
 		if ( uniforms.containsKey("shadowMatrix") ) 
@@ -1655,23 +2119,34 @@ public class WebGLRenderer implements HasEventBus
 
 	// Uniforms (load to GPU)
 
-	private void loadUniformsMatrices ( Map<String, Uniform> uniforms, GeometryObject object ) 
+	private void loadUniformsMatrices ( WebGLUniformLocation[] slots, GeometryObject object ) 
 	{
 		GeometryObject objectImpl = (GeometryObject) object;
-		getGL().uniformMatrix4fv( uniforms.get("modelViewMatrix").getLocation(), false, objectImpl._modelViewMatrix.getArray() );
 
-		if ( uniforms.containsKey("normalMatrix") )
-			getGL().uniformMatrix3fv( uniforms.get("normalMatrix").getLocation(), false, objectImpl._normalMatrix.getArray() );
+		if ( objectImpl._modelViewMatrixArray == null )
+		{
+			objectImpl._modelViewMatrixArray = TypedArrays.createFloat32Array( 16 );
+			objectImpl._normalMatrixArray = TypedArrays.createFloat32Array( 9 );
+		}
+
+		getGL().uniformMatrix4fv( slots[ Shader.UNIFORM_MODEL_VIEW_MATRIX ], false, objectImpl._modelViewMatrix.flattenToArray( objectImpl._modelViewMatrixArray ) );
+
+		if ( slots[ Shader.UNIFORM_NORMAL_MATRIX ] != null )
+			getGL().uniformMatrix3fv( slots[ Shader.UNIFORM_NORMAL_MATRIX ], false, objectImpl._normalMatrix.flattenToArray( objectImpl._normalMatrixArray ) );
 	}
 
+	/*
+	 * Uploads uniforms which were changed since the last upload to the 
+	 * current program. Uniforms belong to the shader, so the last uploaded 
+	 * values, stored in the uniforms, are tracked per program.
+	 */
 	@SuppressWarnings("unchecked")
-	private void loadUniformsGeneric( Map<String, Uniform> materialUniforms ) 
+	private void loadUniformsGeneric( Collection<Uniform> materialUniforms ) 
 	{
-		for ( Uniform uniform : materialUniforms.values() ) 
+		WebGLRenderingContext gl = getGL();
+
+		for ( Uniform uniform : materialUniforms ) 
 		{
-//			for ( String key: materialUniforms.keySet() ) 
-//			{
-//				 Uniform uniform = materialUniforms.get(key);
 			WebGLUniformLocation location = uniform.getLocation();
 		
 			if ( location == null ) continue;
@@ -1682,120 +2157,194 @@ public class WebGLRenderer implements HasEventBus
 			// Up textures also for undefined values
 			if ( type != Uniform.TYPE.T && value == null ) continue;
 
-			Log.debug("loadUniformsGeneric() " + uniform);
-			
-			WebGLRenderingContext gl = getGL();
+			boolean isChanged = ! uniform.isUploaded();
 
 			if(type == TYPE.I) // single integer
 			{
-				gl.uniform1i( location, (value instanceof Boolean) ? ((Boolean)value) ? 1 : 0 : (Integer) value );
+				int intValue = (value instanceof Boolean) ? ((Boolean)value) ? 1 : 0 : (Integer) value;
+				isChanged = updateUploadedValues( uniform, isChanged, intValue, 0, 0, 0, 1 );
+
+				if ( isChanged )
+					gl.uniform1i( location, intValue );
 			}
 			else if(type == TYPE.F) // single double
 			{
-				gl.uniform1f( location, (Double)value );
+				isChanged = updateUploadedValues( uniform, isChanged, (Double)value, 0, 0, 0, 1 );
+
+				if ( isChanged )
+					gl.uniform1f( location, (Double)value );
 			}
 			else if(type == TYPE.V2) // single Vector2
 			{ 
-				gl.uniform2f( location, ((Vector2)value).getX(), ((Vector2)value).getX() );
+				Vector2 vector2 = (Vector2)value;
+				isChanged = updateUploadedValues( uniform, isChanged, vector2.getX(), vector2.getY(), 0, 0, 2 );
+
+				if ( isChanged )
+					gl.uniform2f( location, vector2.getX(), vector2.getY() );
 			}
 			else if(type == TYPE.V3) // single Vector3
 			{ 
-				gl.uniform3f( location, ((Vector3)value).getX(), ((Vector3)value).getY(), ((Vector3)value).getZ() );
+				Vector3 vector3 = (Vector3)value;
+				isChanged = updateUploadedValues( uniform, isChanged, vector3.getX(), vector3.getY(), vector3.getZ(), 0, 3 );
+
+				if ( isChanged )
+					gl.uniform3f( location, vector3.getX(), vector3.getY(), vector3.getZ() );
 			}
 			else if(type == TYPE.V4) // single Vector4
 			{
-				gl.uniform4f( location, ((Vector4)value).getX(), ((Vector4)value).getY(), ((Vector4)value).getZ(), ((Vector4)value).getW() );
+				Vector4 vector4 = (Vector4)value;
+				isChanged = updateUploadedValues( uniform, isChanged, vector4.getX(), vector4.getY(), vector4.getZ(), vector4.getW(), 4 );
+
+				if ( isChanged )
+					gl.uniform4f( location, vector4.getX(), vector4.getY(), vector4.getZ(), vector4.getW() );
 			}
 			else if(type == TYPE.C) // single Color
 			{
-				gl.uniform3f( location, ((Color)value).getR(), ((Color)value).getG(), ((Color)value).getB() );
+				Color color = (Color)value;
+				isChanged = updateUploadedValues( uniform, isChanged, color.getR(), color.getG(), color.getB(), 0, 3 );
+
+				if ( isChanged )
+					gl.uniform3f( location, color.getR(), color.getG(), color.getB() );
 			}
-			else if(type == TYPE.FV1) // flat array of floats (JS or typed array)
+			else if(type == TYPE.FV1 || type == TYPE.FV) // flat array of floats (JS or typed array)
 			{
-				gl.uniform1fv( location, (Float64Array)value );
-			}
-			else if(type == TYPE.FV) // flat array of floats with 3 x N size (JS or typed array)
-			{ 
-				gl.uniform3fv( location, (Float64Array) value );
+				Float64Array array = (Float64Array)value;
+				double[] uploaded = uniform.getUploadedValues( array.length() );
+				isChanged = isChanged || ! uniform.isUploaded();
+
+				for ( int i = 0, il = array.length(); i < il; i ++ )
+				{
+					if ( uploaded[ i ] != array.get( i ) )
+					{
+						uploaded[ i ] = array.get( i );
+						isChanged = true;
+					}
+				}
+
+				if ( isChanged )
+				{
+					if ( type == TYPE.FV1 )
+						gl.uniform1fv( location, array );
+					else // flat array of floats with 3 x N size
+						gl.uniform3fv( location, array );
+				}
 			}
 			else if(type == TYPE.V2V) // List of Vector2
 			{ 
 				List<Vector2> listVector2f = (List<Vector2>) value;
-				if ( uniform.getCacheArray() == null )
-					uniform.setCacheArray( TypedArrays.createFloat64Array( 2 * listVector2f.size() ) );
+				Float32Array cacheArray = uniform.getCacheArray();
+				if ( cacheArray == null || cacheArray.length() != 2 * listVector2f.size() )
+				{
+					cacheArray = TypedArrays.createFloat32Array( 2 * listVector2f.size() );
+					uniform.setCacheArray( cacheArray );
+					isChanged = true;
+				}
 
 				for ( int i = 0, il = listVector2f.size(); i < il; i ++ ) 
 				{
 					int offset = i * 2;
 
-					uniform.getCacheArray().set(offset, listVector2f.get(i).getX());
-					uniform.getCacheArray().set(offset + 1, listVector2f.get(i).getY());
+					isChanged |= updateCacheArray( cacheArray, offset, listVector2f.get(i).getX() );
+					isChanged |= updateCacheArray( cacheArray, offset + 1, listVector2f.get(i).getY() );
 				}
 
-				gl.uniform2fv( location, uniform.getCacheArray() );
+				if ( isChanged )
+					gl.uniform2fv( location, cacheArray );
 			}
 			else if(type == TYPE.V3V) // List of Vector3
 			{
 				List<Vector3> listVector3f = (List<Vector3>) value;
-				if ( uniform.getCacheArray() == null )
-					uniform.setCacheArray( TypedArrays.createFloat64Array( 3 * listVector3f.size() ) );
+				Float32Array cacheArray = uniform.getCacheArray();
+				if ( cacheArray == null || cacheArray.length() != 3 * listVector3f.size() )
+				{
+					cacheArray = TypedArrays.createFloat32Array( 3 * listVector3f.size() );
+					uniform.setCacheArray( cacheArray );
+					isChanged = true;
+				}
 
 				for ( int i = 0, il = listVector3f.size(); i < il; i ++ ) 
 				{
 					int offset = i * 3;
 
-					uniform.getCacheArray().set(offset, listVector3f.get( i ).getX());
-					uniform.getCacheArray().set(offset + 1, listVector3f.get( i ).getY());
-					uniform.getCacheArray().set(offset + 2 , listVector3f.get( i ).getZ());
+					isChanged |= updateCacheArray( cacheArray, offset, listVector3f.get( i ).getX() );
+					isChanged |= updateCacheArray( cacheArray, offset + 1, listVector3f.get( i ).getY() );
+					isChanged |= updateCacheArray( cacheArray, offset + 2, listVector3f.get( i ).getZ() );
 				}
 
-				gl.uniform3fv( location, uniform.getCacheArray() );
+				if ( isChanged )
+					gl.uniform3fv( location, cacheArray );
 			}
 			else if(type == TYPE.V4V) // List of Vector4
 			{
 				List<Vector4> listVector4f = (List<Vector4>) value;
-				if ( uniform.getCacheArray() == null)
-					uniform.setCacheArray( TypedArrays.createFloat64Array( 4 * listVector4f.size() ) );
-
+				Float32Array cacheArray = uniform.getCacheArray();
+				if ( cacheArray == null || cacheArray.length() != 4 * listVector4f.size() )
+				{
+					cacheArray = TypedArrays.createFloat32Array( 4 * listVector4f.size() );
+					uniform.setCacheArray( cacheArray );
+					isChanged = true;
+				}
 
 				for ( int i = 0, il = listVector4f.size(); i < il; i ++ ) 
 				{
 					int offset = i * 4;
 
-					uniform.getCacheArray().set(offset, listVector4f.get( i ).getX());
-					uniform.getCacheArray().set(offset + 1, listVector4f.get( i ).getY());
-					uniform.getCacheArray().set(offset + 2, listVector4f.get( i ).getZ());
-					uniform.getCacheArray().set(offset + 3, listVector4f.get( i ).getW());
+					isChanged |= updateCacheArray( cacheArray, offset, listVector4f.get( i ).getX() );
+					isChanged |= updateCacheArray( cacheArray, offset + 1, listVector4f.get( i ).getY() );
+					isChanged |= updateCacheArray( cacheArray, offset + 2, listVector4f.get( i ).getZ() );
+					isChanged |= updateCacheArray( cacheArray, offset + 3, listVector4f.get( i ).getW() );
 				}
 
-				gl.uniform4fv( location, uniform.getCacheArray() );
+				if ( isChanged )
+					gl.uniform4fv( location, cacheArray );
 			}
 			else if(type == TYPE.M4) // single Matrix4
 			{
-				Matrix4 matrix4 = (Matrix4) value;
-				if ( uniform.getCacheArray() == null )
-					uniform.setCacheArray( TypedArrays.createFloat64Array( 16 ) );
+				Float32Array cacheArray = uniform.getCacheArray();
+				if ( cacheArray == null )
+				{
+					cacheArray = TypedArrays.createFloat32Array( 16 );
+					uniform.setCacheArray( cacheArray );
+					isChanged = true;
+				}
+
+				Float64Array elements = ((Matrix4) value).getArray();
+				for ( int i = 0; i < 16; i ++ )
+					isChanged |= updateCacheArray( cacheArray, i, elements.get( i ) );
 
-				matrix4.flattenToArray( uniform.getCacheArray() );
-				gl.uniformMatrix4fv( location, false, uniform.getCacheArray() );
+				if ( isChanged )
+					gl.uniformMatrix4fv( location, false, cacheArray );
 			}
 			else if(type == TYPE.M4V) // List of Matrix4
 			{
 				List<Matrix4> listMatrix4f = (List<Matrix4>) value;
-				if ( uniform.getCacheArray() == null )
-					uniform.setCacheArray( TypedArrays.createFloat64Array( 16 * listMatrix4f.size() ) );
+				Float32Array cacheArray = uniform.getCacheArray();
+				if ( cacheArray == null || cacheArray.length() != 16 * listMatrix4f.size() )
+				{
+					cacheArray = TypedArrays.createFloat32Array( 16 * listMatrix4f.size() );
+					uniform.setCacheArray( cacheArray );
+					isChanged = true;
+				}
 
 				for ( int i = 0, il = listMatrix4f.size(); i < il; i ++ )
-					listMatrix4f.get( i ).flattenToArray( uniform.getCacheArray(), i * 16 );
+				{
+					Float64Array elements = listMatrix4f.get( i ).getArray();
+					for ( int j = 0; j < 16; j ++ )
+						isChanged |= updateCacheArray( cacheArray, i * 16 + j, elements.get( j ) );
+				}
 
-				gl.uniformMatrix4fv( location, false, uniform.getCacheArray() );
+				if ( isChanged )
+					gl.uniformMatrix4fv( location, false, cacheArray );
 			}
 			else if(type == TYPE.T) // single Texture (2d or cube)
 			{
 				Texture texture = (Texture)value;
 				int textureUnit = getTextureUnit();
 
-				gl.uniform1i( location, textureUnit );
+				isChanged = updateUploadedValues( uniform, isChanged, textureUnit, 0, 0, 0, 1 );
+
+				if ( isChanged )
+					gl.uniform1i( location, textureUnit );
 
 				if ( texture != null )
 				{
@@ -1813,13 +2362,22 @@ public class WebGLRenderer implements HasEventBus
 			{
 				List<Texture> textureList = (List<Texture>)value;
 				int[] units = new int[textureList.size()];
+				double[] uploaded = uniform.getUploadedValues( units.length );
+				isChanged = isChanged || ! uniform.isUploaded();
 
 				for( int i = 0, il = textureList.size(); i < il; i ++ ) 
 				{
 					units[ i ] = getTextureUnit();
+
+					if ( uploaded[ i ] != units[ i ] )
+					{
+						uploaded[ i ] = units[ i ];
+						isChanged = true;
+					}
 				}
 
-				gl.uniform1iv( location, units );
+				if ( isChanged )
+					gl.uniform1iv( location, units );
 
 				for( int i = 0, il = textureList.size(); i < il; i ++ ) 
 				{
@@ -1831,8 +2389,66 @@ public class WebGLRenderer implements HasEventBus
 					setTexture( texture, textureUnit );
 				}
 			}
+
+			if ( isChanged )
+			{
+				uniform.setUploaded();
+				this.getInfo().getRender().uniforms ++;
+			}
+			else
+			{
+				this.getInfo().getRender().uniformsSkipped ++;
+			}
+		}
+	}
+
+	/*
+	 * Compares up to four values with the last uploaded ones and stores them.
+	 * Returns true if the uniform should be uploaded.
+	 */
+	private boolean updateUploadedValues( Uniform uniform, boolean isChanged, double x, double y, double z, double w, int size )
+	{
+		double[] uploaded = uniform.getUploadedValues( size );
+		isChanged = isChanged || ! uniform.isUploaded();
+
+		isChanged |= uploaded[ 0 ] != x;
+		uploaded[ 0 ] = x;
+
+		if ( size > 1 )
+		{
+			isChanged |= uploaded[ 1 ] != y;
+			uploaded[ 1 ] = y;
 		}
+
+		if ( size > 2 )
+		{
+			isChanged |= uploaded[ 2 ] != z;
+			uploaded[ 2 ] = z;
+		}
+
+		if ( size > 3 )
+		{
+			isChanged |= uploaded[ 3 ] != w;
+			uploaded[ 3 ] = w;
+		}
+
+		return isChanged;
+	}
+
+	/*
+	 * Writes the value into the uniform cache array, which holds the last 
+	 * uploaded values. Returns true if the value was changed.
+	 */
+	private static boolean updateCacheArray( Float32Array array, int offset, double value )
+	{
+		float floatValue = (float)value;
+		if ( array.get( offset ) == floatValue )
+			return false;
+
+		array.set( offset, floatValue );
+		return true;
 	}
+
 	
 	public int getTextureUnit() 
 	{
@@ -1846,76 +2462,61 @@ public class WebGLRenderer implements HasEventBus
 		return textureUnit;
 	}
 
-	private void setupMatrices ( Object3D object, Camera camera ) 
+	/*
+	 * Updates model view and normal matrices of the object. They are kept 
+	 * while the world matrices of the object and of the camera are not changed.
+	 */
+	void setupMatrices ( Object3D object, Camera camera ) 
 	{
+		if ( object.__modelViewCamera == camera 
+				&& object.__modelViewCameraVersion == camera.__matrixWorldVersion 
+				&& object.__modelViewVersion == object.__matrixWorldVersion )
+			return;
+
 		object._modelViewMatrix.multiply( camera.getMatrixWorldInverse(), object.getMatrixWorld());
 
-		object._normalMatrix.getInverse(object._modelViewMatrix );
-		object._normalMatrix.transpose();
+		object._normalMatrix.getNormalMatrix( object._modelViewMatrix );
+
+		object.__modelViewCamera = camera;
+		object.__modelViewCameraVersion = camera.__matrixWorldVersion;
+		object.__modelViewVersion = object.__matrixWorldVersion;
 	}
 	
-	private void setMaterialFaces( Material material )
+	/**
+	 * Binds the buffer and counts it in {@link WebGlRendererInfo}.
+	 */
+	public void bindBuffer( BufferTarget target, WebGLBuffer buffer ) 
 	{
-		if ( this.cache_oldMaterialSided == null || this.cache_oldMaterialSided != material.getSides() ) 
-		{
-			if(material.getSides() == Material.SIDE.DOUBLE)
-				getGL().disable( EnableCap.CULL_FACE );
-			else
-				getGL().enable( EnableCap.CULL_FACE );
+		getState().bindBuffer( target, buffer );
+		this.getInfo().getRender().buffers ++;
+	}
 
-			if ( material.getSides() == Material.SIDE.BACK ) 
-				getGL().frontFace( FrontFaceDirection.CW );
-			else
-				getGL().frontFace( FrontFaceDirection.CCW );
+	private void setMaterialFaces( Material material )
+	{
+		getState().setCapability( EnableCap.CULL_FACE, material.getSides() != Material.SIDE.DOUBLE );
 
-			this.cache_oldMaterialSided = material.getSides();
-		}
+		if ( material.getSides() == Material.SIDE.BACK ) 
+			getState().frontFace( FrontFaceDirection.CW );
+		else
+			getState().frontFace( FrontFaceDirection.CCW );
 	}
 
 	public void setDepthTest( boolean depthTest ) 
 	{
-		if ( this.cache_oldDepthTest == null || this.cache_oldDepthTest != depthTest ) 
-		{
-			if ( depthTest )
-				getGL().enable( EnableCap.DEPTH_TEST );
-			else 
-				getGL().disable( EnableCap.DEPTH_TEST );
-
-			this.cache_oldDepthTest = depthTest;
-		}
+		getState().setCapability( EnableCap.DEPTH_TEST, depthTest );
 	}
 
 	public void setDepthWrite(boolean depthWrite ) 
 	{
-		if ( this.cache_oldDepthWrite == null || this.cache_oldDepthWrite != depthWrite ) 
-		{
-			getGL().depthMask( depthWrite );
-			cache_oldDepthWrite = depthWrite;
-		}
+		getState().depthMask( depthWrite );
 	}
 
 	private void setPolygonOffset( boolean polygonoffset, double factor, double units ) 
 	{
-		if ( this.cache_oldPolygonOffset == null || this.cache_oldPolygonOffset != polygonoffset ) 
-		{
-			if ( polygonoffset )
-				getGL().enable( EnableCap.POLYGON_OFFSET_FILL );
-			else
-				getGL().disable( EnableCap.POLYGON_OFFSET_FILL );
-
-			this.cache_oldPolygonOffset = polygonoffset;
-		}
+		getState().setCapability( EnableCap.POLYGON_OFFSET_FILL, polygonoffset );
 
-		if ( polygonoffset && ( cache_oldPolygonOffsetFactor == null || 
-				cache_oldPolygonOffsetUnits == null || 
-				cache_oldPolygonOffsetFactor != factor || 
-				cache_oldPolygonOffsetUnits != units ) 
-		) {
-			getGL().polygonOffset( factor, units );
-
-			this.cache_oldPolygonOffsetFactor = factor;
-			this.cache_oldPolygonOffsetUnits = units;
-		}
+		if ( polygonoffset )
+			getState().polygonOffset( factor, units );
 	}
 
 	public void setBlending( Material.BLENDING blending) 
@@ -1924,42 +2525,42 @@ public class WebGLRenderer implements HasEventBus
 		{
 			if( blending == Material.BLENDING.NO) 
 			{
-				getGL().disable( EnableCap.BLEND );
+				getState().disable( EnableCap.BLEND );
 				
 			} 
 			else if( blending == Material.BLENDING.ADDITIVE) 
 			{
-				getGL().enable( EnableCap.BLEND );
-				getGL().blendEquation( BlendEquationMode.FUNC_ADD );
-				getGL().blendFunc( BlendingFactorSrc.SRC_ALPHA, BlendingFactorDest.ONE );
+				getState().enable( EnableCap.BLEND );
+				getState().blendEquation( BlendEquationMode.FUNC_ADD );
+				getState().blendFunc( BlendingFactorSrc.SRC_ALPHA, BlendingFactorDest.ONE );
 				
 			// TODO: Find blendFuncSeparate() combination
 			} 
 			else if( blending == Material.BLENDING.SUBTRACTIVE) 
 			{
-				getGL().enable( EnableCap.BLEND );
-				getGL().blendEquation( BlendEquationMode.FUNC_ADD );
-				getGL().blendFunc( BlendingFactorSrc.ZERO, BlendingFactorDest.ONE_MINUS_SRC_COLOR );
+				getState().enable( EnableCap.BLEND );
+				getState().blendEquation( BlendEquationMode.FUNC_ADD );
+				getState().blendFunc( BlendingFactorSrc.ZERO, BlendingFactorDest.ONE_MINUS_SRC_COLOR );
 
 			// TODO: Find blendFuncSeparate() combination
 			} 
 			else if( blending == Material.BLENDING.MULTIPLY) 
 			{
-				getGL().enable( EnableCap.BLEND );
-				getGL().blendEquation( BlendEquationMode.FUNC_ADD );
-				getGL().blendFunc( BlendingFactorSrc.ZERO, BlendingFactorDest.SRC_COLOR );
+				getState().enable( EnableCap.BLEND );
+				getState().blendEquation( BlendEquationMode.FUNC_ADD );
+				getState().blendFunc( BlendingFactorSrc.ZERO, BlendingFactorDest.SRC_COLOR );
 
 			} 
 			else if( blending == Material.BLENDING.CUSTOM) 
 			{
-				getGL().enable( EnableCap.BLEND );
+				getState().enable( EnableCap.BLEND );
 
 			} 
 			else 
 			{
-				getGL().enable( EnableCap.BLEND );
-				getGL().blendEquationSeparate( BlendEquationMode.FUNC_ADD, BlendEquationMode.FUNC_ADD );
-				getGL().blendFuncSeparate( BlendingFactorSrc.SRC_ALPHA, 
+				getState().enable( EnableCap.BLEND );
+				getState().blendEquationSeparate( BlendEquationMode.FUNC_ADD, BlendEquationMode.FUNC_ADD );
+				getState().blendFuncSeparate( BlendingFactorSrc.SRC_ALPHA, 
 						BlendingFactorDest.ONE_MINUS_SRC_ALPHA, 
 						BlendingFactorSrc.ONE, 
 						BlendingFactorDest.ONE_MINUS_SRC_ALPHA );
@@ -1967,10 +2568,6 @@ public class WebGLRenderer implements HasEventBus
 
 			this.cache_oldBlending = blending;
 		}
-		
-		this.cache_oldBlendEquation = null;
-		this.cache_oldBlendSrc = null;
-		this.cache_oldBlendDst = null;
 	}
 
 	private void setBlending( Material.BLENDING blending, BlendEquationMode blendEquation, BlendingFactorSrc blendSrc, BlendingFactorDest blendDst ) 
@@ -1979,19 +2576,8 @@ public class WebGLRenderer implements HasEventBus
 
 		if ( blending == Material.BLENDING.CUSTOM ) 
 		{
-			if ( blendEquation != this.cache_oldBlendEquation ) 
-			{
-				getGL().blendEquation( blendEquation );
-				this.cache_oldBlendEquation = blendEquation;
-			}
-
-			if ( blendSrc != cache_oldBlendSrc || blendDst != cache_oldBlendDst ) 
-			{
-				getGL().blendFunc( blendSrc, blendDst);
-
-				this.cache_oldBlendSrc = blendSrc;
-				this.cache_oldBlendDst = blendDst;
-			}
+			getState().blendEquation( blendEquation );
+			getState().blendFunc( blendSrc, blendDst );
 		}
 	}
 
@@ -1999,8 +2585,8 @@ public class WebGLRenderer implements HasEventBus
 	
 	private void setCubeTextureDynamic(RenderTargetCubeTexture texture, int slot) 
 	{
-		getGL().activeTexture( TextureUnit.TEXTURE0, slot );
-		getGL().bindTexture( TextureTarget.TEXTURE_CUBE_MAP, texture.getWebGlTexture() );
+		getState().activeTexture( slot );
+		getState().bindTexture( TextureTarget.TEXTURE_CUBE_MAP, texture.getWebGlTexture() );
 	}
 
 	public void setTexture( Texture texture, int slot ) 
@@ -2014,8 +2600,8 @@ public class WebGLRenderer implements HasEventBus
 				this.getInfo().getMemory().textures ++;
 			}
 			
-			getGL().activeTexture( TextureUnit.TEXTURE0, slot );
-			getGL().bindTexture( TextureTarget.TEXTURE_2D, texture.getWebGlTexture() );
+			getState().activeTexture( slot );
+			getState().bindTexture( TextureTarget.TEXTURE_2D, texture.getWebGlTexture() );
 
 			getGL().pixelStorei( PixelStoreParameter.UNPACK_FLIP_Y_WEBGL, texture.isFlipY() ? 1 : 0 );
 			getGL().pixelStorei( PixelStoreParameter.UNPACK_PREMULTIPLY_ALPHA_WEBGL, texture.isPremultiplyAlpha() ? 1 : 0 );
@@ -2060,8 +2646,8 @@ public class WebGLRenderer implements HasEventBus
 		// Needed to check webgl texture in case deferred loading
 		else if(texture.getWebGlTexture() != null)
 		{
-			getGL().activeTexture( TextureUnit.TEXTURE0, slot );
-			getGL().bindTexture( TextureTarget.TEXTURE_2D, texture.getWebGlTexture() );
+			getState().activeTexture( slot );
+			getState().bindTexture( TextureTarget.TEXTURE_2D, texture.getWebGlTexture() );
 		}
 	}
 	
@@ -2126,8 +2712,8 @@ public class WebGLRenderer implements HasEventBus
 				this.getInfo().getMemory().textures += 6;
 			}
 
-			getGL().activeTexture( TextureUnit.TEXTURE0, slot );
-			getGL().bindTexture( TextureTarget.TEXTURE_CUBE_MAP, texture.getWebGlTexture() );
+			getState().activeTexture( slot );
+			getState().bindTexture( TextureTarget.TEXTURE_CUBE_MAP, texture.getWebGlTexture() );
 			getGL().pixelStorei( PixelStoreParameter.UNPACK_FLIP_Y_WEBGL, texture.isFlipY() ? 1 : 0 );
 
 			List<Element> cubeImage = new ArrayList<Element>();
@@ -2168,8 +2754,8 @@ public class WebGLRenderer implements HasEventBus
 		} 
 		else 
 		{
-			getGL().activeTexture( TextureUnit.TEXTURE0, slot );
-			getGL().bindTexture( TextureTarget.TEXTURE_CUBE_MAP, texture.getWebGlTexture() );
+			getState().activeTexture( slot );
+			getState().bindTexture( TextureTarget.TEXTURE_CUBE_MAP, texture.getWebGlTexture() );
 		}
 
 	}
@@ -2186,9 +2772,18 @@ public class WebGLRenderer implements HasEventBus
 		
 		if(renderTarget != null) 
 		{
+			boolean isNew = renderTarget.getWebGLFramebuffer() == null;
 			renderTarget.setRenderTarget(getGL());
 		    framebuffer = renderTarget.getWebGLFramebuffer();
 
+		    // creation binds its texture and framebuffers directly
+		    if ( isNew )
+		    {
+		    	getState().resetTextures();
+		    	getState().resetFramebuffer();
+		    	this.cache_currentFramebuffer = null;
+		    }
+
 			this._currentWidth = renderTarget.getWidth();
 			this._currentHeight = renderTarget.getHeight();
 
@@ -2201,8 +2796,8 @@ public class WebGLRenderer implements HasEventBus
 
 		if ( framebuffer != this.cache_currentFramebuffer ) 
 		{
-			getGL().bindFramebuffer( framebuffer );
-			getGL().viewport( 0, 0, this._currentWidth, this._currentHeight );
+			getState().bindFramebuffer( framebuffer );
+			getState().viewport( 0, 0, this._currentWidth, this._currentHeight );
 
 			this.cache_currentFramebuffer = framebuffer;
 		}
@@ -2269,6 +2864,13 @@ public class WebGLRenderer implements HasEventBus
 			if ( light instanceof HemisphereLight ) hemiLights ++;
 		}
 
+		// only the selected lights are used for each object
+		if ( this.maxLightsPerObject > 0 )
+		{
+			pointLights = Math.min( pointLights, this.maxLightsPerObject );
+			spotLights = Math.min( spotLights, this.maxLightsPerObject );
+		}
+
 		if ( ( pointLights + spotLights + dirLights + hemiLights ) <= this.maxLights ) 
 		{
 			maxDirLights = dirLights;
@@ -2285,6 +2887,14 @@ public class WebGLRenderer implements HasEventBus
 			maxHemiLights = maxDirLights;
 		}
 
+		if ( this.isLightBucketing )
+		{
+			maxDirLights   = bucketLights( maxDirLights );
+			maxPointLights = bucketLights( maxPointLights );
+			maxSpotLights  = bucketLights( maxSpotLights );
+			maxHemiLights  = bucketLights( maxHemiLights );
+		}
+
 		Map<String, Integer> retval = GWT.isScript() ? 
 				new FastMap<Integer>() : new HashMap<String, Integer>();
 		retval.put("directional", maxDirLights);
@@ -2295,6 +2905,23 @@ public class WebGLRenderer implements HasEventBus
 		return retval;
 	}
 
+	/*
+	 * Clamps the light count to the maxLights budget and rounds it 
+	 * up to 0, 1, 2, 4, 8... but not over the budget.
+	 */
+	private int bucketLights( int count )
+	{
+		count = Math.min( count, this.maxLights );
+		if ( count <= 2 )
+			return count;
+
+		int bucket = 4;
+		while ( bucket < count )
+			bucket *= 2;
+
+		return Math.min( bucket, this.maxLights );
+	}
+
 	private int allocateShadows( List<Light> lights ) 
 	{
 		int maxShadows = 0;
@@ -2321,7 +2948,7 @@ public class WebGLRenderer implements HasEventBus
 	}
 	
 	@Deprecated
-	public Map<String, Shader> getCache_programs() {
+	public Map<ProgramKey, Shader> getCache_programs() {
 		return this.cache_programs;
 	}
 }
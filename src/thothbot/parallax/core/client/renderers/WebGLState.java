@@ -0,0 +1,684 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.core.client.renderers;
+
+import thothbot.parallax.core.client.gl2.WebGLBuffer;
+import thothbot.parallax.core.client.gl2.WebGLFramebuffer;
+import thothbot.parallax.core.client.gl2.WebGLProgram;
+import thothbot.parallax.core.client.gl2.WebGLRenderingContext;
+import thothbot.parallax.core.client.gl2.WebGLTexture;
+import thothbot.parallax.core.client.gl2.enums.BlendEquationMode;
+import thothbot.parallax.core.client.gl2.enums.BlendingFactorDest;
+import thothbot.parallax.core.client.gl2.enums.BlendingFactorSrc;
+import thothbot.parallax.core.client.gl2.enums.BufferTarget;
+import thothbot.parallax.core.client.gl2.enums.CullFaceMode;
+import thothbot.parallax.core.client.gl2.enums.DepthFunction;
+import thothbot.parallax.core.client.gl2.enums.EnableCap;
+import thothbot.parallax.core.client.gl2.enums.FrontFaceDirection;
+import thothbot.parallax.core.client.gl2.enums.StencilFunction;
+import thothbot.parallax.core.client.gl2.enums.StencilOp;
+import thothbot.parallax.core.client.gl2.enums.TextureTarget;
+import thothbot.parallax.core.client.gl2.enums.TextureUnit;
+
+/**
+ * GL state cache in front of the {@link WebGLRenderingContext}.
+ * <p>
+ * The state changing calls made through this class are passed to the context 
+ * only when they change the current state, redundant calls are filtered out. 
+ * Both are counted in the {@link WebGlRendererInfo}.
+ * <p>
+ * The state is unknown after creation or {@link #reset()}, so the first 
+ * call always goes to the context. Code which changes the state directly 
+ * in the context should reset the affected part of the cache.
+ * 
+ * @author thothbot
+ *
+ */
+public class WebGLState 
+{
+	private WebGLRenderingContext gl;
+	private WebGlRendererInfo info;
+
+	// -1 unknown, 0 disabled, 1 enabled
+	private int[] capabilities;
+	private int[] vertexAttribArrays;
+
+	private WebGLProgram currentProgram;
+	private WebGLFramebuffer currentFramebuffer;
+	private WebGLBuffer currentArrayBuffer;
+	private WebGLBuffer currentElementArrayBuffer;
+	private boolean isProgramKnown;
+	private boolean isFramebufferKnown;
+	private boolean isArrayBufferKnown;
+	private boolean isElementArrayBufferKnown;
+
+	// Texture bound to each unit for 2D and cube targets
+	private int currentTextureUnit;
+	private WebGLTexture[] currentTextures2d;
+	private WebGLTexture[] currentTexturesCube;
+	private boolean[] isTexture2dKnown;
+	private boolean[] isTextureCubeKnown;
+
+	private BlendEquationMode currentBlendEquationRGB;
+	private BlendEquationMode currentBlendEquationAlpha;
+	private BlendingFactorSrc currentBlendSrcRGB;
+	private BlendingFactorDest currentBlendDstRGB;
+	private BlendingFactorSrc currentBlendSrcAlpha;
+	private BlendingFactorDest currentBlendDstAlpha;
+
+	private DepthFunction currentDepthFunc;
+	private Boolean currentDepthMask;
+	private Boolean currentColorMaskRed;
+	private boolean currentColorMaskGreen;
+	private boolean currentColorMaskBlue;
+	private boolean currentColorMaskAlpha;
+
+	private StencilFunction currentStencilFunc;
+	private int currentStencilRef;
+	private int currentStencilMask;
+	private StencilOp currentStencilFail;
+	private StencilOp currentStencilZFail;
+	private StencilOp currentStencilZPass;
+
+	private CullFaceMode currentCullFace;
+	private FrontFaceDirection currentFrontFace;
+
+	private double currentLineWidth;
+	private double currentPolygonOffsetFactor;
+	private double currentPolygonOffsetUnits;
+
+	private int[] currentViewport;
+	private int[] currentScissor;
+	private double[] currentClearColor;
+
+	private boolean isLineWidthKnown;
+	private boolean isPolygonOffsetKnown;
+	private boolean isViewportKnown;
+	private boolean isScissorKnown;
+	private boolean isClearColorKnown;
+
+	public WebGLState(WebGLRenderingContext gl, WebGlRendererInfo info)
+	{
+		this.gl = gl;
+		this.info = info;
+
+		this.capabilities = new int[ EnableCap.values().length ];
+		this.vertexAttribArrays = new int[ 16 ];
+
+		this.currentTextures2d = new WebGLTexture[ 16 ];
+		this.currentTexturesCube = new WebGLTexture[ 16 ];
+		this.isTexture2dKnown = new boolean[ 16 ];
+		this.isTextureCubeKnown = new boolean[ 16 ];
+
+		this.currentViewport = new int[ 4 ];
+		this.currentScissor = new int[ 4 ];
+		this.currentClearColor = new double[ 4 ];
+
+		reset();
+	}
+
+	/**
+	 * Gets the underlying context for the calls which are not cached.
+	 */
+	public WebGLRenderingContext getGL()
+	{
+		return this.gl;
+	}
+
+	/**
+	 * Forgets the whole state, so the next calls go to the context. 
+	 * Should be called when the context state has been changed directly.
+	 */
+	public void reset()
+	{
+		for ( int i = 0; i < this.capabilities.length; i++ )
+			this.capabilities[ i ] = -1;
+
+		for ( int i = 0; i < this.vertexAttribArrays.length; i++ )
+			this.vertexAttribArrays[ i ] = -1;
+
+		this.isProgramKnown = false;
+
+		resetBuffers();
+		resetFramebuffer();
+		resetTextures();
+
+		this.currentBlendEquationRGB = null;
+		this.currentBlendSrcRGB = null;
+
+		this.currentDepthFunc = null;
+		this.currentDepthMask = null;
+		this.currentColorMaskRed = null;
+
+		this.currentStencilFunc = null;
+		this.currentStencilFail = null;
+
+		this.currentCullFace = null;
+		this.currentFrontFace = null;
+
+		this.isLineWidthKnown = false;
+		this.isPolygonOffsetKnown = false;
+		this.isViewportKnown = false;
+		this.isScissorKnown = false;
+		this.isClearColorKnown = false;
+	}
+
+	/**
+	 * Forgets the bound array and element array buffers.
+	 */
+	public void resetBuffers()
+	{
+		this.isArrayBufferKnown = false;
+		this.isElementArrayBufferKnown = false;
+	}
+
+	/**
+	 * Forgets the bound framebuffer.
+	 */
+	public void resetFramebuffer()
+	{
+		this.isFramebufferKnown = false;
+	}
+
+	/**
+	 * Forgets the active texture unit and the textures bound to the units.
+	 */
+	public void resetTextures()
+	{
+		this.currentTextureUnit = -1;
+
+		for ( int i = 0; i < this.isTexture2dKnown.length; i++ )
+		{
+			this.isTexture2dKnown[ i ] = false;
+			this.isTextureCubeKnown[ i ] = false;
+		}
+	}
+
+	// Capabilities
+
+	public void enable(EnableCap cap)
+	{
+		setCapability( cap, true );
+	}
+
+	public void disable(EnableCap cap)
+	{
+		setCapability( cap, false );
+	}
+
+	public void setCapability(EnableCap cap, boolean isEnabled)
+	{
+		int value = isEnabled ? 1 : 0;
+		if ( this.capabilities[ cap.ordinal() ] == value )
+		{
+			skipped();
+			return;
+		}
+
+		if ( isEnabled )
+			this.gl.enable( cap );
+		else
+			this.gl.disable( cap );
+
+		this.capabilities[ cap.ordinal() ] = value;
+		issued();
+	}
+
+	public void enableVertexAttribArray(int index)
+	{
+		setVertexAttribArray( index, true );
+	}
+
+	public void disableVertexAttribArray(int index)
+	{
+		setVertexAttribArray( index, false );
+	}
+
+	private void setVertexAttribArray(int index, boolean isEnabled)
+	{
+		if ( index >= this.vertexAttribArrays.length )
+		{
+			int[] tmp = new int[ index + 1 ];
+			System.arraycopy( this.vertexAttribArrays, 0, tmp, 0, this.vertexAttribArrays.length );
+			for ( int i = this.vertexAttribArrays.length; i < tmp.length; i++ )
+				tmp[ i ] = -1;
+
+			this.vertexAttribArrays = tmp;
+		}
+
+		int value = isEnabled ? 1 : 0;
+		if ( this.vertexAttribArrays[ index ] == value )
+		{
+			skipped();
+			return;
+		}
+
+		if ( isEnabled )
+			this.gl.enableVertexAttribArray( index );
+		else
+			this.gl.disableVertexAttribArray( index );
+
+		this.vertexAttribArrays[ index ] = value;
+		issued();
+	}
+
+	// Bindings
+
+	public void useProgram(WebGLProgram program)
+	{
+		if ( this.isProgramKnown && this.currentProgram == program )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.useProgram( program );
+
+		this.currentProgram = program;
+		this.isProgramKnown = true;
+		issued();
+	}
+
+	public void bindBuffer(BufferTarget target, WebGLBuffer buffer)
+	{
+		if ( target == BufferTarget.ARRAY_BUFFER )
+		{
+			if ( this.isArrayBufferKnown && this.currentArrayBuffer == buffer )
+			{
+				skipped();
+				return;
+			}
+
+			this.currentArrayBuffer = buffer;
+			this.isArrayBufferKnown = true;
+		}
+		else
+		{
+			if ( this.isElementArrayBufferKnown && this.currentElementArrayBuffer == buffer )
+			{
+				skipped();
+				return;
+			}
+
+			this.currentElementArrayBuffer = buffer;
+			this.isElementArrayBufferKnown = true;
+		}
+
+		this.gl.bindBuffer( target, buffer );
+		issued();
+	}
+
+	public void bindFramebuffer(WebGLFramebuffer framebuffer)
+	{
+		if ( this.isFramebufferKnown && this.currentFramebuffer == framebuffer )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.bindFramebuffer( framebuffer );
+
+		this.currentFramebuffer = framebuffer;
+		this.isFramebufferKnown = true;
+		issued();
+	}
+
+	/**
+	 * Selects active texture unit: TEXTURE0 + slot.
+	 */
+	public void activeTexture(int slot)
+	{
+		if ( this.currentTextureUnit == slot )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.activeTexture( TextureUnit.TEXTURE0, slot );
+
+		this.currentTextureUnit = slot;
+		issued();
+	}
+
+	/**
+	 * Binds the texture to the active texture unit.
+	 */
+	public void bindTexture(TextureTarget target, WebGLTexture texture)
+	{
+		int unit = this.currentTextureUnit;
+
+		// Unknown unit or other targets are not cached
+		if ( unit < 0 || ( target != TextureTarget.TEXTURE_2D && target != TextureTarget.TEXTURE_CUBE_MAP ) )
+		{
+			this.gl.bindTexture( target, texture );
+			issued();
+			return;
+		}
+
+		if ( unit >= this.isTexture2dKnown.length )
+		{
+			int size = Math.max( unit + 1, this.isTexture2dKnown.length * 2 );
+
+			WebGLTexture[] textures2d = new WebGLTexture[ size ];
+			WebGLTexture[] texturesCube = new WebGLTexture[ size ];
+			boolean[] isTexture2dKnown = new boolean[ size ];
+			boolean[] isTextureCubeKnown = new boolean[ size ];
+
+			System.arraycopy( this.currentTextures2d, 0, textures2d, 0, this.currentTextures2d.length );
+			System.arraycopy( this.currentTexturesCube, 0, texturesCube, 0, this.currentTexturesCube.length );
+			System.arraycopy( this.isTexture2dKnown, 0, isTexture2dKnown, 0, this.isTexture2dKnown.length );
+			System.arraycopy( this.isTextureCubeKnown, 0, isTextureCubeKnown, 0, this.isTextureCubeKnown.length );
+
+			this.currentTextures2d = textures2d;
+			this.currentTexturesCube = texturesCube;
+			this.isTexture2dKnown = isTexture2dKnown;
+			this.isTextureCubeKnown = isTextureCubeKnown;
+		}
+
+		boolean is2d = ( target == TextureTarget.TEXTURE_2D );
+		WebGLTexture[] textures = is2d ? this.currentTextures2d : this.currentTexturesCube;
+		boolean[] isKnown = is2d ? this.isTexture2dKnown : this.isTextureCubeKnown;
+
+		if ( isKnown[ unit ] && textures[ unit ] == texture )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.bindTexture( target, texture );
+
+		textures[ unit ] = texture;
+		isKnown[ unit ] = true;
+		issued();
+	}
+
+	// Blending, depth and stencil
+
+	public void blendEquation(BlendEquationMode mode)
+	{
+		blendEquationSeparate( mode, mode );
+	}
+
+	public void blendEquationSeparate(BlendEquationMode modeRGB, BlendEquationMode modeAlpha)
+	{
+		if ( this.currentBlendEquationRGB == modeRGB && this.currentBlendEquationAlpha == modeAlpha )
+		{
+			skipped();
+			return;
+		}
+
+		if ( modeRGB == modeAlpha )
+			this.gl.blendEquation( modeRGB );
+		else
+			this.gl.blendEquationSeparate( modeRGB, modeAlpha );
+
+		this.currentBlendEquationRGB = modeRGB;
+		this.currentBlendEquationAlpha = modeAlpha;
+		issued();
+	}
+
+	public void blendFunc(BlendingFactorSrc src, BlendingFactorDest dst)
+	{
+		if ( this.currentBlendSrcRGB == src && this.currentBlendDstRGB == dst
+				&& this.currentBlendSrcAlpha == src && this.currentBlendDstAlpha == dst )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.blendFunc( src, dst );
+
+		this.currentBlendSrcRGB = src;
+		this.currentBlendDstRGB = dst;
+		this.currentBlendSrcAlpha = src;
+		this.currentBlendDstAlpha = dst;
+		issued();
+	}
+
+	public void blendFuncSeparate(BlendingFactorSrc srcRGB, BlendingFactorDest dstRGB, 
+			BlendingFactorSrc srcAlpha, BlendingFactorDest dstAlpha)
+	{
+		if ( this.currentBlendSrcRGB == srcRGB && this.currentBlendDstRGB == dstRGB
+				&& this.currentBlendSrcAlpha == srcAlpha && this.currentBlendDstAlpha == dstAlpha )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.blendFuncSeparate( srcRGB, dstRGB, srcAlpha, dstAlpha );
+
+		this.currentBlendSrcRGB = srcRGB;
+		this.currentBlendDstRGB = dstRGB;
+		this.currentBlendSrcAlpha = srcAlpha;
+		this.currentBlendDstAlpha = dstAlpha;
+		issued();
+	}
+
+	public void depthFunc(DepthFunction func)
+	{
+		if ( this.currentDepthFunc == func )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.depthFunc( func );
+
+		this.currentDepthFunc = func;
+		issued();
+	}
+
+	public void depthMask(boolean flag)
+	{
+		if ( this.currentDepthMask != null && this.currentDepthMask == flag )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.depthMask( flag );
+
+		this.currentDepthMask = flag;
+		issued();
+	}
+
+	public void colorMask(boolean red, boolean green, boolean blue, boolean alpha)
+	{
+		if ( this.currentColorMaskRed != null && this.currentColorMaskRed == red 
+				&& this.currentColorMaskGreen == green && this.currentColorMaskBlue == blue 
+				&& this.currentColorMaskAlpha == alpha )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.colorMask( red, green, blue, alpha );
+
+		this.currentColorMaskRed = red;
+		this.currentColorMaskGreen = green;
+		this.currentColorMaskBlue = blue;
+		this.currentColorMaskAlpha = alpha;
+		issued();
+	}
+
+	public void stencilFunc(StencilFunction func, int ref, int mask)
+	{
+		if ( this.currentStencilFunc == func && this.currentStencilRef == ref && this.currentStencilMask == mask )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.stencilFunc( func, ref, mask );
+
+		this.currentStencilFunc = func;
+		this.currentStencilRef = ref;
+		this.currentStencilMask = mask;
+		issued();
+	}
+
+	public void stencilOp(StencilOp fail, StencilOp zfail, StencilOp zpass)
+	{
+		if ( this.currentStencilFail == fail && this.currentStencilZFail == zfail && this.currentStencilZPass == zpass )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.stencilOp( fail, zfail, zpass );
+
+		this.currentStencilFail = fail;
+		this.currentStencilZFail = zfail;
+		this.currentStencilZPass = zpass;
+		issued();
+	}
+
+	// Rasterization
+
+	public void cullFace(CullFaceMode mode)
+	{
+		if ( this.currentCullFace == mode )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.cullFace( mode );
+
+		this.currentCullFace = mode;
+		issued();
+	}
+
+	public void frontFace(FrontFaceDirection mode)
+	{
+		if ( this.currentFrontFace == mode )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.frontFace( mode );
+
+		this.currentFrontFace = mode;
+		issued();
+	}
+
+	public void lineWidth(double width)
+	{
+		if ( this.isLineWidthKnown && this.currentLineWidth == width )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.lineWidth( width );
+
+		this.currentLineWidth = width;
+		this.isLineWidthKnown = true;
+		issued();
+	}
+
+	public void polygonOffset(double factor, double units)
+	{
+		if ( this.isPolygonOffsetKnown && this.currentPolygonOffsetFactor == factor && this.currentPolygonOffsetUnits == units )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.polygonOffset( factor, units );
+
+		this.currentPolygonOffsetFactor = factor;
+		this.currentPolygonOffsetUnits = units;
+		this.isPolygonOffsetKnown = true;
+		issued();
+	}
+
+	public void viewport(int x, int y, int width, int height)
+	{
+		if ( this.isViewportKnown && equals( this.currentViewport, x, y, width, height ) )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.viewport( x, y, width, height );
+
+		set( this.currentViewport, x, y, width, height );
+		this.isViewportKnown = true;
+		issued();
+	}
+
+	public void scissor(int x, int y, int width, int height)
+	{
+		if ( this.isScissorKnown && equals( this.currentScissor, x, y, width, height ) )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.scissor( x, y, width, height );
+
+		set( this.currentScissor, x, y, width, height );
+		this.isScissorKnown = true;
+		issued();
+	}
+
+	public void clearColor(double red, double green, double blue, double alpha)
+	{
+		double[] c = this.currentClearColor;
+		if ( this.isClearColorKnown && c[ 0 ] == red && c[ 1 ] == green && c[ 2 ] == blue && c[ 3 ] == alpha )
+		{
+			skipped();
+			return;
+		}
+
+		this.gl.clearColor( red, green, blue, alpha );
+
+		c[ 0 ] = red;
+		c[ 1 ] = green;
+		c[ 2 ] = blue;
+		c[ 3 ] = alpha;
+		this.isClearColorKnown = true;
+		issued();
+	}
+
+	private static boolean equals(int[] v, int x, int y, int width, int height)
+	{
+		return v[ 0 ] == x && v[ 1 ] == y && v[ 2 ] == width && v[ 3 ] == height;
+	}
+
+	private static void set(int[] v, int x, int y, int width, int height)
+	{
+		v[ 0 ] = x;
+		v[ 1 ] = y;
+		v[ 2 ] = width;
+		v[ 3 ] = height;
+	}
+
+	private void issued()
+	{
+		this.info.getRender().states ++;
+	}
+
+	private void skipped()
+	{
+		this.info.getRender().statesSkipped ++;
+	}
+}
@@ -64,6 +64,31 @@ public class WebGlRendererInfo
 		 * How many points were rendered.
 		 */
 		public int points = 0;
+		/**
+		 * How many times the shader program was switched.
+		 */
+		public int programs = 0;
+		/**
+		 * How many times the vertex or index buffer was bound while drawing objects.
+		 */
+		public int buffers = 0;
+		/**
+		 * How many uniforms were uploaded while refreshing materials.
+		 */
+		public int uniforms = 0;
+		/**
+		 * How many uniform uploads were skipped, because the values 
+		 * were the same as the last uploaded ones.
+		 */
+		public int uniformsSkipped = 0;
+		/**
+		 * How many GL state changes were passed to the context by {@link WebGLState}.
+		 */
+		public int states = 0;
+		/**
+		 * How many redundant GL state changes were filtered out by {@link WebGLState}.
+		 */
+		public int statesSkipped = 0;
 	}
 
 	/**
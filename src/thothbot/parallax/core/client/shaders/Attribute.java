@@ -20,7 +20,7 @@ package thothbot.parallax.core.client.shaders;
 
 import java.util.List;
 
-import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.Float32Array;
 
 import thothbot.parallax.core.client.gl2.WebGLBuffer;
 
@@ -48,12 +48,16 @@ public class Attribute
 	private List<?> value;
 	private BOUND_TO boundTo;
 	
-	public Float64Array array;
+	public Float32Array array;
 	public boolean needsUpdate;
 	public String belongsToAttribute;
 	public Attribute __original;
 
 	public boolean __webglInitialized;
+
+	// Location resolved by Shader.getAttributeLocation()
+	public int __webglLocation = -1;
+	public int __webglLocationShaderId = -1;
 	
 	public Attribute()
 	{
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.core.client.shaders;
+
+/**
+ * Structural key of the shader program variant.
+ * <p>
+ * The key consists of the shader template id, see {@link ShaderVariantRegistry}, 
+ * and the {@link ProgramParameters} packed into a small int tuple: all boolean 
+ * parameters go to the one bitfield. The hash is calculated once in the constructor, 
+ * so the key can be used in the hash maps without hashing the shader sources.
+ * <p>
+ * The parameters part of the key and the hash of the template sources can be 
+ * stored as a string by {@link #encode()} and restored by {@link #decode(int, int, String)}, 
+ * see {@link ShaderVariantRegistry#getVariantKeys()}.
+ * 
+ * @author thothbot
+ *
+ */
+public final class ProgramKey 
+{
+	// flags and 10 int parameters
+	private static final int DATA_LENGTH = 11;
+
+	private final int templateId;
+	// Depends on the templateId, so it is not compared
+	private final int templateHash;
+	private final int[] data;
+	private final double alphaTest;
+	private final int hash;
+
+	public ProgramKey(int templateId, int templateHash, ProgramParameters parameters)
+	{
+		this(templateId, templateHash, new int[] {
+			getFlags(parameters),
+			parameters.maxDirLights,
+			parameters.maxPointLights,
+			parameters.maxSpotLights,
+			parameters.maxHemiLights,
+			parameters.maxShadows,
+			parameters.maxBones,
+			parameters.boneTextureWidth,
+			parameters.boneTextureHeight,
+			parameters.maxMorphTargets,
+			parameters.maxMorphNormals
+		}, parameters.alphaTest);
+	}
+
+	private ProgramKey(int templateId, int templateHash, int[] data, double alphaTest)
+	{
+		this.templateId = templateId;
+		this.templateHash = templateHash;
+		this.data = data;
+		this.alphaTest = alphaTest;
+
+		int hash = templateId;
+		for ( int i = 0; i < this.data.length; i++ )
+			hash = 31 * hash + this.data[ i ];
+
+		this.hash = 31 * hash + (int)( this.alphaTest * 65536 );
+	}
+
+	public int getTemplateId() 
+	{
+		return this.templateId;
+	}
+
+	/**
+	 * Gets the hash of the template sources, see 
+	 * {@link ShaderVariantRegistry#getTemplateHash(int)}.
+	 */
+	public int getTemplateHash() 
+	{
+		return this.templateHash;
+	}
+
+	/**
+	 * Gets boolean parameters packed into the bitfield.
+	 */
+	public int getFlags() 
+	{
+		return this.data[ 0 ];
+	}
+
+	/**
+	 * Unpacks the key back to the program parameters.
+	 */
+	public ProgramParameters getParameters()
+	{
+		ProgramParameters parameters = new ProgramParameters();
+
+		setFlags( parameters, this.data[ 0 ] );
+
+		parameters.maxDirLights      = this.data[ 1 ];
+		parameters.maxPointLights    = this.data[ 2 ];
+		parameters.maxSpotLights     = this.data[ 3 ];
+		parameters.maxHemiLights     = this.data[ 4 ];
+		parameters.maxShadows        = this.data[ 5 ];
+		parameters.maxBones          = this.data[ 6 ];
+		parameters.boneTextureWidth  = this.data[ 7 ];
+		parameters.boneTextureHeight = this.data[ 8 ];
+		parameters.maxMorphTargets   = this.data[ 9 ];
+		parameters.maxMorphNormals   = this.data[ 10 ];
+
+		parameters.alphaTest = this.alphaTest;
+
+		return parameters;
+	}
+
+	/**
+	 * Encodes the template hash and the parameters part of the key as 
+	 * a comma separated string. The template id is not included, because 
+	 * it is assigned in the order the templates are met and differs between sessions.
+	 */
+	public String encode()
+	{
+		String retval = this.templateHash + ",";
+		for ( int i = 0; i < this.data.length; i++ )
+			retval += this.data[ i ] + ",";
+
+		return retval + this.alphaTest;
+	}
+
+	/**
+	 * Restores the key from the string made by {@link #encode()}.
+	 * 
+	 * @param templateHash the hash of the current template sources.
+	 * 
+	 * @return the key or null if the string is malformed or was 
+	 * encoded for the different template sources.
+	 */
+	public static ProgramKey decode(int templateId, int templateHash, String encoded)
+	{
+		String[] values = encoded.split( "," );
+		if ( values.length != DATA_LENGTH + 2 )
+			return null;
+
+		try 
+		{
+			if ( Integer.parseInt( values[ 0 ].trim() ) != templateHash )
+				return null;
+
+			int[] data = new int[ DATA_LENGTH ];
+			for ( int i = 0; i < DATA_LENGTH; i++ )
+				data[ i ] = Integer.parseInt( values[ i + 1 ].trim() );
+
+			return new ProgramKey( templateId, templateHash, data, Double.parseDouble( values[ DATA_LENGTH + 1 ].trim() ) );
+		}
+		catch ( NumberFormatException e ) 
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public int hashCode() 
+	{
+		return this.hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) 
+	{
+		if ( this == obj )
+			return true;
+
+		if ( !(obj instanceof ProgramKey) )
+			return false;
+
+		ProgramKey other = (ProgramKey) obj;
+
+		if ( this.hash != other.hash || this.templateId != other.templateId || this.alphaTest != other.alphaTest )
+			return false;
+
+		for ( int i = 0; i < this.data.length; i++ )
+			if ( this.data[ i ] != other.data[ i ] )
+				return false;
+
+		return true;
+	}
+
+	@Override
+	public String toString() 
+	{
+		String retval = "{template=" + this.templateId + ", flags=" + Integer.toHexString( this.data[ 0 ] );
+		for ( int i = 1; i < this.data.length; i++ )
+			retval += ", " + this.data[ i ];
+
+		return retval + ", " + this.alphaTest + "}";
+	}
+
+	// The bit order should be the same as in setFlags()
+	private static int getFlags(ProgramParameters parameters)
+	{
+		int flags = 0;
+		int bit = 0;
+
+		flags |= bit( parameters.gammaInput,               bit++ );
+		flags |= bit( parameters.gammaOutput,              bit++ );
+		flags |= bit( parameters.physicallyBasedShading,   bit++ );
+		flags |= bit( parameters.useVertexTexture,         bit++ );
+		flags |= bit( parameters.map,                      bit++ );
+		flags |= bit( parameters.envMap,                   bit++ );
+		flags |= bit( parameters.lightMap,                 bit++ );
+		flags |= bit( parameters.bumpMap,                  bit++ );
+		flags |= bit( parameters.normalMap,                bit++ );
+		flags |= bit( parameters.specularMap,              bit++ );
+		flags |= bit( parameters.vertexColors,             bit++ );
+		flags |= bit( parameters.skinning,                 bit++ );
+		flags |= bit( parameters.morphTargets,             bit++ );
+		flags |= bit( parameters.morphNormals,             bit++ );
+		flags |= bit( parameters.instancing,               bit++ );
+		flags |= bit( parameters.instancingAttributes,     bit++ );
+		flags |= bit( parameters.perPixel,                 bit++ );
+		flags |= bit( parameters.wrapAround,               bit++ );
+		flags |= bit( parameters.doubleSided,              bit++ );
+		flags |= bit( parameters.flipSided,                bit++ );
+		flags |= bit( parameters.shadowMapEnabled,         bit++ );
+		flags |= bit( parameters.shadowMapSoft,            bit++ );
+		flags |= bit( parameters.shadowMapDebug,           bit++ );
+		flags |= bit( parameters.shadowMapCascade,         bit++ );
+		flags |= bit( parameters.sizeAttenuation,          bit++ );
+		flags |= bit( parameters.useFog,                   bit++ );
+		flags |= bit( parameters.useFog2,                  bit++ );
+		flags |= bit( parameters.metal,                    bit++ );
+		flags |= bit( parameters.isSupportsVertexTextures, bit++ );
+
+		return flags;
+	}
+
+	private static void setFlags(ProgramParameters parameters, int flags)
+	{
+		int bit = 0;
+
+		parameters.gammaInput               = isBit( flags, bit++ );
+		parameters.gammaOutput              = isBit( flags, bit++ );
+		parameters.physicallyBasedShading   = isBit( flags, bit++ );
+		parameters.useVertexTexture         = isBit( flags, bit++ );
+		parameters.map                      = isBit( flags, bit++ );
+		parameters.envMap                   = isBit( flags, bit++ );
+		parameters.lightMap                 = isBit( flags, bit++ );
+		parameters.bumpMap                  = isBit( flags, bit++ );
+		parameters.normalMap                = isBit( flags, bit++ );
+		parameters.specularMap              = isBit( flags, bit++ );
+		parameters.vertexColors             = isBit( flags, bit++ );
+		parameters.skinning                 = isBit( flags, bit++ );
+		parameters.morphTargets             = isBit( flags, bit++ );
+		parameters.morphNormals             = isBit( flags, bit++ );
+		parameters.instancing               = isBit( flags, bit++ );
+		parameters.instancingAttributes     = isBit( flags, bit++ );
+		parameters.perPixel                 = isBit( flags, bit++ );
+		parameters.wrapAround               = isBit( flags, bit++ );
+		parameters.doubleSided              = isBit( flags, bit++ );
+		parameters.flipSided                = isBit( flags, bit++ );
+		parameters.shadowMapEnabled         = isBit( flags, bit++ );
+		parameters.shadowMapSoft            = isBit( flags, bit++ );
+		parameters.shadowMapDebug           = isBit( flags, bit++ );
+		parameters.shadowMapCascade         = isBit( flags, bit++ );
+		parameters.sizeAttenuation          = isBit( flags, bit++ );
+		parameters.useFog                   = isBit( flags, bit++ );
+		parameters.useFog2                  = isBit( flags, bit++ );
+		parameters.metal                    = isBit( flags, bit++ );
+		parameters.isSupportsVertexTextures = isBit( flags, bit++ );
+	}
+
+	private static boolean isBit(int flags, int position)
+	{
+		return ( flags & ( 1 << position ) ) != 0;
+	}
+
+	private static int bit(boolean value, int position)
+	{
+		return value ? 1 << position : 0;
+	}
+}
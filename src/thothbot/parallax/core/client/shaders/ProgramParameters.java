@@ -45,6 +45,8 @@ public class ProgramParameters
 	public boolean skinning;
 	public boolean morphTargets;
 	public boolean morphNormals;
+	public boolean instancing;
+	public boolean instancingAttributes;
 	public boolean perPixel;
 	public boolean wrapAround;
 	public boolean doubleSided;
@@ -73,7 +75,7 @@ public class ProgramParameters
 				+ maxDirLights + ", " + maxPointLights + ", " + maxSpotLights + ", " + maxHemiLights + "-2-"
 				+ maxShadows + ", " + maxBones + ", " + boneTextureWidth + ", " + boneTextureHeight + ", " + useVertexTexture + "-2-"
 				+ map + ", " + envMap + ", " + lightMap + ", " + bumpMap + ", " + normalMap + ", " + specularMap + ", " + vertexColors + ", " + skinning + ", " + morphTargets + "-4-"
-				+ morphNormals + ", " + perPixel + ", " + wrapAround + ", " + doubleSided + ", " + flipSided + "-5-"
+				+ morphNormals + ", " + instancing + ", " + instancingAttributes + ", " + perPixel + ", " + wrapAround + ", " + doubleSided + ", " + flipSided + "-5-"
 				+ shadowMapEnabled + ", " + shadowMapSoft + ", " + shadowMapDebug  + ", " + shadowMapCascade + ", " + sizeAttenuation + "-6-"
 				+ alphaTest + ", " + useFog + ", " + useFog2 + ", " + metal + ", " + maxMorphTargets + ", " + maxMorphNormals + ", " + isSupportsVertexTextures;
 		return retval;
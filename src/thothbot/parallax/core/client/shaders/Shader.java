@@ -28,6 +28,7 @@ import thothbot.parallax.core.client.gl2.WebGLConstants;
 import thothbot.parallax.core.client.gl2.WebGLProgram;
 import thothbot.parallax.core.client.gl2.WebGLRenderingContext;
 import thothbot.parallax.core.client.gl2.WebGLShader;
+import thothbot.parallax.core.client.gl2.WebGLUniformLocation;
 import thothbot.parallax.core.client.gl2.enums.ProgramParameter;
 import thothbot.parallax.core.shared.Log;
 import thothbot.parallax.core.shared.core.FastMap;
@@ -57,6 +58,38 @@ public abstract class Shader
 		LOWP
 	}
 	
+	// Slots of the standard attributes in getAttributeSlots()
+	public static final int ATTRIBUTE_POSITION        = 0;
+	public static final int ATTRIBUTE_NORMAL          = 1;
+	public static final int ATTRIBUTE_UV              = 2;
+	public static final int ATTRIBUTE_UV2             = 3;
+	public static final int ATTRIBUTE_TANGENT         = 4;
+	public static final int ATTRIBUTE_COLOR           = 5;
+	public static final int ATTRIBUTE_SKIN_INDEX      = 6;
+	public static final int ATTRIBUTE_SKIN_WEIGHT     = 7;
+	public static final int ATTRIBUTE_INSTANCE_MATRIX = 8;
+	public static final int ATTRIBUTE_INSTANCE_COLOR  = 9;
+
+	private static final String[] ATTRIBUTE_NAMES = { "position", "normal",
+		"uv", "uv2", "tangent", "color", "skinIndex", "skinWeight", "instanceMatrix", "instanceColor" };
+
+	// Slots of the standard uniforms in getUniformSlots()
+	public static final int UNIFORM_VIEW_MATRIX             = 0;
+	public static final int UNIFORM_MODEL_VIEW_MATRIX       = 1;
+	public static final int UNIFORM_PROJECTION_MATRIX       = 2;
+	public static final int UNIFORM_NORMAL_MATRIX           = 3;
+	public static final int UNIFORM_MODEL_MATRIX            = 4;
+	public static final int UNIFORM_CAMERA_POSITION         = 5;
+	public static final int UNIFORM_MORPH_TARGET_INFLUENCES = 6;
+	public static final int UNIFORM_INSTANCE_MATRIX         = 7;
+	public static final int UNIFORM_INSTANCE_COLOR          = 8;
+	public static final int UNIFORM_BONE_TEXTURE            = 9;
+	public static final int UNIFORM_BONE_GLOBAL_MATRICES    = 10;
+
+	private static final String[] UNIFORM_NAMES = { "viewMatrix", "modelViewMatrix", 
+		"projectionMatrix", "normalMatrix", "modelMatrix", "cameraPosition", "morphTargetInfluences", 
+		"instanceMatrix", "instanceColor", "boneTexture", "boneGlobalMatrices" };
+
 	public interface DefaultResources extends ClientBundle
 	{
 		@Source("source/default.vs")
@@ -78,6 +111,12 @@ public abstract class Shader
 	// Store locations
 	private Map<String, Integer> attributesLocations;
 
+	// Locations of the standard attributes and uniforms, resolved when the program is built
+	private int[] attributeSlots;
+	private int[] morphTargetSlots;
+	private int[] morphNormalSlots;
+	private WebGLUniformLocation[] uniformSlots;
+
 	private String vertexShaderSource = "";
 	private String fragmentShaderSource = "";
 
@@ -85,6 +124,9 @@ public abstract class Shader
 
 	private int id;
 
+	// Assigned by ShaderVariantRegistry
+	private int templateId = -1;
+
 	private static int shaderCounter;
 
 	/**
@@ -123,6 +165,21 @@ public abstract class Shader
 		return this.id;
 	}
 
+	/**
+	 * Gets template ID, see {@link ShaderVariantRegistry}.
+	 * 
+	 * @return ID or -1 if it is not registered yet.
+	 */
+	public int getTemplateId()
+	{
+		return this.templateId;
+	}
+
+	public void setTemplateId(int templateId)
+	{
+		this.templateId = templateId;
+	}
+
 	/**
 	 * Gets the shader program.
 	 */
@@ -151,6 +208,8 @@ public abstract class Shader
 		addUniform("modelMatrix",           new Uniform(Uniform.TYPE.FV1 ));
 		addUniform("cameraPosition",        new Uniform(Uniform.TYPE.FV1 ));
 		addUniform("morphTargetInfluences", new Uniform(Uniform.TYPE.FV1 ));
+		addUniform("instanceMatrix",        new Uniform(Uniform.TYPE.FV1 ));
+		addUniform("instanceColor",         new Uniform(Uniform.TYPE.FV1 ));
 				
 		if ( useVertexTexture ) 
 		{
@@ -168,7 +227,7 @@ public abstract class Shader
 
 		// cache attributes locations
 		List<String> attributesIds = new ArrayList<String>(Arrays.asList("position", "normal",
-				"uv", "uv2", "tangent", "color", "skinIndex", "skinWeight"));
+				"uv", "uv2", "tangent", "color", "skinIndex", "skinWeight", "instanceMatrix", "instanceColor"));
 
 		for (int i = 0; i < maxMorphTargets; i++)
 			attributesIds.add("morphTarget" + i);
@@ -184,9 +243,40 @@ public abstract class Shader
 		Map<String, Integer> attributesLocations = getAttributesLocations();
 		for (String id : attributesIds)
 			attributesLocations.put(id, gl.getAttribLocation(this.program, id));
-		
+
+		initSlots(maxMorphTargets, maxMorphNormals);
+
 		return this;
 	}
+
+	/*
+	 * Copies the locations of the standard attributes and uniforms 
+	 * into the arrays, so the renderer does not look them up by name.
+	 */
+	private void initSlots(int maxMorphTargets, int maxMorphNormals)
+	{
+		Map<String, Integer> attributesLocations = getAttributesLocations();
+
+		this.attributeSlots = new int[ATTRIBUTE_NAMES.length];
+		for (int i = 0; i < ATTRIBUTE_NAMES.length; i++)
+			this.attributeSlots[i] = attributesLocations.get(ATTRIBUTE_NAMES[i]);
+
+		this.morphTargetSlots = new int[maxMorphTargets];
+		for (int i = 0; i < maxMorphTargets; i++)
+			this.morphTargetSlots[i] = attributesLocations.get("morphTarget" + i);
+
+		this.morphNormalSlots = new int[maxMorphNormals];
+		for (int i = 0; i < maxMorphNormals; i++)
+			this.morphNormalSlots[i] = attributesLocations.get("morphNormal" + i);
+
+		Map<String, Uniform> uniforms = getUniforms();
+		this.uniformSlots = new WebGLUniformLocation[UNIFORM_NAMES.length];
+		for (int i = 0; i < UNIFORM_NAMES.length; i++)
+		{
+			Uniform uniform = uniforms.get(UNIFORM_NAMES[i]);
+			this.uniformSlots[i] = uniform != null ? uniform.getLocation() : null;
+		}
+	}
 	
 
 	/**
@@ -325,6 +415,57 @@ public abstract class Shader
 		return this.attributesLocations;
 	}
 
+	/**
+	 * Gets locations of the standard attributes, indexed by 
+	 * the ATTRIBUTE_* constants. A location is -1 if the 
+	 * program does not use the attribute.
+	 */
+	public int[] getAttributeSlots() {
+		return this.attributeSlots;
+	}
+
+	/**
+	 * Gets locations of the morph target attributes, indexed by the morph target number.
+	 */
+	public int[] getMorphTargetSlots() {
+		return this.morphTargetSlots;
+	}
+
+	/**
+	 * Gets locations of the morph normal attributes, indexed by the morph normal number.
+	 */
+	public int[] getMorphNormalSlots() {
+		return this.morphNormalSlots;
+	}
+
+	/**
+	 * Gets locations of the standard uniforms, indexed by 
+	 * the UNIFORM_* constants. A location is null if the 
+	 * program does not use the uniform.
+	 */
+	public WebGLUniformLocation[] getUniformSlots() {
+		return this.uniformSlots;
+	}
+
+	/**
+	 * Gets location of the custom attribute in this program. The location 
+	 * is looked up by name once and stored in the attribute until it is 
+	 * used with another program.
+	 * 
+	 * @return the location or -1 if the program does not use the attribute.
+	 */
+	public int getAttributeLocation(Attribute attribute)
+	{
+		if (attribute.__webglLocationShaderId != this.id)
+		{
+			Integer location = this.attributesLocations.get(attribute.belongsToAttribute);
+			attribute.__webglLocation = location != null ? location : -1;
+			attribute.__webglLocationShaderId = this.id;
+		}
+
+		return attribute.__webglLocation;
+	}
+
 	public Map<String, Attribute> getAttributes() {
 		return this.attributes;
 	}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.core.client.shaders;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import thothbot.parallax.core.shared.Log;
+import thothbot.parallax.core.shared.core.FastMap;
+
+import com.google.gwt.core.client.GWT;
+
+/**
+ * Registry of the shader templates and their program variants.
+ * <p>
+ * The template is the shader source before the {@link ProgramParameters} 
+ * defines are added. Each template gets a small integer id, which is stored 
+ * in the {@link Shader}, so the sources are hashed only once per shader instance. 
+ * The registry counts the compiled variants per template, which helps to find 
+ * the materials causing permutation explosion.
+ * <p>
+ * The list of compiled variants can be saved with {@link #getVariantKeys()} 
+ * and passed to {@link thothbot.parallax.core.client.renderers.WebGLRenderer#compile(List, List)} 
+ * in a later session to build the same programs before the first frame.
+ * 
+ * @author thothbot
+ *
+ */
+public class ShaderVariantRegistry 
+{
+	private Map<String, Integer> templates;
+	private List<String> templateNames;
+	private List<Integer> templateHashes;
+	private List<Integer> variantCounts;
+	private List<ProgramKey> variants;
+
+	// 0 - unlimited
+	private int maxVariantsPerTemplate;
+
+	public ShaderVariantRegistry()
+	{
+		this.templates = GWT.isScript() ? 
+				new FastMap<Integer>() : new HashMap<String, Integer>();
+
+		this.templateNames = new ArrayList<String>();
+		this.templateHashes = new ArrayList<Integer>();
+		this.variantCounts = new ArrayList<Integer>();
+		this.variants = new ArrayList<ProgramKey>();
+	}
+
+	/**
+	 * Gets the template id of the shader. The id is assigned on the first call 
+	 * and stored in the shader, so this should be called before the shader 
+	 * sources are changed by {@link thothbot.parallax.core.shared.materials.Material#buildShader}.
+	 */
+	public int getTemplateId(Shader shader)
+	{
+		if ( shader.getTemplateId() >= 0 )
+			return shader.getTemplateId();
+
+		String source = shader.getVertexSource() + "\n" + shader.getFragmentSource();
+
+		Integer id = this.templates.get( source );
+		if ( id == null )
+		{
+			id = this.templateNames.size();
+
+			this.templates.put( source, id );
+			this.templateNames.add( shader.getClass().getName() );
+			this.templateHashes.add( source.hashCode() );
+			this.variantCounts.add( 0 );
+		}
+
+		shader.setTemplateId( id );
+
+		return id;
+	}
+
+	/**
+	 * Registers the new compiled variant.
+	 */
+	public void addVariant(ProgramKey key)
+	{
+		int id = key.getTemplateId();
+		int count = this.variantCounts.get( id ) + 1;
+		this.variantCounts.set( id, count );
+		this.variants.add( key );
+
+		if ( this.maxVariantsPerTemplate > 0 && count > this.maxVariantsPerTemplate )
+			Log.warn( "ShaderVariantRegistry: template " + getTemplateName( id ) 
+					+ " has " + count + " variants, limit is " + this.maxVariantsPerTemplate );
+	}
+
+	/**
+	 * Unregisters the variant when its program is deallocated.
+	 */
+	public void removeVariant(ProgramKey key)
+	{
+		int id = key.getTemplateId();
+		this.variantCounts.set( id, Math.max( 0, this.variantCounts.get( id ) - 1 ) );
+		this.variants.remove( key );
+	}
+
+	/**
+	 * Gets the compiled variants as strings: the shader class name 
+	 * of the template and the encoded {@link ProgramKey}, separated by ':'.
+	 * The strings do not depend on the template ids, so they can be 
+	 * stored and used in another session.
+	 */
+	public List<String> getVariantKeys()
+	{
+		List<String> retval = new ArrayList<String>();
+		for ( ProgramKey key : this.variants )
+			retval.add( getTemplateName( key.getTemplateId() ) + ":" + key.encode() );
+
+		return retval;
+	}
+
+	/**
+	 * Gets the number of known shader templates.
+	 */
+	public int getTemplateCount()
+	{
+		return this.templateNames.size();
+	}
+
+	/**
+	 * Gets the shader class name of the template.
+	 */
+	public String getTemplateName(int templateId)
+	{
+		return this.templateNames.get( templateId );
+	}
+
+	/**
+	 * Gets the hash of the template sources. It is stored in the encoded 
+	 * {@link ProgramKey}, so the variants saved for the changed shader 
+	 * sources are not restored.
+	 */
+	public int getTemplateHash(int templateId)
+	{
+		return this.templateHashes.get( templateId );
+	}
+
+	/**
+	 * Gets the number of compiled variants of the template.
+	 */
+	public int getVariantCount(int templateId)
+	{
+		return this.variantCounts.get( templateId );
+	}
+
+	public int getMaxVariantsPerTemplate() 
+	{
+		return this.maxVariantsPerTemplate;
+	}
+
+	/**
+	 * Sets the number of variants per template, after which a warning 
+	 * is logged. 0 disables the check.
+	 */
+	public void setMaxVariantsPerTemplate(int maxVariantsPerTemplate) 
+	{
+		this.maxVariantsPerTemplate = maxVariantsPerTemplate;
+	}
+
+	@Override
+	public String toString() 
+	{
+		String retval = "{";
+		for ( int i = 0; i < getTemplateCount(); i++ )
+			retval += ( i > 0 ? ", " : "" ) + getTemplateName( i ) + "=" + getVariantCount( i );
+
+		return retval + "}";
+	}
+}
@@ -18,7 +18,7 @@
 
 package thothbot.parallax.core.client.shaders;
 
-import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.Float32Array;
 
 import thothbot.parallax.core.client.gl2.WebGLUniformLocation;
 
@@ -50,9 +50,16 @@ public class Uniform
 
 	private Uniform.TYPE type;
 	private Object value;
-	private Float64Array cache_array;
+	private Float32Array cache_array;
 	private WebGLUniformLocation location;
 
+	// Incremented on each value change
+	private int version;
+
+	// State of the last upload to the location
+	private int cache_uploadedVersion = -1;
+	private double[] cache_uploaded;
+
 	public Uniform(Uniform.TYPE type) 
 	{
 		this(type, null);
@@ -74,13 +81,62 @@ public class Uniform
 	
 	public void setValue(Object value) {
 		this.value = value;
+		this.version++;
+	}
+
+	/**
+	 * Gets the version of the value. The version is incremented by 
+	 * {@link #setValue(Object)} and {@link #setNeedsUpdate()}.
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Forces upload of the value on the next material refresh. 
+	 * Values which are compared by the renderer, like numbers, vectors, 
+	 * colors and matrices, are uploaded on change anyway.
+	 */
+	public void setNeedsUpdate() {
+		this.version++;
+	}
+
+	/**
+	 * Checks if the current version of the value was uploaded to the location.
+	 */
+	public boolean isUploaded() {
+		return this.cache_uploadedVersion == this.version;
+	}
+
+	/**
+	 * Marks the current version of the value as uploaded.
+	 */
+	public void setUploaded() {
+		this.cache_uploadedVersion = this.version;
+	}
+
+	/**
+	 * Gets the copy of the last uploaded values, used to skip 
+	 * uploads of the same values.
+	 * 
+	 * @param size the number of values
+	 */
+	public double[] getUploadedValues(int size) 
+	{
+		if ( this.cache_uploaded == null || this.cache_uploaded.length != size )
+		{
+			this.cache_uploaded = new double[ size ];
+			this.cache_uploadedVersion = -1;
+		}
+
+		return this.cache_uploaded;
 	}
 	
-	public Float64Array getCacheArray() {
+	public Float32Array getCacheArray() {
 		return this.cache_array;
 	}
 	
-	public void setCacheArray(Float64Array array) {
+	public void setCacheArray(Float32Array array) {
 		this.cache_array = array;
 	}
 	
@@ -90,6 +146,8 @@ public class Uniform
 	
 	public void setLocation(WebGLUniformLocation location) {
 		this.location = location;
+		// New program: nothing is uploaded yet
+		this.cache_uploadedVersion = -1;
 	}
 	
 	public String toString()
@@ -99,8 +157,8 @@ public class Uniform
 	
 	public Uniform clone()
 	{
+		// Cache array holds the uploaded values, so it is not shared
 		Uniform result = new Uniform(this.type, this.value);
-		result.cache_array = this.cache_array;
 
 		return result;
 	}
@@ -26,7 +26,7 @@ import thothbot.parallax.core.shared.core.Vector3;
 import thothbot.parallax.core.shared.objects.Object3D;
 
 import com.google.gwt.event.shared.HandlerRegistration;
-import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 
 /**
@@ -41,8 +41,8 @@ public class Camera extends Object3D implements HasEventBus, ViewportResizeHandl
 	protected Matrix4 projectionMatrix;
 	protected Matrix4 projectionMatrixInverse;
 
-	public Float64Array _viewMatrixArray;
-	public Float64Array _projectionMatrixArray;
+	public Float32Array _viewMatrixArray;
+	public Float32Array _projectionMatrixArray;
 	
 	public Camera() 
 	{
@@ -52,8 +52,8 @@ public class Camera extends Object3D implements HasEventBus, ViewportResizeHandl
 		this.projectionMatrix = new Matrix4();
 		this.projectionMatrixInverse = new Matrix4();
 		
-		this._viewMatrixArray = TypedArrays.createFloat64Array( 16 );
-		this._projectionMatrixArray = TypedArrays.createFloat64Array( 16 );
+		this._viewMatrixArray = TypedArrays.createFloat32Array( 16 );
+		this._projectionMatrixArray = TypedArrays.createFloat32Array( 16 );
 		
 		addViewportResizeHandler(this);
 	}
@@ -34,6 +34,10 @@ import thothbot.parallax.core.shared.objects.GeometryObject;
  */
 public class Frustum
 {
+	public static final int OUTSIDE = 0;
+	public static final int INTERSECT = 1;
+	public static final int INSIDE = 2;
+
 	/**
 	 * Panes of the Frustum of a rectangular pyramid
 	 */
@@ -104,4 +108,35 @@ public class Frustum
 
 		return true;
 	}
+
+	/**
+	 * Checking the sphere against the Frustum.
+	 * 
+	 * @param center the sphere center
+	 * @param radius the sphere radius
+	 * 
+	 * @return {@link #OUTSIDE}, {@link #INTERSECT} or {@link #INSIDE}
+	 */
+	public int intersectsSphere(Vector3 center, double radius)
+	{
+		int result = INSIDE;
+
+		for (int i = 0; i < 6; i++) 
+		{
+			Vector4 plane = planes.get(i);
+			double distance = plane.getX() * center.getX() 
+					+ plane.getY() * center.getY() 
+					+ plane.getZ() * center.getZ() 
+					+ plane.getW();
+
+			if (distance <= -radius)
+				return OUTSIDE;
+
+			if (distance < radius)
+				result = INTERSECT;
+		}
+
+		return result;
+	}
+
 }
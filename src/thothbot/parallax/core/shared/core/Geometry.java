@@ -107,7 +107,7 @@ public class Geometry extends GeometryBuffer implements Geometric
 	private List<Vector3> skinVerticesA;
 	private List<Vector3> skinVerticesB;
 
-	public List<List<Integer>> sortArray;
+	public RadixSort sortArray;
 	
 	private boolean isMorphTargetsNeedUpdate;
 	
@@ -116,6 +116,17 @@ public class Geometry extends GeometryBuffer implements Geometric
 		
 	private Object3D debug;
 	
+	private boolean isUseBvh = false;
+	private GeometryBvh bvh;
+
+	private boolean isIndexedBuffers = false;
+
+	// Dirty ranges [start, end), end = -1 for the whole geometry
+	private int verticesUpdateStart = 0;
+	private int verticesUpdateEnd = -1;
+	private int facesUpdateStart = 0;
+	private int facesUpdateEnd = -1;
+	
 	public Geometry() {
 		super();
 
@@ -158,6 +169,144 @@ public class Geometry extends GeometryBuffer implements Geometric
 		return this.debug;
 	}
 	
+	public boolean isUseBvh() {
+		return this.isUseBvh;
+	}
+	
+	/**
+	 * Set to true to speed up {@link Ray} intersections with large geometries.
+	 * The {@link GeometryBvh} will be built on the first intersection test 
+	 * and rebuilt after vertices are changed. 
+	 * <p>
+	 * Default is false.
+	 */
+	public void setUseBvh(boolean isUseBvh) {
+		this.isUseBvh = isUseBvh;
+		
+		if ( ! isUseBvh )
+			this.bvh = null;
+	}
+	
+	public boolean isIndexedBuffers() {
+		return this.isIndexedBuffers;
+	}
+
+	/**
+	 * Set to true to share vertices between faces in the WebGL buffers. 
+	 * Face corners with the same vertex index, normal, uv and color 
+	 * are written once and referenced from the index buffer, so smooth 
+	 * shaded meshes use several times less memory and upload time.
+	 * <p>
+	 * Corners are merged by the values they have when the buffers are 
+	 * initialized, so geometries whose normals, uvs or colors are later 
+	 * changed differently for the merged corners should not use it. 
+	 * Geometries with morph targets and materials with custom attributes 
+	 * always use unrolled buffers. Should be set before the first render.
+	 * <p>
+	 * Default is false.
+	 */
+	public void setIndexedBuffers(boolean isIndexedBuffers) {
+		this.isIndexedBuffers = isIndexedBuffers;
+	}
+
+	/**
+	 * Gets {@link GeometryBvh} for the faces of the geometry, 
+	 * builds it if it is missing or outdated.
+	 */
+	public GeometryBvh getBvh() 
+	{
+		if ( this.bvh == null )
+			this.bvh = new GeometryBvh( this );
+
+		return this.bvh;
+	}
+	
+	@Override
+	public void setVerticesNeedUpdate(boolean isVerticesNeedUpdate) {
+		super.setVerticesNeedUpdate(isVerticesNeedUpdate);
+		
+		if ( isVerticesNeedUpdate )
+			this.bvh = null;
+
+		this.verticesUpdateStart = 0;
+		this.verticesUpdateEnd = -1;
+	}
+
+	/**
+	 * Marks vertices [start, end) as changed. Only the parts of 
+	 * the WebGL buffers which contain these vertices will be loaded 
+	 * on the next render. Ranges of several calls are merged.
+	 */
+	public void setVerticesNeedUpdate(int start, int end) 
+	{
+		boolean isRange = ! isVerticesNeedUpdate() || hasVerticesUpdateRange();
+
+		int rangeStart = isVerticesNeedUpdate() ? Math.min( this.verticesUpdateStart, start ) : start;
+		int rangeEnd = isVerticesNeedUpdate() ? Math.max( this.verticesUpdateEnd, end ) : end;
+
+		setVerticesNeedUpdate( true );
+
+		if ( isRange )
+		{
+			this.verticesUpdateStart = rangeStart;
+			this.verticesUpdateEnd = rangeEnd;
+		}
+	}
+
+	/**
+	 * Checks if only a part of the vertices is marked as changed.
+	 */
+	public boolean hasVerticesUpdateRange() {
+		return this.verticesUpdateEnd >= 0;
+	}
+
+	public int getVerticesUpdateStart() {
+		return this.verticesUpdateStart;
+	}
+
+	public int getVerticesUpdateEnd() {
+		return this.verticesUpdateEnd;
+	}
+
+	/**
+	 * Restricts the next update of normals, colors, tangents and uvs, 
+	 * marked by their need update flags, to the parts of the WebGL 
+	 * buffers which contain faces [start, end). Ranges of several 
+	 * calls are merged, the range is reset after the update.
+	 */
+	public void setFacesUpdateRange(int start, int end) 
+	{
+		if ( hasFacesUpdateRange() )
+		{
+			start = Math.min( this.facesUpdateStart, start );
+			end = Math.max( this.facesUpdateEnd, end );
+		}
+
+		this.facesUpdateStart = start;
+		this.facesUpdateEnd = end;
+	}
+
+	/**
+	 * Resets the faces update range, so the next update is done for all faces.
+	 */
+	public void resetFacesUpdateRange() 
+	{
+		this.facesUpdateStart = 0;
+		this.facesUpdateEnd = -1;
+	}
+
+	public boolean hasFacesUpdateRange() {
+		return this.facesUpdateEnd >= 0;
+	}
+
+	public int getFacesUpdateStart() {
+		return this.facesUpdateStart;
+	}
+
+	public int getFacesUpdateEnd() {
+		return this.facesUpdateEnd;
+	}
+	
 	/**
 	 * Gets the List of skinning weights, matching number and order of vertices.
 	 */
@@ -702,6 +851,8 @@ public class Geometry extends GeometryBuffer implements Geometric
 		}
 
 		boundingSphere.radius = Math.sqrt( maxRadiusSq );
+
+		setBoundingSphereUpdated();
 	}
 	
 	private void handleTriangle(int a, int b, int c, int ua, int ub, int uc, UV[] uv, List<Vector3> tan1, List<Vector3> tan2)
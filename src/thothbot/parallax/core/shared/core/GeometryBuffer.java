@@ -19,17 +19,22 @@
 package thothbot.parallax.core.shared.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.ArrayBufferView;
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.Int16Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 import com.google.gwt.typedarrays.shared.Uint16Array;
+import com.google.gwt.typedarrays.shared.Uint32Array;
 
 import thothbot.parallax.core.client.gl2.WebGLBuffer;
 import thothbot.parallax.core.client.gl2.WebGLRenderingContext;
 import thothbot.parallax.core.client.gl2.enums.BufferTarget;
 import thothbot.parallax.core.client.gl2.enums.BufferUsage;
+import thothbot.parallax.core.client.gl2.enums.DrawElementsType;
 import thothbot.parallax.core.client.shaders.Attribute;
 import thothbot.parallax.core.shared.Log;
 
@@ -53,6 +58,11 @@ public class GeometryBuffer implements Geometric
 
 	// Bounding sphere.
 	private BoundingSphere boundingSphere = null;
+
+	// Increased when the vertices or the bounding sphere are changed
+	private int boundsVersion;
+	// Bounds version the bounding sphere was computed for
+	private int boundingSphereVersion = -1;
 	
 	// True if geometry has tangents. Set in Geometry.computeTangents.
 	private Boolean hasTangents = false;
@@ -68,16 +78,31 @@ public class GeometryBuffer implements Geometric
 	
 	private boolean isArrayInitialized;
 	
-	private Int16Array webGlIndexArray;
-	private Uint16Array webGlFaceArray;
-	private Uint16Array webGlLineArray;
+	// Uint16Array or Uint32Array, see isWebGlIndexArrayUint32()
+	private ArrayBufferView webGlIndexArray;
+	private boolean isWebGlIndexArrayUint32;
+	// Uint16Array or Uint32Array, see isWebGlIndexUint32()
+	private ArrayBufferView webGlFaceArray;
+	private ArrayBufferView webGlLineArray;
+	private boolean isWebGlIndexUint32;
 	
-	private Float64Array webGlColorArray;
-	private Float64Array webGlVertexArray;
-	private Float64Array webGlNormalArray;
-	private Float64Array webGlTangentArray;
-	private Float64Array webGlUvArray;
-	private Float64Array webGlUv2Array;
+	private Float32Array webGlColorArray;
+	private Float32Array webGlVertexArray;
+	private Float32Array webGlNormalArray;
+	private Float32Array webGlTangentArray;
+	private Float32Array webGlUvArray;
+	private Float32Array webGlUv2Array;
+
+	private boolean isInterleavedBuffers = false;
+	private Float32Array webGlInterleavedArray;
+
+	// Interleaved layout in floats. Position is always at 0, -1 if attribute is missing
+	private int interleavedStride;
+	private int interleavedNormalOffset = -1;
+	private int interleavedColorOffset = -1;
+	private int interleavedTangentOffset = -1;
+	private int interleavedUvOffset = -1;
+	private int interleavedUv2Offset = -1;
 	
 	public WebGLBuffer __webglIndexBuffer;
 	public WebGLBuffer __webglFaceBuffer;
@@ -89,10 +114,14 @@ public class GeometryBuffer implements Geometric
 	public WebGLBuffer __webglTangentBuffer;
 	public WebGLBuffer __webglUVBuffer;
 	public WebGLBuffer __webglUV2Buffer;
+	public WebGLBuffer __webglInterleavedBuffer;
 	
 	public WebGLBuffer __webglSkinIndicesBuffer;
 	public WebGLBuffer __webglSkinWeightsBuffer;
 		
+	// Sizes in bytes of the data loaded to the buffers
+	private Map<WebGLBuffer, Integer> webGlBufferSizes;
+
 	public int numMorphTargets;
 	public List<WebGLBuffer> __webglMorphTargetsBuffers;
 	
@@ -138,6 +167,24 @@ public class GeometryBuffer implements Geometric
 	public void setDynamic(boolean dynamic) {
 		this.isDynamic = dynamic;
 	}
+
+	public boolean isInterleavedBuffers() {
+		return this.isInterleavedBuffers;
+	}
+
+	/**
+	 * Set to true to keep positions, normals, colors, tangents and uvs 
+	 * in one interleaved WebGL buffer instead of separate buffers, 
+	 * so the renderer binds one buffer per object and the vertex fetch 
+	 * reads neighboring memory. 
+	 * Geometries with morph targets always use separate buffers. 
+	 * Should be set before the first render.
+	 * <p>
+	 * Default is false.
+	 */
+	public void setInterleavedBuffers(boolean isInterleavedBuffers) {
+		this.isInterleavedBuffers = isInterleavedBuffers;
+	}
 	
 	/**
 	 * Gets True if geometry has tangents. {@link Geometry#computeTangents()} 
@@ -180,6 +227,9 @@ public class GeometryBuffer implements Geometric
 
 	public void setVerticesNeedUpdate(boolean isVerticesNeedUpdate) {
 		this.isVerticesNeedUpdate = isVerticesNeedUpdate;
+
+		if ( isVerticesNeedUpdate )
+			this.boundsVersion ++;
 	}
 	
 	public boolean isUvsNeedUpdate() {
@@ -201,6 +251,32 @@ public class GeometryBuffer implements Geometric
 	public void setBoundingSphere(BoundingSphere boundingSphere) 
 	{
 		this.boundingSphere = boundingSphere;
+		this.boundsVersion ++;
+	}
+
+	/**
+	 * Gets the version of the bounds, which is increased when the vertices 
+	 * or the bounding sphere are changed. Used to relocate the objects 
+	 * in the {@link thothbot.parallax.core.shared.core.Octree}.
+	 */
+	public int getBoundsVersion() {
+		return this.boundsVersion;
+	}
+
+	/**
+	 * Checks if the bounding sphere is missing or the vertices 
+	 * have been changed after it was computed.
+	 */
+	public boolean isBoundingSphereNeedUpdate() {
+		return this.boundingSphere == null || this.boundingSphereVersion != this.boundsVersion;
+	}
+
+	/**
+	 * Should be called when the bounding sphere is computed.
+	 */
+	protected void setBoundingSphereUpdated() {
+		this.boundsVersion ++;
+		this.boundingSphereVersion = this.boundsVersion;
 	}
 
 	public BoundingSphere getBoundingSphere() {
@@ -228,82 +304,177 @@ public class GeometryBuffer implements Geometric
 		this.isArrayInitialized = isArrayInitialized;
 	}
 	
-	public Float64Array getWebGlVertexArray()
+	public Float32Array getWebGlVertexArray()
 	{
 		return this.webGlVertexArray;
 	}
 	
-	public Float64Array getWebGlColorArray()
+	public Float32Array getWebGlColorArray()
 	{
 		return this.webGlColorArray;
 	}
 	
-	public void setWebGlColorArray(Float64Array a)
+	public void setWebGlColorArray(Float32Array a)
 	{
 		this.webGlColorArray = a;
 	}
 	
-	public void setWebGlVertexArray(Float64Array a)
+	public void setWebGlVertexArray(Float32Array a)
 	{
 		this.webGlVertexArray = a;
 	}
 	
-	public void setWebGlNormalArray(Float64Array a)
+	public void setWebGlNormalArray(Float32Array a)
 	{
 		this.webGlNormalArray = a;
 	}
 	
-	public void setWebGlTangentArray(Float64Array a)
+	public void setWebGlTangentArray(Float32Array a)
 	{
 		this.webGlTangentArray = a;
 	}
 	
-	public void setWebGlUvArray(Float64Array a)
+	public void setWebGlUvArray(Float32Array a)
 	{
 		this.webGlUvArray = a;
 	}
 	
-	public void setWebGlUv2Array(Float64Array a)
+	public void setWebGlUv2Array(Float32Array a)
 	{
 		this.webGlUv2Array = a;
 	}
 	
-	public Float64Array getWebGlNormalArray() 
+	public Float32Array getWebGlNormalArray() 
 	{
 		return webGlNormalArray;
 	}
 
-	public Float64Array getWebGlTangentArray() 
+	public Float32Array getWebGlTangentArray() 
 	{
 		return webGlTangentArray;
 	}
 
-	public Float64Array getWebGlUvArray() 
+	public Float32Array getWebGlUvArray() 
 	{
 		return webGlUvArray;
 	}
 
-	public Float64Array getWebGlUv2Array() 
+	public Float32Array getWebGlUv2Array() 
 	{
 		return webGlUv2Array;
 	}
 	
-	public Int16Array getWebGlIndexArray() 
+	public Float32Array getWebGlInterleavedArray()
+	{
+		return this.webGlInterleavedArray;
+	}
+
+	/**
+	 * Gets size of the interleaved vertex in floats.
+	 */
+	public int getInterleavedStride()
+	{
+		return this.interleavedStride;
+	}
+
+	/**
+	 * Gets offset of the normal in the interleaved vertex in floats, 
+	 * or -1 if there are no normals.
+	 */
+	public int getInterleavedNormalOffset()
+	{
+		return this.interleavedNormalOffset;
+	}
+
+	public int getInterleavedColorOffset()
+	{
+		return this.interleavedColorOffset;
+	}
+
+	public int getInterleavedTangentOffset()
+	{
+		return this.interleavedTangentOffset;
+	}
+
+	public int getInterleavedUvOffset()
+	{
+		return this.interleavedUvOffset;
+	}
+
+	public int getInterleavedUv2Offset()
+	{
+		return this.interleavedUv2Offset;
+	}
+
+	/**
+	 * Gets indices of the direct buffer: Uint16Array or Uint32Array, 
+	 * see {@link #isWebGlIndexArrayUint32()}.
+	 */
+	public ArrayBufferView getWebGlIndexArray() 
 	{
 		return webGlIndexArray;
 	}
 	
-	public void setWebGlIndexArray(Int16Array a)
+	public void setWebGlIndexArray(Uint16Array a)
+	{
+		this.webGlIndexArray = a;
+		this.isWebGlIndexArrayUint32 = false;
+	}
+
+	/**
+	 * Sets 32-bit indices of the direct buffer. Can be drawn only when 
+	 * OES_element_index_uint extension is supported.
+	 */
+	public void setWebGlIndexArray(Uint32Array a)
 	{
 		this.webGlIndexArray = a;
+		this.isWebGlIndexArrayUint32 = true;
+	}
+
+	/**
+	 * Sets 16-bit indices. The values are read as unsigned, 
+	 * the array is used as Uint16Array view of the same data.
+	 */
+	public void setWebGlIndexArray(Int16Array a)
+	{
+		setWebGlIndexArray( a == null ? (Uint16Array)null 
+				: TypedArrays.createUint16Array( a.buffer(), a.byteOffset(), a.length() ) );
+	}
+
+	/**
+	 * Checks if indices of the direct buffer are 32-bit. The flag is kept 
+	 * when the arrays are deleted after loading to the GPU.
+	 */
+	public boolean isWebGlIndexArrayUint32()
+	{
+		return this.isWebGlIndexArrayUint32;
+	}
+
+	/**
+	 * Gets type of the direct buffer indices for drawElements.
+	 */
+	public DrawElementsType getWebGlIndexArrayType()
+	{
+		return this.isWebGlIndexArrayUint32 ? DrawElementsType.UNSIGNED_INT : DrawElementsType.UNSIGNED_SHORT;
+	}
+
+	/**
+	 * Gets the direct buffer index at the offset as unsigned value.
+	 */
+	public int getWebGlIndex(int offset)
+	{
+		if ( this.isWebGlIndexArrayUint32 )
+			return (int)((Uint32Array)this.webGlIndexArray).get( offset );
+
+		return ((Uint16Array)this.webGlIndexArray).get( offset );
 	}
 	
-	public Uint16Array getWebGlFaceArray() 
+	public ArrayBufferView getWebGlFaceArray() 
 	{
 		return webGlFaceArray;
 	}
 
-	public Uint16Array getWebGlLineArray() 
+	public ArrayBufferView getWebGlLineArray() 
 	{
 		return webGlLineArray;
 	}
@@ -311,20 +482,68 @@ public class GeometryBuffer implements Geometric
 	public void setWebGlFaceArray(Uint16Array a)
 	{
 		this.webGlFaceArray = a;
+		this.isWebGlIndexUint32 = false;
 	}
 	
 	public void setWebGlLineArray(Uint16Array a)
 	{
 		this.webGlLineArray = a;
 	}
+
+	/**
+	 * Sets 32-bit face indices. Can be used only when 
+	 * OES_element_index_uint extension is supported.
+	 */
+	public void setWebGlFaceArray(Uint32Array a)
+	{
+		this.webGlFaceArray = a;
+		this.isWebGlIndexUint32 = true;
+	}
+
+	public void setWebGlLineArray(Uint32Array a)
+	{
+		this.webGlLineArray = a;
+	}
+
+	/**
+	 * Checks if face and line arrays keep 32-bit indices.
+	 */
+	public boolean isWebGlIndexUint32()
+	{
+		return this.isWebGlIndexUint32;
+	}
+
+	/**
+	 * Gets type of the face and line indices for drawElements.
+	 */
+	public DrawElementsType getWebGlIndexType()
+	{
+		return this.isWebGlIndexUint32 ? DrawElementsType.UNSIGNED_INT : DrawElementsType.UNSIGNED_SHORT;
+	}
+
+	public void setWebGlFaceIndex(int offset, int index)
+	{
+		if ( this.isWebGlIndexUint32 )
+			((Uint32Array)this.webGlFaceArray).set( offset, index );
+		else
+			((Uint16Array)this.webGlFaceArray).set( offset, index );
+	}
+
+	public void setWebGlLineIndex(int offset, int index)
+	{
+		if ( this.isWebGlIndexUint32 )
+			((Uint32Array)this.webGlLineArray).set( offset, index );
+		else
+			((Uint16Array)this.webGlLineArray).set( offset, index );
+	}
 	
 	protected void dispose() 
 	{
 		setArrayInitialized(false);
 		
-		setWebGlIndexArray( null );
-		setWebGlFaceArray( null );
-		setWebGlLineArray( null );
+		this.webGlIndexArray = null;
+		this.webGlFaceArray = null;
+		this.webGlLineArray = null;
 		
 
 		setWebGlColorArray ( null );
@@ -333,7 +552,159 @@ public class GeometryBuffer implements Geometric
 		setWebGlNormalArray( null );
 		setWebGlTangentArray( null );
 		setWebGlUvArray( null );
-		setWebGlUv2Array( null );		
+		setWebGlUv2Array( null );
+		this.webGlInterleavedArray = null;
+	}
+
+	/**
+	 * Loads the array to the buffer. The buffer is reallocated with 
+	 * bufferData only when it is new or the array size has changed, 
+	 * otherwise the data is replaced with bufferSubData.
+	 */
+	public void setBufferData( WebGLRenderingContext gl, BufferTarget target, WebGLBuffer buffer, ArrayBufferView array, BufferUsage hint )
+	{
+		gl.bindBuffer( target, buffer );
+
+		if ( isBufferAllocated( buffer, array ) )
+			gl.bufferSubData( target, 0, array );
+		else
+			gl.bufferData( target, array, hint );
+	}
+
+	/**
+	 * Loads elements [start, end) of the array to the same place in the buffer 
+	 * with bufferSubData. Loads the whole array if the buffer is new or 
+	 * its size has changed.
+	 */
+	public void setBufferData( WebGLRenderingContext gl, BufferTarget target, WebGLBuffer buffer, Float32Array array, int start, int end, BufferUsage hint )
+	{
+		if ( ! isBufferAllocated( buffer, array ) )
+		{
+			setBufferData( gl, target, buffer, array, hint );
+			return;
+		}
+
+		if ( start >= end )
+			return;
+
+		gl.bindBuffer( target, buffer );
+		gl.bufferSubData( target, start * Float32Array.BYTES_PER_ELEMENT, array.subarray( start, end ) );
+	}
+
+	/**
+	 * Gets size in bytes of the data loaded to the buffer, or 0 if nothing 
+	 * has been loaded. Unlike the typed arrays, which are deleted after 
+	 * loading for non-dynamic geometry, the size is always kept.
+	 */
+	public int getBufferDataSize( WebGLBuffer buffer )
+	{
+		if ( buffer == null || this.webGlBufferSizes == null )
+			return 0;
+
+		Integer size = this.webGlBufferSizes.get( buffer );
+		return size != null ? size : 0;
+	}
+
+	/*
+	 * Checks if the buffer has been allocated for the array size, 
+	 * and remembers the size otherwise.
+	 */
+	private boolean isBufferAllocated( WebGLBuffer buffer, ArrayBufferView array )
+	{
+		if ( this.webGlBufferSizes == null )
+			this.webGlBufferSizes = new HashMap<WebGLBuffer, Integer>();
+
+		Integer size = this.webGlBufferSizes.get( buffer );
+		if ( size != null && size == array.byteLength() )
+			return true;
+
+		this.webGlBufferSizes.put( buffer, array.byteLength() );
+		return false;
+	}
+
+	/**
+	 * Packs vertex, normal, color, tangent and uv arrays into 
+	 * one interleaved array and loads it to the interleaved buffer.
+	 */
+	public void setInterleavedBuffer( WebGLRenderingContext gl, BufferUsage hint )
+	{
+		Float32Array position = getWebGlVertexArray();
+		if ( position == null )
+			return;
+
+		Float32Array normal = getWebGlNormalArray();
+		Float32Array color = getWebGlColorArray();
+		Float32Array tangent = getWebGlTangentArray();
+		Float32Array uv = getWebGlUvArray();
+		Float32Array uv2 = getWebGlUv2Array();
+
+		int stride = 3;
+		this.interleavedNormalOffset = -1;
+		this.interleavedColorOffset = -1;
+		this.interleavedTangentOffset = -1;
+		this.interleavedUvOffset = -1;
+		this.interleavedUv2Offset = -1;
+
+		if ( normal != null )
+		{
+			this.interleavedNormalOffset = stride;
+			stride += 3;
+		}
+
+		if ( color != null )
+		{
+			this.interleavedColorOffset = stride;
+			stride += 3;
+		}
+
+		if ( tangent != null )
+		{
+			this.interleavedTangentOffset = stride;
+			stride += 4;
+		}
+
+		if ( uv != null )
+		{
+			this.interleavedUvOffset = stride;
+			stride += 2;
+		}
+
+		if ( uv2 != null )
+		{
+			this.interleavedUv2Offset = stride;
+			stride += 2;
+		}
+
+		this.interleavedStride = stride;
+
+		int nvertices = position.length() / 3;
+
+		if ( this.webGlInterleavedArray == null || this.webGlInterleavedArray.length() != nvertices * stride )
+			this.webGlInterleavedArray = TypedArrays.createFloat32Array( nvertices * stride );
+
+		Float32Array interleaved = this.webGlInterleavedArray;
+
+		interleaveArray( interleaved, stride, 0, position, 3, nvertices );
+		interleaveArray( interleaved, stride, this.interleavedNormalOffset, normal, 3, nvertices );
+		interleaveArray( interleaved, stride, this.interleavedColorOffset, color, 3, nvertices );
+		interleaveArray( interleaved, stride, this.interleavedTangentOffset, tangent, 4, nvertices );
+		interleaveArray( interleaved, stride, this.interleavedUvOffset, uv, 2, nvertices );
+		interleaveArray( interleaved, stride, this.interleavedUv2Offset, uv2, 2, nvertices );
+
+		if ( this.__webglInterleavedBuffer == null )
+			this.__webglInterleavedBuffer = gl.createBuffer();
+
+		setBufferData( gl, BufferTarget.ARRAY_BUFFER, this.__webglInterleavedBuffer, interleaved, hint );
+	}
+
+	private static void interleaveArray( Float32Array interleaved, int stride, int offset, Float32Array array, int size, int nvertices )
+	{
+		if ( array == null )
+			return;
+
+		for ( int v = 0; v < nvertices; v ++ )
+			for ( int i = 0; i < size; i ++ )
+				interleaved.set( v * stride + offset + i, array.get( v * size + i ) );
 	}
 	
 	@Override
@@ -348,7 +719,7 @@ public class GeometryBuffer implements Geometric
 		
 		BoundingBox boundingBox = getBoundingBox();
 
-		Float64Array positions = getWebGlVertexArray();
+		Float32Array positions = getWebGlVertexArray();
 
 		if ( positions != null) 
 		{
@@ -404,7 +775,7 @@ public class GeometryBuffer implements Geometric
 	{
 		if ( getBoundingSphere() == null ) 
 			setBoundingSphere( new BoundingSphere(0) );
-		Float64Array positions = getWebGlVertexArray();
+		Float32Array positions = getWebGlVertexArray();
 
 		if ( positions != null) 
 		{
@@ -423,6 +794,8 @@ public class GeometryBuffer implements Geometric
 
 			this.boundingSphere.radius = Math.sqrt( maxRadiusSq );
 		}
+
+		setBoundingSphereUpdated();
 	}
 	
 	@Override
@@ -434,7 +807,7 @@ public class GeometryBuffer implements Geometric
 
 			if ( getWebGlNormalArray() == null ) 
 			{
-				setWebGlNormalArray(TypedArrays.createFloat64Array(nVertexElements));
+				setWebGlNormalArray(TypedArrays.createFloat32Array(nVertexElements));
 			}
 			else 
 			{
@@ -442,15 +815,14 @@ public class GeometryBuffer implements Geometric
 
 				for ( int i = 0, il = getWebGlNormalArray().length(); i < il; i ++ ) 
 				{
-					getWebGlNormalArray().set( i, 0 );
+					getWebGlNormalArray().set( i, 0.0f );
 				}
 			}
 
 			List<GeometryBuffer.Offset> offsets = this.offsets;
 
-			Int16Array indices = getWebGlIndexArray();
-			Float64Array positions = getWebGlVertexArray();
-			Float64Array normals = getWebGlNormalArray();
+			Float32Array positions = getWebGlVertexArray();
+			Float32Array normals = getWebGlNormalArray();
 
 			Vector3 pA = new Vector3();
 			Vector3 pB = new Vector3();
@@ -468,9 +840,9 @@ public class GeometryBuffer implements Geometric
 				for ( int i = start, il = start + count; i < il; i += 3 ) 
 				{
 
-					int vA = index + indices.get( i );
-					int vB = index + indices.get( i + 1 );
-					int vC = index + indices.get( i + 2 );
+					int vA = index + getWebGlIndex( i );
+					int vB = index + getWebGlIndex( i + 1 );
+					int vC = index + getWebGlIndex( i + 2 );
 
 					
 					pA.set(
@@ -492,17 +864,17 @@ public class GeometryBuffer implements Geometric
 					ab.sub( pA, pB );
 					cb.cross( ab );
 
-					normals.set( vA * 3, normals.get( vA * 3) + cb.x);
-					normals.set( vA * 3 + 1,  normals.get( vA * 3 + 1) + cb.y);
-					normals.set( vA * 3 + 2,  normals.get( vA * 3 + 2) + cb.z);
+					normals.set( vA * 3, (float)(normals.get( vA * 3) + cb.x));
+					normals.set( vA * 3 + 1,  (float)(normals.get( vA * 3 + 1) + cb.y));
+					normals.set( vA * 3 + 2,  (float)(normals.get( vA * 3 + 2) + cb.z));
 
-					normals.set( vB * 3,  normals.get( vB * 3) + cb.x);
-					normals.set( vB * 3 + 1,  normals.get( vB * 3 + 1) + cb.y);
-					normals.set( vB * 3 + 2,  normals.get( vB * 3 + 2) + cb.z);
+					normals.set( vB * 3,  (float)(normals.get( vB * 3) + cb.x));
+					normals.set( vB * 3 + 1,  (float)(normals.get( vB * 3 + 1) + cb.y));
+					normals.set( vB * 3 + 2,  (float)(normals.get( vB * 3 + 2) + cb.z));
 
-					normals.set( vC * 3,  normals.get( vC * 3) + cb.x);
-					normals.set( vC * 3 + 1,  normals.get( vC * 3 + 1) + cb.y);
-					normals.set( vC * 3 + 2,  normals.get( vC * 3 + 2) + cb.z);
+					normals.set( vC * 3,  (float)(normals.get( vC * 3) + cb.x));
+					normals.set( vC * 3 + 1,  (float)(normals.get( vC * 3 + 1) + cb.y));
+					normals.set( vC * 3 + 2,  (float)(normals.get( vC * 3 + 2) + cb.z));
 				}
 			}
 
@@ -516,9 +888,9 @@ public class GeometryBuffer implements Geometric
 
 				double  n = 1.0 / Math.sqrt( x * x + y * y + z * z );
 
-				normals.set( i , normals.get(i) *  n );
-				normals.set( i + 1 , normals.get(i + 1) *  n );
-				normals.set( i + 2 , normals.get(i + 2) *  n );
+				normals.set( i , (float)(normals.get(i) *  n) );
+				normals.set( i + 1 , (float)(normals.get(i + 1) *  n) );
+				normals.set( i + 2 , (float)(normals.get(i + 2) *  n) );
 			}
 
 			setNormalsNeedUpdate(true);
@@ -541,8 +913,7 @@ public class GeometryBuffer implements Geometric
 			return;
 		}
 
-		Int16Array indices = getWebGlIndexArray();
-		Float64Array positions = getWebGlVertexArray();
+		Float32Array positions = getWebGlVertexArray();
 		getWebGlNormalArray();
 		getWebGlUvArray();
 
@@ -552,7 +923,7 @@ public class GeometryBuffer implements Geometric
 		{
 			int nTangentElements = 4 * nVertices;
 
-			setWebGlTangentArray(TypedArrays.createFloat64Array(nTangentElements));
+			setWebGlTangentArray(TypedArrays.createFloat32Array(nTangentElements));
 		}
 
 		getWebGlTangentArray();
@@ -576,9 +947,9 @@ public class GeometryBuffer implements Geometric
 
 			for ( int i = start, il = start + count; i < il; i += 3 ) 
 			{
-				int iA = index + indices.get( i );
-				int iB = index + indices.get( i + 1 );
-				int iC = index + indices.get( i + 2 );
+				int iA = index + getWebGlIndex( i );
+				int iB = index + getWebGlIndex( i + 1 );
+				int iC = index + getWebGlIndex( i + 2 );
 
 				handleTriangle( tan1, tan2, iA, iB, iC );
 			}
@@ -592,9 +963,9 @@ public class GeometryBuffer implements Geometric
 
 			for ( int i = start, il = start + count; i < il; i += 3 ) 
 			{
-				int iA = index + indices.get( i );
-				int iB = index + indices.get( i + 1 );
-				int iC = index + indices.get( i + 2 );
+				int iA = index + getWebGlIndex( i );
+				int iB = index + getWebGlIndex( i + 1 );
+				int iC = index + getWebGlIndex( i + 2 );
 
 				handleVertex( tan1, tan2, iA );
 				handleVertex( tan1, tan2, iB );
@@ -609,8 +980,8 @@ public class GeometryBuffer implements Geometric
 	
 	private void handleTriangle( List<Vector3> tan1, List<Vector3> tan2, int a, int b, int c ) 
 	{
-		Float64Array positions = getWebGlVertexArray();
-		Float64Array uvs = getWebGlUvArray();
+		Float32Array positions = getWebGlVertexArray();
+		Float32Array uvs = getWebGlUvArray();
 		
 		double xA = positions.get( a * 3 );
 		double yA = positions.get( a * 3 + 1 );
@@ -671,8 +1042,8 @@ public class GeometryBuffer implements Geometric
 	
 	private void handleVertex( List<Vector3> tan1, List<Vector3> tan2, int v ) 
 	{
-		Float64Array normals = getWebGlNormalArray();
-		Float64Array tangents = getWebGlTangentArray();
+		Float32Array normals = getWebGlNormalArray();
+		Float32Array tangents = getWebGlTangentArray();
 		
 		Vector3 n = new Vector3(
 				normals.get( v * 3 ),
@@ -695,55 +1066,61 @@ public class GeometryBuffer implements Geometric
 		double test = tmp2.dot( tan2.get( v ) );
 		double w = ( test < 0.0 ) ? -1.0 : 1.0;
 
-		tangents.set( v * 4, tmp.getX());
-		tangents.set( v * 4 + 1, tmp.getY());
-		tangents.set( v * 4 + 2, tmp.getZ());
-		tangents.set( v * 4 + 3, w);
+		tangents.set( v * 4, (float)tmp.getX());
+		tangents.set( v * 4 + 1, (float)tmp.getY());
+		tangents.set( v * 4 + 2, (float)tmp.getZ());
+		tangents.set( v * 4 + 3, (float)w);
 	}
 	
 	public void setDirectBuffers ( WebGLRenderingContext gl, BufferUsage hint, boolean dispose ) 
 	{
-		Int16Array index = getWebGlIndexArray();
-		Float64Array position = getWebGlVertexArray();
-		Float64Array normal = getWebGlNormalArray();
-		Float64Array uv = getWebGlUvArray();
-		Float64Array color = getWebGlColorArray();
-		Float64Array tangent = getWebGlTangentArray();
+		ArrayBufferView index = getWebGlIndexArray();
+		Float32Array position = getWebGlVertexArray();
+		Float32Array normal = getWebGlNormalArray();
+		Float32Array uv = getWebGlUvArray();
+		Float32Array color = getWebGlColorArray();
+		Float32Array tangent = getWebGlTangentArray();
 
 		if ( isElementsNeedUpdate() && index != null ) 
 		{
-			gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, this.__webglIndexBuffer );
-			gl.bufferData( BufferTarget.ELEMENT_ARRAY_BUFFER, index, hint );
+			setBufferData( gl, BufferTarget.ELEMENT_ARRAY_BUFFER, this.__webglIndexBuffer, index, hint );
+		}
+
+		if ( isInterleavedBuffers() )
+		{
+			if ( isVerticesNeedUpdate() || isNormalsNeedUpdate() || isUvsNeedUpdate() 
+					|| isColorsNeedUpdate() || isTangentsNeedUpdate() )
+				setInterleavedBuffer( gl, hint );
+
+			if ( dispose ) 
+				dispose();
+
+			return;
 		}
 
 		if ( isVerticesNeedUpdate() && position != null ) 
 		{
-			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglVertexBuffer );
-			gl.bufferData( BufferTarget.ARRAY_BUFFER, position, hint );
+			setBufferData( gl, BufferTarget.ARRAY_BUFFER, this.__webglVertexBuffer, position, hint );
 		}
 
 		if ( isNormalsNeedUpdate() && normal != null ) 
 		{
-			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglNormalBuffer );
-			gl.bufferData( BufferTarget.ARRAY_BUFFER, normal, hint );
+			setBufferData( gl, BufferTarget.ARRAY_BUFFER, this.__webglNormalBuffer, normal, hint );
 		}
 
 		if ( isUvsNeedUpdate() && uv != null ) 
 		{
-			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglUVBuffer );
-			gl.bufferData( BufferTarget.ARRAY_BUFFER, uv, hint );
+			setBufferData( gl, BufferTarget.ARRAY_BUFFER, this.__webglUVBuffer, uv, hint );
 		}
 
 		if ( isColorsNeedUpdate() && color != null ) 
 		{
-			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglColorBuffer );
-			gl.bufferData( BufferTarget.ARRAY_BUFFER, color, hint );
+			setBufferData( gl, BufferTarget.ARRAY_BUFFER, this.__webglColorBuffer, color, hint );
 		}
 
 		if ( isTangentsNeedUpdate() && tangent != null ) 
 		{
-			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglTangentBuffer );
-			gl.bufferData( BufferTarget.ARRAY_BUFFER, tangent, hint );
+			setBufferData( gl, BufferTarget.ARRAY_BUFFER, this.__webglTangentBuffer, tangent, hint );
 		}
 
 		if ( dispose ) 
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.core.shared.core;
+
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy over the faces of a {@link Geometry}.
+ * <p>
+ * Faces are grouped into a binary tree of axis-aligned boxes in the
+ * geometry local space, so a {@link Ray} has to test only the faces
+ * which lie inside the boxes it passes through.
+ * <p>
+ * The tree is stored in flat arrays to avoid per-node allocations.
+ *
+ * @author thothbot
+ *
+ */
+public class GeometryBvh
+{
+	// Max number of faces in the leaf node
+	private static final int LEAF_SIZE = 8;
+
+	// Node bounds: minX, minY, minZ, maxX, maxY, maxZ per node
+	private double[] nodeBounds;
+
+	// For leaf - first index in faceIndices, for inner node - index of the right child.
+	// The left child of the inner node is always the next node.
+	private int[] nodeOffset;
+
+	// Number of faces for leaf, 0 for inner node
+	private int[] nodeCount;
+
+	private int nodesUsed;
+
+	// Face indices ordered by leaves
+	private int[] faceIndices;
+
+	// Face bounds and centroids used while building
+	private double[] faceBounds;
+	private double[] faceCentroids;
+
+	// internals
+	private int[] stack;
+	private int[] candidates;
+
+	/**
+	 * Builds the hierarchy for the faces of the given geometry.
+	 */
+	public GeometryBvh(Geometry geometry)
+	{
+		List<Vector3> vertices = geometry.getVertices();
+		List<Face3> faces = geometry.getFaces();
+
+		int count = faces.size();
+
+		this.faceIndices = new int[count];
+		this.candidates = new int[count];
+		this.faceBounds = new double[count * 6];
+		this.faceCentroids = new double[count * 3];
+
+		for ( int f = 0; f < count; f ++ )
+		{
+			Face3 face = faces.get( f );
+			this.faceIndices[ f ] = f;
+
+			int o = f * 6;
+			resetBounds( this.faceBounds, o );
+			expandBounds( this.faceBounds, o, vertices.get( face.getA() ) );
+			expandBounds( this.faceBounds, o, vertices.get( face.getB() ) );
+			expandBounds( this.faceBounds, o, vertices.get( face.getC() ) );
+
+			if ( face.getClass() == Face4.class )
+				expandBounds( this.faceBounds, o, vertices.get( ((Face4)face).getD() ) );
+
+			this.faceCentroids[ f * 3 ]     = ( this.faceBounds[ o ]     + this.faceBounds[ o + 3 ] ) * 0.5;
+			this.faceCentroids[ f * 3 + 1 ] = ( this.faceBounds[ o + 1 ] + this.faceBounds[ o + 4 ] ) * 0.5;
+			this.faceCentroids[ f * 3 + 2 ] = ( this.faceBounds[ o + 2 ] + this.faceBounds[ o + 5 ] ) * 0.5;
+		}
+
+		// Binary tree with leaves of at least one face has less than 2 * count nodes
+		int maxNodes = Math.max( 1, 2 * count );
+		this.nodeBounds = new double[maxNodes * 6];
+		this.nodeOffset = new int[maxNodes];
+		this.nodeCount = new int[maxNodes];
+		this.nodesUsed = 0;
+
+		int depth = build( 0, count, 0 );
+
+		this.stack = new int[depth + 2];
+
+		// Not needed after the tree is built
+		this.faceBounds = null;
+		this.faceCentroids = null;
+	}
+
+	/**
+	 * Gets number of nodes in the hierarchy.
+	 */
+	public int getNodeCount()
+	{
+		return this.nodesUsed;
+	}
+
+	/**
+	 * Gets the buffer filled by {@link #intersectRay(Vector3, Vector3)} with
+	 * indices of candidate faces. The buffer is reused by the next call.
+	 */
+	public int[] getCandidates()
+	{
+		return this.candidates;
+	}
+
+	/**
+	 * Collects faces whose bounds are crossed by the ray.
+	 * Origin and direction should be in the geometry local space.
+	 *
+	 * @return the number of candidate faces written to {@link #getCandidates()}.
+	 */
+	public int intersectRay( Vector3 origin, Vector3 direction )
+	{
+		if ( this.nodesUsed == 0 )
+			return 0;
+
+		double ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+
+		double invX = 1.0 / direction.getX();
+		double invY = 1.0 / direction.getY();
+		double invZ = 1.0 / direction.getZ();
+
+		int result = 0;
+		int top = 0;
+		this.stack[ top ++ ] = 0;
+
+		while ( top > 0 )
+		{
+			int node = this.stack[ -- top ];
+
+			if ( ! intersectBox( node, ox, oy, oz, invX, invY, invZ ) )
+				continue;
+
+			int count = this.nodeCount[ node ];
+			if ( count > 0 )
+			{
+				int start = this.nodeOffset[ node ];
+				for ( int i = start, il = start + count; i < il; i ++ )
+					this.candidates[ result ++ ] = this.faceIndices[ i ];
+			}
+			else
+			{
+				this.stack[ top ++ ] = this.nodeOffset[ node ];
+				this.stack[ top ++ ] = node + 1;
+			}
+		}
+
+		return result;
+	}
+
+	// Slab test
+	private boolean intersectBox( int node, double ox, double oy, double oz, double invX, double invY, double invZ )
+	{
+		int o = node * 6;
+
+		double t1 = ( this.nodeBounds[ o ] - ox ) * invX;
+		double t2 = ( this.nodeBounds[ o + 3 ] - ox ) * invX;
+		double tmin = Math.min( t1, t2 );
+		double tmax = Math.max( t1, t2 );
+
+		t1 = ( this.nodeBounds[ o + 1 ] - oy ) * invY;
+		t2 = ( this.nodeBounds[ o + 4 ] - oy ) * invY;
+		tmin = Math.max( tmin, Math.min( t1, t2 ) );
+		tmax = Math.min( tmax, Math.max( t1, t2 ) );
+
+		t1 = ( this.nodeBounds[ o + 2 ] - oz ) * invZ;
+		t2 = ( this.nodeBounds[ o + 5 ] - oz ) * invZ;
+		tmin = Math.max( tmin, Math.min( t1, t2 ) );
+		tmax = Math.min( tmax, Math.max( t1, t2 ) );
+
+		// NaN comes from the ray lying on the slab plane: treat as hit
+		return !( tmax < 0 || tmin > tmax );
+	}
+
+	/*
+	 * Builds subtree for faceIndices[start, end) and returns its depth.
+	 */
+	private int build( int start, int end, int depth )
+	{
+		int node = this.nodesUsed ++;
+		int o = node * 6;
+
+		resetBounds( this.nodeBounds, o );
+		for ( int i = start; i < end; i ++ )
+		{
+			int fo = this.faceIndices[ i ] * 6;
+			for ( int k = 0; k < 3; k ++ )
+			{
+				this.nodeBounds[ o + k ]     = Math.min( this.nodeBounds[ o + k ],     this.faceBounds[ fo + k ] );
+				this.nodeBounds[ o + k + 3 ] = Math.max( this.nodeBounds[ o + k + 3 ], this.faceBounds[ fo + k + 3 ] );
+			}
+		}
+
+		int count = end - start;
+		if ( count <= LEAF_SIZE )
+		{
+			this.nodeOffset[ node ] = start;
+			this.nodeCount[ node ] = count;
+			return depth;
+		}
+
+		// Split by the longest axis of the centroids bounds
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		for ( int i = start; i < end; i ++ )
+		{
+			int c = this.faceIndices[ i ] * 3;
+			minX = Math.min( minX, this.faceCentroids[ c ] );
+			minY = Math.min( minY, this.faceCentroids[ c + 1 ] );
+			minZ = Math.min( minZ, this.faceCentroids[ c + 2 ] );
+			maxX = Math.max( maxX, this.faceCentroids[ c ] );
+			maxY = Math.max( maxY, this.faceCentroids[ c + 1 ] );
+			maxZ = Math.max( maxZ, this.faceCentroids[ c + 2 ] );
+		}
+
+		int axis = 0;
+		double split = ( minX + maxX ) * 0.5;
+		if ( maxY - minY > maxX - minX && maxY - minY >= maxZ - minZ )
+		{
+			axis = 1;
+			split = ( minY + maxY ) * 0.5;
+		}
+		else if ( maxZ - minZ > maxX - minX && maxZ - minZ > maxY - minY )
+		{
+			axis = 2;
+			split = ( minZ + maxZ ) * 0.5;
+		}
+
+		// Partition in place
+		int mid = start;
+		for ( int i = start; i < end; i ++ )
+		{
+			if ( this.faceCentroids[ this.faceIndices[ i ] * 3 + axis ] < split )
+			{
+				int tmp = this.faceIndices[ i ];
+				this.faceIndices[ i ] = this.faceIndices[ mid ];
+				this.faceIndices[ mid ] = tmp;
+				mid ++;
+			}
+		}
+
+		// All centroids on one side: just split in half
+		if ( mid == start || mid == end )
+			mid = start + count / 2;
+
+		this.nodeCount[ node ] = 0;
+
+		int leftDepth = build( start, mid, depth + 1 );
+		this.nodeOffset[ node ] = this.nodesUsed;
+		int rightDepth = build( mid, end, depth + 1 );
+
+		return Math.max( leftDepth, rightDepth );
+	}
+
+	private static void resetBounds( double[] bounds, int o )
+	{
+		bounds[ o ]     = Double.POSITIVE_INFINITY;
+		bounds[ o + 1 ] = Double.POSITIVE_INFINITY;
+		bounds[ o + 2 ] = Double.POSITIVE_INFINITY;
+		bounds[ o + 3 ] = Double.NEGATIVE_INFINITY;
+		bounds[ o + 4 ] = Double.NEGATIVE_INFINITY;
+		bounds[ o + 5 ] = Double.NEGATIVE_INFINITY;
+	}
+
+	private static void expandBounds( double[] bounds, int o, Vector3 v )
+	{
+		bounds[ o ]     = Math.min( bounds[ o ],     v.getX() );
+		bounds[ o + 1 ] = Math.min( bounds[ o + 1 ], v.getY() );
+		bounds[ o + 2 ] = Math.min( bounds[ o + 2 ], v.getZ() );
+		bounds[ o + 3 ] = Math.max( bounds[ o + 3 ], v.getX() );
+		bounds[ o + 4 ] = Math.max( bounds[ o + 4 ], v.getY() );
+		bounds[ o + 5 ] = Math.max( bounds[ o + 5 ], v.getZ() );
+	}
+}
@@ -21,7 +21,7 @@ package thothbot.parallax.core.shared.core;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.Float32Array;
 
 public class GeometryGroup extends GeometryBuffer
 {
@@ -32,11 +32,20 @@ public class GeometryGroup extends GeometryBuffer
 
 	public int vertices;
 
-	public List<Float64Array> __morphTargetsArrays;
-	public List<Float64Array> __morphNormalsArrays;
+	public List<Float32Array> __morphTargetsArrays;
+	public List<Float32Array> __morphNormalsArrays;
 
-	private Float64Array webGlSkinIndexArray;
-	private Float64Array webGlSkinWeightArray;
+	// Indexed buffers: the face corner for each shared vertex, packed as face * 4 + corner
+	public int[] __vertexCorners;
+	// Indexed buffers: the shared vertex for each face corner in the chunk order
+	public int[] __cornerVertices;
+
+	// Buffer vertices of each geometry vertex: __vertexSlots[__vertexSlotStart[v] .. __vertexSlotStart[v + 1])
+	public int[] __vertexSlotStart;
+	public int[] __vertexSlots;
+
+	private Float32Array webGlSkinIndexArray;
+	private Float32Array webGlSkinWeightArray;
 
 	public GeometryGroup(int materialIndex, int numMorphTargets, int numMorphNormals) 
 	{
@@ -50,22 +59,22 @@ public class GeometryGroup extends GeometryBuffer
 		this.numMorphNormals = numMorphNormals;
 	}
 
-	public Float64Array getWebGlSkinIndexArray() 
+	public Float32Array getWebGlSkinIndexArray() 
 	{
 		return webGlSkinIndexArray;
 	}
 
-	public Float64Array getWebGlSkinWeightArray() 
+	public Float32Array getWebGlSkinWeightArray() 
 	{
 		return webGlSkinWeightArray;
 	}
 	
-	public void setWebGlSkinIndexArray(Float64Array a)
+	public void setWebGlSkinIndexArray(Float32Array a)
 	{
 		this.webGlSkinIndexArray = a;
 	}
 	
-	public void setWebGlSkinWeightArray(Float64Array a)
+	public void setWebGlSkinWeightArray(Float32Array a)
 	{
 		this.webGlSkinWeightArray = a;
 	}
@@ -65,6 +65,8 @@ public class Gyroscope extends Object3D
 
 			this.matrixWorldNeedsUpdate = false;
 
+			onMatrixWorldUpdated();
+
 			force = true;
 		}
 
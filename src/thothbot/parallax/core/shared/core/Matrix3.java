@@ -18,6 +18,7 @@
 
 package thothbot.parallax.core.shared.core;
 
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.Float64Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 
@@ -110,6 +111,50 @@ public class Matrix3
 		this.getArray().set(8, idet * a33);
 	}
 
+	/**
+	 * Sets the value of this matrix to the normal matrix of the passed 
+	 * matrix m - the transpose of the inverse of its upper 3x3 part.
+	 * <p>
+	 * If m contains only rotation and uniform scale, the normal matrix 
+	 * is just the scaled 3x3 part and the general inverse is skipped.
+	 * 
+	 * @param m the model view matrix
+	 */
+	public void getNormalMatrix(Matrix4 m)
+	{
+		Float64Array me = m.getArray();
+
+		double x0 = me.get(0), x1 = me.get(1), x2 = me.get(2);
+		double y0 = me.get(4), y1 = me.get(5), y2 = me.get(6);
+		double z0 = me.get(8), z1 = me.get(9), z2 = me.get(10);
+
+		double lx = x0 * x0 + x1 * x1 + x2 * x2;
+		double ly = y0 * y0 + y1 * y1 + y2 * y2;
+		double lz = z0 * z0 + z1 * z1 + z2 * z2;
+
+		double eps = lx * 1e-6;
+
+		// orthogonal columns of the same length: ( s * R )^-T = R / s
+		if ( lx > 0 &&
+			 Math.abs( lx - ly ) <= eps && Math.abs( lx - lz ) <= eps &&
+			 Math.abs( x0 * y0 + x1 * y1 + x2 * y2 ) <= eps &&
+			 Math.abs( x0 * z0 + x1 * z1 + x2 * z2 ) <= eps &&
+			 Math.abs( y0 * z0 + y1 * z1 + y2 * z2 ) <= eps )
+		{
+			double is = 1.0 / lx;
+			Float64Array te = this.getArray();
+
+			te.set(0, x0 * is); te.set(1, x1 * is); te.set(2, x2 * is);
+			te.set(3, y0 * is); te.set(4, y1 * is); te.set(5, y2 * is);
+			te.set(6, z0 * is); te.set(7, z1 * is); te.set(8, z2 * is);
+		}
+		else
+		{
+			getInverse( m );
+			transpose();
+		}
+	}
+
 	/**
 	 * Transpose the current matrix where its rows will be the 
 	 * columns or its columns are the rows of the current matrix.
@@ -132,6 +177,24 @@ public class Matrix3
 		m.set(7, tmp);
 	}
 
+	/**
+	 * Sets the value of the 32-bit input array, which can be loaded to 
+	 * the GPU as is, to the values of the current matrix.
+	 * 
+	 * @param flat the array for storing matrix values
+	 * 
+	 * @return the modified input array
+	 */
+	public Float32Array flattenToArray(Float32Array flat)
+	{
+		Float64Array m = this.getArray();
+
+		for ( int i = 0; i < 9; i ++ )
+			flat.set(i, (float)m.get(i));
+
+		return flat;
+	}
+
 	/**
 	 * Transpose the current matrix into new Matrix which is represented 
 	 * by Array[9] 
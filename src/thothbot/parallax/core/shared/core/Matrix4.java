@@ -18,6 +18,7 @@
 
 package thothbot.parallax.core.shared.core;
 
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.Float64Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 
@@ -577,6 +578,38 @@ public class Matrix4
 		return flat;
 	}
 
+	/**
+	 * Sets the value of the 32-bit input array, which can be loaded to 
+	 * the GPU as is, to the values of the current matrix.
+	 * 
+	 * @param flat the array for storing matrix values
+	 * 
+	 * @return the modified input array
+	 */
+	public Float32Array flattenToArray(Float32Array flat)
+	{
+		return flattenToArray(flat, 0);
+	}
+
+	/**
+	 * Sets the value of the 32-bit input array, starting from the offset, 
+	 * to the values of the current matrix.
+	 * 
+	 * @param flat the array for storing matrix values
+	 * @param offset the offset value
+	 * 
+	 * @return the modified input array
+	 */
+	public Float32Array flattenToArray(Float32Array flat, int offset)
+	{
+		Float64Array te = this.getArray();
+
+		for ( int i = 0; i < 16; i ++ )
+			flat.set(offset + i, (float)te.get(i));
+
+		return flat;
+	}
+
 	/**
 	 * get position vector from the current matrix.
 	 * 
@@ -0,0 +1,554 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ *
+ * This file is part of Parallax project.
+ *
+ * Parallax is free software: you can redistribute it and/or modify it
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ *
+ * Parallax is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution
+ * 3.0 Unported License. for more details.
+ *
+ * You should have received a copy of the the Creative Commons Attribution
+ * 3.0 Unported License along with Parallax.
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.core.shared.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import thothbot.parallax.core.shared.objects.Object3D;
+
+/**
+ * Loose octree over the world bounding spheres of the objects.
+ * <p>
+ * Every node bounds twice the size of its cell, so an object is stored
+ * in the deepest node whose cell contains the sphere center and whose
+ * half size is not less than the sphere radius. The object never
+ * needs to be split between the nodes.
+ * <p>
+ * Objects are relocated incrementally: the objects whose world matrix
+ * values or geometry bounds have been changed are marked, see
+ * {@link Object3D#updateMatrixWorld(boolean)}, and only they are
+ * processed by {@link #update()}. The root grows when an object
+ * leaves its bounds.
+ * <p>
+ * The octree is used for the frustum culling instead of the subtree
+ * bounding spheres of the scene graph: one node test skips all objects
+ * in the region, whether or not they share the parent, and the static
+ * objects are not revisited every frame.
+ *
+ * @author thothbot
+ *
+ */
+public class Octree
+{
+	/**
+	 * Node of the Octree.
+	 */
+	public static class Node
+	{
+		// Cell center and half size
+		double x, y, z, half;
+
+		Node parent;
+		Node[] children;
+
+		List<Object3D> objects;
+
+		// Number of objects in the subtree
+		int count;
+
+		Node(Node parent, double x, double y, double z, double half)
+		{
+			this.parent = parent;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.half = half;
+			this.objects = new ArrayList<Object3D>();
+		}
+	}
+
+	private static final int MAX_DEPTH = 16;
+	private static final int MAX_GROW = 32;
+
+	private static final int FRUSTUM = 0;
+	private static final int SPHERE = 1;
+	private static final int BOX = 2;
+	private static final int RAY = 3;
+
+	private Node root;
+
+	// Objects which should never be culled
+	private List<Object3D> unbounded;
+
+	private List<Object3D> dirty;
+
+	// Objects marked by the last cull() call
+	private List<Object3D> visible;
+
+	private int size;
+
+	// Current query
+	private int queryType;
+	private Frustum queryFrustum;
+	private double qx, qy, qz, qRadius;
+	private double qMaxX, qMaxY, qMaxZ;
+
+	/**
+	 * Creates Octree with root of 2048 units at the origin.
+	 */
+	public Octree()
+	{
+		this(new Vector3(), 1024);
+	}
+
+	/**
+	 * Creates Octree with the given root. The root will grow
+	 * if the objects leave it.
+	 *
+	 * @param center the root center
+	 * @param half   the half size of the root
+	 */
+	public Octree(Vector3 center, double half)
+	{
+		this.root = new Node(null, center.getX(), center.getY(), center.getZ(), half);
+		this.unbounded = new ArrayList<Object3D>();
+		this.dirty = new ArrayList<Object3D>();
+		this.visible = new ArrayList<Object3D>();
+	}
+
+	/**
+	 * Gets number of tracked objects.
+	 */
+	public int getSize()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Starts tracking the object. It will be placed
+	 * into the tree on the next {@link #update()}.
+	 */
+	public void add(Object3D object)
+	{
+		if (object.__octree == this)
+			return;
+
+		if (object.__octree != null)
+			object.__octree.remove(object);
+
+		object.__octree = this;
+		object.__inFrustum = false;
+		this.size++;
+
+		setNeedsUpdate(object);
+	}
+
+	/**
+	 * Stops tracking the object.
+	 */
+	public void remove(Object3D object)
+	{
+		if (object.__octree != this)
+			return;
+
+		removeFromNode(object);
+		object.__octree = null;
+		this.size--;
+	}
+
+	/**
+	 * Marks the object to be relocated on the next {@link #update()}.
+	 */
+	public void setNeedsUpdate(Object3D object)
+	{
+		if (object.__octreeNeedsUpdate)
+			return;
+
+		object.__octreeNeedsUpdate = true;
+		this.dirty.add(object);
+	}
+
+	/**
+	 * Updates world bounding spheres of the marked objects
+	 * and relocates those which left their nodes.
+	 */
+	public void update()
+	{
+		for (int i = 0, l = this.dirty.size(); i < l; i++)
+		{
+			Object3D object = this.dirty.get(i);
+			object.__octreeNeedsUpdate = false;
+
+			// removed
+			if (object.__octree != this)
+				continue;
+
+			object.updateWorldBoundingSphere();
+
+			if (object.__octreeNode != null && isFit(object.__octreeNode, object))
+				continue;
+
+			removeFromNode(object);
+			insert(object);
+		}
+
+		this.dirty.clear();
+	}
+
+	/**
+	 * Sets {@link Object3D#__inFrustum} of the tracked objects.
+	 * Only objects found now and on the previous call are touched.
+	 */
+	public void cull(Frustum frustum)
+	{
+		for (int i = 0, l = this.visible.size(); i < l; i++)
+			this.visible.get(i).__inFrustum = false;
+
+		this.visible.clear();
+		searchFrustum(frustum, this.visible);
+
+		for (int i = 0, l = this.visible.size(); i < l; i++)
+			this.visible.get(i).__inFrustum = true;
+	}
+
+	/**
+	 * Collects objects which bounding spheres intersect the Frustum.
+	 */
+	public List<Object3D> searchFrustum(Frustum frustum, List<Object3D> result)
+	{
+		this.queryType = FRUSTUM;
+		this.queryFrustum = frustum;
+		search(result);
+		this.queryFrustum = null;
+		return result;
+	}
+
+	/**
+	 * Collects objects which bounding spheres intersect the sphere.
+	 */
+	public List<Object3D> searchSphere(Vector3 center, double radius, List<Object3D> result)
+	{
+		this.queryType = SPHERE;
+		this.qx = center.getX();
+		this.qy = center.getY();
+		this.qz = center.getZ();
+		this.qRadius = radius;
+		search(result);
+		return result;
+	}
+
+	/**
+	 * Collects objects which bounding spheres intersect the axis-aligned box.
+	 */
+	public List<Object3D> searchBox(Vector3 min, Vector3 max, List<Object3D> result)
+	{
+		this.queryType = BOX;
+		this.qx = min.getX();
+		this.qy = min.getY();
+		this.qz = min.getZ();
+		this.qMaxX = max.getX();
+		this.qMaxY = max.getY();
+		this.qMaxZ = max.getZ();
+		search(result);
+		return result;
+	}
+
+	/**
+	 * Collects objects which bounding spheres are crossed by the ray.
+	 */
+	public List<Object3D> searchRay(Vector3 origin, Vector3 direction, List<Object3D> result)
+	{
+		double length = direction.length();
+
+		this.queryType = RAY;
+		this.qx = origin.getX();
+		this.qy = origin.getY();
+		this.qz = origin.getZ();
+		this.qMaxX = direction.getX() / length;
+		this.qMaxY = direction.getY() / length;
+		this.qMaxZ = direction.getZ() / length;
+		search(result);
+		return result;
+	}
+
+	private void search(List<Object3D> result)
+	{
+		result.addAll(this.unbounded);
+		search(this.root, result);
+	}
+
+	private void search(Node node, List<Object3D> result)
+	{
+		if (node.count == 0)
+			return;
+
+		int test = testNode(node);
+
+		if (test == Frustum.OUTSIDE)
+			return;
+
+		if (test == Frustum.INSIDE)
+		{
+			collect(node, result);
+			return;
+		}
+
+		for (int i = 0, l = node.objects.size(); i < l; i++)
+		{
+			Object3D object = node.objects.get(i);
+			if (testObject(object))
+				result.add(object);
+		}
+
+		if (node.children != null)
+			for (int i = 0; i < 8; i++)
+				if (node.children[i] != null)
+					search(node.children[i], result);
+	}
+
+	private void collect(Node node, List<Object3D> result)
+	{
+		result.addAll(node.objects);
+
+		if (node.children != null)
+			for (int i = 0; i < 8; i++)
+				if (node.children[i] != null && node.children[i].count > 0)
+					collect(node.children[i], result);
+	}
+
+	/*
+	 * Tests the loose bounds of the node against the current query
+	 */
+	private int testNode(Node node)
+	{
+		double h = node.half * 2.0;
+
+		switch (this.queryType)
+		{
+		case FRUSTUM:
+			int result = Frustum.INSIDE;
+			for (int i = 0; i < 6; i++)
+			{
+				Vector4 plane = this.queryFrustum.planes.get(i);
+				double r = h * (Math.abs(plane.getX()) + Math.abs(plane.getY()) + Math.abs(plane.getZ()));
+				double distance = plane.getX() * node.x + plane.getY() * node.y + plane.getZ() * node.z + plane.getW();
+
+				if (distance <= -r)
+					return Frustum.OUTSIDE;
+
+				if (distance < r)
+					result = Frustum.INTERSECT;
+			}
+			return result;
+
+		case SPHERE:
+			double dx = Math.max(Math.abs(this.qx - node.x) - h, 0);
+			double dy = Math.max(Math.abs(this.qy - node.y) - h, 0);
+			double dz = Math.max(Math.abs(this.qz - node.z) - h, 0);
+
+			if (dx * dx + dy * dy + dz * dz > this.qRadius * this.qRadius)
+				return Frustum.OUTSIDE;
+
+			// Farthest corner inside the sphere
+			dx = Math.abs(this.qx - node.x) + h;
+			dy = Math.abs(this.qy - node.y) + h;
+			dz = Math.abs(this.qz - node.z) + h;
+
+			return dx * dx + dy * dy + dz * dz <= this.qRadius * this.qRadius ? Frustum.INSIDE : Frustum.INTERSECT;
+
+		case BOX:
+			if (node.x + h < this.qx || node.x - h > this.qMaxX
+					|| node.y + h < this.qy || node.y - h > this.qMaxY
+					|| node.z + h < this.qz || node.z - h > this.qMaxZ)
+				return Frustum.OUTSIDE;
+
+			return (node.x - h >= this.qx && node.x + h <= this.qMaxX
+					&& node.y - h >= this.qy && node.y + h <= this.qMaxY
+					&& node.z - h >= this.qz && node.z + h <= this.qMaxZ) ? Frustum.INSIDE : Frustum.INTERSECT;
+
+		default:
+			return intersectRayBox(node.x, node.y, node.z, h) ? Frustum.INTERSECT : Frustum.OUTSIDE;
+		}
+	}
+
+	private boolean testObject(Object3D object)
+	{
+		Vector3 center = object.__worldSphereCenter;
+		double radius = object.__worldSphereRadius;
+
+		switch (this.queryType)
+		{
+		case FRUSTUM:
+			return this.queryFrustum.intersectsSphere(center, radius) != Frustum.OUTSIDE;
+
+		case SPHERE:
+			double dx = center.getX() - this.qx;
+			double dy = center.getY() - this.qy;
+			double dz = center.getZ() - this.qz;
+			double r = radius + this.qRadius;
+			return dx * dx + dy * dy + dz * dz <= r * r;
+
+		case BOX:
+			dx = Math.max(Math.max(this.qx - center.getX(), center.getX() - this.qMaxX), 0);
+			dy = Math.max(Math.max(this.qy - center.getY(), center.getY() - this.qMaxY), 0);
+			dz = Math.max(Math.max(this.qz - center.getZ(), center.getZ() - this.qMaxZ), 0);
+			return dx * dx + dy * dy + dz * dz <= radius * radius;
+
+		default:
+			dx = center.getX() - this.qx;
+			dy = center.getY() - this.qy;
+			dz = center.getZ() - this.qz;
+
+			// Distance along the ray to the closest point
+			double t = dx * this.qMaxX + dy * this.qMaxY + dz * this.qMaxZ;
+			if (t < -radius)
+				return false;
+
+			return dx * dx + dy * dy + dz * dz - t * t <= radius * radius;
+		}
+	}
+
+	// Slab test
+	private boolean intersectRayBox(double x, double y, double z, double h)
+	{
+		double invX = 1.0 / this.qMaxX;
+		double invY = 1.0 / this.qMaxY;
+		double invZ = 1.0 / this.qMaxZ;
+
+		double t1 = (x - h - this.qx) * invX;
+		double t2 = (x + h - this.qx) * invX;
+		double tmin = Math.min(t1, t2);
+		double tmax = Math.max(t1, t2);
+
+		t1 = (y - h - this.qy) * invY;
+		t2 = (y + h - this.qy) * invY;
+		tmin = Math.max(tmin, Math.min(t1, t2));
+		tmax = Math.min(tmax, Math.max(t1, t2));
+
+		t1 = (z - h - this.qz) * invZ;
+		t2 = (z + h - this.qz) * invZ;
+		tmin = Math.max(tmin, Math.min(t1, t2));
+		tmax = Math.min(tmax, Math.max(t1, t2));
+
+		// NaN comes from the ray lying on the slab plane: treat as hit
+		return !(tmax < 0 || tmin > tmax);
+	}
+
+	private void insert(Object3D object)
+	{
+		double radius = object.__worldSphereRadius;
+
+		// Nothing to render
+		if (radius < 0)
+			return;
+
+		Vector3 center = object.__worldSphereCenter;
+
+		if (Double.isInfinite(radius) || Double.isNaN(radius)
+				|| Double.isNaN(center.getX()) || Double.isNaN(center.getY()) || Double.isNaN(center.getZ()))
+		{
+			this.unbounded.add(object);
+			return;
+		}
+
+		for (int i = 0; i < MAX_GROW && !isFit(this.root, object); i++)
+			grow(center);
+
+		if (!isFit(this.root, object))
+		{
+			this.unbounded.add(object);
+			return;
+		}
+
+		Node node = this.root;
+		for (int depth = 0; depth < MAX_DEPTH && radius <= node.half * 0.5; depth++)
+		{
+			int octant = getOctant(node, center);
+
+			if (node.children == null)
+				node.children = new Node[8];
+
+			if (node.children[octant] == null)
+			{
+				double h = node.half * 0.5;
+				node.children[octant] = new Node(node,
+						node.x + ((octant & 1) != 0 ? h : -h),
+						node.y + ((octant & 2) != 0 ? h : -h),
+						node.z + ((octant & 4) != 0 ? h : -h), h);
+			}
+
+			node = node.children[octant];
+		}
+
+		node.objects.add(object);
+		object.__octreeNode = node;
+
+		for (Node n = node; n != null; n = n.parent)
+			n.count++;
+	}
+
+	private void removeFromNode(Object3D object)
+	{
+		Node node = object.__octreeNode;
+
+		if (node == null)
+		{
+			this.unbounded.remove(object);
+			return;
+		}
+
+		node.objects.remove(object);
+		object.__octreeNode = null;
+
+		for (Node n = node; n != null; n = n.parent)
+			n.count--;
+	}
+
+	/*
+	 * Makes the root an octant of the twice bigger node extended toward the point
+	 */
+	private void grow(Vector3 toward)
+	{
+		Node old = this.root;
+		double h = old.half;
+
+		double x = old.x + (toward.getX() >= old.x ? h : -h);
+		double y = old.y + (toward.getY() >= old.y ? h : -h);
+		double z = old.z + (toward.getZ() >= old.z ? h : -h);
+
+		Node root = new Node(null, x, y, z, h * 2.0);
+		root.children = new Node[8];
+		root.children[getOctant(root, old.x, old.y, old.z)] = old;
+		root.count = old.count;
+
+		old.parent = root;
+		this.root = root;
+	}
+
+	private static boolean isFit(Node node, Object3D object)
+	{
+		Vector3 center = object.__worldSphereCenter;
+
+		return object.__worldSphereRadius <= node.half
+				&& Math.abs(center.getX() - node.x) <= node.half
+				&& Math.abs(center.getY() - node.y) <= node.half
+				&& Math.abs(center.getZ() - node.z) <= node.half;
+	}
+
+	private static int getOctant(Node node, Vector3 point)
+	{
+		return getOctant(node, point.getX(), point.getY(), point.getZ());
+	}
+
+	private static int getOctant(Node node, double x, double y, double z)
+	{
+		return (x >= node.x ? 1 : 0) | (y >= node.y ? 2 : 0) | (z >= node.z ? 4 : 0);
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.core.shared.core;
+
+/**
+ * Sorts item indices by depth keys using LSD radix sort.
+ * <p>
+ * Depths are normalized to their range and quantized to 31-bit integer 
+ * keys, which are sorted by four 8-bit passes. All arrays are kept 
+ * between calls, so sorting does not allocate unless the number of 
+ * items grows.
+ * 
+ * @author thothbot
+ *
+ */
+public class RadixSort
+{
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	private static final int MAX_KEY = Integer.MAX_VALUE;
+
+	private double[] depths;
+
+	private int[] keys;
+	private int[] tmpKeys;
+	private int[] indices;
+	private int[] tmpIndices;
+
+	private int[] counts;
+
+	public RadixSort(int size)
+	{
+		this.counts = new int[RADIX];
+		ensureCapacity( size );
+	}
+
+	/**
+	 * Gets the array of depths which should be filled before {@link #sort(int, boolean)}.
+	 */
+	public double[] getDepths()
+	{
+		return this.depths;
+	}
+
+	/**
+	 * Grows the arrays if they can not hold the given number of items.
+	 * The depths are not preserved.
+	 */
+	public void ensureCapacity(int size)
+	{
+		if ( this.depths != null && this.depths.length >= size )
+			return;
+
+		this.depths     = new double[size];
+		this.keys       = new int[size];
+		this.tmpKeys    = new int[size];
+		this.indices    = new int[size];
+		this.tmpIndices = new int[size];
+	}
+
+	/**
+	 * Sorts first count items by their depths. 
+	 * 
+	 * @param count      the number of items
+	 * @param descending sort from the farthest item to the nearest
+	 * 
+	 * @return the array with item indices in the sorted order. 
+	 * The array is reused by the next call.
+	 */
+	public int[] sort(int count, boolean descending)
+	{
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+
+		for ( int i = 0; i < count; i ++ )
+		{
+			double depth = this.depths[ i ];
+			if ( depth < min ) min = depth;
+			if ( depth > max ) max = depth;
+		}
+
+		double scale = max > min ? MAX_KEY / ( max - min ) : 0;
+
+		int[] k = this.keys;
+		int[] ki = this.indices;
+
+		for ( int i = 0; i < count; i ++ )
+		{
+			int key = (int)( ( this.depths[ i ] - min ) * scale );
+			k[ i ] = descending ? MAX_KEY - key : key;
+			ki[ i ] = i;
+		}
+
+		int[] tk = this.tmpKeys;
+		int[] ti = this.tmpIndices;
+
+		for ( int shift = 0; shift < 32 && count > 0; shift += RADIX_BITS )
+		{
+			int[] c = this.counts;
+
+			for ( int d = 0; d < RADIX; d ++ )
+				c[ d ] = 0;
+
+			for ( int i = 0; i < count; i ++ )
+				c[ ( k[ i ] >>> shift ) & ( RADIX - 1 ) ] ++;
+
+			// All keys have the same digit
+			if ( c[ ( k[ 0 ] >>> shift ) & ( RADIX - 1 ) ] == count )
+				continue;
+
+			for ( int d = 0, sum = 0; d < RADIX; d ++ )
+			{
+				int n = c[ d ];
+				c[ d ] = sum;
+				sum += n;
+			}
+
+			for ( int i = 0; i < count; i ++ )
+			{
+				int position = c[ ( k[ i ] >>> shift ) & ( RADIX - 1 ) ] ++;
+				tk[ position ] = k[ i ];
+				ti[ position ] = ki[ i ];
+			}
+
+			int[] swap = k; k = tk; tk = swap;
+			swap = ki; ki = ti; ti = swap;
+		}
+
+		this.keys = k;
+		this.tmpKeys = tk;
+		this.indices = ki;
+		this.tmpIndices = ti;
+
+		return ki;
+	}
+}
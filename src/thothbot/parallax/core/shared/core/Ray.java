@@ -26,6 +26,7 @@ import thothbot.parallax.core.shared.materials.Material;
 import thothbot.parallax.core.shared.materials.MeshFaceMaterial;
 import thothbot.parallax.core.shared.objects.DimensionalObject;
 import thothbot.parallax.core.shared.objects.Mesh;
+import thothbot.parallax.core.shared.objects.Object3D;
 import thothbot.parallax.core.shared.objects.Particle;
 
 /**
@@ -221,7 +222,6 @@ public class Ray
 
 			List<Material> geometryMaterials = geometry.getMaterials();
 			boolean isFaceMaterial = ((Mesh) object).getMaterial() instanceof MeshFaceMaterial;
-			Material.SIDE side = ((Mesh) object).getMaterial().getSides();
 			
 			object.getMatrixRotationWorld().extractRotation( objMatrix );
 
@@ -235,82 +235,101 @@ public class Ray
 			localDirectionCopy.copy( ray.direction );
 			inverseMatrix.rotateAxis( localDirectionCopy ).normalize();
 
-			for ( int f = 0, fl = geometry.getFaces().size(); f < fl; f ++ ) 
+			if ( geometry.isUseBvh() ) 
 			{
-				Face3 face = geometry.getFaces().get( f );
+				// Checking only faces which bounds are crossed by the ray
 
-				Material material = ( isFaceMaterial == true ) ? geometryMaterials.get( face.getMaterialIndex() ) : ((Mesh) object).getMaterial();
+				GeometryBvh bvh = geometry.getBvh();
+				int count = bvh.intersectRay( localOriginCopy, localDirectionCopy );
+				int[] candidates = bvh.getCandidates();
 
-				if ( material == null ) 
-					continue;
-				side = material.getSides();
+				for ( int i = 0; i < count; i ++ ) 
+				{
+					int f = candidates[ i ];
+					Face3 face = geometry.getFaces().get( f );
 
-				vector.sub( face.getCentroid(), localOriginCopy );
-				normal = face.normal;
-				double dot = localDirectionCopy.dot( normal );
+					Material material = ( isFaceMaterial == true ) ? geometryMaterials.get( face.getMaterialIndex() ) : ((Mesh) object).getMaterial();
 
-				// bail if ray and plane are parallel
+					if ( material == null ) 
+						continue;
 
-				if ( Math.abs( dot ) < precision ) 
-					continue;
+					intersectFace( (Mesh) object, face, f, material.getSides(), vertices, ray, intersects );
+				}
+			}
+			else
+			{
+				for ( int f = 0, fl = geometry.getFaces().size(); f < fl; f ++ ) 
+				{
+					Face3 face = geometry.getFaces().get( f );
 
-				// calc distance to plane
+					Material material = ( isFaceMaterial == true ) ? geometryMaterials.get( face.getMaterialIndex() ) : ((Mesh) object).getMaterial();
 
-				double scalar = normal.dot( vector ) / dot;
+					if ( material == null ) 
+						continue;
 
-				// if negative distance, then plane is behind ray
+					intersectFace( (Mesh) object, face, f, material.getSides(), vertices, ray, intersects );
+				}
+			}
+		}
+	}
 
-				if ( scalar < 0 ) continue;
+	private void intersectFace( Mesh object, Face3 face, int f, Material.SIDE side, List<Vector3> vertices, Ray ray, List<Ray.Intersect> intersects )
+	{
+		Matrix4 objMatrix = object.getMatrixWorld();
 
-				if ( side == Material.SIDE.DOUBLE || (side == Material.SIDE.FRONT ? dot < 0 : dot > 0 ) ) 
-				{
-					intersectPoint.add( localOriginCopy, localDirectionCopy.multiply( scalar ) );
-
-					Vector3 a = vertices.get( face.getA() );
-					Vector3 b = vertices.get( face.getB() );
-					Vector3 c = vertices.get( face.getC() );
-					
-					if ( face.getClass() == Face3.class ) 
-					{
-						if ( pointInFace3( intersectPoint, a, b, c ) ) 
-						{
-							Vector3 point = objMatrix.multiplyVector3( intersectPoint.clone() );
-							distance = originCopy.distanceTo( point );
-
-							if ( distance < ray.near || distance > ray.far ) continue;
-							
-							Ray.Intersect intersect = new Ray.Intersect();
-							intersect.distance = distance;
-							intersect.point = point;
-							intersect.face = face;
-							intersect.faceIndex = f;
-							intersect.object = object;
-
-							intersects.add( intersect );
-						}
-					} 
-					else if ( face.getClass() == Face4.class ) 
-					{
-						Vector3 d = vertices.get(((Face4)face).getD() );
-
-						if ( pointInFace3( intersectPoint, a, b, d ) || pointInFace3( intersectPoint, b, c, d ) ) 
-						{
-							Vector3 point = objMatrix.multiplyVector3( intersectPoint.clone() );
-							distance = originCopy.distanceTo( point );
-
-							if ( distance < ray.near || distance > ray.far ) continue;
-							
-							Ray.Intersect intersect = new Ray.Intersect();
-							intersect.distance = distance;
-							intersect.point = point;
-							intersect.face = face;
-							intersect.faceIndex = f;
-							intersect.object = object;
-
-							intersects.add( intersect );
-						}
-					}
-				}
+		vector.sub( face.getCentroid(), localOriginCopy );
+		normal = face.normal;
+		double dot = localDirectionCopy.dot( normal );
+
+		// bail if ray and plane are parallel
+
+		if ( Math.abs( dot ) < precision ) 
+			return;
+
+		// calc distance to plane
+
+		double scalar = normal.dot( vector ) / dot;
+
+		// if negative distance, then plane is behind ray
+
+		if ( scalar < 0 ) return;
+
+		if ( side == Material.SIDE.DOUBLE || (side == Material.SIDE.FRONT ? dot < 0 : dot > 0 ) ) 
+		{
+			intersectPoint.add( localOriginCopy, localDirectionCopy.multiply( scalar ) );
+
+			Vector3 a = vertices.get( face.getA() );
+			Vector3 b = vertices.get( face.getB() );
+			Vector3 c = vertices.get( face.getC() );
+
+			boolean isInside = false;
+
+			if ( face.getClass() == Face3.class ) 
+			{
+				isInside = pointInFace3( intersectPoint, a, b, c );
+			} 
+			else if ( face.getClass() == Face4.class ) 
+			{
+				Vector3 d = vertices.get(((Face4)face).getD() );
+
+				isInside = pointInFace3( intersectPoint, a, b, d ) || pointInFace3( intersectPoint, b, c, d );
+			}
+
+			if ( isInside ) 
+			{
+				Vector3 point = objMatrix.multiplyVector3( intersectPoint.clone() );
+				double distance = originCopy.distanceTo( point );
+
+				if ( distance < ray.near || distance > ray.far ) return;
+
+				Ray.Intersect intersect = new Ray.Intersect();
+				intersect.distance = distance;
+				intersect.point = point;
+				intersect.face = face;
+				intersect.faceIndex = f;
+				intersect.object = object;
+
+				intersects.add( intersect );
 			}
 		}
 	}
@@ -383,4 +402,29 @@ public class Ray
 
 		return intersects;
 	}
+
+	/**
+	 * Determines whether the ray intersects objects indexed by the Octree, 
+	 * see {@link thothbot.parallax.core.shared.scenes.Scene#getOctree()}. 
+	 * Only objects which bounding spheres are crossed by the ray are checked.
+	 * <p>
+	 * The entries in the returned array are sorted by ascending distance (i.e. closest objects first).
+	 */
+	public List<Ray.Intersect> intersectObjects(Octree octree) 
+	{
+		List<Ray.Intersect> intersects = new ArrayList<Ray.Intersect>();
+
+		octree.update();
+
+		List<Object3D> candidates = octree.searchRay( this.origin, this.direction, new ArrayList<Object3D>() );
+
+		for ( int i = 0, l = candidates.size(); i < l; i ++ )
+		{
+			intersectObject( candidates.get( i ), this, intersects );
+		}
+
+		Collections.sort( intersects );
+
+		return intersects;
+	}
 }
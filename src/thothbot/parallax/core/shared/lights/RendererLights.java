@@ -18,11 +18,16 @@
 
 package thothbot.parallax.core.shared.lights;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.TypedArrays;
+
 import thothbot.parallax.core.client.shaders.Uniform;
 import thothbot.parallax.core.shared.Log;
+import thothbot.parallax.core.shared.core.Vector3;
 import thothbot.parallax.core.shared.scenes.Scene;
 
 /**
@@ -38,6 +43,28 @@ public class RendererLights
 	PointLight.UniformPoint point;
 	SpotLight.UniformSport spot;
 	HemisphereLight.UniformHemisphere hemi;
+
+	// Names of the uniforms filled by the lights
+	private static final String[] UNIFORM_NAMES = {
+		"ambientLightColor",
+		"directionalLightColor", "directionalLightDirection",
+		"pointLightColor", "pointLightPosition", "pointLightDistance",
+		"spotLightColor", "spotLightPosition", "spotLightDistance",
+		"spotLightDirection", "spotLightAngle", "spotLightExponent",
+		"hemisphereLightSkyColor", "hemisphereLightGroundColor", "hemisphereLightPosition"
+	};
+
+	// Point and spot lights selected for the object, sorted by influence
+	private Light[] objectLights = new Light[0];
+	private double[] objectInfluences = new double[0];
+	private int objectLightsCount;
+
+	// Selection used for the current uniforms
+	private Light[] oldObjectLights = new Light[0];
+	private int oldObjectLightsCount = -1;
+
+	// Arrays reused by padLights(), one per padded uniform
+	private Float64Array[] paddedArrays = new Float64Array[14];
 	
 	public RendererLights() 
 	{
@@ -68,6 +95,236 @@ public class RendererLights
 		}
 	}
 	
+	/**
+	 * Sets up the lights for the single object: all ambient, directional 
+	 * and hemisphere lights and up to maxLocalLights point and spot lights 
+	 * which have the most influence on the object's bounding sphere. 
+	 * The lights whose distance doesn't reach the sphere are skipped.
+	 * <p>
+	 * The ambient, directional and hemisphere lights do not depend on the 
+	 * object, so they are set up only when forced, once per frame. 
+	 * Other calls rewrite the point and spot lights only.
+	 * 
+	 * @param center         the center of the object's world bounding sphere
+	 * @param radius         the radius of the sphere
+	 * @param maxLocalLights the max number of point and spot lights
+	 * @param force          true to set up all lights, false to keep the 
+	 *                       uniforms if the same lights were selected by 
+	 *                       the previous call
+	 * 
+	 * @return true if the uniform values were updated
+	 */
+	public boolean setupObjectLights( List<Light> lights, boolean isGammaInput, 
+			Vector3 center, double radius, int maxLocalLights, boolean force )
+	{
+		if ( this.objectLights.length != maxLocalLights )
+		{
+			this.objectLights = new Light[ maxLocalLights ];
+			this.objectInfluences = new double[ maxLocalLights ];
+			this.oldObjectLights = new Light[ maxLocalLights ];
+			force = true;
+		}
+
+		if ( force )
+		{
+			ambient.reset();
+			directional.reset();
+			hemi.reset();
+
+			for ( int i = 0, il = lights.size(); i < il; i ++ ) 
+			{
+				Light light = lights.get( i );
+				if ( light.isOnlyShadow() || ! light.isVisible() || isLocalLight( light ) ) 
+					continue;
+
+				light.setupRendererLights( this, isGammaInput );
+			}
+		}
+
+		selectObjectLights( lights, center, radius );
+
+		if ( ! force && isSameObjectLights() )
+			return false;
+
+		point.reset();
+		spot.reset();
+
+		for ( int i = 0; i < this.objectLightsCount; i ++ )
+			this.objectLights[ i ].setupRendererLights( this, isGammaInput );
+
+		System.arraycopy( this.objectLights, 0, this.oldObjectLights, 0, this.objectLightsCount );
+		Arrays.fill( this.oldObjectLights, this.objectLightsCount, this.oldObjectLights.length, null );
+		this.oldObjectLightsCount = this.objectLightsCount;
+
+		return true;
+	}
+
+	/*
+	 * Keeps the lights with the highest influence using insertion 
+	 * into the small sorted array.
+	 */
+	private void selectObjectLights( List<Light> lights, Vector3 center, double radius )
+	{
+		this.objectLightsCount = 0;
+		int max = this.objectLights.length;
+
+		for ( int i = 0, il = lights.size(); i < il; i ++ ) 
+		{
+			Light light = lights.get( i );
+			if ( light.isOnlyShadow() || ! light.isVisible() || ! isLocalLight( light ) ) 
+				continue;
+
+			double influence = getInfluence( light, center, radius );
+			if ( influence <= 0 )
+				continue;
+
+			if ( this.objectLightsCount == max && influence <= this.objectInfluences[ max - 1 ] )
+				continue;
+
+			int j = ( this.objectLightsCount < max ) ? this.objectLightsCount ++ : max - 1;
+			for ( ; j > 0 && this.objectInfluences[ j - 1 ] < influence; j -- )
+			{
+				this.objectLights[ j ] = this.objectLights[ j - 1 ];
+				this.objectInfluences[ j ] = this.objectInfluences[ j - 1 ];
+			}
+
+			this.objectLights[ j ] = light;
+			this.objectInfluences[ j ] = influence;
+		}
+	}
+
+	private boolean isSameObjectLights()
+	{
+		if ( this.objectLightsCount != this.oldObjectLightsCount )
+			return false;
+
+		for ( int i = 0; i < this.objectLightsCount; i ++ )
+			if ( this.objectLights[ i ] != this.oldObjectLights[ i ] )
+				return false;
+
+		return true;
+	}
+
+	private static boolean isLocalLight( Light light )
+	{
+		return light instanceof PointLight || light instanceof SpotLight;
+	}
+
+	/*
+	 * Intensity of the light at the nearest point of the sphere using 
+	 * the same linear attenuation as the shaders. Zero distance means 
+	 * the light is not attenuated, then the nearer light wins.
+	 */
+	private static double getInfluence( Light light, Vector3 center, double radius )
+	{
+		double intensity, range;
+		if ( light instanceof PointLight )
+		{
+			intensity = ((PointLight)light).getIntensity();
+			range = ((PointLight)light).getDistance();
+		}
+		else
+		{
+			intensity = ((SpotLight)light).getIntensity();
+			range = ((SpotLight)light).getDistance();
+		}
+
+		double distance = light.getMatrixWorld().getPosition().distanceTo( center );
+		distance = Double.isInfinite( radius ) ? 0 : Math.max( 0, distance - Math.max( 0, radius ) );
+
+		if ( range > 0 )
+		{
+			if ( distance >= range )
+				return 0;
+
+			return intensity * ( 1.0 - distance / range );
+		}
+
+		return intensity / ( 1.0 + distance );
+	}
+
+	/**
+	 * Fills unused light slots up to the given counts, so the uniform 
+	 * arrays match the light counts of the shader program. 
+	 * The padding lights are black, so they do not affect the result.
+	 * Should be called after {@link #setupLights(List, boolean)}.
+	 */
+	public void padLights( int dirLights, int pointLights, int spotLights, int hemiLights )
+	{
+		// Directions are normalized in the shaders: use unit vector
+		directional.positions = padVectors( 0, directional.positions, dirLights, 0, 0, 1 );
+		directional.colors    = padValues( 1, directional.colors, dirLights * 3, 0 );
+
+		point.colors    = padValues( 2, point.colors, pointLights * 3, 0 );
+		point.positions = padValues( 3, point.positions, pointLights * 3, 0 );
+		point.distances = padValues( 4, point.distances, pointLights, 0 );
+
+		spot.colors     = padValues( 5, spot.colors, spotLights * 3, 0 );
+		spot.positions  = padValues( 6, spot.positions, spotLights * 3, 0 );
+		spot.distances  = padValues( 7, spot.distances, spotLights, 0 );
+		spot.directions = padVectors( 8, spot.directions, spotLights, 0, 0, 1 );
+		// Cosine of the cone angle: the spot effect is never greater
+		spot.angles     = padValues( 9, spot.angles, spotLights, 1 );
+		spot.exponents  = padValues( 10, spot.exponents, spotLights, 0 );
+
+		hemi.skyColors    = padValues( 11, hemi.skyColors, hemiLights * 3, 0 );
+		hemi.groundColors = padValues( 12, hemi.groundColors, hemiLights * 3, 0 );
+		hemi.positions    = padVectors( 13, hemi.positions, hemiLights, 0, 1, 0 );
+	}
+
+	/*
+	 * Returns array of the given length with the values copied from the 
+	 * source array and the rest filled by the value. The returned array 
+	 * is reused by the next calls with the same index and length.
+	 */
+	private Float64Array padValues( int index, Float64Array array, int length, double value )
+	{
+		if ( array.length() >= length )
+			return array;
+
+		Float64Array retval = this.paddedArrays[ index ];
+		if ( retval == null || retval.length() != length )
+		{
+			retval = TypedArrays.createFloat64Array( length );
+			this.paddedArrays[ index ] = retval;
+		}
+
+		retval.set( array );
+
+		for ( int i = array.length(); i < length; i ++ )
+			retval.set( i, value );
+
+		return retval;
+	}
+
+	private Float64Array padVectors( int index, Float64Array array, int count, double x, double y, double z )
+	{
+		int offset = array.length();
+		Float64Array retval = padValues( index, array, count * 3, 0 );
+
+		for ( int i = offset; i < count * 3; i += 3 )
+		{
+			retval.set( i, x );
+			retval.set( i + 1, y );
+			retval.set( i + 2, z );
+		}
+
+		return retval;
+	}
+
+	/**
+	 * Adds the material uniforms filled by the lights to the list.
+	 */
+	public void getUniformsLights( Map<String, Uniform> uniforms, List<Uniform> retval )
+	{
+		for ( int i = 0; i < UNIFORM_NAMES.length; i ++ )
+		{
+			Uniform uniform = uniforms.get( UNIFORM_NAMES[ i ] );
+			if ( uniform != null )
+				retval.add( uniform );
+		}
+	}
+
 	public void refreshUniformsLights ( Map<String, Uniform> uniforms ) 
 	{
 		ambient.refreshUniform(uniforms);
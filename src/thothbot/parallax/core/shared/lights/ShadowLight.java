@@ -54,6 +54,13 @@ public abstract class ShadowLight extends Light
 	
 	private CameraHelper cameraHelper;
 	
+	private boolean shadowMapNeedsUpdate = true;
+	
+	// Shadow camera and casters state of the last depth map render
+	public double[] __shadowCameraState;
+	public double[] __shadowCastersState;
+	public int __shadowCastersLength;
+	
 	public ShadowLight(int hex) 
 	{
 		super(hex);
@@ -225,6 +232,23 @@ public abstract class ShadowLight extends Light
 		this.shadowDarkness = shadowDarkness;
 	}
 
+	/**
+	 * Checks if the shadow map will be re-rendered on the next frame
+	 * even if neither the light nor shadow casters have been moved.
+	 */
+	public boolean isShadowMapNeedsUpdate() {
+		return this.shadowMapNeedsUpdate;
+	}
+
+	/**
+	 * Forces re-rendering of the cached shadow map on the next frame.
+	 * Should be used when shadow casters geometry or materials have been 
+	 * changed, because only world matrices of the casters are tracked.
+	 */
+	public void setShadowMapNeedsUpdate(boolean shadowMapNeedsUpdate) {
+		this.shadowMapNeedsUpdate = shadowMapNeedsUpdate;
+	}
+
 	public boolean isAllocateShadows()
 	{
 		return isCastShadow() && !isShadowCascade();
@@ -30,6 +30,7 @@ import thothbot.parallax.core.client.gl2.enums.BlendingFactorSrc;
 import thothbot.parallax.core.client.renderers.WebGLRenderer;
 import thothbot.parallax.core.client.shaders.ChunksFragmentShader;
 import thothbot.parallax.core.client.shaders.ChunksVertexShader;
+import thothbot.parallax.core.client.shaders.ProgramKey;
 import thothbot.parallax.core.client.shaders.ProgramParameters;
 import thothbot.parallax.core.client.shaders.Shader;
 import thothbot.parallax.core.client.shaders.Uniform;
@@ -108,6 +109,8 @@ public abstract class Material
 
 		USE_MAP, USE_ENVMAP, USE_LIGHTMAP, USE_BUMPMAP, USE_NORMALMAP, USE_SPECULARMAP, USE_COLOR, USE_SKINNING, USE_MORPHTARGETS, USE_MORPHNORMALS,
 
+		USE_INSTANCING, INSTANCING_ATTRIBUTES, USE_INSTANCE_COLOR,
+
 		BONE_TEXTURE, N_BONE_PIXEL_X, N_BONE_PIXEL_Y,
 		PHONG_PER_PIXEL, WRAP_AROUND, DOUBLE_SIDED, FLIP_SIDED,
 
@@ -562,6 +565,15 @@ public abstract class Material
 			options.add(SHADER_DEFINE.USE_MORPHTARGETS.getValue());
 		if (parameters.morphNormals)
 			options.add(SHADER_DEFINE.USE_MORPHNORMALS.getValue());
+
+		if (parameters.instancing)
+		{
+			options.add(SHADER_DEFINE.USE_INSTANCING.getValue());
+			// Instance colour does not need the vertex colors
+			options.add(SHADER_DEFINE.USE_INSTANCE_COLOR.getValue());
+		}
+		if (parameters.instancingAttributes)
+			options.add(SHADER_DEFINE.INSTANCING_ATTRIBUTES.getValue());
 		
 		if (parameters.perPixel)
 			options.add(SHADER_DEFINE.PHONG_PER_PIXEL.getValue());
@@ -652,6 +664,9 @@ public abstract class Material
 		if (parameters.vertexColors)
 			options.add(SHADER_DEFINE.USE_COLOR.getValue());
 
+		if (parameters.instancing)
+			options.add(SHADER_DEFINE.USE_INSTANCE_COLOR.getValue());
+
 		if (parameters.metal)
 			options.add(SHADER_DEFINE.METAL.getValue());
 
@@ -687,6 +702,14 @@ public abstract class Material
 		this.shader = shader;
 	}
 
+	/**
+	 * Creates the shader of this material, which is not built yet. 
+	 * Used to build program variants ahead of time.
+	 */
+	public Shader createShader() {
+		return getAssociatedShader();
+	}
+
 	public void refreshUniforms(Camera camera, boolean isGammaInput) 
 	{
 		if ( ! (this instanceof HasMaterialMap) )
@@ -839,7 +862,7 @@ public abstract class Material
 		WebGLProgram program = getShader().getProgram();
 		if ( program == null ) return;
 
-		for ( String key: renderer.getCache_programs().keySet()) 
+		for ( ProgramKey key: renderer.getCache_programs().keySet()) 
 		{
 			Shader shader = renderer.getCache_programs().get(key);
 			
@@ -847,6 +870,7 @@ public abstract class Material
 			{
 				renderer.getInfo().getMemory().programs --;
 				renderer.getCache_programs().remove(key);
+				renderer.getShaderVariantRegistry().removeVariant(key);
 				break;
 			}
 		}
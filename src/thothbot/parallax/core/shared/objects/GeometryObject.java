@@ -28,6 +28,7 @@ import thothbot.parallax.core.client.renderers.WebGLRenderer;
 import thothbot.parallax.core.client.shaders.Attribute;
 import thothbot.parallax.core.shared.core.Geometry;
 import thothbot.parallax.core.shared.core.GeometryBuffer;
+import thothbot.parallax.core.shared.core.Vector3;
 import thothbot.parallax.core.shared.materials.Material;
 
 public abstract class GeometryObject extends Object3D implements DimensionalObject
@@ -36,8 +37,9 @@ public abstract class GeometryObject extends Object3D implements DimensionalObje
 	protected GeometryBuffer geometryBuffer;
 	protected Material material;
 	protected Material customDepthMaterial;
-	
-	private double cache_oldLineWidth = -1;
+
+	// Bounds version of the geometry used for the world bounding sphere
+	private int geometryBoundsVersion = -1;
 
 	public GeometryBuffer getGeometryBuffer()
 	{
@@ -72,6 +74,45 @@ public abstract class GeometryObject extends Object3D implements DimensionalObje
 		this.customDepthMaterial = customDepthMaterial;
 	}
 	
+	/**
+	 * Uses the bounding sphere of the geometry scaled by the world matrix.
+	 * Skinned and morphed objects use the sphere of the bind pose.
+	 */
+	@Override
+	protected double computeWorldBoundingSphere( Vector3 center )
+	{
+		center.copy( getMatrixWorld().getPosition() );
+
+		if ( ! isFrustumCulled() ) 
+			return Double.POSITIVE_INFINITY;
+
+		GeometryBuffer geometry = getGeometryBuffer() != null ? getGeometryBuffer() : getGeometry();
+		if ( geometry == null ) 
+			return -1;
+
+		if ( geometry.isBoundingSphereNeedUpdate() ) 
+			geometry.computeBoundingSphere();
+
+		this.geometryBoundsVersion = geometry.getBoundsVersion();
+
+		return geometry.getBoundingSphere().radius * getMatrixWorld().getMaxScaleOnAxis();
+	}
+
+	/**
+	 * Marks the object to be relocated in the octree if the vertices 
+	 * or the bounding sphere of its geometry have been changed. 
+	 * Called by the scene every frame before the buffers are updated.
+	 */
+	public void updateGeometryBounds()
+	{
+		if ( this.__octree == null )
+			return;
+
+		GeometryBuffer geometry = getGeometryBuffer() != null ? getGeometryBuffer() : getGeometry();
+		if ( geometry != null && geometry.getBoundsVersion() != this.geometryBoundsVersion ) 
+			this.__octree.setNeedsUpdate( this );
+	}
+
 	public abstract void initBuffer(WebGLRenderer renderer);
 
 	public abstract void setBuffer(WebGLRenderer renderer);
@@ -92,6 +133,7 @@ public abstract class GeometryObject extends Object3D implements DimensionalObje
 
 		_modelViewMatrix = null;
 		_normalMatrix = null;
+		__modelViewCamera = null;
 
 		_normalMatrixArray = null;
 		_modelViewMatrixArray = null;
@@ -108,13 +150,9 @@ public abstract class GeometryObject extends Object3D implements DimensionalObje
 		renderer.getInfo().getMemory().geometries --;
 	}
 
-	protected void setLineWidth (WebGLRenderingContext gl, double width ) 
+	protected void setLineWidth (WebGLRenderer renderer, double width ) 
 	{
-		if ( width != this.cache_oldLineWidth ) 
-		{
-			gl.lineWidth( width );
-			this.cache_oldLineWidth = width;
-		}
+		renderer.getState().lineWidth( width );
 	}
 		
 	protected void initCustomAttributes (WebGLRenderingContext gl, Geometry geometry ) 
@@ -145,7 +183,7 @@ public abstract class GeometryObject extends Object3D implements DimensionalObje
 
 					attribute.size = size;
 
-					attribute.array = TypedArrays.createFloat64Array( nvertices * size );
+					attribute.array = TypedArrays.createFloat32Array( nvertices * size );
 
 					attribute.buffer = gl.createBuffer();
 					attribute.belongsToAttribute = a;
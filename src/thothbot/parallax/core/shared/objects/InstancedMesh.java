@@ -0,0 +1,407 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.core.shared.objects;
+
+import thothbot.parallax.core.client.gl2.WebGLBuffer;
+import thothbot.parallax.core.client.gl2.WebGLRenderingContext;
+import thothbot.parallax.core.client.gl2.WebGLUniformLocation;
+import thothbot.parallax.core.client.gl2.enums.BeginMode;
+import thothbot.parallax.core.client.gl2.enums.BufferTarget;
+import thothbot.parallax.core.client.gl2.enums.BufferUsage;
+import thothbot.parallax.core.client.gl2.enums.DataType;
+import thothbot.parallax.core.client.gl2.extension.AngleInstancedArrays;
+import thothbot.parallax.core.client.renderers.WebGLRenderer;
+import thothbot.parallax.core.client.renderers.WebGlRendererInfo;
+import thothbot.parallax.core.client.shaders.Shader;
+import thothbot.parallax.core.shared.core.Color;
+import thothbot.parallax.core.shared.core.Geometry;
+import thothbot.parallax.core.shared.core.GeometryBuffer;
+import thothbot.parallax.core.shared.core.Matrix4;
+import thothbot.parallax.core.shared.core.Vector3;
+import thothbot.parallax.core.shared.materials.HasWireframe;
+import thothbot.parallax.core.shared.materials.Material;
+
+import com.google.gwt.typedarrays.shared.Float32Array;
+import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.TypedArrays;
+
+/**
+ * Mesh which draws many copies of one geometry with one material.
+ * <p>
+ * Each instance has its own transform, applied in the object space 
+ * before the mesh matrix, and its own colour, which modulates vertex 
+ * colours when the material uses them.
+ * <p>
+ * When ANGLE_instanced_arrays extension is available all instances are 
+ * drawn with one call. Otherwise the program is bound once and only 
+ * the instance uniforms are updated between the draw calls.
+ * <p>
+ * The material should not be shared with other objects, because its 
+ * program is built with the instancing path.
+ * 
+ * @author thothbot
+ *
+ */
+public class InstancedMesh extends Mesh
+{
+	private int count;
+
+	private Float32Array instanceMatrixArray;
+	private Float32Array instanceColorArray;
+
+	private boolean isInstancesNeedUpdate;
+
+	// object space sphere around all instances
+	private Vector3 instancesSphereCenter;
+	private double instancesSphereRadius;
+	private double instancesSphereGeometryRadius = -1;
+	private boolean isInstancesSphereNeedUpdate = true;
+
+	public WebGLBuffer __webglInstanceMatrixBuffer;
+	public WebGLBuffer __webglInstanceColorBuffer;
+
+	// used by the uniforms fallback
+	private Float32Array cache_instanceMatrix;
+
+	public InstancedMesh(Geometry geometry, Material material, int count) 
+	{
+		super(geometry, material);
+
+		this.count = count;
+
+		this.instanceMatrixArray = TypedArrays.createFloat32Array( count * 16 );
+		this.instanceColorArray = TypedArrays.createFloat32Array( count * 3 );
+		this.cache_instanceMatrix = TypedArrays.createFloat32Array( 16 );
+
+		Matrix4 identity = new Matrix4();
+		Color white = new Color( 0xffffff );
+		for ( int i = 0; i < count; i ++ )
+		{
+			setMatrixAt( i, identity );
+			setColorAt( i, white );
+		}
+	}
+
+	/**
+	 * Gets number of instances.
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Sets the transform of the instance.
+	 * 
+	 * @param index  the instance index
+	 * @param matrix the instance transform in the object space
+	 */
+	public void setMatrixAt(int index, Matrix4 matrix)
+	{
+		Float64Array array = matrix.getArray();
+		int offset = index * 16;
+
+		for ( int i = 0; i < 16; i ++ )
+			this.instanceMatrixArray.set( offset + i, (float)array.get( i ) );
+
+		this.isInstancesNeedUpdate = true;
+		this.isInstancesSphereNeedUpdate = true;
+
+		if ( this.__octree != null ) 
+			this.__octree.setNeedsUpdate( this );
+	}
+
+	/**
+	 * Sets the colour of the instance.
+	 * 
+	 * @param index the instance index
+	 * @param color the instance colour
+	 */
+	public void setColorAt(int index, Color color)
+	{
+		int offset = index * 3;
+
+		this.instanceColorArray.set( offset,     (float)color.getR() );
+		this.instanceColorArray.set( offset + 1, (float)color.getG() );
+		this.instanceColorArray.set( offset + 2, (float)color.getB() );
+
+		this.isInstancesNeedUpdate = true;
+	}
+
+	public boolean isInstancesNeedUpdate() {
+		return this.isInstancesNeedUpdate;
+	}
+
+	public void setInstancesNeedUpdate(boolean isInstancesNeedUpdate) {
+		this.isInstancesNeedUpdate = isInstancesNeedUpdate;
+	}
+
+	/**
+	 * Uses the sphere which encloses the geometry sphere of every instance, 
+	 * so the mesh is culled only when all instances are outside.
+	 */
+	@Override
+	protected double computeWorldBoundingSphere( Vector3 center )
+	{
+		if ( this.count == 0 )
+			return -1;
+
+		// Geometry sphere is computed here if needed
+		double radius = super.computeWorldBoundingSphere( center );
+		if ( radius < 0 || Double.isInfinite( radius ) ) 
+			return radius;
+
+		GeometryBuffer geometry = getGeometryBuffer() != null ? getGeometryBuffer() : getGeometry();
+		double geometryRadius = geometry.getBoundingSphere().radius;
+		if ( this.isInstancesSphereNeedUpdate || this.instancesSphereGeometryRadius != geometryRadius )
+			updateInstancesSphere( geometryRadius );
+
+		center.copy( this.instancesSphereCenter );
+		getMatrixWorld().multiplyVector3( center );
+
+		return this.instancesSphereRadius * getMatrixWorld().getMaxScaleOnAxis();
+	}
+
+	private void updateInstancesSphere( double geometryRadius )
+	{
+		if ( this.instancesSphereCenter == null )
+			this.instancesSphereCenter = new Vector3();
+
+		Float32Array m = this.instanceMatrixArray;
+
+		// Center of the box around instance positions
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+
+		for ( int i = 0; i < this.count; i ++ )
+		{
+			int offset = i * 16;
+			double x = m.get( offset + 12 ), y = m.get( offset + 13 ), z = m.get( offset + 14 );
+
+			minX = Math.min( minX, x ); maxX = Math.max( maxX, x );
+			minY = Math.min( minY, y ); maxY = Math.max( maxY, y );
+			minZ = Math.min( minZ, z ); maxZ = Math.max( maxZ, z );
+		}
+
+		double cx = ( minX + maxX ) * 0.5, cy = ( minY + maxY ) * 0.5, cz = ( minZ + maxZ ) * 0.5;
+		double radius = 0;
+
+		for ( int i = 0; i < this.count; i ++ )
+		{
+			int offset = i * 16;
+			double dx = m.get( offset + 12 ) - cx, dy = m.get( offset + 13 ) - cy, dz = m.get( offset + 14 ) - cz;
+
+			double scaleXSq = m.get( offset )     * m.get( offset )     + m.get( offset + 1 ) * m.get( offset + 1 ) + m.get( offset + 2 )  * m.get( offset + 2 );
+			double scaleYSq = m.get( offset + 4 ) * m.get( offset + 4 ) + m.get( offset + 5 ) * m.get( offset + 5 ) + m.get( offset + 6 )  * m.get( offset + 6 );
+			double scaleZSq = m.get( offset + 8 ) * m.get( offset + 8 ) + m.get( offset + 9 ) * m.get( offset + 9 ) + m.get( offset + 10 ) * m.get( offset + 10 );
+			double scale = Math.sqrt( Math.max( scaleXSq, Math.max( scaleYSq, scaleZSq ) ) );
+
+			radius = Math.max( radius, Math.sqrt( dx * dx + dy * dy + dz * dz ) + geometryRadius * scale );
+		}
+
+		this.instancesSphereCenter.set( cx, cy, cz );
+		this.instancesSphereRadius = radius;
+		this.instancesSphereGeometryRadius = geometryRadius;
+		this.isInstancesSphereNeedUpdate = false;
+	}
+
+	@Override
+	public void initBuffer(WebGLRenderer renderer) 
+	{
+		super.initBuffer(renderer);
+
+		if ( this.__webglInstanceMatrixBuffer == null )
+		{
+			this.__webglInstanceMatrixBuffer = renderer.getGL().createBuffer();
+			this.__webglInstanceColorBuffer = renderer.getGL().createBuffer();
+
+			this.isInstancesNeedUpdate = true;
+		}
+	}
+
+	@Override
+	public void setBuffer(WebGLRenderer renderer) 
+	{
+		super.setBuffer(renderer);
+
+		if ( this.isInstancesNeedUpdate )
+		{
+			WebGLRenderingContext gl = renderer.getGL();
+
+			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglInstanceMatrixBuffer );
+			gl.bufferData( BufferTarget.ARRAY_BUFFER, this.instanceMatrixArray, BufferUsage.DYNAMIC_DRAW );
+
+			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglInstanceColorBuffer );
+			gl.bufferData( BufferTarget.ARRAY_BUFFER, this.instanceColorArray, BufferUsage.DYNAMIC_DRAW );
+
+			this.isInstancesNeedUpdate = false;
+		}
+	}
+
+	@Override
+	public void deleteBuffers(WebGLRenderer renderer) 
+	{
+		super.deleteBuffers(renderer);
+
+		renderer.getGL().deleteBuffer( this.__webglInstanceMatrixBuffer );
+		renderer.getGL().deleteBuffer( this.__webglInstanceColorBuffer );
+
+		this.__webglInstanceMatrixBuffer = null;
+		this.__webglInstanceColorBuffer = null;
+	}
+
+	@Override
+	public void renderBuffer(WebGLRenderer renderer, GeometryBuffer geometryBuffer, boolean updateBuffers)
+	{
+		Shader shader = renderer.getCurrentShader();
+		AngleInstancedArrays extension = renderer.getInstancedArraysExtension();
+
+		int[] attributes = shader.getAttributeSlots();
+		WebGLUniformLocation matrixLocation = shader.getUniformSlots()[ Shader.UNIFORM_INSTANCE_MATRIX ];
+
+		if ( extension != null && attributes[ Shader.ATTRIBUTE_INSTANCE_MATRIX ] >= 0 )
+		{
+			renderInstanced( renderer, extension, attributes, geometryBuffer, updateBuffers );
+		}
+		else if ( matrixLocation != null )
+		{
+			renderBatched( renderer, shader, matrixLocation, geometryBuffer, updateBuffers );
+		}
+		else
+		{
+			// The program has no instancing path, for example depth material in the shadow pass
+			super.renderBuffer(renderer, geometryBuffer, updateBuffers);
+		}
+	}
+
+	private void renderInstanced(WebGLRenderer renderer, AngleInstancedArrays extension, int[] attributes, 
+			GeometryBuffer geometryBuffer, boolean updateBuffers)
+	{
+		WebGLRenderingContext gl = renderer.getGL();
+
+		// mat4 attribute takes four sequential locations, one per column
+		int matrixLocation = attributes[ Shader.ATTRIBUTE_INSTANCE_MATRIX ];
+
+		renderer.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglInstanceMatrixBuffer );
+		for ( int i = 0; i < 4; i ++ )
+		{
+			renderer.getState().enableVertexAttribArray( matrixLocation + i );
+			gl.vertexAttribPointer( matrixLocation + i, 4, DataType.FLOAT, false, 64, i * 16 );
+			extension.vertexAttribDivisorANGLE( matrixLocation + i, 1 );
+		}
+
+		int colorLocation = attributes[ Shader.ATTRIBUTE_INSTANCE_COLOR ];
+		if ( colorLocation >= 0 )
+		{
+			renderer.bindBuffer( BufferTarget.ARRAY_BUFFER, this.__webglInstanceColorBuffer );
+			renderer.getState().enableVertexAttribArray( colorLocation );
+			gl.vertexAttribPointer( colorLocation, 3, DataType.FLOAT, false, 0, 0 );
+			extension.vertexAttribDivisorANGLE( colorLocation, 1 );
+		}
+
+		if ( isWireframe() ) 
+		{
+			setLineWidth( renderer, ((HasWireframe)getMaterial()).getWireframeLineWidth() );
+
+			if ( updateBuffers ) 
+				renderer.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglLineBuffer );
+
+			extension.drawElementsInstancedANGLE( BeginMode.LINES, geometryBuffer.__webglLineCount, geometryBuffer.getWebGlIndexType(), 0, this.count );
+		}
+		else 
+		{
+			if ( updateBuffers ) 
+				renderer.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglFaceBuffer );
+
+			extension.drawElementsInstancedANGLE( BeginMode.TRIANGLES, geometryBuffer.__webglFaceCount, geometryBuffer.getWebGlIndexType(), 0, this.count );
+		}
+
+		// Divisors are global state: reset them, so other draws read these locations per vertex.
+		// The arrays are disabled, so the programs without these attributes do not read the instance buffers.
+		for ( int i = 0; i < 4; i ++ )
+		{
+			extension.vertexAttribDivisorANGLE( matrixLocation + i, 0 );
+			renderer.getState().disableVertexAttribArray( matrixLocation + i );
+		}
+
+		if ( colorLocation >= 0 )
+		{
+			extension.vertexAttribDivisorANGLE( colorLocation, 0 );
+			renderer.getState().disableVertexAttribArray( colorLocation );
+		}
+
+		WebGlRendererInfo info = renderer.getInfo();
+		info.getRender().calls ++;
+		info.getRender().vertices += geometryBuffer.__webglFaceCount * this.count;
+		info.getRender().faces += geometryBuffer.__webglFaceCount / 3 * this.count;
+	}
+
+	private void renderBatched(WebGLRenderer renderer, Shader shader, WebGLUniformLocation matrixLocation, 
+			GeometryBuffer geometryBuffer, boolean updateBuffers)
+	{
+		WebGLRenderingContext gl = renderer.getGL();
+		WebGLUniformLocation colorLocation = shader.getUniformSlots()[ Shader.UNIFORM_INSTANCE_COLOR ];
+
+		BeginMode mode;
+		int elementCount;
+
+		if ( isWireframe() ) 
+		{
+			setLineWidth( renderer, ((HasWireframe)getMaterial()).getWireframeLineWidth() );
+
+			if ( updateBuffers ) 
+				renderer.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglLineBuffer );
+
+			mode = BeginMode.LINES;
+			elementCount = geometryBuffer.__webglLineCount;
+		}
+		else 
+		{
+			if ( updateBuffers ) 
+				renderer.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglFaceBuffer );
+
+			mode = BeginMode.TRIANGLES;
+			elementCount = geometryBuffer.__webglFaceCount;
+		}
+
+		// Program and buffers are bound once, only the instance uniforms change
+		for ( int i = 0; i < this.count; i ++ )
+		{
+			for ( int j = 0; j < 16; j ++ )
+				this.cache_instanceMatrix.set( j, this.instanceMatrixArray.get( i * 16 + j ) );
+
+			gl.uniformMatrix4fv( matrixLocation, false, this.cache_instanceMatrix );
+
+			if ( colorLocation != null )
+				gl.uniform3f( colorLocation, this.instanceColorArray.get( i * 3 ), 
+						this.instanceColorArray.get( i * 3 + 1 ), this.instanceColorArray.get( i * 3 + 2 ) );
+
+			gl.drawElements( mode, elementCount, geometryBuffer.getWebGlIndexType(), 0 );
+		}
+
+		WebGlRendererInfo info = renderer.getInfo();
+		info.getRender().calls += this.count;
+		info.getRender().vertices += geometryBuffer.__webglFaceCount * this.count;
+		info.getRender().faces += geometryBuffer.__webglFaceCount / 3 * this.count;
+	}
+
+	private boolean isWireframe()
+	{
+		return getMaterial() instanceof HasWireframe && ((HasWireframe)getMaterial()).isWireframe();
+	}
+}
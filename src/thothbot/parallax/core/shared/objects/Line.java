@@ -114,7 +114,7 @@ public class Line extends GeometryObject
 				? BeginMode.LINE_STRIP 
 				: BeginMode.LINES;
 
-		setLineWidth( gl, ((LineBasicMaterial)material).getLinewidth() );
+		setLineWidth( renderer, ((LineBasicMaterial)material).getLinewidth() );
 
 		gl.drawArrays( primitives, 0, geometryBuffer.__webglLineCount );
 
@@ -151,8 +151,8 @@ public class Line extends GeometryObject
 	{
 		int nvertices = geometry.getVertices().size();
 
-		geometry.setWebGlVertexArray( TypedArrays.createFloat64Array( nvertices * 3 ) );
-		geometry.setWebGlColorArray( TypedArrays.createFloat64Array( nvertices * 3 ) );
+		geometry.setWebGlVertexArray( TypedArrays.createFloat32Array( nvertices * 3 ) );
+		geometry.setWebGlColorArray( TypedArrays.createFloat32Array( nvertices * 3 ) );
 
 		geometry.__webglLineCount = nvertices;
 
@@ -197,9 +197,9 @@ public class Line extends GeometryObject
 			{
 				Vector3 vertex = vertices.get(v);
 				int offset = v * 3;
-				geometry.getWebGlVertexArray().set(offset, vertex.getX());
-				geometry.getWebGlVertexArray().set(offset + 1, vertex.getY());
-				geometry.getWebGlVertexArray().set(offset + 2, vertex.getZ());
+				geometry.getWebGlVertexArray().set(offset, (float)vertex.getX());
+				geometry.getWebGlVertexArray().set(offset + 1, (float)vertex.getY());
+				geometry.getWebGlVertexArray().set(offset + 2, (float)vertex.getZ());
 			}
 
 			gl.bindBuffer(BufferTarget.ARRAY_BUFFER, geometry.__webglVertexBuffer);
@@ -213,9 +213,9 @@ public class Line extends GeometryObject
 				Color color = colors.get(c);
 				int offset = c * 3;
 
-				geometry.getWebGlColorArray().set(offset, color.getR());
-				geometry.getWebGlColorArray().set(offset + 1, color.getG());
-				geometry.getWebGlColorArray().set(offset + 2, color.getB());
+				geometry.getWebGlColorArray().set(offset, (float)color.getR());
+				geometry.getWebGlColorArray().set(offset + 1, (float)color.getG());
+				geometry.getWebGlColorArray().set(offset + 2, (float)color.getB());
 			}
 
 			gl.bindBuffer(BufferTarget.ARRAY_BUFFER, geometry.__webglColorBuffer);
@@ -238,7 +238,7 @@ public class Line extends GeometryObject
 					if (customAttribute.size == 1) 
 					{
 						for (int ca = 0; ca < customAttribute.getValue().size(); ca++)
-							customAttribute.array.set(ca, (Double)customAttribute.getValue().get(ca));
+							customAttribute.array.set(ca, ((Double) customAttribute.getValue().get(ca)).floatValue());
 
 					}
 					else if (customAttribute.size == 2) 
@@ -248,8 +248,8 @@ public class Line extends GeometryObject
 
 							Vector2 value = (Vector2) customAttribute.getValue().get(ca);
 
-							customAttribute.array.set(offset, value.getX());
-							customAttribute.array.set(offset + 1, value.getY());
+							customAttribute.array.set(offset, (float)value.getX());
+							customAttribute.array.set(offset + 1, (float)value.getY());
 
 							offset += 2;
 						}
@@ -264,9 +264,9 @@ public class Line extends GeometryObject
 
 								Color value = (Color) customAttribute.getValue().get(ca);
 
-								customAttribute.array.set(offset, value.getR());
-								customAttribute.array.set(offset + 1, value.getG());
-								customAttribute.array.set(offset + 2, value.getB());
+								customAttribute.array.set(offset, (float)value.getR());
+								customAttribute.array.set(offset + 1, (float)value.getG());
+								customAttribute.array.set(offset + 2, (float)value.getB());
 
 								offset += 3;
 							}
@@ -278,9 +278,9 @@ public class Line extends GeometryObject
 							{
 								Vector3 value = (Vector3) customAttribute.getValue().get(ca);
 
-								customAttribute.array.set(offset, value.getX());
-								customAttribute.array.set(offset + 1, value.getY());
-								customAttribute.array.set(offset + 2, value.getZ());
+								customAttribute.array.set(offset, (float)value.getX());
+								customAttribute.array.set(offset + 1, (float)value.getY());
+								customAttribute.array.set(offset + 2, (float)value.getZ());
 
 								offset += 3;
 							}
@@ -293,10 +293,10 @@ public class Line extends GeometryObject
 						{
 							Vector4 value = (Vector4) customAttribute.getValue().get(ca);
 
-							customAttribute.array.set(offset, value.getX());
-							customAttribute.array.set(offset + 1, value.getY());
-							customAttribute.array.set(offset + 2, value.getZ());
-							customAttribute.array.set(offset + 3, value.getW());
+							customAttribute.array.set(offset, (float)value.getX());
+							customAttribute.array.set(offset + 1, (float)value.getY());
+							customAttribute.array.set(offset + 2, (float)value.getZ());
+							customAttribute.array.set(offset + 3, (float)value.getW());
 
 							offset += 4;
 						}
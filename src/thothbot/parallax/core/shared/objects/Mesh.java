@@ -28,7 +28,6 @@ import thothbot.parallax.core.client.gl2.WebGLRenderingContext;
 import thothbot.parallax.core.client.gl2.enums.BeginMode;
 import thothbot.parallax.core.client.gl2.enums.BufferTarget;
 import thothbot.parallax.core.client.gl2.enums.BufferUsage;
-import thothbot.parallax.core.client.gl2.enums.DrawElementsType;
 import thothbot.parallax.core.client.renderers.WebGlRendererInfo;
 import thothbot.parallax.core.client.renderers.WebGLRenderer;
 import thothbot.parallax.core.client.shaders.Attribute;
@@ -49,7 +48,7 @@ import thothbot.parallax.core.shared.materials.Material;
 import thothbot.parallax.core.shared.materials.MeshBasicMaterial;
 
 import com.google.gwt.core.client.GWT;
-import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 
 /**
@@ -65,7 +64,7 @@ public class Mesh extends GeometryObject
 	private List<Double> morphTargetInfluences;
 	private List<Integer> morphTargetForcedOrder;
 	private Map<String, Integer> morphTargetDictionary;
-	public Float64Array __webglMorphTargetInfluences;
+	public Float32Array __webglMorphTargetInfluences;
 
 	private static MeshBasicMaterial defaultMaterial = new MeshBasicMaterial();
 	static {
@@ -167,12 +166,12 @@ public class Mesh extends GeometryObject
 		// wireframe
 		if ( getMaterial() instanceof HasWireframe && ((HasWireframe)getMaterial()).isWireframe() ) 
 		{
-			setLineWidth( gl, ((HasWireframe)getMaterial()).getWireframeLineWidth() );
+			setLineWidth( renderer, ((HasWireframe)getMaterial()).getWireframeLineWidth() );
 
 			if ( updateBuffers ) 
-				gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglLineBuffer );
+				renderer.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglLineBuffer );
 			
-			gl.drawElements( BeginMode.LINES, geometryBuffer.__webglLineCount, DrawElementsType.UNSIGNED_SHORT, 0 );
+			gl.drawElements( BeginMode.LINES, geometryBuffer.__webglLineCount, geometryBuffer.getWebGlIndexType(), 0 );
 
 			// triangles
 
@@ -180,9 +179,9 @@ public class Mesh extends GeometryObject
 		else 
 		{
 			if ( updateBuffers ) 
-				gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglFaceBuffer );
+				renderer.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryBuffer.__webglFaceBuffer );
 			
-			gl.drawElements( BeginMode.TRIANGLES, geometryBuffer.__webglFaceCount, DrawElementsType.UNSIGNED_SHORT, 0 );
+			gl.drawElements( BeginMode.TRIANGLES, geometryBuffer.__webglFaceCount, geometryBuffer.getWebGlIndexType(), 0 );
 		}
 		
 		info.getRender().calls ++;
@@ -208,7 +207,7 @@ public class Mesh extends GeometryObject
 		{
 			Log.debug("addObject() geometry.geometryGroups is null: " + ( geometry.getGeometryGroups() == null ));
 			if ( geometry.getGeometryGroups() == null )
-				sortFacesByMaterial( this.getGeometry() );
+				sortFacesByMaterial( this.getGeometry(), renderer.isGPUsupportsElementIndexUint() ? Integer.MAX_VALUE : 65535 );
 
 			// create separate VBOs per geometry chunk
 			for ( GeometryGroup geometryGroup : geometry.getGeometryGroups() ) 
@@ -251,49 +250,65 @@ public class Mesh extends GeometryObject
 		Material.SHADING normalType = material.bufferGuessNormalType();
 		Material.COLORS vertexColorType = material.bufferGuessVertexColorType();
 
-		geometryGroup.setWebGlVertexArray( TypedArrays.createFloat64Array(nvertices * 3) );
+		if ( geometry.isIndexedBuffers() && geometryGroup.numMorphTargets == 0 && geometryGroup.numMorphNormals == 0
+				&& material.getShader().getAttributes() == null )
+			nvertices = initIndexedBuffers( geometryGroup, material );
+
+		geometryGroup.setInterleavedBuffers( geometry.isInterleavedBuffers() 
+				&& geometryGroup.numMorphTargets == 0 && geometryGroup.numMorphNormals == 0 );
+
+		geometryGroup.setWebGlVertexArray( TypedArrays.createFloat32Array(nvertices * 3) );
 
 		if (normalType != null)
-			geometryGroup.setWebGlNormalArray( TypedArrays.createFloat64Array(nvertices * 3) );
+			geometryGroup.setWebGlNormalArray( TypedArrays.createFloat32Array(nvertices * 3) );
 
 		if (geometry.hasTangents())
-			geometryGroup.setWebGlTangentArray( TypedArrays.createFloat64Array(nvertices * 4) );
+			geometryGroup.setWebGlTangentArray( TypedArrays.createFloat32Array(nvertices * 4) );
 
 		if (vertexColorType != null)
-			geometryGroup.setWebGlColorArray( TypedArrays.createFloat64Array(nvertices * 3) );
+			geometryGroup.setWebGlColorArray( TypedArrays.createFloat32Array(nvertices * 3) );
 
 		if (uvType) 
 		{
 			if (geometry.getFaceUvs().size() > 0 || geometry.getFaceVertexUvs().size() > 0)
-				geometryGroup.setWebGlUvArray( TypedArrays.createFloat64Array(nvertices * 2) );
+				geometryGroup.setWebGlUvArray( TypedArrays.createFloat32Array(nvertices * 2) );
 
 			if (geometry.getFaceUvs().size() > 1 || geometry.getFaceVertexUvs().size() > 1)
-				geometryGroup.setWebGlUv2Array( TypedArrays.createFloat64Array(nvertices * 2) );
+				geometryGroup.setWebGlUv2Array( TypedArrays.createFloat32Array(nvertices * 2) );
 		}
 
 		if (this.geometry.getSkinWeights().size() > 0 && this.geometry.getSkinIndices().size() > 0) 
 		{
-			geometryGroup.setWebGlSkinIndexArray  ( TypedArrays.createFloat64Array(nvertices * 4) );
-			geometryGroup.setWebGlSkinWeightArray ( TypedArrays.createFloat64Array(nvertices * 4) );
+			geometryGroup.setWebGlSkinIndexArray  ( TypedArrays.createFloat32Array(nvertices * 4) );
+			geometryGroup.setWebGlSkinWeightArray ( TypedArrays.createFloat32Array(nvertices * 4) );
 		}
 
-		geometryGroup.setWebGlFaceArray( TypedArrays.createUint16Array(ntris * 3) );
-		geometryGroup.setWebGlLineArray( TypedArrays.createUint16Array(nlines * 2) );
+		// Geometry groups are split at 65535 vertices unless 32-bit indices are supported
+		if (nvertices > 65535)
+		{
+			geometryGroup.setWebGlFaceArray( TypedArrays.createUint32Array(ntris * 3) );
+			geometryGroup.setWebGlLineArray( TypedArrays.createUint32Array(nlines * 2) );
+		}
+		else
+		{
+			geometryGroup.setWebGlFaceArray( TypedArrays.createUint16Array(ntris * 3) );
+			geometryGroup.setWebGlLineArray( TypedArrays.createUint16Array(nlines * 2) );
+		}
 
 		if (geometryGroup.numMorphTargets > 0) 
 		{
-			geometryGroup.__morphTargetsArrays = new ArrayList<Float64Array>();
+			geometryGroup.__morphTargetsArrays = new ArrayList<Float32Array>();
 
 			for (int m = 0; m < geometryGroup.numMorphTargets; m++)
-				geometryGroup.__morphTargetsArrays.add(TypedArrays.createFloat64Array(nvertices * 3));
+				geometryGroup.__morphTargetsArrays.add(TypedArrays.createFloat32Array(nvertices * 3));
 		}
 
 		if (geometryGroup.numMorphNormals > 0) 
 		{
-			geometryGroup.__morphNormalsArrays = new ArrayList<Float64Array>();
+			geometryGroup.__morphNormalsArrays = new ArrayList<Float32Array>();
 
 			for (int m = 0; m < geometryGroup.numMorphNormals; m++)
-				geometryGroup.__morphNormalsArrays.add(TypedArrays.createFloat64Array(nvertices * 3));
+				geometryGroup.__morphNormalsArrays.add(TypedArrays.createFloat32Array(nvertices * 3));
 		}
 
 		geometryGroup.__webglFaceCount = ntris * 3;
@@ -334,7 +349,7 @@ public class Mesh extends GeometryObject
 
 					attribute.size = size;
 
-					attribute.array = TypedArrays.createFloat64Array(nvertices * size);
+					attribute.array = TypedArrays.createFloat32Array(nvertices * size);
 
 					attribute.buffer = gl.createBuffer();
 					attribute.belongsToAttribute = a;
@@ -349,6 +364,376 @@ public class Mesh extends GeometryObject
 		geometryGroup.setArrayInitialized(true);
 	}
 
+	/*
+	 * Merges face corners of the geometry group which have the same vertex, 
+	 * normal, uvs and color, and returns the number of the shared vertices.
+	 */
+	private int initIndexedBuffers(GeometryGroup geometryGroup, Material material)
+	{
+		Geometry geometry = this.geometry;
+
+		Material.SHADING normalType = material.bufferGuessNormalType();
+		Material.COLORS vertexColorType = material.bufferGuessVertexColorType();
+		boolean uvType = material.bufferGuessUVType();
+
+		boolean needsSmoothNormals = ( normalType == Material.SHADING.SMOOTH );
+
+		List<Face3> obj_faces = geometry.getFaces();
+
+		List<List<UV>> obj_uvs = (uvType && geometry.getFaceVertexUvs().size() > 0) 
+				? geometry.getFaceVertexUvs().get(0) : null;
+
+		List<List<UV>> obj_uvs2 = (uvType && geometry.getFaceVertexUvs().size() > 1) 
+				? geometry.getFaceVertexUvs().get(1) : null;
+
+		int ncorners = geometryGroup.faces3.size() * 3 + geometryGroup.faces4.size() * 4;
+
+		List<Integer> chunk_faces = new ArrayList<Integer>( geometryGroup.faces3 );
+		chunk_faces.addAll( geometryGroup.faces4 );
+
+		int[] cornerVertices = new int[ncorners];
+		int[] vertexCorners = new int[ncorners];
+		int nvertices = 0;
+
+		Map<String, Integer> sharedVertices = GWT.isScript() ? 
+				new FastMap<Integer>() : new HashMap<String, Integer>();
+
+		int corner = 0;
+		for ( int f = 0, fl = chunk_faces.size(); f < fl; f ++ ) 
+		{
+			int fi = chunk_faces.get( f );
+			Face3 face = obj_faces.get( fi );
+
+			for ( int i = 0, il = ( face instanceof Face4 ) ? 4 : 3; i < il; i ++ ) 
+			{
+				StringBuilder key = new StringBuilder();
+				key.append( getCornerVertex( face, i ) );
+
+				if ( normalType != null )
+					appendKey( key, getCornerNormal( face, i, needsSmoothNormals ) );
+
+				if ( vertexColorType != null )
+				{
+					Color color = getCornerColor( face, i, vertexColorType );
+					key.append( ',' ).append( color.getR() ).append( ',' ).append( color.getG() ).append( ',' ).append( color.getB() );
+				}
+
+				if ( geometry.hasTangents() )
+				{
+					Vector4 tangent = face.getVertexTangents().get( i );
+					appendKey( key, tangent );
+					key.append( ',' ).append( tangent.getW() );
+				}
+
+				if ( obj_uvs != null && obj_uvs.get( fi ) != null )
+				{
+					UV uv = obj_uvs.get( fi ).get( i );
+					key.append( ',' ).append( uv.getU() ).append( ',' ).append( uv.getV() );
+				}
+
+				if ( obj_uvs2 != null && obj_uvs2.get( fi ) != null )
+				{
+					UV uv2 = obj_uvs2.get( fi ).get( i );
+					key.append( ',' ).append( uv2.getU() ).append( ',' ).append( uv2.getV() );
+				}
+
+				String id = key.toString();
+				Integer vertex = sharedVertices.get( id );
+
+				if ( vertex == null )
+				{
+					vertex = nvertices ++;
+					sharedVertices.put( id, vertex );
+					vertexCorners[ vertex ] = fi * 4 + i;
+				}
+
+				cornerVertices[ corner ++ ] = vertex;
+			}
+		}
+
+		int[] corners = new int[nvertices];
+		for ( int v = 0; v < nvertices; v ++ )
+			corners[ v ] = vertexCorners[ v ];
+
+		geometryGroup.__vertexCorners = corners;
+		geometryGroup.__cornerVertices = cornerVertices;
+
+		return nvertices;
+	}
+
+	private static void appendKey(StringBuilder key, Vector3 v)
+	{
+		key.append( ',' ).append( v.getX() ).append( ',' ).append( v.getY() ).append( ',' ).append( v.getZ() );
+	}
+
+	private static int getCornerVertex(Face3 face, int corner)
+	{
+		switch ( corner )
+		{
+		case 0: return face.getA();
+		case 1: return face.getB();
+		case 2: return face.getC();
+		default: return ((Face4)face).getD();
+		}
+	}
+
+	private static Vector3 getCornerNormal(Face3 face, int corner, boolean needsSmoothNormals)
+	{
+		int size = ( face instanceof Face4 ) ? 4 : 3;
+		List<Vector3> vertexNormals = face.getVertexNormals();
+
+		if ( vertexNormals.size() == size && needsSmoothNormals )
+			return vertexNormals.get( corner );
+
+		return face.getNormal();
+	}
+
+	private static Color getCornerColor(Face3 face, int corner, Material.COLORS vertexColorType)
+	{
+		int size = ( face instanceof Face4 ) ? 4 : 3;
+		List<Color> vertexColors = face.getVertexColors();
+
+		if ( vertexColors.size() == size && vertexColorType == Material.COLORS.VERTEX )
+			return vertexColors.get( corner );
+
+		return face.getColor();
+	}
+
+	/*
+	 * Fills buffers of the geometry group prepared by initIndexedBuffers(): 
+	 * attributes are written once per shared vertex, faces and lines 
+	 * reference the shared vertices.
+	 */
+	private void setIndexedBuffers(WebGLRenderingContext gl, GeometryGroup geometryGroup, BufferUsage hint, Material material)
+	{
+		Geometry geometry = getGeometry();
+
+		Material.SHADING normalType = material.bufferGuessNormalType();
+		Material.COLORS vertexColorType = material.bufferGuessVertexColorType();
+		boolean uvType = material.bufferGuessUVType();
+
+		boolean needsSmoothNormals = ( normalType == Material.SHADING.SMOOTH );
+
+		List<Face3> obj_faces = geometry.getFaces();
+		List<Vector3> obj_vertices = geometry.getVertices();
+
+		List<List<UV>> obj_uvs = (geometry.getFaceVertexUvs().size() > 0) 
+				? geometry.getFaceVertexUvs().get(0) : null;
+
+		List<List<UV>> obj_uvs2 = (geometry.getFaceVertexUvs().size() > 1) 
+				? geometry.getFaceVertexUvs().get(1) : null;
+
+		int[] corners = geometryGroup.__vertexCorners;
+		int nvertices = corners.length;
+
+		int[] faceSlots = getFaceUpdateSlots( geometryGroup );
+
+		if ( geometry.isVerticesNeedUpdate() && geometry.hasVerticesUpdateRange() && ! geometryGroup.isInterleavedBuffers() )
+		{
+			setVerticesRange( gl, geometryGroup, hint );
+		}
+		else if ( geometry.isVerticesNeedUpdate() ) 
+		{
+			Float32Array vertexArray = geometryGroup.getWebGlVertexArray();
+
+			for ( int v = 0; v < nvertices; v ++ ) 
+			{
+				Face3 face = obj_faces.get( corners[ v ] / 4 );
+				Vector3 vertex = obj_vertices.get( getCornerVertex( face, corners[ v ] % 4 ) );
+
+				vertexArray.set( v * 3,     (float)vertex.getX() );
+				vertexArray.set( v * 3 + 1, (float)vertex.getY() );
+				vertexArray.set( v * 3 + 2, (float)vertex.getZ() );
+			}
+
+			setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglVertexBuffer, vertexArray, 3, null, hint );
+		}
+
+		if ( geometry.getSkinWeights().size() > 0 ) 
+		{
+			Float32Array skinIndexArray = geometryGroup.getWebGlSkinIndexArray();
+			Float32Array skinWeightArray = geometryGroup.getWebGlSkinWeightArray();
+
+			for ( int v = 0; v < nvertices; v ++ ) 
+			{
+				int vertex = getCornerVertex( obj_faces.get( corners[ v ] / 4 ), corners[ v ] % 4 );
+
+				Vector4 sw = geometry.getSkinWeights().get( vertex );
+				Vector4 si = geometry.getSkinIndices().get( vertex );
+
+				skinWeightArray.set( v * 4,     (float)sw.getX() );
+				skinWeightArray.set( v * 4 + 1, (float)sw.getY() );
+				skinWeightArray.set( v * 4 + 2, (float)sw.getZ() );
+				skinWeightArray.set( v * 4 + 3, (float)sw.getW() );
+
+				skinIndexArray.set( v * 4,     (float)si.getX() );
+				skinIndexArray.set( v * 4 + 1, (float)si.getY() );
+				skinIndexArray.set( v * 4 + 2, (float)si.getZ() );
+				skinIndexArray.set( v * 4 + 3, (float)si.getW() );
+			}
+
+			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryGroup.__webglSkinIndicesBuffer );
+			gl.bufferData( BufferTarget.ARRAY_BUFFER, skinIndexArray, hint );
+
+			gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryGroup.__webglSkinWeightsBuffer );
+			gl.bufferData( BufferTarget.ARRAY_BUFFER, skinWeightArray, hint );
+		}
+
+		if ( geometry.isColorsNeedUpdate() && vertexColorType != null ) 
+		{
+			Float32Array colorArray = geometryGroup.getWebGlColorArray();
+
+			for ( int v = 0; v < nvertices; v ++ ) 
+			{
+				Color color = getCornerColor( obj_faces.get( corners[ v ] / 4 ), corners[ v ] % 4, vertexColorType );
+
+				colorArray.set( v * 3,     (float)color.getR() );
+				colorArray.set( v * 3 + 1, (float)color.getG() );
+				colorArray.set( v * 3 + 2, (float)color.getB() );
+			}
+
+			setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglColorBuffer, colorArray, 3, faceSlots, hint );
+		}
+
+		if ( geometry.isTangentsNeedUpdate() && geometry.hasTangents() ) 
+		{
+			Float32Array tangentArray = geometryGroup.getWebGlTangentArray();
+
+			for ( int v = 0; v < nvertices; v ++ ) 
+			{
+				Vector4 tangent = obj_faces.get( corners[ v ] / 4 ).getVertexTangents().get( corners[ v ] % 4 );
+
+				tangentArray.set( v * 4,     (float)tangent.getX() );
+				tangentArray.set( v * 4 + 1, (float)tangent.getY() );
+				tangentArray.set( v * 4 + 2, (float)tangent.getZ() );
+				tangentArray.set( v * 4 + 3, (float)tangent.getW() );
+			}
+
+			setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglTangentBuffer, tangentArray, 4, faceSlots, hint );
+		}
+
+		if ( geometry.isNormalsNeedUpdate() && normalType != null ) 
+		{
+			Float32Array normalArray = geometryGroup.getWebGlNormalArray();
+
+			for ( int v = 0; v < nvertices; v ++ ) 
+			{
+				Vector3 normal = getCornerNormal( obj_faces.get( corners[ v ] / 4 ), corners[ v ] % 4, needsSmoothNormals );
+
+				normalArray.set( v * 3,     (float)normal.getX() );
+				normalArray.set( v * 3 + 1, (float)normal.getY() );
+				normalArray.set( v * 3 + 2, (float)normal.getZ() );
+			}
+
+			setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglNormalBuffer, normalArray, 3, faceSlots, hint );
+		}
+
+		if ( geometry.isUvsNeedUpdate() && obj_uvs != null && uvType ) 
+			setIndexedUvs( gl, geometryGroup, corners, obj_uvs, geometryGroup.getWebGlUvArray(), geometryGroup.__webglUVBuffer, faceSlots, hint );
+
+		if ( geometry.isUvsNeedUpdate() && obj_uvs2 != null && obj_uvs2.size() > 0 && uvType ) 
+			setIndexedUvs( gl, geometryGroup, corners, obj_uvs2, geometryGroup.getWebGlUv2Array(), geometryGroup.__webglUV2Buffer, faceSlots, hint );
+
+		if ( geometry.isElementsNeedUpdate() ) 
+		{
+			int[] cornerVertices = geometryGroup.__cornerVertices;
+
+			int offset_line = 0;
+			int offset_face = 0;
+			int corner = 0;
+
+			for ( int f = 0, fl = geometryGroup.faces3.size(); f < fl; f ++ ) 
+			{
+				int a = cornerVertices[ corner ];
+				int b = cornerVertices[ corner + 1 ];
+				int c = cornerVertices[ corner + 2 ];
+
+				geometryGroup.setWebGlFaceIndex( offset_face,     a );
+				geometryGroup.setWebGlFaceIndex( offset_face + 1, b );
+				geometryGroup.setWebGlFaceIndex( offset_face + 2, c );
+
+				offset_face += 3;
+
+				geometryGroup.setWebGlLineIndex( offset_line,     a );
+				geometryGroup.setWebGlLineIndex( offset_line + 1, b );
+
+				geometryGroup.setWebGlLineIndex( offset_line + 2, a );
+				geometryGroup.setWebGlLineIndex( offset_line + 3, c );
+
+				geometryGroup.setWebGlLineIndex( offset_line + 4, b );
+				geometryGroup.setWebGlLineIndex( offset_line + 5, c );
+
+				offset_line += 6;
+
+				corner += 3;
+			}
+
+			for ( int f = 0, fl = geometryGroup.faces4.size(); f < fl; f ++ ) 
+			{
+				int a = cornerVertices[ corner ];
+				int b = cornerVertices[ corner + 1 ];
+				int c = cornerVertices[ corner + 2 ];
+				int d = cornerVertices[ corner + 3 ];
+
+				geometryGroup.setWebGlFaceIndex( offset_face,     a );
+				geometryGroup.setWebGlFaceIndex( offset_face + 1, b );
+				geometryGroup.setWebGlFaceIndex( offset_face + 2, d );
+
+				geometryGroup.setWebGlFaceIndex( offset_face + 3, b );
+				geometryGroup.setWebGlFaceIndex( offset_face + 4, c );
+				geometryGroup.setWebGlFaceIndex( offset_face + 5, d );
+
+				offset_face += 6;
+
+				geometryGroup.setWebGlLineIndex( offset_line,     a );
+				geometryGroup.setWebGlLineIndex( offset_line + 1, b );
+
+				geometryGroup.setWebGlLineIndex( offset_line + 2, a );
+				geometryGroup.setWebGlLineIndex( offset_line + 3, d );
+
+				geometryGroup.setWebGlLineIndex( offset_line + 4, b );
+				geometryGroup.setWebGlLineIndex( offset_line + 5, c );
+
+				geometryGroup.setWebGlLineIndex( offset_line + 6, c );
+				geometryGroup.setWebGlLineIndex( offset_line + 7, d );
+
+				offset_line += 8;
+
+				corner += 4;
+			}
+
+			geometryGroup.setBufferData( gl, BufferTarget.ELEMENT_ARRAY_BUFFER, geometryGroup.__webglFaceBuffer, geometryGroup.getWebGlFaceArray(), hint );
+
+			geometryGroup.setBufferData( gl, BufferTarget.ELEMENT_ARRAY_BUFFER, geometryGroup.__webglLineBuffer, geometryGroup.getWebGlLineArray(), hint );
+		}
+
+		setInterleavedBuffer( gl, geometryGroup, hint );
+	}
+
+	private void setIndexedUvs(WebGLRenderingContext gl, GeometryGroup geometryGroup, int[] corners, List<List<UV>> obj_uvs, Float32Array uvArray, WebGLBuffer buffer, int[] faceSlots, BufferUsage hint)
+	{
+		boolean isUpdated = false;
+
+		for ( int v = 0; v < corners.length; v ++ ) 
+		{
+			List<UV> uv = obj_uvs.get( corners[ v ] / 4 );
+
+			if ( uv == null ) continue;
+
+			UV uvi = uv.get( corners[ v ] % 4 );
+
+			uvArray.set( v * 2,     (float)uvi.getU() );
+			uvArray.set( v * 2 + 1, (float)uvi.getV() );
+
+			isUpdated = true;
+		}
+
+		if ( isUpdated ) 
+		{
+			setAttributeBuffer( gl, geometryGroup, buffer, uvArray, 2, faceSlots, hint );
+		}
+	}
+
 	// createMeshBuffers
 	private void createBuffers(WebGLRenderer renderer, GeometryBuffer geometryGroup)
 	{
@@ -437,6 +822,7 @@ public class Mesh extends GeometryObject
 			geometry.setNormalsNeedUpdate(false);
 			geometry.setColorsNeedUpdate(false);
 			geometry.setTangentsNeedUpdate(false);
+			geometry.resetFacesUpdateRange();
 		}
 	}
 
@@ -447,6 +833,12 @@ public class Mesh extends GeometryObject
 
 		if ( ! geometryGroup.isArrayInitialized() )
 			 return;
+
+		if ( geometryGroup.__vertexCorners != null )
+		{
+			setIndexedBuffers( gl, geometryGroup, hint, material );
+			return;
+		}
 				
 		 Material.SHADING normalType = material.bufferGuessNormalType();
 		 Material.COLORS vertexColorType = material.bufferGuessVertexColorType();
@@ -466,10 +858,16 @@ public class Mesh extends GeometryObject
 						
 		 List<Geometry.MorphNormal> morphNormals = getGeometry().getMorphNormals();
 		 List<Geometry.MorphTarget> morphTargets = getGeometry().getMorphTargets();
+
+		 int[] faceSlots = getFaceUpdateSlots( geometryGroup );
 		 
-		 if ( getGeometry().isVerticesNeedUpdate() ) 
+		 if ( getGeometry().isVerticesNeedUpdate() && getGeometry().hasVerticesUpdateRange() && ! geometryGroup.isInterleavedBuffers() )
+		 {
+			 setVerticesRange( gl, geometryGroup, hint );
+		 }
+		 else if ( getGeometry().isVerticesNeedUpdate() ) 
 		 {
-			 Float64Array vertexArray = geometryGroup.getWebGlVertexArray();
+			 Float32Array vertexArray = geometryGroup.getWebGlVertexArray();
 			 int offset = 0;
 			 
 			 for ( int f = 0, fl = chunk_faces3.size(); f < fl; f ++ ) 
@@ -480,17 +878,17 @@ public class Mesh extends GeometryObject
 				 Vector3 v2 = getGeometry().getVertices().get( face.getB() );
 				 Vector3 v3 = getGeometry().getVertices().get( face.getC() );
 
-				 vertexArray.set(offset,  v1.getX());
-				 vertexArray.set(offset + 1, v1.getY());
-				 vertexArray.set(offset + 2, v1.getZ());
+				 vertexArray.set(offset,  (float)v1.getX());
+				 vertexArray.set(offset + 1, (float)v1.getY());
+				 vertexArray.set(offset + 2, (float)v1.getZ());
 
-				 vertexArray.set(offset + 3, v2.getX());
-				 vertexArray.set(offset + 4, v2.getY());
-				 vertexArray.set(offset + 5, v2.getZ());
+				 vertexArray.set(offset + 3, (float)v2.getX());
+				 vertexArray.set(offset + 4, (float)v2.getY());
+				 vertexArray.set(offset + 5, (float)v2.getZ());
 
-				 vertexArray.set(offset + 6, v3.getX());
-				 vertexArray.set(offset + 7, v3.getY());
-				 vertexArray.set(offset + 8, v3.getZ());
+				 vertexArray.set(offset + 6, (float)v3.getX());
+				 vertexArray.set(offset + 7, (float)v3.getY());
+				 vertexArray.set(offset + 8, (float)v3.getZ());
 
 				 offset += 9;
 			 }
@@ -504,27 +902,26 @@ public class Mesh extends GeometryObject
 				 Vector3 v3 = getGeometry().getVertices().get( face.getC() );
 				 Vector3 v4 = getGeometry().getVertices().get( face.getD() );
 
-				 vertexArray.set(offset, v1.getX());
-				 vertexArray.set(offset + 1, v1.getY());
-				 vertexArray.set(offset + 2, v1.getZ());
+				 vertexArray.set(offset, (float)v1.getX());
+				 vertexArray.set(offset + 1, (float)v1.getY());
+				 vertexArray.set(offset + 2, (float)v1.getZ());
 
-				 vertexArray.set(offset + 3, v2.getX());
-				 vertexArray.set(offset + 4, v2.getY());
-				 vertexArray.set(offset + 5, v2.getZ());
+				 vertexArray.set(offset + 3, (float)v2.getX());
+				 vertexArray.set(offset + 4, (float)v2.getY());
+				 vertexArray.set(offset + 5, (float)v2.getZ());
 
-				 vertexArray.set(offset + 6, v3.getX());
-				 vertexArray.set(offset + 7, v3.getY());
-				 vertexArray.set(offset + 8, v3.getZ());
+				 vertexArray.set(offset + 6, (float)v3.getX());
+				 vertexArray.set(offset + 7, (float)v3.getY());
+				 vertexArray.set(offset + 8, (float)v3.getZ());
 
-				 vertexArray.set(offset + 9, v4.getX());
-				 vertexArray.set(offset + 10, v4.getY());
-				 vertexArray.set(offset + 11, v4.getZ());
+				 vertexArray.set(offset + 9, (float)v4.getX());
+				 vertexArray.set(offset + 10, (float)v4.getY());
+				 vertexArray.set(offset + 11, (float)v4.getZ());
 
 				 offset += 12;
 			 }
 
-			 gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryGroup.__webglVertexBuffer);
-			 gl.bufferData( BufferTarget.ARRAY_BUFFER, vertexArray, hint );
+			 setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglVertexBuffer, vertexArray, 3, null, hint );
 		 }
 		 
 		 if ( getGeometry().isMorphTargetsNeedUpdate() ) 
@@ -546,19 +943,19 @@ public class Mesh extends GeometryObject
 					 Vector3 v2 = morphTargets.get( vk ).vertices.get( face.getB() );
 					 Vector3 v3 = morphTargets.get( vk ).vertices.get( face.getC() );
 
-					 Float64Array vka = geometryGroup.__morphTargetsArrays.get(vk);
+					 Float32Array vka = geometryGroup.__morphTargetsArrays.get(vk);
 
-					 vka.set(offset_morphTarget, v1.getX());
-					 vka.set(offset_morphTarget + 1, v1.getY());
-					 vka.set(offset_morphTarget + 2, v1.getZ());
+					 vka.set(offset_morphTarget, (float)v1.getX());
+					 vka.set(offset_morphTarget + 1, (float)v1.getY());
+					 vka.set(offset_morphTarget + 2, (float)v1.getZ());
 
-					 vka.set(offset_morphTarget + 3, v2.getX());
-					 vka.set(offset_morphTarget + 4, v2.getY());
-					 vka.set(offset_morphTarget + 5, v2.getZ());
+					 vka.set(offset_morphTarget + 3, (float)v2.getX());
+					 vka.set(offset_morphTarget + 4, (float)v2.getY());
+					 vka.set(offset_morphTarget + 5, (float)v2.getZ());
 
-					 vka.set(offset_morphTarget + 6, v3.getX());
-					 vka.set(offset_morphTarget + 7, v3.getY());
-					 vka.set(offset_morphTarget + 8, v3.getZ());
+					 vka.set(offset_morphTarget + 6, (float)v3.getX());
+					 vka.set(offset_morphTarget + 7, (float)v3.getY());
+					 vka.set(offset_morphTarget + 8, (float)v3.getZ());
 
 					 // morph normals
 
@@ -580,19 +977,19 @@ public class Mesh extends GeometryObject
 							 n3 = n1;
 						 }
 
-						 Float64Array nka = geometryGroup.__morphNormalsArrays.get( vk );
+						 Float32Array nka = geometryGroup.__morphNormalsArrays.get( vk );
 
-						 nka.set(offset_morphTarget, n1.getX());
-						 nka.set(offset_morphTarget + 1, n1.getY());
-						 nka.set(offset_morphTarget + 2, n1.getZ());
+						 nka.set(offset_morphTarget, (float)n1.getX());
+						 nka.set(offset_morphTarget + 1, (float)n1.getY());
+						 nka.set(offset_morphTarget + 2, (float)n1.getZ());
 
-						 nka.set(offset_morphTarget + 3, n2.getX());
-						 nka.set(offset_morphTarget + 4, n2.getY());
-						 nka.set(offset_morphTarget + 5, n2.getZ());
+						 nka.set(offset_morphTarget + 3, (float)n2.getX());
+						 nka.set(offset_morphTarget + 4, (float)n2.getY());
+						 nka.set(offset_morphTarget + 5, (float)n2.getZ());
 
-						 nka.set(offset_morphTarget + 6, n3.getX());
-						 nka.set(offset_morphTarget + 7, n3.getY());
-						 nka.set(offset_morphTarget + 8, n3.getZ());
+						 nka.set(offset_morphTarget + 6, (float)n3.getX());
+						 nka.set(offset_morphTarget + 7, (float)n3.getY());
+						 nka.set(offset_morphTarget + 8, (float)n3.getZ());
 					 }
 
 					 //
@@ -613,23 +1010,23 @@ public class Mesh extends GeometryObject
 					 Vector3 v3 = morphTargets.get(vk).vertices.get(face.getC());
 					 Vector3 v4 = morphTargets.get(vk).vertices.get(face.getD());
 
-					 Float64Array vka = geometryGroup.__morphTargetsArrays.get(vk);
+					 Float32Array vka = geometryGroup.__morphTargetsArrays.get(vk);
 
-					 vka.set(offset_morphTarget, v1.getX());
-					 vka.set(offset_morphTarget + 1, v1.getY());
-					 vka.set(offset_morphTarget + 2, v1.getZ());
+					 vka.set(offset_morphTarget, (float)v1.getX());
+					 vka.set(offset_morphTarget + 1, (float)v1.getY());
+					 vka.set(offset_morphTarget + 2, (float)v1.getZ());
 
-					 vka.set(offset_morphTarget + 3, v2.getX());
-					 vka.set(offset_morphTarget + 4, v2.getY());
-					 vka.set(offset_morphTarget + 5, v2.getZ());
+					 vka.set(offset_morphTarget + 3, (float)v2.getX());
+					 vka.set(offset_morphTarget + 4, (float)v2.getY());
+					 vka.set(offset_morphTarget + 5, (float)v2.getZ());
 
-					 vka.set(offset_morphTarget + 6, v3.getX());
-					 vka.set(offset_morphTarget + 7, v3.getY());
-					 vka.set(offset_morphTarget + 8, v3.getZ());
+					 vka.set(offset_morphTarget + 6, (float)v3.getX());
+					 vka.set(offset_morphTarget + 7, (float)v3.getY());
+					 vka.set(offset_morphTarget + 8, (float)v3.getZ());
 
-					 vka.set(offset_morphTarget + 9, v4.getX());
-					 vka.set(offset_morphTarget + 10, v4.getY());
-					 vka.set(offset_morphTarget + 11, v4.getZ());
+					 vka.set(offset_morphTarget + 9, (float)v4.getX());
+					 vka.set(offset_morphTarget + 10, (float)v4.getY());
+					 vka.set(offset_morphTarget + 11, (float)v4.getZ());
 
 					 // morph normals
 
@@ -656,23 +1053,23 @@ public class Mesh extends GeometryObject
 
 						 }
 
-						 Float64Array nka = geometryGroup.__morphNormalsArrays.get( vk );
+						 Float32Array nka = geometryGroup.__morphNormalsArrays.get( vk );
 
-						 nka.set(offset_morphTarget, n1.getX());
-						 nka.set(offset_morphTarget + 1, n1.getY());
-						 nka.set(offset_morphTarget + 2, n1.getZ());
+						 nka.set(offset_morphTarget, (float)n1.getX());
+						 nka.set(offset_morphTarget + 1, (float)n1.getY());
+						 nka.set(offset_morphTarget + 2, (float)n1.getZ());
 
-						 nka.set(offset_morphTarget + 3, n2.getX());
-						 nka.set(offset_morphTarget + 4, n2.getY());
-						 nka.set(offset_morphTarget + 5, n2.getZ());
+						 nka.set(offset_morphTarget + 3, (float)n2.getX());
+						 nka.set(offset_morphTarget + 4, (float)n2.getY());
+						 nka.set(offset_morphTarget + 5, (float)n2.getZ());
 
-						 nka.set(offset_morphTarget + 6, n3.getX());
-						 nka.set(offset_morphTarget + 7, n3.getY());
-						 nka.set(offset_morphTarget + 8, n3.getZ());
+						 nka.set(offset_morphTarget + 6, (float)n3.getX());
+						 nka.set(offset_morphTarget + 7, (float)n3.getY());
+						 nka.set(offset_morphTarget + 8, (float)n3.getZ());
 
-						 nka.set(offset_morphTarget + 9, n4.getX());
-						 nka.set(offset_morphTarget + 10, n4.getY());
-						 nka.set(offset_morphTarget + 11, n4.getZ());
+						 nka.set(offset_morphTarget + 9, (float)n4.getX());
+						 nka.set(offset_morphTarget + 10, (float)n4.getY());
+						 nka.set(offset_morphTarget + 11, (float)n4.getZ());
 
 					 }
 
@@ -697,8 +1094,8 @@ public class Mesh extends GeometryObject
 		 {
 			 int offset_skin = 0;
 
-			 Float64Array skinIndexArray = geometryGroup.getWebGlSkinIndexArray();
-			 Float64Array skinWeightArray = geometryGroup.getWebGlSkinWeightArray();
+			 Float32Array skinIndexArray = geometryGroup.getWebGlSkinIndexArray();
+			 Float32Array skinWeightArray = geometryGroup.getWebGlSkinWeightArray();
 			 
 			 for ( int f = 0, fl = chunk_faces3.size(); f < fl; f ++ ) 
 			 {
@@ -710,20 +1107,20 @@ public class Mesh extends GeometryObject
 				 Vector4 sw2 = getGeometry().getSkinWeights().get( face.getB() );
 				 Vector4 sw3 = getGeometry().getSkinWeights().get( face.getC() );
 
-				 skinWeightArray.set(offset_skin, sw1.getX());
-				 skinWeightArray.set(offset_skin + 1, sw1.getY());
-				 skinWeightArray.set(offset_skin + 2, sw1.getZ());
-				 skinWeightArray.set(offset_skin + 3, sw1.getW());
+				 skinWeightArray.set(offset_skin, (float)sw1.getX());
+				 skinWeightArray.set(offset_skin + 1, (float)sw1.getY());
+				 skinWeightArray.set(offset_skin + 2, (float)sw1.getZ());
+				 skinWeightArray.set(offset_skin + 3, (float)sw1.getW());
 
-				 skinWeightArray.set(offset_skin + 4, sw2.getX());
-				 skinWeightArray.set(offset_skin + 5, sw2.getY());
-				 skinWeightArray.set(offset_skin + 6, sw2.getZ());
-				 skinWeightArray.set(offset_skin + 7, sw2.getW());
+				 skinWeightArray.set(offset_skin + 4, (float)sw2.getX());
+				 skinWeightArray.set(offset_skin + 5, (float)sw2.getY());
+				 skinWeightArray.set(offset_skin + 6, (float)sw2.getZ());
+				 skinWeightArray.set(offset_skin + 7, (float)sw2.getW());
 
-				 skinWeightArray.set(offset_skin + 8, sw3.getX());
-				 skinWeightArray.set(offset_skin + 9, sw3.getY());
-				 skinWeightArray.set(offset_skin + 10, sw3.getZ());
-				 skinWeightArray.set(offset_skin + 11, sw3.getW());
+				 skinWeightArray.set(offset_skin + 8, (float)sw3.getX());
+				 skinWeightArray.set(offset_skin + 9, (float)sw3.getY());
+				 skinWeightArray.set(offset_skin + 10, (float)sw3.getZ());
+				 skinWeightArray.set(offset_skin + 11, (float)sw3.getW());
 
 				 // indices
 
@@ -731,20 +1128,20 @@ public class Mesh extends GeometryObject
 				 Vector4 si2 = (Vector4) getGeometry().getSkinIndices().get(face.getB());
 				 Vector4 si3 = (Vector4) getGeometry().getSkinIndices().get(face.getC());
 
-				 skinIndexArray.set(offset_skin, si1.getX());
-				 skinIndexArray.set(offset_skin + 1, si1.getY());
-				 skinIndexArray.set(offset_skin + 2, si1.getZ());
-				 skinIndexArray.set(offset_skin + 3, si1.getW());
+				 skinIndexArray.set(offset_skin, (float)si1.getX());
+				 skinIndexArray.set(offset_skin + 1, (float)si1.getY());
+				 skinIndexArray.set(offset_skin + 2, (float)si1.getZ());
+				 skinIndexArray.set(offset_skin + 3, (float)si1.getW());
 
-				 skinIndexArray.set(offset_skin + 4, si2.getX());
-				 skinIndexArray.set(offset_skin + 5, si2.getY());
-				 skinIndexArray.set(offset_skin + 6, si2.getZ());
-				 skinIndexArray.set(offset_skin + 7, si2.getW());
+				 skinIndexArray.set(offset_skin + 4, (float)si2.getX());
+				 skinIndexArray.set(offset_skin + 5, (float)si2.getY());
+				 skinIndexArray.set(offset_skin + 6, (float)si2.getZ());
+				 skinIndexArray.set(offset_skin + 7, (float)si2.getW());
 
-				 skinIndexArray.set(offset_skin + 8, si3.getX());
-				 skinIndexArray.set(offset_skin + 9, si3.getY());
-				 skinIndexArray.set(offset_skin + 10, si3.getZ());
-				 skinIndexArray.set(offset_skin + 11, si3.getW());
+				 skinIndexArray.set(offset_skin + 8, (float)si3.getX());
+				 skinIndexArray.set(offset_skin + 9, (float)si3.getY());
+				 skinIndexArray.set(offset_skin + 10, (float)si3.getZ());
+				 skinIndexArray.set(offset_skin + 11, (float)si3.getW());
 
 				 offset_skin += 12;
 
@@ -762,25 +1159,25 @@ public class Mesh extends GeometryObject
 				 Vector4 sw3 = getGeometry().getSkinWeights().get(face.getC());
 				 Vector4 sw4 = getGeometry().getSkinWeights().get(face.getD());
 
-				 skinWeightArray.set(offset_skin, sw1.getX());
-				 skinWeightArray.set(offset_skin + 1, sw1.getY());
-				 skinWeightArray.set(offset_skin + 2, sw1.getZ());
-				 skinWeightArray.set(offset_skin + 3, sw1.getW());
+				 skinWeightArray.set(offset_skin, (float)sw1.getX());
+				 skinWeightArray.set(offset_skin + 1, (float)sw1.getY());
+				 skinWeightArray.set(offset_skin + 2, (float)sw1.getZ());
+				 skinWeightArray.set(offset_skin + 3, (float)sw1.getW());
 
-				 skinWeightArray.set(offset_skin + 4, sw2.getX());
-				 skinWeightArray.set(offset_skin + 5, sw2.getY());
-				 skinWeightArray.set(offset_skin + 6, sw2.getZ());
-				 skinWeightArray.set(offset_skin + 7, sw2.getW());
+				 skinWeightArray.set(offset_skin + 4, (float)sw2.getX());
+				 skinWeightArray.set(offset_skin + 5, (float)sw2.getY());
+				 skinWeightArray.set(offset_skin + 6, (float)sw2.getZ());
+				 skinWeightArray.set(offset_skin + 7, (float)sw2.getW());
 
-				 skinWeightArray.set(offset_skin + 8, sw3.getX());
-				 skinWeightArray.set(offset_skin + 9, sw3.getY());
-				 skinWeightArray.set(offset_skin + 10, sw3.getZ());
-				 skinWeightArray.set(offset_skin + 11, sw3.getW());
+				 skinWeightArray.set(offset_skin + 8, (float)sw3.getX());
+				 skinWeightArray.set(offset_skin + 9, (float)sw3.getY());
+				 skinWeightArray.set(offset_skin + 10, (float)sw3.getZ());
+				 skinWeightArray.set(offset_skin + 11, (float)sw3.getW());
 
-				 skinWeightArray.set(offset_skin + 12, sw4.getX());
-				 skinWeightArray.set(offset_skin + 13, sw4.getY());
-				 skinWeightArray.set(offset_skin + 14, sw4.getZ());
-				 skinWeightArray.set(offset_skin + 15, sw4.getW());
+				 skinWeightArray.set(offset_skin + 12, (float)sw4.getX());
+				 skinWeightArray.set(offset_skin + 13, (float)sw4.getY());
+				 skinWeightArray.set(offset_skin + 14, (float)sw4.getZ());
+				 skinWeightArray.set(offset_skin + 15, (float)sw4.getW());
 
 				 // indices
 
@@ -789,25 +1186,25 @@ public class Mesh extends GeometryObject
 				 Vector4 si3 = getGeometry().getSkinIndices().get(face.getC());
 				 Vector4 si4 = getGeometry().getSkinIndices().get(face.getD());
 
-				 skinIndexArray.set(offset_skin, si1.getX());
-				 skinIndexArray.set(offset_skin + 1, si1.getY());
-				 skinIndexArray.set(offset_skin + 2, si1.getZ());
-				 skinIndexArray.set(offset_skin + 3, si1.getW());
+				 skinIndexArray.set(offset_skin, (float)si1.getX());
+				 skinIndexArray.set(offset_skin + 1, (float)si1.getY());
+				 skinIndexArray.set(offset_skin + 2, (float)si1.getZ());
+				 skinIndexArray.set(offset_skin + 3, (float)si1.getW());
 
-				 skinIndexArray.set(offset_skin + 4, si2.getX());
-				 skinIndexArray.set(offset_skin + 5, si2.getY());
-				 skinIndexArray.set(offset_skin + 6, si2.getZ());
-				 skinIndexArray.set(offset_skin + 7, si2.getW());
+				 skinIndexArray.set(offset_skin + 4, (float)si2.getX());
+				 skinIndexArray.set(offset_skin + 5, (float)si2.getY());
+				 skinIndexArray.set(offset_skin + 6, (float)si2.getZ());
+				 skinIndexArray.set(offset_skin + 7, (float)si2.getW());
 
-				 skinIndexArray.set(offset_skin + 8, si3.getX());
-				 skinIndexArray.set(offset_skin + 9, si3.getY());
-				 skinIndexArray.set(offset_skin + 10, si3.getZ());
-				 skinIndexArray.set(offset_skin + 11, si3.getW());
+				 skinIndexArray.set(offset_skin + 8, (float)si3.getX());
+				 skinIndexArray.set(offset_skin + 9, (float)si3.getY());
+				 skinIndexArray.set(offset_skin + 10, (float)si3.getZ());
+				 skinIndexArray.set(offset_skin + 11, (float)si3.getW());
 
-				 skinIndexArray.set(offset_skin + 12, si4.getX());
-				 skinIndexArray.set(offset_skin + 13, si4.getY());
-				 skinIndexArray.set(offset_skin + 14, si4.getZ());
-				 skinIndexArray.set(offset_skin + 15, si4.getW());
+				 skinIndexArray.set(offset_skin + 12, (float)si4.getX());
+				 skinIndexArray.set(offset_skin + 13, (float)si4.getY());
+				 skinIndexArray.set(offset_skin + 14, (float)si4.getZ());
+				 skinIndexArray.set(offset_skin + 15, (float)si4.getW());
 
 				 offset_skin += 16;
 
@@ -825,7 +1222,7 @@ public class Mesh extends GeometryObject
 
 		 if ( getGeometry().isColorsNeedUpdate() && (vertexColorType != null )) 
 		 {
-			 Float64Array colorArray = geometryGroup.getWebGlColorArray();
+			 Float32Array colorArray = geometryGroup.getWebGlColorArray();
 			 int offset_color = 0;
 			 
 			 for ( int f = 0, fl = chunk_faces3.size(); f < fl; f ++ ) 
@@ -850,17 +1247,17 @@ public class Mesh extends GeometryObject
 					 c3 = faceColor;
 				 }
 
-				 colorArray.set(offset_color, c1.getR());
-				 colorArray.set(offset_color + 1, c1.getG());
-				 colorArray.set(offset_color + 2, c1.getB());
+				 colorArray.set(offset_color, (float)c1.getR());
+				 colorArray.set(offset_color + 1, (float)c1.getG());
+				 colorArray.set(offset_color + 2, (float)c1.getB());
 
-				 colorArray.set(offset_color + 3, c2.getR());
-				 colorArray.set(offset_color + 4, c2.getG());
-				 colorArray.set(offset_color + 5, c2.getB());
+				 colorArray.set(offset_color + 3, (float)c2.getR());
+				 colorArray.set(offset_color + 4, (float)c2.getG());
+				 colorArray.set(offset_color + 5, (float)c2.getB());
 
-				 colorArray.set(offset_color + 6, c3.getR());
-				 colorArray.set(offset_color + 7, c3.getG());
-				 colorArray.set(offset_color + 8, c3.getB());
+				 colorArray.set(offset_color + 6, (float)c3.getR());
+				 colorArray.set(offset_color + 7, (float)c3.getG());
+				 colorArray.set(offset_color + 8, (float)c3.getB());
 
 				 offset_color += 9;
 
@@ -889,21 +1286,21 @@ public class Mesh extends GeometryObject
 					 c4 = faceColor;
 				 }
 
-				 colorArray.set(offset_color, c1.getR());
-				 colorArray.set(offset_color + 1, c1.getG());
-				 colorArray.set(offset_color + 2, c1.getB());
+				 colorArray.set(offset_color, (float)c1.getR());
+				 colorArray.set(offset_color + 1, (float)c1.getG());
+				 colorArray.set(offset_color + 2, (float)c1.getB());
 
-				 colorArray.set(offset_color + 3, c2.getR());
-				 colorArray.set(offset_color + 4, c2.getG());
-				 colorArray.set(offset_color + 5, c2.getB());
+				 colorArray.set(offset_color + 3, (float)c2.getR());
+				 colorArray.set(offset_color + 4, (float)c2.getG());
+				 colorArray.set(offset_color + 5, (float)c2.getB());
 
-				 colorArray.set(offset_color + 6, c3.getR());
-				 colorArray.set(offset_color + 7, c3.getG());
-				 colorArray.set(offset_color + 8, c3.getB());
+				 colorArray.set(offset_color + 6, (float)c3.getR());
+				 colorArray.set(offset_color + 7, (float)c3.getG());
+				 colorArray.set(offset_color + 8, (float)c3.getB());
 
-				 colorArray.set(offset_color + 9, c4.getR());
-				 colorArray.set(offset_color + 10, c4.getG());
-				 colorArray.set(offset_color + 11, c4.getB());
+				 colorArray.set(offset_color + 9, (float)c4.getR());
+				 colorArray.set(offset_color + 10, (float)c4.getG());
+				 colorArray.set(offset_color + 11, (float)c4.getB());
 
 				 offset_color += 12;
 
@@ -911,14 +1308,13 @@ public class Mesh extends GeometryObject
 
 			 if ( offset_color > 0 ) 
 			 {
-				 gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryGroup.__webglColorBuffer );
-				 gl.bufferData( BufferTarget.ARRAY_BUFFER, colorArray, hint );
+				 setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglColorBuffer, colorArray, 3, faceSlots, hint );
 			 }
 		 }
 
 		 if ( getGeometry().isTangentsNeedUpdate() && geometry.hasTangents()) 
 		 {
-			 Float64Array tangentArray = geometryGroup.getWebGlTangentArray();
+			 Float32Array tangentArray = geometryGroup.getWebGlTangentArray();
 			 int offset_tangent = 0;
 			 
 			 for ( int f = 0, fl = chunk_faces3.size(); f < fl; f ++ ) 
@@ -932,20 +1328,20 @@ public class Mesh extends GeometryObject
 				 Vector4 t2 = vertexTangents.get(1);
 				 Vector4 t3 = vertexTangents.get(2);
 
-				 tangentArray.set(offset_tangent, t1.getX());
-				 tangentArray.set(offset_tangent + 1, t1.getY());
-				 tangentArray.set(offset_tangent + 2, t1.getZ());
-				 tangentArray.set(offset_tangent + 3, t1.getW());
+				 tangentArray.set(offset_tangent, (float)t1.getX());
+				 tangentArray.set(offset_tangent + 1, (float)t1.getY());
+				 tangentArray.set(offset_tangent + 2, (float)t1.getZ());
+				 tangentArray.set(offset_tangent + 3, (float)t1.getW());
 
-				 tangentArray.set(offset_tangent + 4, t2.getX());
-				 tangentArray.set(offset_tangent + 5, t2.getY());
-				 tangentArray.set(offset_tangent + 6, t2.getZ());
-				 tangentArray.set(offset_tangent + 7, t2.getW());
+				 tangentArray.set(offset_tangent + 4, (float)t2.getX());
+				 tangentArray.set(offset_tangent + 5, (float)t2.getY());
+				 tangentArray.set(offset_tangent + 6, (float)t2.getZ());
+				 tangentArray.set(offset_tangent + 7, (float)t2.getW());
 
-				 tangentArray.set(offset_tangent + 8, t3.getX());
-				 tangentArray.set(offset_tangent + 9, t3.getY());
-				 tangentArray.set(offset_tangent + 10, t3.getZ());
-				 tangentArray.set(offset_tangent + 11, t3.getW());
+				 tangentArray.set(offset_tangent + 8, (float)t3.getX());
+				 tangentArray.set(offset_tangent + 9, (float)t3.getY());
+				 tangentArray.set(offset_tangent + 10, (float)t3.getZ());
+				 tangentArray.set(offset_tangent + 11, (float)t3.getW());
 
 				 offset_tangent += 12;
 
@@ -962,32 +1358,31 @@ public class Mesh extends GeometryObject
 				 Vector4 t3 = vertexTangents.get(2);
 				 Vector4 t4 = vertexTangents.get(3);
 
-				 tangentArray.set(offset_tangent, t1.getX());
-				 tangentArray.set(offset_tangent + 1, t1.getY());
-				 tangentArray.set(offset_tangent + 2, t1.getZ());
-				 tangentArray.set(offset_tangent + 3, t1.getW());
+				 tangentArray.set(offset_tangent, (float)t1.getX());
+				 tangentArray.set(offset_tangent + 1, (float)t1.getY());
+				 tangentArray.set(offset_tangent + 2, (float)t1.getZ());
+				 tangentArray.set(offset_tangent + 3, (float)t1.getW());
 
-				 tangentArray.set(offset_tangent + 4, t2.getX());
-				 tangentArray.set(offset_tangent + 5, t2.getY());
-				 tangentArray.set(offset_tangent + 6, t2.getZ());
-				 tangentArray.set(offset_tangent + 7, t2.getW());
+				 tangentArray.set(offset_tangent + 4, (float)t2.getX());
+				 tangentArray.set(offset_tangent + 5, (float)t2.getY());
+				 tangentArray.set(offset_tangent + 6, (float)t2.getZ());
+				 tangentArray.set(offset_tangent + 7, (float)t2.getW());
 
-				 tangentArray.set(offset_tangent + 8, t3.getX());
-				 tangentArray.set(offset_tangent + 9, t3.getY());
-				 tangentArray.set(offset_tangent + 10, t3.getZ());
-				 tangentArray.set(offset_tangent + 11, t3.getW());
+				 tangentArray.set(offset_tangent + 8, (float)t3.getX());
+				 tangentArray.set(offset_tangent + 9, (float)t3.getY());
+				 tangentArray.set(offset_tangent + 10, (float)t3.getZ());
+				 tangentArray.set(offset_tangent + 11, (float)t3.getW());
 
-				 tangentArray.set(offset_tangent + 12, t4.getX());
-				 tangentArray.set(offset_tangent + 13, t4.getY());
-				 tangentArray.set(offset_tangent + 14, t4.getZ());
-				 tangentArray.set(offset_tangent + 15, t4.getW());
+				 tangentArray.set(offset_tangent + 12, (float)t4.getX());
+				 tangentArray.set(offset_tangent + 13, (float)t4.getY());
+				 tangentArray.set(offset_tangent + 14, (float)t4.getZ());
+				 tangentArray.set(offset_tangent + 15, (float)t4.getW());
 
 				 offset_tangent += 16;
 
 			 }
 
-			 gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryGroup.__webglTangentBuffer );
-			 gl.bufferData( BufferTarget.ARRAY_BUFFER, tangentArray, hint );
+			 setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglTangentBuffer, tangentArray, 4, faceSlots, hint );
 
 		 }
 
@@ -1010,9 +1405,9 @@ public class Mesh extends GeometryObject
 
 						 Vector3 vn = vertexNormals.get(i);
 
-						 geometryGroup.getWebGlNormalArray().set(offset_normal, vn.getX());
-						 geometryGroup.getWebGlNormalArray().set(offset_normal + 1, vn.getY());
-						 geometryGroup.getWebGlNormalArray().set(offset_normal + 2, vn.getZ());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal, (float)vn.getX());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal + 1, (float)vn.getY());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal + 2, (float)vn.getZ());
 
 						 offset_normal += 3;
 					 }
@@ -1024,9 +1419,9 @@ public class Mesh extends GeometryObject
 					 for ( int i = 0; i < 3; i ++ ) 
 					 {
 
-						 geometryGroup.getWebGlNormalArray().set(offset_normal, faceNormal.getX());
-						 geometryGroup.getWebGlNormalArray().set(offset_normal + 1, faceNormal.getY());
-						 geometryGroup.getWebGlNormalArray().set(offset_normal + 2, faceNormal.getZ());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal, (float)faceNormal.getX());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal + 1, (float)faceNormal.getY());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal + 2, (float)faceNormal.getZ());
 
 						 offset_normal += 3;
 					 }
@@ -1048,9 +1443,9 @@ public class Mesh extends GeometryObject
 
 						 Vector3 vn = vertexNormals.get(i);
 
-						 geometryGroup.getWebGlNormalArray().set(offset_normal, vn.getX());
-						 geometryGroup.getWebGlNormalArray().set(offset_normal + 1, vn.getY());
-						 geometryGroup.getWebGlNormalArray().set(offset_normal + 2, vn.getZ());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal, (float)vn.getX());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal + 1, (float)vn.getY());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal + 2, (float)vn.getZ());
 
 						 offset_normal += 3;
 					 }
@@ -1062,23 +1457,22 @@ public class Mesh extends GeometryObject
 					 for ( int i = 0; i < 4; i ++ ) 
 					 {
 
-						 geometryGroup.getWebGlNormalArray().set(offset_normal, faceNormal.getX());
-						 geometryGroup.getWebGlNormalArray().set(offset_normal + 1, faceNormal.getY());
-						 geometryGroup.getWebGlNormalArray().set(offset_normal + 2, faceNormal.getZ());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal, (float)faceNormal.getX());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal + 1, (float)faceNormal.getY());
+						 geometryGroup.getWebGlNormalArray().set(offset_normal + 2, (float)faceNormal.getZ());
 
 						 offset_normal += 3;
 					 }
 				 }
 			 }
 
-			 gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryGroup.__webglNormalBuffer);
-			 gl.bufferData( BufferTarget.ARRAY_BUFFER, geometryGroup.getWebGlNormalArray(), hint );
+			 setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglNormalBuffer, geometryGroup.getWebGlNormalArray(), 3, faceSlots, hint );
 
 		 }
 
 		 if ( getGeometry().isUvsNeedUpdate() && (obj_uvs != null) && uvType ) 
 		 {
-			 Float64Array uvArray = geometryGroup.getWebGlUvArray();
+			 Float32Array uvArray = geometryGroup.getWebGlUvArray();
 			 int offset_uv = 0;
 			 
 			 for (int  f = 0, fl = chunk_faces3.size(); f < fl; f ++ ) 
@@ -1094,8 +1488,8 @@ public class Mesh extends GeometryObject
 
 					 UV uvi = uv.get(i);
 
-					 uvArray.set(offset_uv, uvi.getU());
-					 uvArray.set(offset_uv + 1, uvi.getV());
+					 uvArray.set(offset_uv, (float)uvi.getU());
+					 uvArray.set(offset_uv + 1, (float)uvi.getV());
 
 					 offset_uv += 2;
 				 }
@@ -1114,8 +1508,8 @@ public class Mesh extends GeometryObject
 
 					 UV uvi = uv.get(i);
 
-					 uvArray.set(offset_uv, uvi.getU());
-					 uvArray.set(offset_uv + 1, uvi.getV());
+					 uvArray.set(offset_uv, (float)uvi.getU());
+					 uvArray.set(offset_uv + 1, (float)uvi.getV());
 
 					 offset_uv += 2;
 				 }
@@ -1123,14 +1517,13 @@ public class Mesh extends GeometryObject
 
 			 if ( offset_uv > 0 ) 
 			 {
-				 gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryGroup.__webglUVBuffer );
-				 gl.bufferData( BufferTarget.ARRAY_BUFFER, uvArray, hint );
+				 setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglUVBuffer, uvArray, 2, faceSlots, hint );
 			 }
 		 }
 
 		 if ( getGeometry().isUvsNeedUpdate() && (obj_uvs2 != null && obj_uvs2.size() > 0) && uvType ) 
 		 {
-			 Float64Array uv2Array = geometryGroup.getWebGlUv2Array();
+			 Float32Array uv2Array = geometryGroup.getWebGlUv2Array();
 			 int offset_uv2 = 0;
 			 
 			 for ( int f = 0, fl = chunk_faces3.size(); f < fl; f ++ ) 
@@ -1145,8 +1538,8 @@ public class Mesh extends GeometryObject
 				 {
 					 UV uv2i = uv2.get(i);
 
-					 uv2Array.set(offset_uv2, uv2i.getU());
-					 uv2Array.set(offset_uv2 + 1, uv2i.getV());
+					 uv2Array.set(offset_uv2, (float)uv2i.getU());
+					 uv2Array.set(offset_uv2 + 1, (float)uv2i.getV());
 
 					 offset_uv2 += 2;
 				 }
@@ -1164,8 +1557,8 @@ public class Mesh extends GeometryObject
 				 {
 					 UV uv2i = uv2.get(i);
 
-					 uv2Array.set(offset_uv2, uv2i.getU());
-					 uv2Array.set(offset_uv2 + 1, uv2i.getV());
+					 uv2Array.set(offset_uv2, (float)uv2i.getU());
+					 uv2Array.set(offset_uv2 + 1, (float)uv2i.getV());
 
 					 offset_uv2 += 2;
 				 }
@@ -1173,8 +1566,7 @@ public class Mesh extends GeometryObject
 
 			 if ( offset_uv2 > 0 ) 
 			 {
-				 gl.bindBuffer( BufferTarget.ARRAY_BUFFER, geometryGroup.__webglUV2Buffer );
-				 gl.bufferData( BufferTarget.ARRAY_BUFFER, uv2Array, hint );
+				 setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglUV2Buffer, uv2Array, 2, faceSlots, hint );
 			 }
 		 }
 
@@ -1186,20 +1578,20 @@ public class Mesh extends GeometryObject
 			 
 			 for ( int f = 0, fl = chunk_faces3.size(); f < fl; f ++ ) 
 			 {
-				 geometryGroup.getWebGlFaceArray().set(offset_face, vertexIndex);
-				 geometryGroup.getWebGlFaceArray().set(offset_face + 1, vertexIndex + 1);
-				 geometryGroup.getWebGlFaceArray().set(offset_face + 2, vertexIndex + 2);
+				 geometryGroup.setWebGlFaceIndex(offset_face, vertexIndex);
+				 geometryGroup.setWebGlFaceIndex(offset_face + 1, vertexIndex + 1);
+				 geometryGroup.setWebGlFaceIndex(offset_face + 2, vertexIndex + 2);
 
 				 offset_face += 3;
 
-				 geometryGroup.getWebGlLineArray().set(offset_line, vertexIndex);
-				 geometryGroup.getWebGlLineArray().set(offset_line + 1, vertexIndex + 1);
+				 geometryGroup.setWebGlLineIndex(offset_line, vertexIndex);
+				 geometryGroup.setWebGlLineIndex(offset_line + 1, vertexIndex + 1);
 
-				 geometryGroup.getWebGlLineArray().set(offset_line + 2, vertexIndex);
-				 geometryGroup.getWebGlLineArray().set(offset_line + 3, vertexIndex + 2);
+				 geometryGroup.setWebGlLineIndex(offset_line + 2, vertexIndex);
+				 geometryGroup.setWebGlLineIndex(offset_line + 3, vertexIndex + 2);
 
-				 geometryGroup.getWebGlLineArray().set(offset_line + 4, vertexIndex + 1);
-				 geometryGroup.getWebGlLineArray().set(offset_line + 5, vertexIndex + 2);
+				 geometryGroup.setWebGlLineIndex(offset_line + 4, vertexIndex + 1);
+				 geometryGroup.setWebGlLineIndex(offset_line + 5, vertexIndex + 2);
 
 				 offset_line += 6;
 
@@ -1208,27 +1600,27 @@ public class Mesh extends GeometryObject
 
 			 for ( int f = 0, fl = chunk_faces4.size(); f < fl; f ++ ) 
 			 {
-				 geometryGroup.getWebGlFaceArray().set(offset_face, vertexIndex);
-				 geometryGroup.getWebGlFaceArray().set(offset_face + 1, vertexIndex + 1);
-				 geometryGroup.getWebGlFaceArray().set(offset_face + 2, vertexIndex + 3);
+				 geometryGroup.setWebGlFaceIndex(offset_face, vertexIndex);
+				 geometryGroup.setWebGlFaceIndex(offset_face + 1, vertexIndex + 1);
+				 geometryGroup.setWebGlFaceIndex(offset_face + 2, vertexIndex + 3);
 
-				 geometryGroup.getWebGlFaceArray().set(offset_face + 3, vertexIndex + 1);
-				 geometryGroup.getWebGlFaceArray().set(offset_face + 4, vertexIndex + 2);
-				 geometryGroup.getWebGlFaceArray().set(offset_face + 5, vertexIndex + 3);
+				 geometryGroup.setWebGlFaceIndex(offset_face + 3, vertexIndex + 1);
+				 geometryGroup.setWebGlFaceIndex(offset_face + 4, vertexIndex + 2);
+				 geometryGroup.setWebGlFaceIndex(offset_face + 5, vertexIndex + 3);
 
 				 offset_face += 6;
 
-				 geometryGroup.getWebGlLineArray().set(offset_line, vertexIndex);
-				 geometryGroup.getWebGlLineArray().set(offset_line + 1, vertexIndex + 1);
+				 geometryGroup.setWebGlLineIndex(offset_line, vertexIndex);
+				 geometryGroup.setWebGlLineIndex(offset_line + 1, vertexIndex + 1);
 
-				 geometryGroup.getWebGlLineArray().set(offset_line + 2, vertexIndex);
-				 geometryGroup.getWebGlLineArray().set(offset_line + 3, vertexIndex + 3);
+				 geometryGroup.setWebGlLineIndex(offset_line + 2, vertexIndex);
+				 geometryGroup.setWebGlLineIndex(offset_line + 3, vertexIndex + 3);
 
-				 geometryGroup.getWebGlLineArray().set(offset_line + 4, vertexIndex + 1);
-				 geometryGroup.getWebGlLineArray().set(offset_line + 5, vertexIndex + 2);
+				 geometryGroup.setWebGlLineIndex(offset_line + 4, vertexIndex + 1);
+				 geometryGroup.setWebGlLineIndex(offset_line + 5, vertexIndex + 2);
 
-				 geometryGroup.getWebGlLineArray().set(offset_line + 6, vertexIndex + 2);
-				 geometryGroup.getWebGlLineArray().set(offset_line + 7, vertexIndex + 3);
+				 geometryGroup.setWebGlLineIndex(offset_line + 6, vertexIndex + 2);
+				 geometryGroup.setWebGlLineIndex(offset_line + 7, vertexIndex + 3);
 
 				 offset_line += 8;
 
@@ -1236,11 +1628,9 @@ public class Mesh extends GeometryObject
 
 			 }
 			 
-			 gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryGroup.__webglFaceBuffer );
-			 gl.bufferData( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryGroup.getWebGlFaceArray(), hint );
+			 geometryGroup.setBufferData( gl, BufferTarget.ELEMENT_ARRAY_BUFFER, geometryGroup.__webglFaceBuffer, geometryGroup.getWebGlFaceArray(), hint );
 
-			 gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryGroup.__webglLineBuffer );
-			 gl.bufferData( BufferTarget.ELEMENT_ARRAY_BUFFER, geometryGroup.getWebGlLineArray(), hint );
+			 geometryGroup.setBufferData( gl, BufferTarget.ELEMENT_ARRAY_BUFFER, geometryGroup.__webglLineBuffer, geometryGroup.getWebGlLineArray(), hint );
 
 		 }
 
@@ -1262,9 +1652,9 @@ public class Mesh extends GeometryObject
 						 {
 							 Face3 face = obj_faces.get(chunk_faces3.get(f));
 
-							 customAttribute.array.set(offset_custom, (Double)customAttribute.getValue().get(face.getA()));
-							 customAttribute.array.set(offset_custom + 1, (Double)customAttribute.getValue().get(face.getB()));
-							 customAttribute.array.set(offset_custom + 2, (Double)customAttribute.getValue().get(face.getC()));
+							 customAttribute.array.set(offset_custom, ((Double) customAttribute.getValue().get(face.getA())).floatValue());
+							 customAttribute.array.set(offset_custom + 1, ((Double) customAttribute.getValue().get(face.getB())).floatValue());
+							 customAttribute.array.set(offset_custom + 2, ((Double) customAttribute.getValue().get(face.getC())).floatValue());
 
 							 offset_custom += 3;
 						 }
@@ -1273,10 +1663,10 @@ public class Mesh extends GeometryObject
 						 {
 							 Face4 face = (Face4) obj_faces.get(chunk_faces4.get(f));
 
-							 customAttribute.array.set(offset_custom, (Double)customAttribute.getValue().get(face.getA()));
-							 customAttribute.array.set(offset_custom + 1, (Double)customAttribute.getValue().get(face.getB()));
-							 customAttribute.array.set(offset_custom + 2, (Double)customAttribute.getValue().get(face.getC()));
-							 customAttribute.array.set(offset_custom + 3, (Double)customAttribute.getValue().get(face.getD()));
+							 customAttribute.array.set(offset_custom, ((Double) customAttribute.getValue().get(face.getA())).floatValue());
+							 customAttribute.array.set(offset_custom + 1, ((Double) customAttribute.getValue().get(face.getB())).floatValue());
+							 customAttribute.array.set(offset_custom + 2, ((Double) customAttribute.getValue().get(face.getC())).floatValue());
+							 customAttribute.array.set(offset_custom + 3, ((Double) customAttribute.getValue().get(face.getD())).floatValue());
 
 							 offset_custom += 4;
 						 }
@@ -1287,9 +1677,9 @@ public class Mesh extends GeometryObject
 						 {
 							 double value = (Double) customAttribute.getValue().get(chunk_faces3.get(f));
 
-							 customAttribute.array.set(offset_custom, value);
-							 customAttribute.array.set(offset_custom + 1, value);
-							 customAttribute.array.set(offset_custom + 2, value);
+							 customAttribute.array.set(offset_custom, (float)value);
+							 customAttribute.array.set(offset_custom + 1, (float)value);
+							 customAttribute.array.set(offset_custom + 2, (float)value);
 
 							 offset_custom += 3;
 
@@ -1299,10 +1689,10 @@ public class Mesh extends GeometryObject
 						 {
 							 double value = (Double) customAttribute.getValue().get(chunk_faces4.get(f));
 
-							 customAttribute.array.set(offset_custom, value);
-							 customAttribute.array.set(offset_custom + 1, value);
-							 customAttribute.array.set(offset_custom + 2, value);
-							 customAttribute.array.set(offset_custom + 3, value);
+							 customAttribute.array.set(offset_custom, (float)value);
+							 customAttribute.array.set(offset_custom + 1, (float)value);
+							 customAttribute.array.set(offset_custom + 2, (float)value);
+							 customAttribute.array.set(offset_custom + 3, (float)value);
 
 							 offset_custom += 4;
 						 }
@@ -1321,14 +1711,14 @@ public class Mesh extends GeometryObject
 							 Vector3 v2 = (Vector3) customAttribute.getValue().get(face.getB());
 							 Vector3 v3 = (Vector3) customAttribute.getValue().get(face.getC());
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
 
-							 customAttribute.array.set(offset_custom + 2, v2.getX());
-							 customAttribute.array.set(offset_custom + 3, v2.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 3, (float)v2.getY());
 
-							 customAttribute.array.set(offset_custom + 4, v3.getX());
-							 customAttribute.array.set(offset_custom + 5, v3.getY());
+							 customAttribute.array.set(offset_custom + 4, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v3.getY());
 
 							 offset_custom += 6;
 
@@ -1343,17 +1733,17 @@ public class Mesh extends GeometryObject
 							 Vector3 v3 = (Vector3) customAttribute.getValue().get(face.getC());
 							 Vector3 v4 = (Vector3) customAttribute.getValue().get(face.getD());
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
 
-							 customAttribute.array.set(offset_custom + 2, v2.getX());
-							 customAttribute.array.set(offset_custom + 3, v2.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 3, (float)v2.getY());
 
-							 customAttribute.array.set(offset_custom + 4, v3.getX());
-							 customAttribute.array.set(offset_custom + 5, v3.getY());
+							 customAttribute.array.set(offset_custom + 4, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v3.getY());
 
-							 customAttribute.array.set(offset_custom + 6, v4.getX());
-							 customAttribute.array.set(offset_custom + 7, v4.getY());
+							 customAttribute.array.set(offset_custom + 6, (float)v4.getX());
+							 customAttribute.array.set(offset_custom + 7, (float)v4.getY());
 
 							 offset_custom += 8;
 						 }
@@ -1368,14 +1758,14 @@ public class Mesh extends GeometryObject
 							 Vector3 v2 = value;
 							 Vector3 v3 = value;
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
 
-							 customAttribute.array.set(offset_custom + 2, v2.getX());
-							 customAttribute.array.set(offset_custom + 3, v2.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 3, (float)v2.getY());
 
-							 customAttribute.array.set(offset_custom + 4, v3.getX());
-							 customAttribute.array.set(offset_custom + 5, v3.getY());
+							 customAttribute.array.set(offset_custom + 4, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v3.getY());
 
 							 offset_custom += 6;
 
@@ -1390,17 +1780,17 @@ public class Mesh extends GeometryObject
 							 Vector3 v3 = value;
 							 Vector3 v4 = value;
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
 
-							 customAttribute.array.set(offset_custom + 2, v2.getX());
-							 customAttribute.array.set(offset_custom + 3, v2.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 3, (float)v2.getY());
 
-							 customAttribute.array.set(offset_custom + 4, v3.getX());
-							 customAttribute.array.set(offset_custom + 5, v3.getY());
+							 customAttribute.array.set(offset_custom + 4, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v3.getY());
 
-							 customAttribute.array.set(offset_custom + 6, v4.getX());
-							 customAttribute.array.set(offset_custom + 7, v4.getY());
+							 customAttribute.array.set(offset_custom + 6, (float)v4.getX());
+							 customAttribute.array.set(offset_custom + 7, (float)v4.getY());
 
 							 offset_custom += 8;
 
@@ -1424,17 +1814,17 @@ public class Mesh extends GeometryObject
 								 Color v2 = (Color) customAttribute.getValue().get(face.getB());
 								 Color v3 = (Color) customAttribute.getValue().get(face.getC());
 
-								 customAttribute.array.set(offset_custom, v1.getR());
-								 customAttribute.array.set(offset_custom + 1, v1.getG());
-								 customAttribute.array.set(offset_custom + 2, v1.getB());
+								 customAttribute.array.set(offset_custom, (float)v1.getR());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getG());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getB());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getR());
-								 customAttribute.array.set(offset_custom + 4, v2.getG());
-								 customAttribute.array.set(offset_custom + 5, v2.getB());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getR());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getG());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getB());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getR());
-								 customAttribute.array.set(offset_custom + 7, v3.getG());
-								 customAttribute.array.set(offset_custom + 8, v3.getB());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getR());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getG());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getB());
 							 }
 							 else
 							 {
@@ -1442,17 +1832,17 @@ public class Mesh extends GeometryObject
 								 Vector3 v2 = (Vector3) customAttribute.getValue().get(face.getB());
 								 Vector3 v3 = (Vector3) customAttribute.getValue().get(face.getC());
 
-								 customAttribute.array.set(offset_custom, v1.getX());
-								 customAttribute.array.set(offset_custom + 1, v1.getY());
-								 customAttribute.array.set(offset_custom + 2, v1.getZ());
+								 customAttribute.array.set(offset_custom, (float)v1.getX());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getX());
-								 customAttribute.array.set(offset_custom + 4, v2.getY());
-								 customAttribute.array.set(offset_custom + 5, v2.getZ());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getX());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getY());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getZ());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getX());
-								 customAttribute.array.set(offset_custom + 7, v3.getY());
-								 customAttribute.array.set(offset_custom + 8, v3.getZ());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getX());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getY());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getZ());
 							 }
 
 							 offset_custom += 9;
@@ -1470,21 +1860,21 @@ public class Mesh extends GeometryObject
 								 Color v3 = (Color) customAttribute.getValue().get(face.getC());
 								 Color v4 = (Color) customAttribute.getValue().get(face.getD());
 
-								 customAttribute.array.set(offset_custom, v1.getR());
-								 customAttribute.array.set(offset_custom + 1, v1.getG());
-								 customAttribute.array.set(offset_custom + 2, v1.getB());
+								 customAttribute.array.set(offset_custom, (float)v1.getR());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getG());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getB());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getR());
-								 customAttribute.array.set(offset_custom + 4, v2.getG());
-								 customAttribute.array.set(offset_custom + 5, v2.getB());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getR());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getG());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getB());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getR());
-								 customAttribute.array.set(offset_custom + 7, v3.getG());
-								 customAttribute.array.set(offset_custom + 8, v3.getB());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getR());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getG());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getB());
 
-								 customAttribute.array.set(offset_custom + 9, v4.getR());
-								 customAttribute.array.set(offset_custom + 10, v4.getG());
-								 customAttribute.array.set(offset_custom + 11, v4.getB());
+								 customAttribute.array.set(offset_custom + 9, (float)v4.getR());
+								 customAttribute.array.set(offset_custom + 10, (float)v4.getG());
+								 customAttribute.array.set(offset_custom + 11, (float)v4.getB());
 							 }
 							 else
 							 {
@@ -1493,21 +1883,21 @@ public class Mesh extends GeometryObject
 								 Vector3 v3 = (Vector3) customAttribute.getValue().get(face.getC());
 								 Vector3 v4 = (Vector3) customAttribute.getValue().get(face.getD());
 
-								 customAttribute.array.set(offset_custom, v1.getX());
-								 customAttribute.array.set(offset_custom + 1, v1.getY());
-								 customAttribute.array.set(offset_custom + 2, v1.getZ());
+								 customAttribute.array.set(offset_custom, (float)v1.getX());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getX());
-								 customAttribute.array.set(offset_custom + 4, v2.getY());
-								 customAttribute.array.set(offset_custom + 5, v2.getZ());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getX());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getY());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getZ());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getX());
-								 customAttribute.array.set(offset_custom + 7, v3.getY());
-								 customAttribute.array.set(offset_custom + 8, v3.getZ());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getX());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getY());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getZ());
 
-								 customAttribute.array.set(offset_custom + 9, v4.getX());
-								 customAttribute.array.set(offset_custom + 10, v4.getY());
-								 customAttribute.array.set(offset_custom + 11, v4.getZ());
+								 customAttribute.array.set(offset_custom + 9, (float)v4.getX());
+								 customAttribute.array.set(offset_custom + 10, (float)v4.getY());
+								 customAttribute.array.set(offset_custom + 11, (float)v4.getZ());
 							 }
 
 							 offset_custom += 12;
@@ -1525,17 +1915,17 @@ public class Mesh extends GeometryObject
 								 Color v2 = value;
 								 Color v3 = value;
 
-								 customAttribute.array.set(offset_custom, v1.getR());
-								 customAttribute.array.set(offset_custom + 1, v1.getG());
-								 customAttribute.array.set(offset_custom + 2, v1.getB());
+								 customAttribute.array.set(offset_custom, (float)v1.getR());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getG());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getB());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getR());
-								 customAttribute.array.set(offset_custom + 4, v2.getG());
-								 customAttribute.array.set(offset_custom + 5, v2.getB());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getR());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getG());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getB());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getR());
-								 customAttribute.array.set(offset_custom + 7, v3.getG());
-								 customAttribute.array.set(offset_custom + 8, v3.getB());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getR());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getG());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getB());
 							 }
 							 else
 							 {
@@ -1544,17 +1934,17 @@ public class Mesh extends GeometryObject
 								 Vector3 v2 = value;
 								 Vector3 v3 = value;
 
-								 customAttribute.array.set(offset_custom, v1.getX());
-								 customAttribute.array.set(offset_custom + 1, v1.getY());
-								 customAttribute.array.set(offset_custom + 2, v1.getZ());
+								 customAttribute.array.set(offset_custom, (float)v1.getX());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getX());
-								 customAttribute.array.set(offset_custom + 4, v2.getY());
-								 customAttribute.array.set(offset_custom + 5, v2.getZ());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getX());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getY());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getZ());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getX());
-								 customAttribute.array.set(offset_custom + 7, v3.getY());
-								 customAttribute.array.set(offset_custom + 8, v3.getZ());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getX());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getY());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getZ());
 							 }
 
 							 offset_custom += 9;
@@ -1572,21 +1962,21 @@ public class Mesh extends GeometryObject
 								 Color v3 = value;
 								 Color v4 = value;
 
-								 customAttribute.array.set(offset_custom, v1.getR());
-								 customAttribute.array.set(offset_custom + 1, v1.getG());
-								 customAttribute.array.set(offset_custom + 2, v1.getB());
+								 customAttribute.array.set(offset_custom, (float)v1.getR());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getG());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getB());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getR());
-								 customAttribute.array.set(offset_custom + 4, v2.getG());
-								 customAttribute.array.set(offset_custom + 5, v2.getB());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getR());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getG());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getB());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getR());
-								 customAttribute.array.set(offset_custom + 7, v3.getG());
-								 customAttribute.array.set(offset_custom + 8, v3.getB());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getR());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getG());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getB());
 
-								 customAttribute.array.set(offset_custom + 9, v4.getR());
-								 customAttribute.array.set(offset_custom + 10, v4.getG());
-								 customAttribute.array.set(offset_custom + 11, v4.getB());
+								 customAttribute.array.set(offset_custom + 9, (float)v4.getR());
+								 customAttribute.array.set(offset_custom + 10, (float)v4.getG());
+								 customAttribute.array.set(offset_custom + 11, (float)v4.getB());
 							 }
 							 else
 							 {
@@ -1596,21 +1986,21 @@ public class Mesh extends GeometryObject
 								 Vector3 v3 = value;
 								 Vector3 v4 = value;
 
-								 customAttribute.array.set(offset_custom, v1.getX());
-								 customAttribute.array.set(offset_custom + 1, v1.getY());
-								 customAttribute.array.set(offset_custom + 2, v1.getZ());
+								 customAttribute.array.set(offset_custom, (float)v1.getX());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getX());
-								 customAttribute.array.set(offset_custom + 4, v2.getY());
-								 customAttribute.array.set(offset_custom + 5, v2.getZ());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getX());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getY());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getZ());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getX());
-								 customAttribute.array.set(offset_custom + 7, v3.getY());
-								 customAttribute.array.set(offset_custom + 8, v3.getZ());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getX());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getY());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getZ());
 
-								 customAttribute.array.set(offset_custom + 9, v4.getX());
-								 customAttribute.array.set(offset_custom + 10, v4.getY());
-								 customAttribute.array.set(offset_custom + 11, v4.getZ());
+								 customAttribute.array.set(offset_custom + 9, (float)v4.getX());
+								 customAttribute.array.set(offset_custom + 10, (float)v4.getY());
+								 customAttribute.array.set(offset_custom + 11, (float)v4.getZ());
 							 }
 
 							 offset_custom += 12;
@@ -1627,17 +2017,17 @@ public class Mesh extends GeometryObject
 								 Color v2 = value.get(1);
 								 Color v3 = value.get(2);
 
-								 customAttribute.array.set(offset_custom, v1.getR());
-								 customAttribute.array.set(offset_custom + 1, v1.getG());
-								 customAttribute.array.set(offset_custom + 2, v1.getB());
+								 customAttribute.array.set(offset_custom, (float)v1.getR());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getG());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getB());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getR());
-								 customAttribute.array.set(offset_custom + 4, v2.getG());
-								 customAttribute.array.set(offset_custom + 5, v2.getB());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getR());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getG());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getB());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getR());
-								 customAttribute.array.set(offset_custom + 7, v3.getG());
-								 customAttribute.array.set(offset_custom + 8, v3.getB());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getR());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getG());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getB());
 							 }
 							 else
 							 {
@@ -1646,17 +2036,17 @@ public class Mesh extends GeometryObject
 								 Vector3 v2 = value.get(1);
 								 Vector3 v3 = value.get(2);
 
-								 customAttribute.array.set(offset_custom, v1.getX());
-								 customAttribute.array.set(offset_custom + 1, v1.getY());
-								 customAttribute.array.set(offset_custom + 2, v1.getZ());
+								 customAttribute.array.set(offset_custom, (float)v1.getX());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getX());
-								 customAttribute.array.set(offset_custom + 4, v2.getY());
-								 customAttribute.array.set(offset_custom + 5, v2.getZ());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getX());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getY());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getZ());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getX());
-								 customAttribute.array.set(offset_custom + 7, v3.getY());
-								 customAttribute.array.set(offset_custom + 8, v3.getZ());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getX());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getY());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getZ());
 							 }
 
 							 offset_custom += 9;
@@ -1672,21 +2062,21 @@ public class Mesh extends GeometryObject
 								 Color v3 = value.get(2);
 								 Color v4 = value.get(3);
 
-								 customAttribute.array.set(offset_custom, v1.getR());
-								 customAttribute.array.set(offset_custom + 1, v1.getG());
-								 customAttribute.array.set(offset_custom + 2, v1.getB());
+								 customAttribute.array.set(offset_custom, (float)v1.getR());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getG());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getB());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getR());
-								 customAttribute.array.set(offset_custom + 4, v2.getG());
-								 customAttribute.array.set(offset_custom + 5, v2.getB());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getR());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getG());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getB());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getR());
-								 customAttribute.array.set(offset_custom + 7, v3.getG());
-								 customAttribute.array.set(offset_custom + 8, v3.getB());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getR());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getG());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getB());
 
-								 customAttribute.array.set(offset_custom + 9, v4.getR());
-								 customAttribute.array.set(offset_custom + 10, v4.getG());
-								 customAttribute.array.set(offset_custom + 11, v4.getB());
+								 customAttribute.array.set(offset_custom + 9, (float)v4.getR());
+								 customAttribute.array.set(offset_custom + 10, (float)v4.getG());
+								 customAttribute.array.set(offset_custom + 11, (float)v4.getB());
 							 }
 							 else
 							 {
@@ -1696,21 +2086,21 @@ public class Mesh extends GeometryObject
 								 Vector3 v3 = value.get(2);
 								 Vector3 v4 = value.get(3);
 
-								 customAttribute.array.set(offset_custom, v1.getX());
-								 customAttribute.array.set(offset_custom + 1, v1.getY());
-								 customAttribute.array.set(offset_custom + 2, v1.getZ());
+								 customAttribute.array.set(offset_custom, (float)v1.getX());
+								 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+								 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
 
-								 customAttribute.array.set(offset_custom + 3, v2.getX());
-								 customAttribute.array.set(offset_custom + 4, v2.getY());
-								 customAttribute.array.set(offset_custom + 5, v2.getZ());
+								 customAttribute.array.set(offset_custom + 3, (float)v2.getX());
+								 customAttribute.array.set(offset_custom + 4, (float)v2.getY());
+								 customAttribute.array.set(offset_custom + 5, (float)v2.getZ());
 
-								 customAttribute.array.set(offset_custom + 6, v3.getX());
-								 customAttribute.array.set(offset_custom + 7, v3.getY());
-								 customAttribute.array.set(offset_custom + 8, v3.getZ());
+								 customAttribute.array.set(offset_custom + 6, (float)v3.getX());
+								 customAttribute.array.set(offset_custom + 7, (float)v3.getY());
+								 customAttribute.array.set(offset_custom + 8, (float)v3.getZ());
 
-								 customAttribute.array.set(offset_custom + 9, v4.getX());
-								 customAttribute.array.set(offset_custom + 10, v4.getY());
-								 customAttribute.array.set(offset_custom + 11, v4.getZ());
+								 customAttribute.array.set(offset_custom + 9, (float)v4.getX());
+								 customAttribute.array.set(offset_custom + 10, (float)v4.getY());
+								 customAttribute.array.set(offset_custom + 11, (float)v4.getZ());
 							 }
 
 							 offset_custom += 12;
@@ -1731,20 +2121,20 @@ public class Mesh extends GeometryObject
 							 Vector4 v2 = (Vector4) customAttribute.getValue().get(face.getB());
 							 Vector4 v3 = (Vector4) customAttribute.getValue().get(face.getC());
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
-							 customAttribute.array.set(offset_custom + 2, v1.getZ());
-							 customAttribute.array.set(offset_custom + 3, v1.getW());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
+							 customAttribute.array.set(offset_custom + 3, (float)v1.getW());
 
-							 customAttribute.array.set(offset_custom + 4, v2.getX());
-							 customAttribute.array.set(offset_custom + 5, v2.getY());
-							 customAttribute.array.set(offset_custom + 6, v2.getZ());
-							 customAttribute.array.set(offset_custom + 7, v2.getW());
+							 customAttribute.array.set(offset_custom + 4, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v2.getY());
+							 customAttribute.array.set(offset_custom + 6, (float)v2.getZ());
+							 customAttribute.array.set(offset_custom + 7, (float)v2.getW());
 
-							 customAttribute.array.set(offset_custom + 8, v3.getX());
-							 customAttribute.array.set(offset_custom + 9, v3.getY());
-							 customAttribute.array.set(offset_custom + 10, v3.getZ());
-							 customAttribute.array.set(offset_custom + 11, v3.getW());
+							 customAttribute.array.set(offset_custom + 8, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 9, (float)v3.getY());
+							 customAttribute.array.set(offset_custom + 10, (float)v3.getZ());
+							 customAttribute.array.set(offset_custom + 11, (float)v3.getW());
 
 							 offset_custom += 12;
 
@@ -1759,25 +2149,25 @@ public class Mesh extends GeometryObject
 							 Vector4 v3 = (Vector4) customAttribute.getValue().get(face.getC());
 							 Vector4 v4 = (Vector4) customAttribute.getValue().get(face.getD());
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
-							 customAttribute.array.set(offset_custom + 2, v1.getZ());
-							 customAttribute.array.set(offset_custom + 3, v1.getW());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
+							 customAttribute.array.set(offset_custom + 3, (float)v1.getW());
 
-							 customAttribute.array.set(offset_custom + 4, v2.getX());
-							 customAttribute.array.set(offset_custom + 5, v2.getY());
-							 customAttribute.array.set(offset_custom + 6, v2.getZ());
-							 customAttribute.array.set(offset_custom + 7, v2.getW());
+							 customAttribute.array.set(offset_custom + 4, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v2.getY());
+							 customAttribute.array.set(offset_custom + 6, (float)v2.getZ());
+							 customAttribute.array.set(offset_custom + 7, (float)v2.getW());
 
-							 customAttribute.array.set(offset_custom + 8, v3.getX());
-							 customAttribute.array.set(offset_custom + 9, v3.getY());
-							 customAttribute.array.set(offset_custom + 10, v3.getZ());
-							 customAttribute.array.set(offset_custom + 11, v3.getW());
+							 customAttribute.array.set(offset_custom + 8, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 9, (float)v3.getY());
+							 customAttribute.array.set(offset_custom + 10, (float)v3.getZ());
+							 customAttribute.array.set(offset_custom + 11, (float)v3.getW());
 
-							 customAttribute.array.set(offset_custom + 12, v4.getX());
-							 customAttribute.array.set(offset_custom + 13, v4.getY());
-							 customAttribute.array.set(offset_custom + 14, v4.getZ());
-							 customAttribute.array.set(offset_custom + 15, v4.getW());
+							 customAttribute.array.set(offset_custom + 12, (float)v4.getX());
+							 customAttribute.array.set(offset_custom + 13, (float)v4.getY());
+							 customAttribute.array.set(offset_custom + 14, (float)v4.getZ());
+							 customAttribute.array.set(offset_custom + 15, (float)v4.getW());
 
 							 offset_custom += 16;
 						 }
@@ -1792,20 +2182,20 @@ public class Mesh extends GeometryObject
 							 Vector4 v2 = value;
 							 Vector4 v3 = value;
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
-							 customAttribute.array.set(offset_custom + 2, v1.getZ());
-							 customAttribute.array.set(offset_custom + 3, v1.getW());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
+							 customAttribute.array.set(offset_custom + 3, (float)v1.getW());
 
-							 customAttribute.array.set(offset_custom + 4, v2.getX());
-							 customAttribute.array.set(offset_custom + 5, v2.getY());
-							 customAttribute.array.set(offset_custom + 6, v2.getZ());
-							 customAttribute.array.set(offset_custom + 7, v2.getW());
+							 customAttribute.array.set(offset_custom + 4, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v2.getY());
+							 customAttribute.array.set(offset_custom + 6, (float)v2.getZ());
+							 customAttribute.array.set(offset_custom + 7, (float)v2.getW());
 
-							 customAttribute.array.set(offset_custom + 8, v3.getX());
-							 customAttribute.array.set(offset_custom + 9, v3.getY());
-							 customAttribute.array.set(offset_custom + 10, v3.getZ());
-							 customAttribute.array.set(offset_custom + 11, v3.getW());
+							 customAttribute.array.set(offset_custom + 8, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 9, (float)v3.getY());
+							 customAttribute.array.set(offset_custom + 10, (float)v3.getZ());
+							 customAttribute.array.set(offset_custom + 11, (float)v3.getW());
 
 							 offset_custom += 12;
 
@@ -1820,25 +2210,25 @@ public class Mesh extends GeometryObject
 							 Vector4 v3 = value;
 							 Vector4 v4 = value;
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
-							 customAttribute.array.set(offset_custom + 2, v1.getZ());
-							 customAttribute.array.set(offset_custom + 3, v1.getW());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
+							 customAttribute.array.set(offset_custom + 3, (float)v1.getW());
 
-							 customAttribute.array.set(offset_custom + 4, v2.getX());
-							 customAttribute.array.set(offset_custom + 5, v2.getY());
-							 customAttribute.array.set(offset_custom + 6, v2.getZ());
-							 customAttribute.array.set(offset_custom + 7, v2.getW());
+							 customAttribute.array.set(offset_custom + 4, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v2.getY());
+							 customAttribute.array.set(offset_custom + 6, (float)v2.getZ());
+							 customAttribute.array.set(offset_custom + 7, (float)v2.getW());
 
-							 customAttribute.array.set(offset_custom + 8, v3.getX());
-							 customAttribute.array.set(offset_custom + 9, v3.getY());
-							 customAttribute.array.set(offset_custom + 10, v3.getZ());
-							 customAttribute.array.set(offset_custom + 11, v3.getW());
+							 customAttribute.array.set(offset_custom + 8, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 9, (float)v3.getY());
+							 customAttribute.array.set(offset_custom + 10, (float)v3.getZ());
+							 customAttribute.array.set(offset_custom + 11, (float)v3.getW());
 
-							 customAttribute.array.set(offset_custom + 12, v4.getX());
-							 customAttribute.array.set(offset_custom + 13, v4.getY());
-							 customAttribute.array.set(offset_custom + 14, v4.getZ());
-							 customAttribute.array.set(offset_custom + 15, v4.getW());
+							 customAttribute.array.set(offset_custom + 12, (float)v4.getX());
+							 customAttribute.array.set(offset_custom + 13, (float)v4.getY());
+							 customAttribute.array.set(offset_custom + 14, (float)v4.getZ());
+							 customAttribute.array.set(offset_custom + 15, (float)v4.getW());
 
 							 offset_custom += 16;
 
@@ -1854,20 +2244,20 @@ public class Mesh extends GeometryObject
 							 Vector4 v2 = value.get(1);
 							 Vector4 v3 = value.get(2);
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
-							 customAttribute.array.set(offset_custom + 2, v1.getZ());
-							 customAttribute.array.set(offset_custom + 3, v1.getW());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
+							 customAttribute.array.set(offset_custom + 3, (float)v1.getW());
 
-							 customAttribute.array.set(offset_custom + 4, v2.getX());
-							 customAttribute.array.set(offset_custom + 5, v2.getY());
-							 customAttribute.array.set(offset_custom + 6, v2.getZ());
-							 customAttribute.array.set(offset_custom + 7, v2.getW());
+							 customAttribute.array.set(offset_custom + 4, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v2.getY());
+							 customAttribute.array.set(offset_custom + 6, (float)v2.getZ());
+							 customAttribute.array.set(offset_custom + 7, (float)v2.getW());
 
-							 customAttribute.array.set(offset_custom + 8, v3.getX());
-							 customAttribute.array.set(offset_custom + 9, v3.getY());
-							 customAttribute.array.set(offset_custom + 10, v3.getZ());
-							 customAttribute.array.set(offset_custom + 11, v3.getW());
+							 customAttribute.array.set(offset_custom + 8, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 9, (float)v3.getY());
+							 customAttribute.array.set(offset_custom + 10, (float)v3.getZ());
+							 customAttribute.array.set(offset_custom + 11, (float)v3.getW());
 
 							 offset_custom += 12;
 						 }
@@ -1881,25 +2271,25 @@ public class Mesh extends GeometryObject
 							 Vector4 v3 = value.get(2);
 							 Vector4 v4 = value.get(3);
 
-							 customAttribute.array.set(offset_custom, v1.getX());
-							 customAttribute.array.set(offset_custom + 1, v1.getY());
-							 customAttribute.array.set(offset_custom + 2, v1.getZ());
-							 customAttribute.array.set(offset_custom + 3, v1.getW());
+							 customAttribute.array.set(offset_custom, (float)v1.getX());
+							 customAttribute.array.set(offset_custom + 1, (float)v1.getY());
+							 customAttribute.array.set(offset_custom + 2, (float)v1.getZ());
+							 customAttribute.array.set(offset_custom + 3, (float)v1.getW());
 
-							 customAttribute.array.set(offset_custom + 4, v2.getX());
-							 customAttribute.array.set(offset_custom + 5, v2.getY());
-							 customAttribute.array.set(offset_custom + 6, v2.getZ());
-							 customAttribute.array.set(offset_custom + 7, v2.getW());
+							 customAttribute.array.set(offset_custom + 4, (float)v2.getX());
+							 customAttribute.array.set(offset_custom + 5, (float)v2.getY());
+							 customAttribute.array.set(offset_custom + 6, (float)v2.getZ());
+							 customAttribute.array.set(offset_custom + 7, (float)v2.getW());
 
-							 customAttribute.array.set(offset_custom + 8, v3.getX());
-							 customAttribute.array.set(offset_custom + 9, v3.getY());
-							 customAttribute.array.set(offset_custom + 10, v3.getZ());
-							 customAttribute.array.set(offset_custom + 11, v3.getW());
+							 customAttribute.array.set(offset_custom + 8, (float)v3.getX());
+							 customAttribute.array.set(offset_custom + 9, (float)v3.getY());
+							 customAttribute.array.set(offset_custom + 10, (float)v3.getZ());
+							 customAttribute.array.set(offset_custom + 11, (float)v3.getW());
 
-							 customAttribute.array.set(offset_custom + 12, v4.getX());
-							 customAttribute.array.set(offset_custom + 13, v4.getY());
-							 customAttribute.array.set(offset_custom + 14, v4.getZ());
-							 customAttribute.array.set(offset_custom + 15, v4.getW());
+							 customAttribute.array.set(offset_custom + 12, (float)v4.getX());
+							 customAttribute.array.set(offset_custom + 13, (float)v4.getY());
+							 customAttribute.array.set(offset_custom + 14, (float)v4.getZ());
+							 customAttribute.array.set(offset_custom + 15, (float)v4.getW());
 
 							 offset_custom += 16;
 						 }
@@ -1911,9 +2301,172 @@ public class Mesh extends GeometryObject
 			 }
 		 }
 
+		 setInterleavedBuffer( gl, geometryGroup, hint );
+
 		 if ( !geometry.isDynamic() ) 
 			 geometryGroup.dispose();
 	}
+
+	/*
+	 * Loads the attribute array to its own buffer. If slots are set only 
+	 * buffer vertices [slots[0], slots[1]) are loaded. Interleaved geometry 
+	 * groups are loaded at once by setInterleavedBuffer().
+	 */
+	private void setAttributeBuffer(WebGLRenderingContext gl, GeometryGroup geometryGroup, WebGLBuffer buffer, Float32Array array, int itemSize, int[] slots, BufferUsage hint)
+	{
+		if ( geometryGroup.isInterleavedBuffers() )
+			return;
+
+		if ( slots == null )
+			geometryGroup.setBufferData( gl, BufferTarget.ARRAY_BUFFER, buffer, array, hint );
+		else
+			geometryGroup.setBufferData( gl, BufferTarget.ARRAY_BUFFER, buffer, array, slots[ 0 ] * itemSize, slots[ 1 ] * itemSize, hint );
+	}
+
+	/*
+	 * Gets buffer vertices [start, end) used by the faces from 
+	 * Geometry.setFacesUpdateRange(), or null to load the whole buffers.
+	 */
+	private int[] getFaceUpdateSlots(GeometryGroup geometryGroup)
+	{
+		Geometry geometry = getGeometry();
+
+		if ( ! geometry.hasFacesUpdateRange() || geometryGroup.isInterleavedBuffers() )
+			return null;
+
+		int start = geometry.getFacesUpdateStart();
+		int end = geometry.getFacesUpdateEnd();
+		int[] cornerVertices = geometryGroup.__cornerVertices;
+
+		int[] slots = new int[] { Integer.MAX_VALUE, 0 };
+
+		int corner = 0;
+		for ( int f = 0, fl = geometryGroup.faces3.size() + geometryGroup.faces4.size(); f < fl; f ++ ) 
+		{
+			boolean isFace3 = f < geometryGroup.faces3.size();
+			int fi = isFace3 ? geometryGroup.faces3.get( f ) : geometryGroup.faces4.get( f - geometryGroup.faces3.size() );
+			int ncorners = isFace3 ? 3 : 4;
+
+			if ( fi >= start && fi < end )
+			{
+				for ( int i = corner; i < corner + ncorners; i ++ ) 
+				{
+					int slot = ( cornerVertices != null ) ? cornerVertices[ i ] : i;
+					slots[ 0 ] = Math.min( slots[ 0 ], slot );
+					slots[ 1 ] = Math.max( slots[ 1 ], slot + 1 );
+				}
+			}
+
+			corner += ncorners;
+		}
+
+		if ( slots[ 0 ] > slots[ 1 ] )
+			slots[ 0 ] = slots[ 1 ];
+
+		return slots;
+	}
+
+	/*
+	 * Updates buffer positions of the vertices from 
+	 * Geometry.setVerticesNeedUpdate(start, end) and loads only 
+	 * the part of the buffer which contains them.
+	 */
+	private void setVerticesRange(WebGLRenderingContext gl, GeometryGroup geometryGroup, BufferUsage hint)
+	{
+		Geometry geometry = getGeometry();
+		List<Vector3> vertices = geometry.getVertices();
+
+		if ( geometryGroup.__vertexSlotStart == null || geometryGroup.__vertexSlotStart.length != vertices.size() + 1 )
+			initVertexSlots( geometryGroup );
+
+		int[] slotStart = geometryGroup.__vertexSlotStart;
+		int[] slots = geometryGroup.__vertexSlots;
+
+		Float32Array vertexArray = geometryGroup.getWebGlVertexArray();
+
+		int[] range = new int[] { Integer.MAX_VALUE, 0 };
+
+		for ( int v = Math.max( 0, geometry.getVerticesUpdateStart() ), vl = Math.min( geometry.getVerticesUpdateEnd(), vertices.size() ); v < vl; v ++ ) 
+		{
+			Vector3 vertex = vertices.get( v );
+
+			for ( int i = slotStart[ v ]; i < slotStart[ v + 1 ]; i ++ ) 
+			{
+				int slot = slots[ i ];
+
+				vertexArray.set( slot * 3,     (float)vertex.getX() );
+				vertexArray.set( slot * 3 + 1, (float)vertex.getY() );
+				vertexArray.set( slot * 3 + 2, (float)vertex.getZ() );
+
+				range[ 0 ] = Math.min( range[ 0 ], slot );
+				range[ 1 ] = Math.max( range[ 1 ], slot + 1 );
+			}
+		}
+
+		if ( range[ 0 ] < range[ 1 ] )
+			setAttributeBuffer( gl, geometryGroup, geometryGroup.__webglVertexBuffer, vertexArray, 3, range, hint );
+	}
+
+	/*
+	 * Builds the lists of buffer vertices for each geometry vertex.
+	 */
+	private void initVertexSlots(GeometryGroup geometryGroup)
+	{
+		List<Face3> obj_faces = getGeometry().getFaces();
+		int nvertices = getGeometry().getVertices().size();
+
+		int[] slotVertex;
+
+		if ( geometryGroup.__vertexCorners != null )
+		{
+			int[] corners = geometryGroup.__vertexCorners;
+			slotVertex = new int[corners.length];
+
+			for ( int v = 0; v < corners.length; v ++ )
+				slotVertex[ v ] = getCornerVertex( obj_faces.get( corners[ v ] / 4 ), corners[ v ] % 4 );
+		}
+		else
+		{
+			slotVertex = new int[geometryGroup.faces3.size() * 3 + geometryGroup.faces4.size() * 4];
+
+			int slot = 0;
+			for ( Integer fi : geometryGroup.faces3 )
+				for ( int i = 0; i < 3; i ++ )
+					slotVertex[ slot ++ ] = getCornerVertex( obj_faces.get( fi ), i );
+
+			for ( Integer fi : geometryGroup.faces4 )
+				for ( int i = 0; i < 4; i ++ )
+					slotVertex[ slot ++ ] = getCornerVertex( obj_faces.get( fi ), i );
+		}
+
+		int[] slotStart = new int[nvertices + 1];
+		for ( int s = 0; s < slotVertex.length; s ++ )
+			slotStart[ slotVertex[ s ] + 1 ] ++;
+
+		for ( int v = 0; v < nvertices; v ++ )
+			slotStart[ v + 1 ] += slotStart[ v ];
+
+		int[] next = new int[nvertices];
+		for ( int v = 0; v < nvertices; v ++ )
+			next[ v ] = slotStart[ v ];
+
+		int[] slots = new int[slotVertex.length];
+		for ( int s = 0; s < slotVertex.length; s ++ )
+			slots[ next[ slotVertex[ s ] ] ++ ] = s;
+
+		geometryGroup.__vertexSlotStart = slotStart;
+		geometryGroup.__vertexSlots = slots;
+	}
+
+	private void setInterleavedBuffer(WebGLRenderingContext gl, GeometryGroup geometryGroup, BufferUsage hint)
+	{
+		Geometry geometry = getGeometry();
+
+		if ( geometryGroup.isInterleavedBuffers() && ( geometry.isVerticesNeedUpdate() 
+				|| geometry.isNormalsNeedUpdate() || geometry.isColorsNeedUpdate() 
+				|| geometry.isTangentsNeedUpdate() || geometry.isUvsNeedUpdate() ) )
+			geometryGroup.setInterleavedBuffer( gl, hint );
+	}
 	
 	@Override
 	public void deleteBuffers(WebGLRenderer renderer) 
@@ -1927,6 +2480,9 @@ public class Mesh extends GeometryObject
 			renderer.getGL().deleteBuffer( geometryGroup.__webglUVBuffer );
 			renderer.getGL().deleteBuffer( geometryGroup.__webglUV2Buffer );
 
+			if ( geometryGroup.__webglInterleavedBuffer != null )
+				renderer.getGL().deleteBuffer( geometryGroup.__webglInterleavedBuffer );
+
 			renderer.getGL().deleteBuffer( geometryGroup.__webglSkinIndicesBuffer );
 			renderer.getGL().deleteBuffer( geometryGroup.__webglSkinWeightsBuffer );
 
@@ -1962,7 +2518,12 @@ public class Mesh extends GeometryObject
 		}
 	}
 
-	private void sortFacesByMaterial ( Geometry geometry ) 
+	/*
+	 * Splits faces into geometry groups by material. A new group is 
+	 * started when the group exceeds maxVertices, which is 65535 for 
+	 * 16-bit element indices.
+	 */
+	private void sortFacesByMaterial ( Geometry geometry, int maxVertices ) 
 	{
 		Log.debug("Called sortFacesByMaterial() for geometry: " + geometry.getClass().getName());
 
@@ -1994,7 +2555,7 @@ public class Mesh extends GeometryObject
 
 			int vertices = face.getClass() == Face3.class ? 3 : 4;
 
-			if ( geometry.getGeometryGroupsCache().get(groupHash).vertices + vertices > 65535 ) 
+			if ( geometry.getGeometryGroupsCache().get(groupHash).vertices + vertices > maxVertices ) 
 			{
 				hash_map.put(materialHash, hash_map.get(materialHash) + 1);
 				groupHash = materialHash + '_' + hash_map.get( materialHash );
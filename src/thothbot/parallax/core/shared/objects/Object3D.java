@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.Float64Array;
 
 import thothbot.parallax.core.client.gl2.WebGLBuffer;
@@ -29,6 +30,7 @@ import thothbot.parallax.core.shared.Log;
 import thothbot.parallax.core.shared.core.Euler;
 import thothbot.parallax.core.shared.core.Matrix3;
 import thothbot.parallax.core.shared.core.Matrix4;
+import thothbot.parallax.core.shared.core.Octree;
 import thothbot.parallax.core.shared.core.Quaternion;
 import thothbot.parallax.core.shared.core.Vector3;
 import thothbot.parallax.core.shared.scenes.Scene;
@@ -98,18 +100,38 @@ public class Object3D implements DimensionalObject
 	public boolean hasNormal;
 	public double renderDepth;
 	public Matrix4 identityMatrix;
-	public Float64Array positionArray;
-	public Float64Array normalArray;
+	public Float32Array positionArray;
+	public Float32Array normalArray;
 	public WebGLBuffer __webglVertexBuffer;
 	public WebGLBuffer __webglNormalBuffer;
 	public boolean isWebglActive;
 	public boolean isWebglInit;
-	public Float64Array _modelMatrixArray;
-	public Object _modelViewMatrixArray;
-	public Object _normalMatrixArray;
+	public Float32Array _modelMatrixArray;
+	public Float32Array _modelViewMatrixArray;
+	public Float32Array _normalMatrixArray;
 	public Matrix3 _normalMatrix;
 	public Matrix4 _modelViewMatrix;
 	public int count;
+
+	// Version of the world matrix, increased when its values are changed
+	public int __matrixWorldVersion;
+	private double[] matrixWorldState;
+
+	// Camera and versions used for the model view and normal matrices
+	public Object3D __modelViewCamera;
+	public int __modelViewCameraVersion = -1;
+	public int __modelViewVersion = -1;
+	
+	// World bounding sphere of the object, updated by the scene octree,
+	// negative radius means the object has nothing to render
+	public Vector3 __worldSphereCenter;
+	public double __worldSphereRadius = -1;
+	public boolean __inFrustum = true;
+	
+	// Spatial index of the scene which tracks the object
+	public Octree __octree;
+	public Octree.Node __octreeNode;
+	public boolean __octreeNeedsUpdate;
 	
 	public Object3D() 
 	{
@@ -287,6 +309,8 @@ public class Object3D implements DimensionalObject
 	@Override
 	public void setMatrixWorld(Matrix4 matrixWorld) {
 		this.matrixWorld = matrixWorld;
+		this.matrixWorldState = null;
+		onMatrixWorldUpdated();
 	}
 
 	@Override
@@ -533,6 +557,8 @@ public class Object3D implements DimensionalObject
 
 			this.matrixWorldNeedsUpdate = false;
 
+			onMatrixWorldUpdated();
+
 			force = true;
 		}
 
@@ -544,6 +570,77 @@ public class Object3D implements DimensionalObject
 		}
 	}
 
+	/**
+	 * Should be called after the world matrix is recomputed. If its values 
+	 * have been changed, increases {@link #__matrixWorldVersion} and marks 
+	 * the object to be relocated in the octree. The matrix is recomputed 
+	 * every frame for auto updated objects, so the static objects are 
+	 * not processed by the octree.
+	 */
+	protected void onMatrixWorldUpdated()
+	{
+		if ( updateMatrixWorldVersion() && this.__octree != null ) 
+			this.__octree.setNeedsUpdate( this );
+	}
+
+	/*
+	 * Increases __matrixWorldVersion if the values of the world 
+	 * matrix have been changed since the last call.
+	 */
+	private boolean updateMatrixWorldVersion()
+	{
+		Float64Array elements = this.matrixWorld.getArray();
+
+		if ( this.matrixWorldState == null )
+		{
+			this.matrixWorldState = new double[ 16 ];
+			for ( int i = 0; i < 16; i ++ )
+				this.matrixWorldState[ i ] = elements.get( i );
+
+			this.__matrixWorldVersion ++;
+			return true;
+		}
+
+		boolean isChanged = false;
+		for ( int i = 0; i < 16; i ++ )
+		{
+			double value = elements.get( i );
+			if ( this.matrixWorldState[ i ] != value )
+			{
+				this.matrixWorldState[ i ] = value;
+				isChanged = true;
+			}
+		}
+
+		if ( isChanged )
+			this.__matrixWorldVersion ++;
+
+		return isChanged;
+	}
+
+	/**
+	 * Updates cached world bounding sphere of the object itself.
+	 */
+	public void updateWorldBoundingSphere()
+	{
+		if ( this.__worldSphereCenter == null ) 
+			this.__worldSphereCenter = new Vector3();
+
+		this.__worldSphereRadius = computeWorldBoundingSphere( this.__worldSphereCenter );
+	}
+
+	/**
+	 * Sets the center of the object's world bounding sphere.
+	 * 
+	 * @return the radius of the sphere, negative value if the object 
+	 * has nothing to render or infinity if it should never be culled. 
+	 */
+	protected double computeWorldBoundingSphere( Vector3 center )
+	{
+		center.copy( this.matrixWorld.getPosition() );
+		return -1;
+	}
+
 	@Override
 	public List<? extends DimensionalObject> getChildrenByClass(Class<?> clazz, boolean recursive)
 	{
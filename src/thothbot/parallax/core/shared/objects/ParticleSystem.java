@@ -18,12 +18,10 @@
 
 package thothbot.parallax.core.shared.objects;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
+import com.google.gwt.typedarrays.shared.Float32Array;
+import com.google.gwt.typedarrays.shared.Float64Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 
 import thothbot.parallax.core.client.gl2.WebGLRenderingContext;
@@ -37,6 +35,7 @@ import thothbot.parallax.core.shared.core.Color;
 import thothbot.parallax.core.shared.core.Geometry;
 import thothbot.parallax.core.shared.core.GeometryBuffer;
 import thothbot.parallax.core.shared.core.Matrix4;
+import thothbot.parallax.core.shared.core.RadixSort;
 import thothbot.parallax.core.shared.core.Vector2;
 import thothbot.parallax.core.shared.core.Vector3;
 import thothbot.parallax.core.shared.core.Vector4;
@@ -143,10 +142,10 @@ public class ParticleSystem extends GeometryObject
 	{
 		int nvertices = geometry.getVertices().size();
 
-		geometry.setWebGlVertexArray( TypedArrays.createFloat64Array( nvertices * 3 ) );
-		geometry.setWebGlColorArray( TypedArrays.createFloat64Array( nvertices * 3 ) );
+		geometry.setWebGlVertexArray( TypedArrays.createFloat32Array( nvertices * 3 ) );
+		geometry.setWebGlColorArray( TypedArrays.createFloat32Array( nvertices * 3 ) );
 
-		geometry.sortArray = new ArrayList<List<Integer>>();
+		geometry.sortArray = new RadixSort( nvertices );
 		geometry.__webglParticleCount = nvertices;
 
 		initCustomAttributes ( gl, geometry );
@@ -185,149 +184,137 @@ public class ParticleSystem extends GeometryObject
 		}
 	}
 
-	// setParticleBuffers
-	public void setBuffers (WebGLRenderer renderer, BufferUsage hint) 
+	/**
+	 * Sorts the particles back to front and copies the vertices, colors 
+	 * and custom attributes into the WebGL arrays in this order. 
+	 * Called by {@link #setBuffers(WebGLRenderer, BufferUsage)} when 
+	 * {@link #sortParticles} is enabled. The sorting buffers are reused, 
+	 * so nothing is allocated per frame.
+	 * 
+	 * @param projScreenMatrix the projection matrix multiplied by the camera inverse matrix
+	 */
+	public void sortBuffers( Matrix4 projScreenMatrix )
 	{
-		WebGLRenderingContext gl = renderer.getGL();
 		List<Vector3> vertices = geometry.getVertices();
-
 		List<Color> colors = geometry.getColors();
+		List<Attribute> customAttributes = geometry.__webglCustomAttributesList;
 
-		List<List<Integer>> sortArray = geometry.sortArray;
+		this.projScreenMatrixPS.copy( projScreenMatrix );
+		this.projScreenMatrixPS.multiply( this.getMatrixWorld() );
 
-		boolean dirtyVertices = geometry.isVerticesNeedUpdate();
-		geometry.isElementsNeedUpdate();
-		boolean dirtyColors   = geometry.isColorsNeedUpdate();
+		Float64Array m = this.projScreenMatrixPS.getArray();
+		double m2 = m.get( 2 ), m6 = m.get( 6 ), m10 = m.get( 10 ), m14 = m.get( 14 );
 
-		List<Attribute> customAttributes = geometry.__webglCustomAttributesList;
-		
-		if ( this.sortParticles ) 
-		{
-			this.projScreenMatrixPS.copy( renderer.getCache_projScreenMatrix() );
-			this.projScreenMatrixPS.multiply( this.getMatrixWorld() );
+		int count = vertices.size();
 
-			for ( int v = 0; v < vertices.size(); v ++ ) {
-				Vector3 vertex = vertices.get( v );
+		RadixSort sortArray = geometry.sortArray;
+		sortArray.ensureCapacity( count );
+		double[] depths = sortArray.getDepths();
 
-				renderer.getCache_vector3().copy( vertex );
-				this.projScreenMatrixPS.multiplyVector4( renderer.getCache_vector3() );
-				 
-				sortArray.add(v, new ArrayList<Integer>(Arrays.asList((int)renderer.getCache_vector3().getZ(), v)));
-			}
+		// clip space z is linear in the view depth
+		for ( int v = 0; v < count; v ++ ) 
+		{
+			Vector3 vertex = vertices.get( v );
+			depths[ v ] = m2 * vertex.getX() + m6 * vertex.getY() + m10 * vertex.getZ() + m14;
+		}
 
-			Collections.sort(sortArray, new Comparator<List<Integer>>() {
+		// back to front
+		int[] order = sortArray.sort( count, true );
 
-				@Override
-				public int compare(List<Integer> o1, List<Integer> o2)
-				{
-					return o1.get(0).compareTo(o2.get(0));
-				}
-			});
+		Float32Array vertexArray = geometry.getWebGlVertexArray();
+		Float32Array colorArray = geometry.getWebGlColorArray();
+		int colorsCount = colors.size();
+		int customAttributesCount = customAttributes != null ? customAttributes.size() : 0;
 
-			for ( int v = 0; v < geometry.getVertices().size(); v ++ ) 
-			{
-				Vector3 vertex = vertices.get(sortArray.get(v).get(1) );
-				int offset = v * 3;
+		// reorder all arrays in one pass
 
-				geometry.getWebGlVertexArray().set( offset , vertex.getX());
-				geometry.getWebGlVertexArray().set( offset + 1, vertex.getY());
-				geometry.getWebGlVertexArray().set( offset + 2, vertex.getZ());
+		for ( int v = 0; v < count; v ++ ) 
+		{
+			int index = order[ v ];
+			int offset = v * 3;
 
-			}
+			Vector3 vertex = vertices.get( index );
 
-			for ( int c = 0; c < colors.size(); c ++ ) 
-			{
-				int offset = c * 3;
+			vertexArray.set( offset,     (float)vertex.getX() );
+			vertexArray.set( offset + 1, (float)vertex.getY() );
+			vertexArray.set( offset + 2, (float)vertex.getZ() );
 
-				Color color = colors.get( sortArray.get(c).get(1) );
+			if ( v < colorsCount ) 
+			{
+				Color color = colors.get( index );
 
-				geometry.getWebGlColorArray().set( offset, color.getR());
-				geometry.getWebGlColorArray().set( offset + 1, color.getG());
-				geometry.getWebGlColorArray().set( offset + 2, color.getB());
+				colorArray.set( offset,     (float)color.getR() );
+				colorArray.set( offset + 1, (float)color.getG() );
+				colorArray.set( offset + 2, (float)color.getB() );
 			}
 
-			if ( customAttributes != null ) {
+			for ( int i = 0; i < customAttributesCount; i ++ ) 
+			{
+				Attribute customAttribute = customAttributes.get( i );
 
-				for ( int i = 0; i < customAttributes.size(); i ++ ) 
-				{
-					Attribute customAttribute = customAttributes.get( i );
+				if ( ! ( customAttribute.getBoundTo() == null 
+						|| customAttribute.getBoundTo() == Attribute.BOUND_TO.VERTICES ) ) 
+					continue;
 
-					if ( ! ( customAttribute.getBoundTo() == null 
-							|| customAttribute.getBoundTo() == Attribute.BOUND_TO.VERTICES ) ) 
-						continue;
+				if ( v >= customAttribute.getValue().size() ) 
+					continue;
 
-					int offset = 0;
+				Object value = customAttribute.getValue().get( index );
+				int ca = v * customAttribute.size;
 
-					if ( customAttribute.size == 1 ) 
-					{
-						for (int ca = 0; ca < customAttribute.getValue().size(); ca++) 
-						{
-							int index = sortArray.get( ca ).get( 1 );
-							customAttribute.array.set(ca, (Double) customAttribute.getValue().get(index));
-						}
-					} 
-					else if ( customAttribute.size == 2 ) 
+				if ( customAttribute.size == 1 ) 
+				{
+					customAttribute.array.set( ca, ((Double) value).floatValue() );
+				} 
+				else if ( customAttribute.size == 2 ) 
+				{
+					customAttribute.array.set( ca,     (float)((Vector2) value).getX() );
+					customAttribute.array.set( ca + 1, (float)((Vector2) value).getY() );
+				} 
+				else if ( customAttribute.size == 3 ) 
+				{
+					if ( customAttribute.type == Attribute.TYPE.C ) 
 					{
-						for (int ca = 0; ca < customAttribute.getValue().size(); ca++) 
-						{
-							int index = sortArray.get( ca ).get( 1 );
-							Vector2 value = (Vector2) customAttribute.getValue().get(index);
-
-							customAttribute.array.set(offset, value.getX());
-							customAttribute.array.set(offset + 1, value.getY());
-
-							offset += 2;
-						}
+						customAttribute.array.set( ca,     (float)((Color) value).getR() );
+						customAttribute.array.set( ca + 1, (float)((Color) value).getG() );
+						customAttribute.array.set( ca + 2, (float)((Color) value).getB() );
 					} 
-					else if ( customAttribute.size == 3 ) 
+					else 
 					{
-						if ( customAttribute.type == Attribute.TYPE.C ) 
-						{
-							for (int ca = 0; ca < customAttribute.getValue().size(); ca++) 
-							{
-								int index = sortArray.get( ca ).get( 1 );
-								Color value = (Color) customAttribute.getValue().get(index);
-
-								customAttribute.array.set(offset, value.getR());
-								customAttribute.array.set(offset + 1, value.getG());
-								customAttribute.array.set(offset + 2, value.getB());
-
-								offset += 3;
-							}
-						} 
-						else 
-						{
-							for (int ca = 0; ca < customAttribute.getValue().size(); ca++) 
-							{
-								int index = sortArray.get( ca ).get( 1 );
-								Vector3 value = (Vector3) customAttribute.getValue().get(index);
+						customAttribute.array.set( ca,     (float)((Vector3) value).getX() );
+						customAttribute.array.set( ca + 1, (float)((Vector3) value).getY() );
+						customAttribute.array.set( ca + 2, (float)((Vector3) value).getZ() );
+					}
+				} 
+				else if ( customAttribute.size == 4 ) 
+				{
+					customAttribute.array.set( ca,     (float)((Vector4) value).getX() );
+					customAttribute.array.set( ca + 1, (float)((Vector4) value).getY() );
+					customAttribute.array.set( ca + 2, (float)((Vector4) value).getZ() );
+					customAttribute.array.set( ca + 3, (float)((Vector4) value).getW() );
+				}
+			}
+		}
+	}
 
-								customAttribute.array.set(offset, value.getX());
-								customAttribute.array.set(offset + 1, value.getY());
-								customAttribute.array.set(offset + 2, value.getZ());
+	// setParticleBuffers
+	public void setBuffers (WebGLRenderer renderer, BufferUsage hint) 
+	{
+		WebGLRenderingContext gl = renderer.getGL();
+		List<Vector3> vertices = geometry.getVertices();
 
-								offset += 3;
-							}
-						}
-					} 
-					else if ( customAttribute.size == 4 ) 
-					{
-						for (int ca = 0; ca < customAttribute.getValue().size(); ca++) 
-						{
-							int index = sortArray.get( ca ).get( 1 );
-							Vector4 value = (Vector4) customAttribute.getValue().get(index);
+		List<Color> colors = geometry.getColors();
 
-							customAttribute.array.set(offset, value.getX());
-							customAttribute.array.set(offset + 1, value.getY());
-							customAttribute.array.set(offset + 2, value.getZ());
-							customAttribute.array.set(offset + 3, value.getW());
 
-							offset += 4;
-						}
-					}
-				}
-			}
+		boolean dirtyVertices = geometry.isVerticesNeedUpdate();
+		geometry.isElementsNeedUpdate();
+		boolean dirtyColors   = geometry.isColorsNeedUpdate();
 
+		List<Attribute> customAttributes = geometry.__webglCustomAttributesList;
+		
+		if ( this.sortParticles ) 
+		{
+			sortBuffers( renderer.getCache_projScreenMatrix() );
 		} 
 		else 
 		{
@@ -339,9 +326,9 @@ public class ParticleSystem extends GeometryObject
 
 					int offset = v * 3;
 
-					geometry.getWebGlVertexArray().set( offset, vertex.getX());
-					geometry.getWebGlVertexArray().set( offset + 1,  vertex.getY());
-					geometry.getWebGlVertexArray().set( offset + 2, vertex.getZ());
+					geometry.getWebGlVertexArray().set( offset, (float)vertex.getX());
+					geometry.getWebGlVertexArray().set( offset + 1,  (float)vertex.getY());
+					geometry.getWebGlVertexArray().set( offset + 2, (float)vertex.getZ());
 				}
 			}
 
@@ -354,9 +341,9 @@ public class ParticleSystem extends GeometryObject
 
 					int offset = c * 3;
 
-					geometry.getWebGlColorArray().set(offset, color.getR());
-					geometry.getWebGlColorArray().set(offset + 1, color.getG());
-					geometry.getWebGlColorArray().set(offset + 2,  color.getB());
+					geometry.getWebGlColorArray().set(offset, (float)color.getR());
+					geometry.getWebGlColorArray().set(offset + 1, (float)color.getG());
+					geometry.getWebGlColorArray().set(offset + 2,  (float)color.getB());
 				}
 			}
 
@@ -376,7 +363,7 @@ public class ParticleSystem extends GeometryObject
 						if ( customAttribute.size == 1 ) 
 						{
 							for (int ca = 0; ca < customAttribute.getValue().size(); ca++)
-								customAttribute.array.set(ca, (Double) customAttribute.getValue().get(ca));
+								customAttribute.array.set(ca, ((Double) customAttribute.getValue().get(ca)).floatValue());
 
 						} 
 						else if ( customAttribute.size == 2 ) 
@@ -386,8 +373,8 @@ public class ParticleSystem extends GeometryObject
 
 								Vector2 value = (Vector2) customAttribute.getValue().get(ca);
 
-								customAttribute.array.set(offset, value.getX());
-								customAttribute.array.set(offset + 1, value.getY());
+								customAttribute.array.set(offset, (float)value.getX());
+								customAttribute.array.set(offset + 1, (float)value.getY());
 
 								offset += 2;
 							}
@@ -403,9 +390,9 @@ public class ParticleSystem extends GeometryObject
 
 									Color value = (Color) customAttribute.getValue().get(ca);
 
-									customAttribute.array.set(offset, value.getR());
-									customAttribute.array.set(offset + 1, value.getG());
-									customAttribute.array.set(offset + 2, value.getB());
+									customAttribute.array.set(offset, (float)value.getR());
+									customAttribute.array.set(offset + 1, (float)value.getG());
+									customAttribute.array.set(offset + 2, (float)value.getB());
 
 									offset += 3;
 								}
@@ -417,9 +404,9 @@ public class ParticleSystem extends GeometryObject
 								{
 									Vector3 value = (Vector3) customAttribute.getValue().get(ca);
 
-									customAttribute.array.set(offset, value.getX());
-									customAttribute.array.set(offset + 1, value.getY());
-									customAttribute.array.set(offset + 2, value.getZ());
+									customAttribute.array.set(offset, (float)value.getX());
+									customAttribute.array.set(offset + 1, (float)value.getY());
+									customAttribute.array.set(offset + 2, (float)value.getZ());
 
 									offset += 3;
 								}
@@ -432,10 +419,10 @@ public class ParticleSystem extends GeometryObject
 							{
 								Vector4 value = (Vector4) customAttribute.getValue().get(ca);
 
-								customAttribute.array.set(offset, value.getX());
-								customAttribute.array.set(offset + 1, value.getY());
-								customAttribute.array.set(offset + 2, value.getZ());
-								customAttribute.array.set(offset + 3, value.getW());
+								customAttribute.array.set(offset, (float)value.getX());
+								customAttribute.array.set(offset + 1, (float)value.getY());
+								customAttribute.array.set(offset + 2, (float)value.getZ());
+								customAttribute.array.set(offset + 3, (float)value.getW());
 
 								offset += 4;
 							}
@@ -33,6 +33,10 @@ public class RendererObject implements Comparable<RendererObject>
 	public Material transparent;
 	// render depth
 	public double z;
+	// opaque queue order: program, material, geometry group, depth
+	public long sortKey;
+	// true when the object is kept in the scene transparent list
+	public boolean inTransparentList;
 
 	public RendererObject(GeometryBuffer buffer, GeometryObject object, Material opaque, Material transparent) 
 	{
@@ -92,8 +92,8 @@ public class Ribbon extends GeometryObject
 	{
 		int nvertices = geometry.getVertices().size();
 
-		geometry.setWebGlVertexArray( TypedArrays.createFloat64Array( nvertices * 3 ) );
-		geometry.setWebGlVertexArray( TypedArrays.createFloat64Array( nvertices * 3 ) );
+		geometry.setWebGlVertexArray( TypedArrays.createFloat32Array( nvertices * 3 ) );
+		geometry.setWebGlVertexArray( TypedArrays.createFloat32Array( nvertices * 3 ) );
 
 		geometry.__webglVertexCount = nvertices;
 	}
@@ -117,9 +117,9 @@ public class Ribbon extends GeometryObject
 
 				int offset = v * 3;
 
-				geometry.getWebGlVertexArray().set(offset, vertex.getX());
-				geometry.getWebGlVertexArray().set(offset + 1, vertex.getY());
-				geometry.getWebGlVertexArray().set(offset + 2, vertex.getZ());
+				geometry.getWebGlVertexArray().set(offset, (float)vertex.getX());
+				geometry.getWebGlVertexArray().set(offset + 1, (float)vertex.getY());
+				geometry.getWebGlVertexArray().set(offset + 2, (float)vertex.getZ());
 			}
 
 			gl.bindBuffer(BufferTarget.ARRAY_BUFFER, geometry.__webglVertexBuffer);
@@ -135,9 +135,9 @@ public class Ribbon extends GeometryObject
 
 				int offset = c * 3;
 
-				geometry.getWebGlColorArray().set(offset, color.getR());
-				geometry.getWebGlColorArray().set(offset + 1, color.getG());
-				geometry.getWebGlColorArray().set(offset + 2, color.getB());
+				geometry.getWebGlColorArray().set(offset, (float)color.getR());
+				geometry.getWebGlColorArray().set(offset + 1, (float)color.getG());
+				geometry.getWebGlColorArray().set(offset + 2, (float)color.getB());
 
 			}
 
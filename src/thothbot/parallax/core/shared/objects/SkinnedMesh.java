@@ -21,7 +21,7 @@ package thothbot.parallax.core.shared.objects;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 
 import thothbot.parallax.core.client.textures.Texture;
@@ -34,7 +34,7 @@ public class SkinnedMesh extends Mesh
 {
 
 	public List<Bone> bones;
-	public Float64Array boneMatrices;
+	public Float32Array boneMatrices;
 	public boolean 	useVertexTexture;
 	public int boneTextureWidth;
 	public int boneTextureHeight;
@@ -55,7 +55,7 @@ public class SkinnedMesh extends Mesh
 		this.identityMatrix = new Matrix4();
 
 		this.bones = new ArrayList<Bone>();
-		this.boneMatrices = (Float64Array) TypedArrays.createFloat64Array(0);
+		this.boneMatrices = (Float32Array) TypedArrays.createFloat32Array(0);
 
 		// TODO: FIX
 //		if ( this.geometry.bones != null ) {
@@ -104,7 +104,7 @@ public class SkinnedMesh extends Mesh
 //
 //			}
 //
-//			this.boneMatrices = new Float64Array( 16 * this.bones.length );
+//			this.boneMatrices = new Float32Array( 16 * this.bones.length );
 //
 //			this.pose();
 //
@@ -141,6 +141,8 @@ public class SkinnedMesh extends Mesh
 
 			this.matrixWorldNeedsUpdate = false;
 
+			onMatrixWorldUpdated();
+
 			force = true;
 		}
 
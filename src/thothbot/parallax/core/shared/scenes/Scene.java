@@ -27,6 +27,7 @@ import thothbot.parallax.core.shared.cameras.Camera;
 import thothbot.parallax.core.shared.core.Geometry;
 import thothbot.parallax.core.shared.core.GeometryBuffer;
 import thothbot.parallax.core.shared.core.GeometryGroup;
+import thothbot.parallax.core.shared.core.Octree;
 import thothbot.parallax.core.shared.lights.Light;
 import thothbot.parallax.core.shared.materials.Material;
 import thothbot.parallax.core.shared.objects.Bone;
@@ -71,6 +72,14 @@ public final class Scene extends Object3D
 
 	public List<RendererObject> __webglObjects;	
 
+	/**
+	 * Persistent render lists. They are kept between frames and updated 
+	 * only when objects are added, removed or change material transparency, 
+	 * so the renderer needs to re-sort nearly sorted lists only.
+	 */
+	public List<RendererObject> __webglObjectsOpaque;
+	public List<RendererObject> __webglObjectsTransparent;
+
 	public Material overrideMaterial;
 
 	/**
@@ -83,6 +92,11 @@ public final class Scene extends Object3D
 	 */
 	private FogAbstract fogAbstract;
 	
+	/**
+	 * Spatial index of the scene objects used for culling and picking
+	 */
+	private Octree octree;
+	
 	/**
 	 * This default constructor will create new Scene instance.
 	 */
@@ -94,8 +108,11 @@ public final class Scene extends Object3D
 		this.lights = new ArrayList<Light>();
 		this.objectsAdded = new ArrayList<DimensionalObject>();
 		this.objectsRemoved = new ArrayList<DimensionalObject>();
+		this.octree = new Octree();
 		
 		this.__webglObjects = new ArrayList<RendererObject>();
+		this.__webglObjectsOpaque = new ArrayList<RendererObject>();
+		this.__webglObjectsTransparent = new ArrayList<RendererObject>();
 	}
 
 	/**
@@ -118,6 +135,25 @@ public final class Scene extends Object3D
 		return this.lights;
 	}
 	
+	/**
+	 * Get Octree which indexes world bounding spheres of the Scene objects.
+	 * 
+	 * @return the Octree
+	 */
+	public Octree getOctree()
+	{
+		return this.octree;
+	}
+
+	/**
+	 * Relocates objects in the Octree which have been moved, added or 
+	 * removed since the last call. World matrices should be updated before.
+	 */
+	public void updateOctree()
+	{
+		this.octree.update();
+	}
+
 	/**
 	 * Get fogAbstract associated with the Scene.
 	 * 
@@ -177,6 +213,9 @@ public final class Scene extends Object3D
 			{
 				this.objects.add(child);
 				this.objectsAdded.add(child);
+
+				if (child instanceof Object3D)
+					this.octree.add((Object3D)child);
 			}
 		}
 
@@ -202,6 +241,9 @@ public final class Scene extends Object3D
 			if (this.objects.indexOf(child) != -1){
 				this.objects.remove(child);
 				this.objectsRemoved.add(child);
+
+				if (child instanceof Object3D)
+					this.octree.remove((Object3D)child);
 			}
 		}
 		
@@ -236,6 +278,7 @@ public final class Scene extends Object3D
 		// update must be called after objects adding / removal
 		for(RendererObject object: this.__webglObjects)
 		{
+			object.object.updateGeometryBounds();
 			object.object.setBuffer(renderer);
 		}			
 	}
@@ -274,6 +317,9 @@ public final class Scene extends Object3D
 			for ( int o = this.__webglObjects.size() - 1; o >= 0; o -- )
 				if ( this.__webglObjects.get( o ).object == object )
 					this.__webglObjects.remove(o);
+
+			removeFromRenderList( this.__webglObjectsOpaque, object );
+			removeFromRenderList( this.__webglObjectsTransparent, object );
 		}
 
 		object.isWebglActive = false;
@@ -323,6 +369,50 @@ public final class Scene extends Object3D
 	
 	private void addBuffer (GeometryBuffer buffer, GeometryObject object ) 
 	{
-		this.__webglObjects.add(new RendererObject(buffer, object, null, null));
+		RendererObject webglObject = new RendererObject(buffer, object, null, null);
+		webglObject.unrollBufferMaterial();
+		webglObject.inTransparentList = ( webglObject.transparent != null );
+
+		this.__webglObjects.add(webglObject);
+
+		if ( webglObject.inTransparentList )
+			this.__webglObjectsTransparent.add(webglObject);
+		else
+			this.__webglObjectsOpaque.add(webglObject);
+	}
+
+	/**
+	 * Moves the object between the opaque and the transparent render lists 
+	 * if transparency of its material has been changed. Should be called 
+	 * after {@link RendererObject#unrollBufferMaterial()}.
+	 * 
+	 * @param webglObject the RendererObject from {@link #__webglObjects}
+	 */
+	public void updateRenderList(RendererObject webglObject)
+	{
+		boolean isTransparent = ( webglObject.transparent != null );
+
+		if ( webglObject.inTransparentList == isTransparent )
+			return;
+
+		if ( isTransparent )
+		{
+			this.__webglObjectsOpaque.remove(webglObject);
+			this.__webglObjectsTransparent.add(webglObject);
+		}
+		else
+		{
+			this.__webglObjectsTransparent.remove(webglObject);
+			this.__webglObjectsOpaque.add(webglObject);
+		}
+
+		webglObject.inTransparentList = isTransparent;
+	}
+
+	private void removeFromRenderList( List<RendererObject> renderList, Object3D object )
+	{
+		for ( int o = renderList.size() - 1; o >= 0; o -- )
+			if ( renderList.get( o ).object == object )
+				renderList.remove(o);
 	}
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.loader.shared;
+
+import java.util.ArrayList;
+
+import thothbot.parallax.core.shared.Log;
+import thothbot.parallax.core.shared.core.BoundingSphere;
+import thothbot.parallax.core.shared.core.GeometryBuffer;
+
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.typedarrays.shared.ArrayBuffer;
+import com.google.gwt.typedarrays.shared.TypedArrays;
+import com.google.gwt.typedarrays.shared.Uint32Array;
+import com.google.gwt.xhr.client.ReadyStateChangeHandler;
+import com.google.gwt.xhr.client.XMLHttpRequest;
+
+/**
+ * Loader for the compact binary model format written by {@link BinaryModelWriter}.
+ * <p>
+ * The file is a header followed by little-endian sections which are 
+ * used by the {@link GeometryBuffer} as typed array views of the 
+ * loaded buffer, so no data is copied or converted while parsing.
+ * Typed arrays use the byte order of the host, so the format can be read 
+ * only on little-endian hosts, which are all the current WebGL platforms. 
+ * The magic number in the header is checked for the byte order.
+ * <p>
+ * Layout, all sections are 4-byte aligned:
+ * <pre>
+ * header   Uint32[16]  magic, version, flags, vertex count, index count, 
+ *                      offset count, bounding sphere radius (Float32), reserved
+ * offsets  Uint32[3]   start, count, index per draw chunk
+ * position Float32[3]  per vertex
+ * normal   Float32[3]  per vertex, if FLAG_NORMALS
+ * uv       Float32[2]  per vertex, if FLAG_UVS
+ * color    Float32[3]  per vertex, if FLAG_COLORS
+ * index    Uint16      per index, relative to the chunk first vertex, or
+ *          Uint32      per index, if FLAG_INDEX_UINT32
+ * </pre>
+ * Models with 32-bit indices have one draw chunk and can be rendered only 
+ * if {@link thothbot.parallax.core.client.renderers.WebGLRenderer#isGPUsupportsElementIndexUint()} is true.
+ * 
+ * @author thothbot
+ *
+ */
+public class BinaryLoader extends Loader 
+{
+	// "PBM1"
+	public static final int MAGIC = 0x314d4250;
+	// magic read with the wrong byte order
+	static final int MAGIC_SWAPPED = 0x50424d31;
+	public static final int VERSION = 1;
+
+	public static final int FLAG_NORMALS = 1;
+	public static final int FLAG_UVS     = 1 << 1;
+	public static final int FLAG_COLORS  = 1 << 2;
+	public static final int FLAG_INDEX_UINT32 = 1 << 3;
+
+	public static final int HEADER_SIZE = 16;
+
+	static final int HEADER_MAGIC = 0;
+	static final int HEADER_VERSION = 1;
+	static final int HEADER_FLAGS = 2;
+	static final int HEADER_VERTEX_COUNT = 3;
+	static final int HEADER_INDEX_COUNT = 4;
+	static final int HEADER_OFFSET_COUNT = 5;
+	static final int HEADER_RADIUS = 6;
+
+	private GeometryBuffer geometry;
+
+	@Override
+	public void load(final String url, final ModelLoadHandler modelLoadHandler) throws RequestException 
+	{
+		XMLHttpRequest binxhr = XMLHttpRequest.create();
+		binxhr.open("GET", url);
+		binxhr.setResponseType("arraybuffer");
+
+		binxhr.setOnReadyStateChange(new ReadyStateChangeHandler()
+		{
+			@Override
+			public void onReadyStateChange(XMLHttpRequest xhr)
+			{
+				if( xhr.getReadyState() != XMLHttpRequest.DONE )
+					return;
+
+				xhr.clearOnReadyStateChange();
+
+				if ( xhr.getStatus() != 200 && xhr.getStatus() != 0 ) 
+				{
+					Log.error("Error while loading file: " + url);
+					return;
+				}
+
+				parse( xhr.getResponseArrayBuffer() );
+				modelLoadHandler.onModelLoaded();
+			}
+		});
+
+		binxhr.send();
+	}
+
+	@Override
+	public void parse(String string) 
+	{
+		Log.error("BinaryLoader: binary data is expected, use parse(ArrayBuffer)");
+	}
+
+	/**
+	 * Creates the geometry from the binary model. Sections of the buffer 
+	 * become the typed arrays of the geometry without copying.
+	 */
+	public void parse(ArrayBuffer buffer) 
+	{
+		long start = System.currentTimeMillis();
+
+		this.geometry = null;
+
+		if ( buffer == null || buffer.byteLength() < HEADER_SIZE * 4 ) 
+		{
+			Log.error("BinaryLoader: data is too short");
+			return;
+		}
+
+		Uint32Array header = TypedArrays.createUint32Array( buffer, 0, HEADER_SIZE );
+
+		if ( (int)header.get( HEADER_MAGIC ) == MAGIC_SWAPPED ) 
+		{
+			Log.error("BinaryLoader: little-endian data can't be read on big-endian host");
+			return;
+		}
+
+		if ( (int)header.get( HEADER_MAGIC ) != MAGIC ) 
+		{
+			Log.error("BinaryLoader: invalid magic number in the header");
+			return;
+		}
+
+		if ( header.get( HEADER_VERSION ) > VERSION ) 
+		{
+			Log.error("BinaryLoader: unsupported version " + header.get( HEADER_VERSION ));
+			return;
+		}
+
+		int flags = (int)header.get( HEADER_FLAGS );
+		int vertexCount = (int)header.get( HEADER_VERTEX_COUNT );
+		int indexCount = (int)header.get( HEADER_INDEX_COUNT );
+		int offsetCount = (int)header.get( HEADER_OFFSET_COUNT );
+		double radius = TypedArrays.createFloat32Array( buffer, HEADER_RADIUS * 4, 1 ).get( 0 );
+
+		int byteLength = getByteLength( flags, vertexCount, indexCount, offsetCount );
+		if ( buffer.byteLength() < byteLength ) 
+		{
+			Log.error("BinaryLoader: data is too short, expected " + byteLength + " bytes");
+			return;
+		}
+
+		GeometryBuffer geometry = new GeometryBuffer();
+		geometry.setDynamic( false );
+
+		int offset = HEADER_SIZE * 4;
+
+		Uint32Array offsets = TypedArrays.createUint32Array( buffer, offset, offsetCount * 3 );
+		geometry.offsets = new ArrayList<GeometryBuffer.Offset>();
+		for ( int i = 0; i < offsetCount; i ++ ) 
+		{
+			GeometryBuffer.Offset chunk = new GeometryBuffer.Offset();
+			chunk.start = (int)offsets.get( i * 3 );
+			chunk.count = (int)offsets.get( i * 3 + 1 );
+			chunk.index = (int)offsets.get( i * 3 + 2 );
+			geometry.offsets.add( chunk );
+		}
+		offset += offsetCount * 3 * 4;
+
+		geometry.setWebGlVertexArray( TypedArrays.createFloat32Array( buffer, offset, vertexCount * 3 ) );
+		offset += vertexCount * 3 * 4;
+
+		if ( ( flags & FLAG_NORMALS ) != 0 ) 
+		{
+			geometry.setWebGlNormalArray( TypedArrays.createFloat32Array( buffer, offset, vertexCount * 3 ) );
+			offset += vertexCount * 3 * 4;
+		}
+
+		if ( ( flags & FLAG_UVS ) != 0 ) 
+		{
+			geometry.setWebGlUvArray( TypedArrays.createFloat32Array( buffer, offset, vertexCount * 2 ) );
+			offset += vertexCount * 2 * 4;
+		}
+
+		if ( ( flags & FLAG_COLORS ) != 0 ) 
+		{
+			geometry.setWebGlColorArray( TypedArrays.createFloat32Array( buffer, offset, vertexCount * 3 ) );
+			offset += vertexCount * 3 * 4;
+		}
+
+		if ( ( flags & FLAG_INDEX_UINT32 ) != 0 ) 
+			geometry.setWebGlIndexArray( TypedArrays.createUint32Array( buffer, offset, indexCount ) );
+		else
+			geometry.setWebGlIndexArray( TypedArrays.createUint16Array( buffer, offset, indexCount ) );
+
+		if ( radius > 0 ) 
+			geometry.setBoundingSphere( new BoundingSphere( radius ) );
+		else
+			geometry.computeBoundingSphere();
+
+		geometry.setVerticesNeedUpdate( true );
+		geometry.setElementsNeedUpdate( true );
+		geometry.setNormalsNeedUpdate( ( flags & FLAG_NORMALS ) != 0 );
+		geometry.setUvsNeedUpdate( ( flags & FLAG_UVS ) != 0 );
+		geometry.setColorsNeedUpdate( ( flags & FLAG_COLORS ) != 0 );
+
+		this.geometry = geometry;
+
+		Log.debug("Binary parse() vertices=" + vertexCount + ", indices=" + indexCount 
+				+ ", time=" + ( System.currentTimeMillis() - start ) + "ms");
+	}
+
+	/**
+	 * Gets the geometry created by the last {@link #parse(ArrayBuffer)} call.
+	 */
+	public GeometryBuffer getGeometry() 
+	{
+		return this.geometry;
+	}
+
+	/**
+	 * Gets the size of the binary model in bytes.
+	 */
+	static int getByteLength( int flags, int vertexCount, int indexCount, int offsetCount )
+	{
+		int floatsPerVertex = 3;
+		if ( ( flags & FLAG_NORMALS ) != 0 ) floatsPerVertex += 3;
+		if ( ( flags & FLAG_UVS ) != 0 )     floatsPerVertex += 2;
+		if ( ( flags & FLAG_COLORS ) != 0 )  floatsPerVertex += 3;
+
+		int byteLength = HEADER_SIZE * 4 
+				+ offsetCount * 3 * 4 
+				+ vertexCount * floatsPerVertex * 4 
+				+ indexCount * ( ( flags & FLAG_INDEX_UINT32 ) != 0 ? 4 : 2 );
+
+		// keep the length 4-byte aligned
+		return ( byteLength + 3 ) & ~3;
+	}
+}
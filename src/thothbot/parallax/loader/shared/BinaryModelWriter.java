@@ -0,0 +1,255 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.loader.shared;
+
+import java.util.List;
+
+import thothbot.parallax.core.shared.core.Color;
+import thothbot.parallax.core.shared.core.Face3;
+import thothbot.parallax.core.shared.core.Face4;
+import thothbot.parallax.core.shared.core.Geometry;
+import thothbot.parallax.core.shared.core.UV;
+import thothbot.parallax.core.shared.core.Vector3;
+
+import com.google.gwt.typedarrays.shared.ArrayBuffer;
+import com.google.gwt.typedarrays.shared.Float32Array;
+import com.google.gwt.typedarrays.shared.TypedArrays;
+import com.google.gwt.typedarrays.shared.Uint16Array;
+import com.google.gwt.typedarrays.shared.Uint32Array;
+
+/**
+ * Converts {@link Geometry} into the binary model format read by {@link BinaryLoader}.
+ * <p>
+ * Faces are unrolled: every face gets its own vertices with the face 
+ * vertex normals, first layer of uvs and vertex colors. Quads are 
+ * split into two triangles. Vertices are grouped into chunks of 
+ * 65535 to be addressed by 16-bit indices, or kept in one chunk 
+ * with 32-bit indices.
+ * 
+ * @author thothbot
+ *
+ */
+public class BinaryModelWriter 
+{
+	private static final int MAX_CHUNK_VERTICES = 65535;
+
+	/**
+	 * Writes the geometry into a new buffer with 16-bit indices.
+	 */
+	public static ArrayBuffer write(Geometry geometry) 
+	{
+		return write( geometry, false );
+	}
+
+	/**
+	 * Writes the geometry into a new buffer.
+	 * 
+	 * @param isIndexUint32 true to write 32-bit indices, such models 
+	 *                      require OES_element_index_uint extension.
+	 */
+	public static ArrayBuffer write(Geometry geometry, boolean isIndexUint32) 
+	{
+		int maxChunkVertices = isIndexUint32 ? Integer.MAX_VALUE : MAX_CHUNK_VERTICES;
+
+		List<Vector3> vertices = geometry.getVertices();
+		List<Face3> faces = geometry.getFaces();
+
+		List<List<UV>> uvs = geometry.getFaceVertexUvs().size() > 0 ? geometry.getFaceVertexUvs().get( 0 ) : null;
+
+		boolean hasUvs = uvs != null && uvs.size() == faces.size() && faces.size() > 0;
+		boolean hasColors = false;
+
+		// count vertices, indices and chunks
+
+		int vertexCount = 0;
+		int indexCount = 0;
+		int offsetCount = 0;
+		int chunkVertices = maxChunkVertices;
+
+		for ( int f = 0, fl = faces.size(); f < fl; f ++ ) 
+		{
+			Face3 face = faces.get( f );
+			int n = face.getClass() == Face4.class ? 4 : 3;
+
+			if ( chunkVertices > maxChunkVertices - n ) 
+			{
+				offsetCount ++;
+				chunkVertices = 0;
+			}
+
+			chunkVertices += n;
+			vertexCount += n;
+			indexCount += n == 4 ? 6 : 3;
+
+			if ( face.getVertexColors().size() == n ) 
+				hasColors = true;
+		}
+
+		int flags = BinaryLoader.FLAG_NORMALS;
+		if ( isIndexUint32 ) flags |= BinaryLoader.FLAG_INDEX_UINT32;
+		if ( hasUvs )    flags |= BinaryLoader.FLAG_UVS;
+		if ( hasColors ) flags |= BinaryLoader.FLAG_COLORS;
+
+		ArrayBuffer buffer = TypedArrays.createArrayBuffer( 
+				BinaryLoader.getByteLength( flags, vertexCount, indexCount, offsetCount ) );
+
+		// header
+
+		Uint32Array header = TypedArrays.createUint32Array( buffer, 0, BinaryLoader.HEADER_SIZE );
+		header.set( BinaryLoader.HEADER_MAGIC, BinaryLoader.MAGIC );
+		header.set( BinaryLoader.HEADER_VERSION, BinaryLoader.VERSION );
+		header.set( BinaryLoader.HEADER_FLAGS, flags );
+		header.set( BinaryLoader.HEADER_VERTEX_COUNT, vertexCount );
+		header.set( BinaryLoader.HEADER_INDEX_COUNT, indexCount );
+		header.set( BinaryLoader.HEADER_OFFSET_COUNT, offsetCount );
+
+		if ( geometry.getBoundingSphere() == null ) 
+			geometry.computeBoundingSphere();
+
+		TypedArrays.createFloat32Array( buffer, BinaryLoader.HEADER_RADIUS * 4, 1 )
+			.set( 0, (float)geometry.getBoundingSphere().radius );
+
+		// sections
+
+		int offset = BinaryLoader.HEADER_SIZE * 4;
+
+		Uint32Array offsets = TypedArrays.createUint32Array( buffer, offset, offsetCount * 3 );
+		offset += offsetCount * 3 * 4;
+
+		Float32Array position = TypedArrays.createFloat32Array( buffer, offset, vertexCount * 3 );
+		offset += vertexCount * 3 * 4;
+
+		Float32Array normal = TypedArrays.createFloat32Array( buffer, offset, vertexCount * 3 );
+		offset += vertexCount * 3 * 4;
+
+		Float32Array uv = null;
+		if ( hasUvs ) 
+		{
+			uv = TypedArrays.createFloat32Array( buffer, offset, vertexCount * 2 );
+			offset += vertexCount * 2 * 4;
+		}
+
+		Float32Array color = null;
+		if ( hasColors ) 
+		{
+			color = TypedArrays.createFloat32Array( buffer, offset, vertexCount * 3 );
+			offset += vertexCount * 3 * 4;
+		}
+
+		Uint16Array index16 = isIndexUint32 ? null : TypedArrays.createUint16Array( buffer, offset, indexCount );
+		Uint32Array index32 = isIndexUint32 ? TypedArrays.createUint32Array( buffer, offset, indexCount ) : null;
+
+		// fill
+
+		geometry.computeFaceNormals();
+
+		int[] abcd = new int[ 4 ];
+		int vertex = 0;
+		int indexOffset = 0;
+		int chunk = -1;
+		int chunkStart = 0;
+		chunkVertices = maxChunkVertices;
+
+		for ( int f = 0, fl = faces.size(); f < fl; f ++ ) 
+		{
+			Face3 face = faces.get( f );
+			int n = face.getClass() == Face4.class ? 4 : 3;
+
+			if ( chunkVertices > maxChunkVertices - n ) 
+			{
+				chunk ++;
+				chunkStart = vertex;
+				chunkVertices = 0;
+
+				offsets.set( chunk * 3,     indexOffset );
+				offsets.set( chunk * 3 + 2, chunkStart );
+			}
+
+			abcd[ 0 ] = face.getA();
+			abcd[ 1 ] = face.getB();
+			abcd[ 2 ] = face.getC();
+			if ( n == 4 ) 
+				abcd[ 3 ] = ((Face4)face).getD();
+
+			List<Vector3> faceNormals = face.getVertexNormals();
+			List<Color> faceColors = face.getVertexColors();
+
+			for ( int i = 0; i < n; i ++ ) 
+			{
+				int v = vertex + i;
+
+				Vector3 p = vertices.get( abcd[ i ] );
+				position.set( v * 3,     (float)p.getX() );
+				position.set( v * 3 + 1, (float)p.getY() );
+				position.set( v * 3 + 2, (float)p.getZ() );
+
+				Vector3 nrm = faceNormals.size() == n ? faceNormals.get( i ) : face.getNormal();
+				normal.set( v * 3,     (float)nrm.getX() );
+				normal.set( v * 3 + 1, (float)nrm.getY() );
+				normal.set( v * 3 + 2, (float)nrm.getZ() );
+
+				if ( hasUvs ) 
+				{
+					List<UV> faceUvs = uvs.get( f );
+					if ( faceUvs != null && faceUvs.size() == n ) 
+					{
+						uv.set( v * 2,     (float)faceUvs.get( i ).getU() );
+						uv.set( v * 2 + 1, (float)faceUvs.get( i ).getV() );
+					}
+				}
+
+				if ( hasColors ) 
+				{
+					Color c = faceColors.size() == n ? faceColors.get( i ) : face.getColor();
+					color.set( v * 3,     (float)c.getR() );
+					color.set( v * 3 + 1, (float)c.getG() );
+					color.set( v * 3 + 2, (float)c.getB() );
+				}
+			}
+
+			int local = vertex - chunkStart;
+
+			setIndex( index16, index32, indexOffset ++, local );
+			setIndex( index16, index32, indexOffset ++, local + 1 );
+			setIndex( index16, index32, indexOffset ++, local + 2 );
+
+			if ( n == 4 ) 
+			{
+				setIndex( index16, index32, indexOffset ++, local );
+				setIndex( index16, index32, indexOffset ++, local + 2 );
+				setIndex( index16, index32, indexOffset ++, local + 3 );
+			}
+
+			vertex += n;
+			chunkVertices += n;
+
+			offsets.set( chunk * 3 + 1, indexOffset - offsets.get( chunk * 3 ) );
+		}
+
+		return buffer;
+	}
+
+	private static void setIndex( Uint16Array index16, Uint32Array index32, int offset, int value )
+	{
+		if ( index32 != null )
+			index32.set( offset, value );
+		else
+			index16.set( offset, value );
+	}
+}
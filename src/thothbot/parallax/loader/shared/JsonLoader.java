@@ -59,6 +59,7 @@ import thothbot.parallax.loader.shared.json.JsoMorphTargets;
 import thothbot.parallax.loader.shared.json.JsoObject;
 import thothbot.parallax.loader.shared.json.JsoObjectFactory;
 import thothbot.parallax.loader.shared.json.JsoTextureWrapMode;
+import thothbot.parallax.loader.shared.json.JsonModelParser;
 
 import com.google.gwt.canvas.dom.client.Context2d;
 import com.google.gwt.core.client.GWT;
@@ -77,19 +78,88 @@ public class JsonLoader extends Loader
 	
 	private List<Material> materials;
 	
+	private boolean isStreaming = true;
+	
+	/**
+	 * Sets streaming mode, which is on by default. In this mode the 
+	 * geometry arrays are read directly into primitive arrays by 
+	 * {@link JsonModelParser}, and only the rest of the model is decoded 
+	 * by the AutoBean codex. This avoids creation of the boxed lists.
+	 * <p>
+	 * Without streaming the whole model is decoded by the AutoBean codex, 
+	 * and its lists are copied into primitive arrays once.
+	 */
+	public void setStreaming(boolean isStreaming)
+	{
+		this.isStreaming = isStreaming;
+	}
+	
+	public boolean isStreaming()
+	{
+		return this.isStreaming;
+	}
+	
 	@Override
 	public void parse(String string) 
-	{		 
+	{
+		Log.debug("JSON parse(), streaming=" + isStreaming());
+		
+		long start = System.currentTimeMillis();
+
+		JsonModelParser parser = null;
+		if ( isStreaming() )
+		{
+			parser = new JsonModelParser(string);
+			if ( parser.parse() )
+			{
+				string = parser.getRemainder();
+			}
+			else
+			{
+				Log.warn("JSON parse(): streaming failed, decoding the whole model by AutoBean codex");
+				parser = null;
+			}
+		}
+
 		if(!isThisJsonStringValid(string))
 			return;
-		
-		Log.debug("JSON parse()");
-		
+
 		geometry = new Geometry();
 		
 		parseMaterials();
-		parseVertices();
-		parseFaces();
+		
+		if ( parser != null )
+		{
+			parseVertices(parser.getVertices(), parser.getVerticesLength());
+			parseFaces(parser.getFaces(), parser.getFacesLength(), 
+					parser.getUvs(), parser.getUvsLengths(), 
+					parser.getNormals(), parser.getColors());
+		}
+		else
+		{
+			if(object.getVertices() != null)
+			{
+				double[] vertices = toDoubleArray(object.getVertices());
+				parseVertices(vertices, vertices.length);
+			}
+
+			if(object.getFaces() != null)
+			{
+				List<List<Double>> uvs = object.getUvs();
+				double[][] uvsArray = new double[ uvs != null ? uvs.size() : 0 ][];
+				int[] uvsLengths = new int[ uvsArray.length ];
+				for ( int i = 0; i < uvsArray.length; i++ )
+				{
+					uvsArray[ i ] = toDoubleArray(uvs.get(i));
+					uvsLengths[ i ] = uvsArray[ i ].length;
+				}
+
+				int[] faces = toIntArray(object.getFaces());
+				parseFaces(faces, faces.length, uvsArray, uvsLengths, 
+						toDoubleArray(object.getNormals()), toIntArray(object.getColors()));
+			}
+		}
+
 		parseSkin();
 		parseMorphing();
 
@@ -100,6 +170,9 @@ public class JsonLoader extends Loader
 			geometry.computeTangents();
 		
 		geometry.computeMorphNormals();
+
+		Log.debug("JSON parse() vertices=" + geometry.getVertices().size() + ", faces=" + geometry.getFaces().size() 
+				+ ", time=" + ( System.currentTimeMillis() - start ) + "ms");
 	}
 	
 	public Geometry getGeometry() 
@@ -373,47 +446,35 @@ public class JsonLoader extends Loader
 		return material;
 	}
 
-	private void parseVertices()
+	private void parseVertices(double[] vertices, int length)
 	{
-		if(object.getVertices() == null) 
-			return;
-		
 		Log.debug("JSON parseVertices()");
 		
-		List<Double> vertices = object.getVertices();
-		
 		double scale = getScale();
 		int offset = 0;
-		int zLength = vertices.size();
 
-		while ( offset < zLength ) 
+		while ( offset < length ) 
 		{
 			Vector3 vertex = new Vector3();
 
-			vertex.setX( vertices.get(offset++) * scale );
-			vertex.setY( vertices.get(offset++) * scale );
-			vertex.setZ( vertices.get(offset++) * scale );
+			vertex.setX( vertices[offset++] * scale );
+			vertex.setY( vertices[offset++] * scale );
+			vertex.setZ( vertices[offset++] * scale );
 
 			this.geometry.getVertices().add( vertex );
 		}
 	}
 	
-	private void parseFaces()
+	private void parseFaces(int[] faces, int length, double[][] uvs, int[] uvsLengths, double[] normals, int[] colors)
 	{
-		if(object.getFaces() == null) 
-			return;
-
 		Log.debug("JSON parseFaces()");
 
-		List<Integer> faces = object.getFaces();
-
-		List<List<Double>> uvs = object.getUvs();
 		int nUvLayers = 0;
 
 		// disregard empty arrays
-		for ( int i = 0; i < uvs.size(); i++ )
+		for ( int i = 0; i < uvs.length; i++ )
 		{
-			if ( uvs.get( i ).size() > 0) 
+			if ( uvsLengths[ i ] > 0) 
 				nUvLayers ++;
 		}
 
@@ -423,16 +484,12 @@ public class JsonLoader extends Loader
 			geometry.getFaceUvs().add( i, new ArrayList<UV>());
 			geometry.getFaceVertexUvs().add( i, new ArrayList<List<UV>>());
 		}
-		
-		List<Double> normals = object.getNormals();
-		List<Integer> colors = object.getColors();
 
 		int offset = 0;
-		int zLength = faces.size();
 
-		while ( offset < zLength ) 
+		while ( offset < length ) 
 		{
-			int type = faces.get(offset++);
+			int type = faces[offset++];
 
 			boolean isQuad          	= isBitSet( type, 0 );
 			boolean hasMaterial         = isBitSet( type, 1 );
@@ -449,27 +506,27 @@ public class JsonLoader extends Loader
 			if ( isQuad ) 
 			{
 				nVertices = 4;
-				face = new Face4(faces.get(offset++), faces.get(offset++), faces.get(offset++),faces.get(offset++));
+				face = new Face4(faces[offset++], faces[offset++], faces[offset++],faces[offset++]);
 			} 
 			else 
 			{
 				nVertices = 3;
-				face = new Face3(faces.get(offset++), faces.get(offset++), faces.get(offset++));
+				face = new Face3(faces[offset++], faces[offset++], faces[offset++]);
 			}
 
 			if ( hasMaterial ) 
 			{
-				face.setMaterialIndex(faces.get(offset++));
+				face.setMaterialIndex(faces[offset++]);
 			}
 
 			if ( hasFaceUv ) 
 			{
 				for ( int i = 0; i < nUvLayers; i++ ) 
 				{
-					List<Double> uvLayer = uvs.get(i);
+					double[] uvLayer = uvs[i];
 
-					int uvIndex = faces.get(offset++);
-					UV UV = new UV( uvLayer.get(uvIndex * 2), uvLayer.get(uvIndex * 2 + 1));
+					int uvIndex = faces[offset++];
+					UV UV = new UV( uvLayer[uvIndex * 2], uvLayer[uvIndex * 2 + 1]);
 
 					this.geometry.getFaceUvs().get(i).add(UV);
 				}
@@ -479,14 +536,14 @@ public class JsonLoader extends Loader
 			{
 				for ( int i = 0; i < nUvLayers; i++ ) 
 				{
-					List<Double> uvLayer = uvs.get(i);
+					double[] uvLayer = uvs[i];
 
 					List<UV> UVs = new ArrayList<UV>();
 
 					for ( int j = 0; j < nVertices; j ++ ) 
 					{
-						int uvIndex = faces.get(offset++);
-						UVs.add( new UV( uvLayer.get(uvIndex * 2), uvLayer.get(uvIndex * 2 + 1) ) );
+						int uvIndex = faces[offset++];
+						UVs.add( new UV( uvLayer[uvIndex * 2], uvLayer[uvIndex * 2 + 1] ) );
 					}
 
 					geometry.getFaceVertexUvs().get(i).add(UVs);
@@ -495,13 +552,13 @@ public class JsonLoader extends Loader
 
 			if ( hasFaceNormal ) 
 			{
-				int normalIndex = faces.get(offset++) * 3;
+				int normalIndex = faces[offset++] * 3;
 
 				Vector3 normal = new Vector3();
 
-				normal.setX( normals.get( normalIndex ++ ) );
-				normal.setY( normals.get( normalIndex ++ ) );
-				normal.setZ( normals.get( normalIndex ) );
+				normal.setX( normals[ normalIndex ++ ] );
+				normal.setY( normals[ normalIndex ++ ] );
+				normal.setZ( normals[ normalIndex ] );
 
 				face.setNormal(normal);
 			}
@@ -510,12 +567,12 @@ public class JsonLoader extends Loader
 			{
 				for ( int i = 0; i < nVertices; i++ ) 
 				{
-					int normalIndex = faces.get(offset++) * 3;
+					int normalIndex = faces[offset++] * 3;
 					Vector3 normal = new Vector3();
 					
-					normal.setX( normals.get( normalIndex ++ ) );
-					normal.setY( normals.get( normalIndex ++ ) );
-					normal.setZ( normals.get( normalIndex ) );
+					normal.setX( normals[ normalIndex ++ ] );
+					normal.setY( normals[ normalIndex ++ ] );
+					normal.setZ( normals[ normalIndex ] );
 
 					face.getVertexNormals().add( normal );
 				}
@@ -524,16 +581,16 @@ public class JsonLoader extends Loader
 
 			if ( hasFaceColor ) 
 			{
-				int colorIndex = faces.get(offset++);
-				face.setColor(new Color(colors.get(colorIndex)));
+				int colorIndex = faces[offset++];
+				face.setColor(new Color(colors[colorIndex]));
 			}
 
 			if ( hasFaceVertexColor ) 
 			{
 				for ( int i = 0; i < nVertices; i++ ) 
 				{
-					int colorIndex = faces.get(offset++);
-					face.getVertexColors().add(new Color(colors.get(colorIndex)));
+					int colorIndex = faces[offset++];
+					face.getVertexColors().add(new Color(colors[colorIndex]));
 				}
 			}
 
@@ -628,6 +685,30 @@ public class JsonLoader extends Loader
 				? 1.0 / object.getScale() : 1.0;
 	}
 	
+	private double[] toDoubleArray( List<Double> list )
+	{
+		if ( list == null )
+			return new double[0];
+
+		double[] array = new double[ list.size() ];
+		for ( int i = 0; i < array.length; i++ )
+			array[ i ] = list.get( i );
+
+		return array;
+	}
+
+	private int[] toIntArray( List<Integer> list )
+	{
+		if ( list == null )
+			return new int[0];
+
+		int[] array = new int[ list.size() ];
+		for ( int i = 0; i < array.length; i++ )
+			array[ i ] = list.get( i );
+
+		return array;
+	}
+
 	private boolean isBitSet( int value, int position ) 
 	{
 		return (value & ( 1 << position )) > 0;
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.loader.shared;
+
+/**
+ * Base class for the parsers which read numbers from the text char 
+ * by char, without creating a string per number.
+ * 
+ * @author thothbot
+ *
+ */
+public abstract class NumberReader
+{
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	protected String text;
+	protected int length;
+	protected int pos;
+
+	public NumberReader(String text)
+	{
+		this.text = text;
+		this.length = text.length();
+	}
+
+	/**
+	 * Reads the decimal number at the current position: optional sign, 
+	 * integer part, fraction and exponent.
+	 * 
+	 * @return the value, or NaN if there are no digits. 
+	 * The sign is skipped in this case.
+	 */
+	protected double readNumber()
+	{
+		boolean isNegative = false;
+		char c;
+
+		if ( this.pos < this.length && ( ( c = this.text.charAt( this.pos ) ) == '-' || c == '+' ) )
+		{
+			isNegative = c == '-';
+			this.pos ++;
+		}
+
+		double value = 0;
+		boolean hasDigits = false;
+
+		while ( this.pos < this.length && ( c = this.text.charAt( this.pos ) ) >= '0' && c <= '9' )
+		{
+			value = value * 10 + ( c - '0' );
+			hasDigits = true;
+			this.pos ++;
+		}
+
+		if ( this.pos < this.length && this.text.charAt( this.pos ) == '.' )
+		{
+			this.pos ++;
+
+			double fraction = 0;
+			int digits = 0;
+
+			while ( this.pos < this.length && ( c = this.text.charAt( this.pos ) ) >= '0' && c <= '9' )
+			{
+				// Digits beyond double precision do not change the value
+				if ( digits < POW10.length - 1 )
+				{
+					fraction = fraction * 10 + ( c - '0' );
+					digits ++;
+				}
+
+				hasDigits = true;
+				this.pos ++;
+			}
+
+			value += fraction / POW10[ digits ];
+		}
+
+		if ( ! hasDigits )
+			return Double.NaN;
+
+		if ( this.pos < this.length && ( ( c = this.text.charAt( this.pos ) ) == 'e' || c == 'E' ) )
+		{
+			this.pos ++;
+
+			boolean isNegativeExponent = false;
+			if ( this.pos < this.length && ( ( c = this.text.charAt( this.pos ) ) == '-' || c == '+' ) )
+			{
+				isNegativeExponent = c == '-';
+				this.pos ++;
+			}
+
+			int exponent = 0;
+			while ( this.pos < this.length && ( c = this.text.charAt( this.pos ) ) >= '0' && c <= '9' )
+			{
+				exponent = exponent * 10 + ( c - '0' );
+				this.pos ++;
+			}
+
+			double scale = exponent < POW10.length ? POW10[ exponent ] : Math.pow( 10, exponent );
+			value = isNegativeExponent ? value / scale : value * scale;
+		}
+
+		return isNegative ? -value : value;
+	}
+}
@@ -40,6 +40,10 @@ public class DaeArrayData extends DaeIdElement
 		
 		count = readIntAttribute("count", 0);
 	}
+	
+	public int getCount() {
+		return count;
+	}
 		
 	public String toString()
 	{
@@ -34,11 +34,17 @@ public class DaeArrayFloat extends DaeArrayData
 	{
 		super.read();
 
-		data = readFloatArray();
+		data = null;
 	}
 
+	/**
+	 * Gets values of the array. The text content is parsed on the first call.
+	 */
 	public double[] getData() 
 	{
+		if (data == null)
+			data = readFloatArray(getNode(), getCount());
+
 		return data;
 	}
 }
@@ -79,52 +79,59 @@ public abstract class DaeElement
 	
 	public double[] readFloatArray() 
 	{
-		String[] parts = readStringArray();
-		if (parts != null && parts.length > 0) 
-		{
-			Log.debug("DaeArrayFloat() [Float]-> " + parts.length);
-			
-			double[] data = new double[parts.length];
-			for (int i = 0; i < parts.length; i++) 
-			{
-				data[i] = Double.parseDouble(parts[i]);
-			}
-			return data;
-		}
-		return null;
+		return readFloatArray(getNode(), 0);
 	}
 	
 	public int[] readIntArray() 
 	{
-		String[] parts = readStringArray();
-		if (parts != null && parts.length > 0) 
+		return readIntArray(getNode(), 0);
+	}
+
+	/**
+	 * Reads numbers from the text content of the node.
+	 * 
+	 * @param count the expected number of values, or 0 if unknown.
+	 */
+	public static double[] readFloatArray(Node node, int count) 
+	{
+		String raw = DaeTextReader.getText(node);
+		if (raw == null) 
 		{
-			Log.debug("DaeArrayData() [Int]-> " + parts.length);
-			
-			int[] data = new int[parts.length];
-			for (int i = 0; i < parts.length; i++) 
-			{
-				data[i] = Integer.parseInt(parts[i], 10);
-			}
-			return data;
+			Log.error("readFloatArray failed! " + node.toString());
+			return null;
 		}
-		return null;
+
+		double[] data = new DaeTextReader(raw).readFloatArray(count);
+		Log.debug("DaeArrayFloat() [Float]-> " + data.length);
+
+		return data.length > 0 ? data : null;
 	}
 
-	public String[] readStringArray() 
+	/**
+	 * Reads numbers from the text content of the node.
+	 * 
+	 * @param count the expected number of values, or 0 if unknown.
+	 */
+	public static int[] readIntArray(Node node, int count) 
 	{
-		if (getNode().getChildNodes().getLength() > 0) 
+		String raw = DaeTextReader.getText(node);
+		if (raw == null) 
 		{
-			String raw = "";
-			for (int i = 0; i < getNode().getChildNodes().getLength(); i++) 
-			{
-				Node child = getNode().getChildNodes().item(i);
-				if (child.getNodeType() == Node.TEXT_NODE) 
-				{
-					raw += child.getNodeValue();
-				}
-			}
+			Log.error("readIntArray failed! " + node.toString());
+			return null;
+		}
+
+		int[] data = new DaeTextReader(raw).readIntArray(count);
+		Log.debug("DaeArrayData() [Int]-> " + data.length);
+
+		return data.length > 0 ? data : null;
+	}
 
+	public String[] readStringArray() 
+	{
+		String raw = DaeTextReader.getText(getNode());
+		if (raw != null) 
+		{
 			String[] parts = raw.trim().split("\\s+");
 			return parts;
 		} 
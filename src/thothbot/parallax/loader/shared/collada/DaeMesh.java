@@ -24,7 +24,10 @@ import java.util.List;
 import java.util.Map;
 
 import thothbot.parallax.core.shared.Log;
+import thothbot.parallax.core.shared.core.Color;
+import thothbot.parallax.core.shared.core.Face3;
 import thothbot.parallax.core.shared.core.Geometry;
+import thothbot.parallax.core.shared.core.UV;
 import thothbot.parallax.core.shared.core.Vector3;
 import com.google.gwt.xml.client.Node;
 import com.google.gwt.xml.client.NodeList;
@@ -35,6 +38,8 @@ public class DaeMesh extends DaeElement
 	private DaeVertices vertices;
 	private List<DaePrimitive> primitives;
 	private Geometry geometry;
+	// Some faces have no normals
+	private boolean isCalcNormals;
 	//	private String verticesID;
 
 	public DaeMesh(Node node) 
@@ -65,6 +70,7 @@ public class DaeMesh extends DaeElement
 		}
 
 		vertices = null;
+		geometry = null;
 //		verticesID = null;
 	}
 
@@ -98,20 +104,25 @@ public class DaeMesh extends DaeElement
 		}
 	}
 	
+	/**
+	 * Gets geometry of the mesh. The geometry is built on the first call 
+	 * and cached, so sources which are never used are never parsed.
+	 */
 	public Geometry getGeometry()
 	{
-		if(this.geometry == null)
+		if(this.geometry != null)
+			return this.geometry;
+
+		this.geometry = new Geometry();
+		this.isCalcNormals = false;
+		DaeInput input = this.vertices.getInput();
+		if(input.getSemantic().compareTo("POSITION") == 0)
 		{
-			this.geometry = new Geometry();
-			DaeInput input = this.vertices.getInput();
-			if(input.getSemantic().compareTo("POSITION") == 0)
+			double[] vertexData = sources.get(input.getSource()).getData().getData();
+			for ( int i = 0; i < vertexData.length; i += 3 ) 
 			{
-				double[] vertexData = sources.get(input.getSource()).getData().getData();
-				for ( int i = 0; i < vertexData.length; i += 3 ) 
-				{
-					this.geometry.getVertices().add( new Vector3(
-							vertexData[ i ], vertexData[ 1 + i ], vertexData[ 2 + i ]) );
-				}
+				this.geometry.getVertices().add( new Vector3(
+						vertexData[ i ], vertexData[ 1 + i ], vertexData[ 2 + i ]) );
 			}
 		}
 		
@@ -126,8 +137,8 @@ public class DaeMesh extends DaeElement
 		this.geometry.computeCentroids();
 		this.geometry.computeFaceNormals();
 		
-//		if ( this.geometry.calcNormals )
-//			this.geometry.computeVertexNormals();		
+		if ( this.isCalcNormals )
+			this.geometry.computeVertexNormals();
 		
 		this.geometry.computeBoundingBox();
 		
@@ -136,6 +147,10 @@ public class DaeMesh extends DaeElement
 	
 	private void handlePrimitive(DaeTriangles primitive)
 	{
+		int[] p = primitive.getP();
+		if ( p == null )
+			return;
+
 		List<DaeInput> inputs = primitive.getInput();
 		
 		int maxOffset = 0;
@@ -146,225 +161,80 @@ public class DaeMesh extends DaeElement
 			int offset = input.getOffset() + 1;
 			maxOffset = (maxOffset < offset) ? offset : maxOffset;
 
-			if ( input.getSemantic().compareTo("TEXCOORD") ==0 ) 
+			if ( input.getSemantic().compareTo("TEXCOORD") ==0 && !texture_sets.contains(input.getSet()) ) 
 				texture_sets.add(input.getSet());
 		}
-		
-//		for ( int pCount = 0; pCount < pList.length; ++pCount ) 
-//		{
-//			var p = pList[ pCount ], i = 0;
-//
-//			while ( i < p.length ) {
-//
-//				var vs = [];
-//				var ns = [];
-//				var ts = null;
-//				var cs = [];
-//
-//				if ( primitive.vcount ) {
-//
-//					vcount = primitive.vcount.length ? primitive.vcount[ vcIndex ++ ] : primitive.vcount;
-//
-//				} else {
-//
-//					vcount = p.length / maxOffset;
-//
-//				}
-//
-//
-//				for ( j = 0; j < vcount; j ++ ) {
-//
-//					for ( k = 0; k < inputs.length; k ++ ) {
-//
-//						input = inputs[ k ];
-//						source = sources[ input.source ];
-//
-//						index = p[ i + ( j * maxOffset ) + input.offset ];
-//						numParams = source.accessor.params.length;
-//						idx32 = index * numParams;
-//
-//						switch ( input.semantic ) {
-//
-//							case 'VERTEX':
-//
-//								vs.push( index );
-//
-//								break;
-//
-//							case 'NORMAL':
-//
-//								ns.push( getConvertedVec3( source.data, idx32 ) );
-//
-//								break;
-//
-//							case 'TEXCOORD':
-//
-//								ts = ts || { };
-//								if ( ts[ input.set ] === undefined ) ts[ input.set ] = [];
-//								// invert the V
-//								ts[ input.set ].push( new THREE.UV( source.data[ idx32 ], 1.0 - source.data[ idx32 + 1 ] ) );
-//
-//								break;
-//
-//							case 'COLOR':
-//
-//								cs.push( new THREE.Color().setRGB( source.data[ idx32 ], source.data[ idx32 + 1 ], source.data[ idx32 + 2 ] ) );
-//
-//								break;
-//
-//							default:
-//							
-//								break;
-//
-//						}
-//
-//					}
-//
-//				}
-//
-//				if ( ns.length == 0 ) {
-//
-//					// check the vertices inputs
-//					input = this.vertices.input.NORMAL;
-//
-//					if ( input ) {
-//
-//						source = sources[ input.source ];
-//						numParams = source.accessor.params.length;
-//
-//						for ( var ndx = 0, len = vs.length; ndx < len; ndx++ ) {
-//
-//							ns.push( getConvertedVec3( source.data, vs[ ndx ] * numParams ) );
-//
-//						}
-//
-//					} else {
-//
-//						geom.calcNormals = true;
-//
-//					}
-//
-//				}
-//
-//				if ( !ts ) {
-//
-//					ts = { };
-//					// check the vertices inputs
-//					input = this.vertices.input.TEXCOORD;
-//
-//					if ( input ) {
-//
-//						texture_sets.push( input.set );
-//						source = sources[ input.source ];
-//						numParams = source.accessor.params.length;
-//
-//						for ( var ndx = 0, len = vs.length; ndx < len; ndx++ ) {
-//
-//							idx32 = vs[ ndx ] * numParams;
-//							if ( ts[ input.set ] === undefined ) ts[ input.set ] = [ ];
-//							// invert the V
-//							ts[ input.set ].push( new THREE.UV( source.data[ idx32 ], 1.0 - source.data[ idx32 + 1 ] ) );
-//
-//						}
-//
-//					}
-//
-//				}
-//
-//				if ( cs.length == 0 ) {
-//
-//					// check the vertices inputs
-//					input = this.vertices.input.COLOR;
-//
-//					if ( input ) {
-//
-//						source = sources[ input.source ];
-//						numParams = source.accessor.params.length;
-//
-//						for ( var ndx = 0, len = vs.length; ndx < len; ndx++ ) {
-//
-//							idx32 = vs[ ndx ] * numParams;
-//							cs.push( new THREE.Color().setRGB( source.data[ idx32 ], source.data[ idx32 + 1 ], source.data[ idx32 + 2 ] ) );
-//
-//						}
-//
-//					}
-//
-//				}
-//
-//				var face = null, faces = [], uv, uvArr;
-//
-//				if ( vcount === 3 ) {
-//
-//					faces.push( new THREE.Face3( vs[0], vs[1], vs[2], ns, cs.length ? cs : new THREE.Color() ) );
-//
-//				} else if ( vcount === 4 ) {
-//					faces.push( new THREE.Face4( vs[0], vs[1], vs[2], vs[3], ns, cs.length ? cs : new THREE.Color() ) );
-//
-//				} else if ( vcount > 4 && options.subdivideFaces ) {
-//
-//					var clr = cs.length ? cs : new THREE.Color(),
-//						vec1, vec2, vec3, v1, v2, norm;
-//
-//					// subdivide into multiple Face3s
-//					for ( k = 1; k < vcount-1; ) {
-//
-//						// FIXME: normals don't seem to be quite right
-//						faces.push( new THREE.Face3( vs[0], vs[k], vs[k+1], [ ns[0], ns[k++], ns[k] ],  clr ) );
-//
-//					}
-//
-//				}
-//
-//				if ( faces.length ) {
-//
-//					for (var ndx = 0, len = faces.length; ndx < len; ndx++) {
-//
-//						face = faces[ndx];
-//						face.daeMaterial = primitive.material;
-//						geom.faces.push( face );
-//
-//						for ( k = 0; k < texture_sets.length; k++ ) {
-//
-//							uv = ts[ texture_sets[k] ];
-//
-//							if ( vcount > 4 ) {
-//
-//								// Grab the right UVs for the vertices in this face
-//								uvArr = [ uv[0], uv[ndx+1], uv[ndx+2] ];
-//
-//							} else if ( vcount === 4 ) {
-//
-//								uvArr = [ uv[0], uv[1], uv[2], uv[3] ];
-//
-//							} else {
-//
-//								uvArr = [ uv[0], uv[1], uv[2] ];
-//
-//							}
-//
-//							if ( !geom.faceVertexUvs[k] ) {
-//
-//								geom.faceVertexUvs[k] = [];
-//
-//							}
-//
-//							geom.faceVertexUvs[k].push( uvArr );
-//
-//						}
-//
-//					}
-//
-//				} else {
-//
-//					console.log( 'dropped face with vcount ' + vcount + ' for geometry with id: ' + geom.id );
-//
-//				}
-//
-//				i += maxOffset * vcount;
-//
-//			}
-//		}
+
+		for ( int k = this.geometry.getFaceVertexUvs().size(); k < texture_sets.size(); k++ )
+			this.geometry.getFaceVertexUvs().add(new ArrayList<List<UV>>());
+
+		int vcount = 3;
+		int[] vs = new int[vcount];
+
+		for ( int i = 0; i + maxOffset * vcount <= p.length; i += maxOffset * vcount ) 
+		{
+			List<Vector3> ns = new ArrayList<Vector3>();
+			List<Color> cs = new ArrayList<Color>();
+			Map<Integer, List<UV>> ts = new HashMap<Integer, List<UV>>();
+
+			for ( int j = 0; j < vcount; j ++ ) 
+			{
+				for ( int k = 0; k < inputs.size(); k ++ ) 
+				{
+					DaeInput input = inputs.get(k);
+					int index = p[ i + ( j * maxOffset ) + input.getOffset() ];
+
+					if ( input.getSemantic().compareTo("VERTEX") == 0 )
+					{
+						vs[ j ] = index;
+						continue;
+					}
+
+					DaeSource source = sources.get(input.getSource());
+					if ( source == null || source.getData() == null )
+						continue;
+
+					double[] data = source.getData().getData();
+					int idx32 = index * source.getAccessor().getParams().size();
+
+					if ( input.getSemantic().compareTo("NORMAL") == 0 )
+					{
+						ns.add(new Vector3( data[ idx32 ], data[ idx32 + 1 ], data[ idx32 + 2 ] ));
+					}
+					else if ( input.getSemantic().compareTo("TEXCOORD") == 0 )
+					{
+						if ( !ts.containsKey(input.getSet()) )
+							ts.put(input.getSet(), new ArrayList<UV>());
+
+						// invert the V
+						ts.get(input.getSet()).add(new UV( data[ idx32 ], 1.0 - data[ idx32 + 1 ] ));
+					}
+					else if ( input.getSemantic().compareTo("COLOR") == 0 )
+					{
+						cs.add(new Color().setRGB( data[ idx32 ], data[ idx32 + 1 ], data[ idx32 + 2 ] ));
+					}
+				}
+			}
+
+			Face3 face = new Face3( vs[0], vs[1], vs[2] );
+
+			if ( ns.size() == vcount )
+				face.setVertexNormals(ns);
+			else
+				this.isCalcNormals = true;
+
+			if ( cs.size() == vcount )
+				face.setVertexColors(cs);
+
+			this.geometry.getFaces().add(face);
+
+			for ( int k = 0; k < texture_sets.size(); k++ ) 
+			{
+				List<UV> uv = ts.get(texture_sets.get(k));
+				this.geometry.getFaceVertexUvs().get(k).add( uv != null && uv.size() == vcount 
+						? uv : new ArrayList<UV>() );
+			}
+		}
 	}
 
 //	private DaeSource readSource(String id) 
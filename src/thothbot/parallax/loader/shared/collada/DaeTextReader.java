@@ -0,0 +1,192 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.loader.shared.collada;
+
+import thothbot.parallax.loader.shared.NumberReader;
+
+import com.google.gwt.xml.client.Node;
+import com.google.gwt.xml.client.NodeList;
+
+/**
+ * Reads the whitespace separated numbers from the text content of 
+ * the COLLADA elements, like <code>&lt;float_array&gt;</code> or <code>&lt;p&gt;</code>.
+ * <p>
+ * The text is scanned char by char directly into primitive arrays, 
+ * no strings are created per number.
+ * 
+ * @author thothbot
+ *
+ */
+class DaeTextReader extends NumberReader
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	public DaeTextReader(String text)
+	{
+		super(text);
+	}
+
+	/**
+	 * Gets text content of the node. Browsers may split large text 
+	 * into several text nodes, so they are joined together.
+	 */
+	public static String getText(Node node)
+	{
+		NodeList list = node.getChildNodes();
+		int count = list.getLength();
+
+		if (count == 0)
+			return null;
+
+		if (count == 1)
+			return list.item(0).getNodeType() == Node.TEXT_NODE ? list.item(0).getNodeValue() : null;
+
+		StringBuilder raw = new StringBuilder();
+		for (int i = 0; i < count; i++) 
+		{
+			Node child = list.item(i);
+			if (child.getNodeType() == Node.TEXT_NODE) 
+				raw.append(child.getNodeValue());
+		}
+
+		return raw.toString();
+	}
+
+	/**
+	 * Reads all numbers from the text.
+	 * 
+	 * @param count the expected number of values, or 0 if unknown.
+	 */
+	public double[] readFloatArray(int count)
+	{
+		double[] data = new double[ count > 0 ? count : INITIAL_CAPACITY ];
+		int size = 0;
+
+		while (hasNext())
+		{
+			if (size == data.length)
+			{
+				double[] tmp = new double[ size * 2 ];
+				System.arraycopy(data, 0, tmp, 0, size);
+				data = tmp;
+			}
+
+			data[ size++ ] = readDouble();
+		}
+
+		if (size == data.length)
+			return data;
+
+		double[] result = new double[ size ];
+		System.arraycopy(data, 0, result, 0, size);
+		return result;
+	}
+
+	/**
+	 * Reads all numbers from the text.
+	 * 
+	 * @param count the expected number of values, or 0 if unknown.
+	 */
+	public int[] readIntArray(int count)
+	{
+		int[] data = new int[ count > 0 ? count : INITIAL_CAPACITY ];
+		int size = 0;
+
+		while (hasNext())
+		{
+			if (size == data.length)
+			{
+				int[] tmp = new int[ size * 2 ];
+				System.arraycopy(data, 0, tmp, 0, size);
+				data = tmp;
+			}
+
+			data[ size++ ] = readInt();
+		}
+
+		if (size == data.length)
+			return data;
+
+		int[] result = new int[ size ];
+		System.arraycopy(data, 0, result, 0, size);
+		return result;
+	}
+
+	/**
+	 * Skips whitespaces and checks if there is one more value.
+	 */
+	public boolean hasNext()
+	{
+		while (this.pos < this.length && this.text.charAt(this.pos) <= ' ')
+			this.pos++;
+
+		return this.pos < this.length;
+	}
+
+	public int readInt()
+	{
+		boolean isNegative = false;
+		char c = this.text.charAt(this.pos);
+		if (c == '-' || c == '+')
+		{
+			isNegative = c == '-';
+			this.pos++;
+		}
+
+		int value = 0;
+		while (this.pos < this.length && (c = this.text.charAt(this.pos)) >= '0' && c <= '9')
+		{
+			value = value * 10 + (c - '0');
+			this.pos++;
+		}
+
+		skipToken();
+
+		return isNegative ? -value : value;
+	}
+
+	public double readDouble()
+	{
+		int start = this.pos;
+		double value = readNumber();
+
+		// Special values: NaN, INF, -INF
+		if (Double.isNaN(value))
+		{
+			skipToken();
+			String token = this.text.substring(start, this.pos);
+
+			if (token.endsWith("INF"))
+				return token.charAt(0) == '-' ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+
+			return Double.NaN;
+		}
+
+		skipToken();
+
+		return value;
+	}
+
+	// Skips the rest of malformed value
+	private void skipToken()
+	{
+		while (this.pos < this.length && this.text.charAt(this.pos) > ' ')
+			this.pos++;
+	}
+}
@@ -27,6 +27,7 @@ import com.google.gwt.xml.client.NodeList;
 public class DaeTriangles extends DaePrimitive 
 {
 	List<DaeInput> input;
+	private Node pNode;
 	private int[] p;
 
 	public DaeTriangles(Node node, DaeMesh mesh) 
@@ -40,18 +41,37 @@ public class DaeTriangles extends DaePrimitive
 		super.destroy();
 
 		p = null;
+		pNode = null;
 	}
 	
 	public List<DaeInput> getInput() {
 		return this.input;
 	}
 
+	/**
+	 * Gets indices of the primitive. The text content is parsed on the first call.
+	 */
+	public int[] getP()
+	{
+		if (p == null && pNode != null)
+		{
+			int maxOffset = 0;
+			for (DaeInput input: this.input)
+				maxOffset = Math.max(maxOffset, input.getOffset() + 1);
+
+			p = readIntArray(pNode, getCount() * 3 * maxOffset);
+		}
+
+		return p;
+	}
+
 	@Override
 	public void read() 
 	{
 		super.read();
 
 		p = null;
+		pNode = null;
 
 		input = new ArrayList<DaeInput>();
 		NodeList list = getNode().getChildNodes();
@@ -70,10 +90,10 @@ public class DaeTriangles extends DaePrimitive
 //				}
 //				inputs.add(input);
 			} 
-//			else if (nodeName.compareTo("p") == 0) 
-//			{
-//				p = readIntArray(child);
-//			}
+			else if (nodeName.compareTo("p") == 0) 
+			{
+				pNode = child;
+			}
 		}
 
 //		if (p != null && p.length > 0 && inputs.size() > 0) 
@@ -0,0 +1,469 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.loader.shared.json;
+
+import thothbot.parallax.core.shared.Log;
+import thothbot.parallax.loader.shared.NumberReader;
+
+/**
+ * Streaming parser for the three.js JSON model format.
+ * <p>
+ * The document is scanned once. Numbers of the <code>vertices</code>, 
+ * <code>normals</code>, <code>colors</code>, <code>faces</code> and 
+ * <code>uvs</code> arrays are read straight into growing primitive 
+ * arrays, without boxed lists or per number strings. All other 
+ * members are copied into the remainder document, see {@link #getRemainder()}, 
+ * which is small enough to be decoded by the AutoBean {@link JsoObject}.
+ * 
+ * @author thothbot
+ *
+ */
+public class JsonModelParser extends NumberReader
+{
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private StringBuilder remainder;
+
+	private double[] vertices;
+	private int verticesLength;
+
+	private double[] normals;
+	private int normalsLength;
+
+	private int[] colors;
+	private int colorsLength;
+
+	private int[] faces;
+	private int facesLength;
+
+	private double[][] uvs;
+	private int[] uvsLengths;
+
+	// Length of the last read array
+	private int arrayLength;
+
+	public JsonModelParser(String json)
+	{
+		super(json);
+	}
+
+	/**
+	 * Parses the document.
+	 * 
+	 * @return false if the document is malformed.
+	 */
+	public boolean parse()
+	{
+		this.pos = 0;
+		this.remainder = new StringBuilder();
+
+		this.vertices = new double[0];
+		this.normals = new double[0];
+		this.colors = new int[0];
+		this.faces = new int[0];
+		this.uvs = new double[0][];
+		this.uvsLengths = new int[0];
+
+		try
+		{
+			parseRoot();
+		}
+		catch ( IllegalArgumentException e )
+		{
+			Log.error( "JsonModelParser: " + e.getMessage() + " at " + this.pos );
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets the document without geometry arrays.
+	 */
+	public String getRemainder()
+	{
+		return this.remainder.toString();
+	}
+
+	/**
+	 * Gets vertices array. Only first {@link #getVerticesLength()} items are valid.
+	 */
+	public double[] getVertices()
+	{
+		return this.vertices;
+	}
+
+	public int getVerticesLength()
+	{
+		return this.verticesLength;
+	}
+
+	/**
+	 * Gets normals array. Only first {@link #getNormalsLength()} items are valid.
+	 */
+	public double[] getNormals()
+	{
+		return this.normals;
+	}
+
+	public int getNormalsLength()
+	{
+		return this.normalsLength;
+	}
+
+	/**
+	 * Gets colors array. Only first {@link #getColorsLength()} items are valid.
+	 */
+	public int[] getColors()
+	{
+		return this.colors;
+	}
+
+	public int getColorsLength()
+	{
+		return this.colorsLength;
+	}
+
+	/**
+	 * Gets faces array. Only first {@link #getFacesLength()} items are valid.
+	 */
+	public int[] getFaces()
+	{
+		return this.faces;
+	}
+
+	public int getFacesLength()
+	{
+		return this.facesLength;
+	}
+
+	/**
+	 * Gets uv layers. Valid lengths of the layers are in {@link #getUvsLengths()}.
+	 */
+	public double[][] getUvs()
+	{
+		return this.uvs;
+	}
+
+	public int[] getUvsLengths()
+	{
+		return this.uvsLengths;
+	}
+
+	private void parseRoot()
+	{
+		skipWhitespace();
+		expect( '{' );
+		this.remainder.append( '{' );
+
+		skipWhitespace();
+		if ( peek() == '}' )
+		{
+			this.pos ++;
+			this.remainder.append( '}' );
+			return;
+		}
+
+		boolean isFirst = true;
+
+		while ( true )
+		{
+			skipWhitespace();
+			String key = readString();
+			skipWhitespace();
+			expect( ':' );
+			skipWhitespace();
+
+			if ( ! isFirst )
+				this.remainder.append( ',' );
+			isFirst = false;
+
+			this.remainder.append( '"' ).append( key ).append( "\":" );
+
+			if ( key.equals( "vertices" ) )
+			{
+				this.vertices = readDoubleArray( this.vertices );
+				this.verticesLength = this.arrayLength;
+				this.remainder.append( "[]" );
+			}
+			else if ( key.equals( "normals" ) )
+			{
+				this.normals = readDoubleArray( this.normals );
+				this.normalsLength = this.arrayLength;
+				this.remainder.append( "[]" );
+			}
+			else if ( key.equals( "colors" ) )
+			{
+				this.colors = readIntArray( this.colors );
+				this.colorsLength = this.arrayLength;
+				this.remainder.append( "[]" );
+			}
+			else if ( key.equals( "faces" ) )
+			{
+				this.faces = readIntArray( this.faces );
+				this.facesLength = this.arrayLength;
+				this.remainder.append( "[]" );
+			}
+			else if ( key.equals( "uvs" ) )
+			{
+				readUvs();
+				this.remainder.append( "[]" );
+			}
+			else
+			{
+				int start = this.pos;
+				skipValue();
+				this.remainder.append( this.text, start, this.pos );
+			}
+
+			skipWhitespace();
+			char c = next();
+			if ( c == '}' )
+				break;
+			if ( c != ',' )
+				throw new IllegalArgumentException( "',' or '}' expected" );
+		}
+
+		this.remainder.append( '}' );
+	}
+
+	private double[] readDoubleArray( double[] array )
+	{
+		int size = 0;
+
+		expect( '[' );
+		skipWhitespace();
+
+		if ( peek() == ']' )
+		{
+			this.pos ++;
+		}
+		else
+		{
+			while ( true )
+			{
+				skipWhitespace();
+
+				if ( size == array.length )
+					array = grow( array, size );
+
+				array[ size ++ ] = readValue();
+
+				skipWhitespace();
+				char c = next();
+				if ( c == ']' )
+					break;
+				if ( c != ',' )
+					throw new IllegalArgumentException( "',' or ']' expected" );
+			}
+		}
+
+		this.arrayLength = size;
+		return array;
+	}
+
+	private int[] readIntArray( int[] array )
+	{
+		int size = 0;
+
+		expect( '[' );
+		skipWhitespace();
+
+		if ( peek() == ']' )
+		{
+			this.pos ++;
+		}
+		else
+		{
+			while ( true )
+			{
+				skipWhitespace();
+
+				if ( size == array.length )
+					array = grow( array, size );
+
+				array[ size ++ ] = (int) readValue();
+
+				skipWhitespace();
+				char c = next();
+				if ( c == ']' )
+					break;
+				if ( c != ',' )
+					throw new IllegalArgumentException( "',' or ']' expected" );
+			}
+		}
+
+		this.arrayLength = size;
+		return array;
+	}
+
+	private void readUvs()
+	{
+		int layers = 0;
+
+		expect( '[' );
+		skipWhitespace();
+
+		if ( peek() == ']' )
+		{
+			this.pos ++;
+			return;
+		}
+
+		while ( true )
+		{
+			skipWhitespace();
+
+			if ( layers == this.uvs.length )
+			{
+				double[][] uvs = new double[ layers + 1 ][];
+				int[] uvsLengths = new int[ layers + 1 ];
+				System.arraycopy( this.uvs, 0, uvs, 0, layers );
+				System.arraycopy( this.uvsLengths, 0, uvsLengths, 0, layers );
+				this.uvs = uvs;
+				this.uvsLengths = uvsLengths;
+			}
+
+			this.uvs[ layers ] = readDoubleArray( new double[0] );
+			this.uvsLengths[ layers ] = this.arrayLength;
+			layers ++;
+
+			skipWhitespace();
+			char c = next();
+			if ( c == ']' )
+				break;
+			if ( c != ',' )
+				throw new IllegalArgumentException( "',' or ']' expected" );
+		}
+	}
+
+	private double readValue()
+	{
+		double value = readNumber();
+		if ( Double.isNaN( value ) )
+			throw new IllegalArgumentException( "number expected" );
+
+		return value;
+	}
+
+	private String readString()
+	{
+		expect( '"' );
+		int start = this.pos;
+
+		while ( true )
+		{
+			char c = next();
+			if ( c == '\\' )
+				next();
+			else if ( c == '"' )
+				break;
+		}
+
+		return this.text.substring( start, this.pos - 1 );
+	}
+
+	private void skipValue()
+	{
+		char c = peek();
+
+		if ( c == '"' )
+		{
+			readString();
+		}
+		else if ( c == '{' || c == '[' )
+		{
+			int depth = 0;
+			do
+			{
+				c = peek();
+				if ( c == '"' )
+				{
+					readString();
+					continue;
+				}
+
+				if ( c == '{' || c == '[' )
+					depth ++;
+				else if ( c == '}' || c == ']' )
+					depth --;
+
+				this.pos ++;
+			}
+			while ( depth > 0 );
+		}
+		else
+		{
+			// number, true, false or null
+			while ( this.pos < this.length )
+			{
+				c = this.text.charAt( this.pos );
+				if ( c == ',' || c == '}' || c == ']' || isWhitespace( c ) )
+					break;
+				this.pos ++;
+			}
+		}
+	}
+
+	private void skipWhitespace()
+	{
+		while ( this.pos < this.length && isWhitespace( this.text.charAt( this.pos ) ) )
+			this.pos ++;
+	}
+
+	private static boolean isWhitespace( char c )
+	{
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	private char peek()
+	{
+		if ( this.pos >= this.length )
+			throw new IllegalArgumentException( "unexpected end of data" );
+
+		return this.text.charAt( this.pos );
+	}
+
+	private char next()
+	{
+		char c = peek();
+		this.pos ++;
+		return c;
+	}
+
+	private void expect( char c )
+	{
+		if ( next() != c )
+			throw new IllegalArgumentException( "'" + c + "' expected" );
+	}
+
+	private static double[] grow( double[] array, int size )
+	{
+		double[] result = new double[ Math.max( INITIAL_CAPACITY, size * 2 ) ];
+		System.arraycopy( array, 0, result, 0, size );
+		return result;
+	}
+
+	private static int[] grow( int[] array, int size )
+	{
+		int[] result = new int[ Math.max( INITIAL_CAPACITY, size * 2 ) ];
+		System.arraycopy( array, 0, result, 0, size );
+		return result;
+	}
+}
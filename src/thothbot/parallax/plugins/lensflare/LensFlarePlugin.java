@@ -37,9 +37,9 @@ import thothbot.parallax.core.client.gl2.enums.PixelFormat;
 import thothbot.parallax.core.client.gl2.enums.PixelType;
 import thothbot.parallax.core.client.gl2.enums.TextureParameterName;
 import thothbot.parallax.core.client.gl2.enums.TextureTarget;
-import thothbot.parallax.core.client.gl2.enums.TextureUnit;
 import thothbot.parallax.core.client.renderers.Plugin;
 import thothbot.parallax.core.client.renderers.WebGLRenderer;
+import thothbot.parallax.core.client.renderers.WebGLState;
 import thothbot.parallax.core.client.shaders.Attribute;
 import thothbot.parallax.core.client.shaders.Uniform;
 import thothbot.parallax.core.shared.cameras.Camera;
@@ -51,7 +51,7 @@ import thothbot.parallax.plugins.lensflare.shaders.LensFlareShader;
 import thothbot.parallax.plugins.lensflare.shaders.LensFlareVertexTextureShader;
 
 import com.google.gwt.core.client.GWT;
-import com.google.gwt.typedarrays.shared.Float64Array;
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 import com.google.gwt.typedarrays.shared.Uint16Array;
 
@@ -60,7 +60,7 @@ public final class LensFlarePlugin extends Plugin
 
 	public class LensFlareGeometry 
 	{
-		Float64Array vertices;
+		Float32Array vertices;
 		Uint16Array faces;
 		
 		WebGLBuffer vertexBuffer;
@@ -85,8 +85,9 @@ public final class LensFlarePlugin extends Plugin
 		this.lensFlare = new LensFlareGeometry();
 		
 		WebGLRenderingContext gl = getRenderer().getGL();
+		WebGLState state = getRenderer().getState();
 
-		lensFlare.vertices = TypedArrays.createFloat64Array( 8 + 8 );
+		lensFlare.vertices = TypedArrays.createFloat32Array( 8 + 8 );
 		lensFlare.faces = TypedArrays.createUint16Array( 6 );
 
 		int i = 0;
@@ -111,10 +112,10 @@ public final class LensFlarePlugin extends Plugin
 		lensFlare.vertexBuffer     = gl.createBuffer();
 		lensFlare.elementBuffer    = gl.createBuffer();
 
-		gl.bindBuffer( BufferTarget.ARRAY_BUFFER, lensFlare.vertexBuffer );
+		state.bindBuffer( BufferTarget.ARRAY_BUFFER, lensFlare.vertexBuffer );
 		gl.bufferData( BufferTarget.ARRAY_BUFFER, lensFlare.vertices, BufferUsage.STATIC_DRAW );
 
-		gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, lensFlare.elementBuffer );
+		state.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, lensFlare.elementBuffer );
 		gl.bufferData( BufferTarget.ELEMENT_ARRAY_BUFFER, lensFlare.faces, BufferUsage.STATIC_DRAW );
 
 		// textures
@@ -122,14 +123,14 @@ public final class LensFlarePlugin extends Plugin
 		lensFlare.tempTexture      = gl.createTexture();
 		lensFlare.occlusionTexture = gl.createTexture();
 
-		gl.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.tempTexture );
+		state.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.tempTexture );
 		gl.texImage2D( TextureTarget.TEXTURE_2D, 0, 16, 16, 0, PixelFormat.RGB, PixelType.UNSIGNED_BYTE, null );
 		gl.texParameteri( TextureTarget.TEXTURE_2D, TextureParameterName.TEXTURE_WRAP_S, WebGLConstants.CLAMP_TO_EDGE );
 		gl.texParameteri( TextureTarget.TEXTURE_2D, TextureParameterName.TEXTURE_WRAP_T, WebGLConstants.CLAMP_TO_EDGE );
 		gl.texParameteri( TextureTarget.TEXTURE_2D, TextureParameterName.TEXTURE_MAG_FILTER, WebGLConstants.NEAREST );
 		gl.texParameteri( TextureTarget.TEXTURE_2D, TextureParameterName.TEXTURE_MIN_FILTER, WebGLConstants.NEAREST );
 
-		gl.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.occlusionTexture );
+		state.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.occlusionTexture );
 		gl.texImage2D( TextureTarget.TEXTURE_2D, 0, 16, 16, 0, PixelFormat.RGBA, PixelType.UNSIGNED_BYTE, null );
 		gl.texParameteri( TextureTarget.TEXTURE_2D, TextureParameterName.TEXTURE_WRAP_S, WebGLConstants.CLAMP_TO_EDGE );
 		gl.texParameteri( TextureTarget.TEXTURE_2D, TextureParameterName.TEXTURE_WRAP_T, WebGLConstants.CLAMP_TO_EDGE );
@@ -188,6 +189,7 @@ public final class LensFlarePlugin extends Plugin
 		if ( nFlares == 0 ) return;
 
 		WebGLRenderingContext gl = getRenderer().getGL();
+		WebGLState state = getRenderer().getState();
 
 		Vector3 tempPosition = new Vector3();
 
@@ -206,12 +208,12 @@ public final class LensFlarePlugin extends Plugin
 
 		// set _lensFlare program and reset blending
 
-		gl.useProgram( lensFlare.shader.getProgram() );
+		state.useProgram( lensFlare.shader.getProgram() );
 
 		if ( ! lensFlare.attributesEnabled ) 
 		{
-			gl.enableVertexAttribArray( attributesLocation.get("position") );
-			gl.enableVertexAttribArray( attributesLocation.get("uv") );
+			state.enableVertexAttribArray( attributesLocation.get("position") );
+			state.enableVertexAttribArray( attributesLocation.get("uv") );
 
 			lensFlare.attributesEnabled = true;
 		}
@@ -222,14 +224,14 @@ public final class LensFlarePlugin extends Plugin
 		gl.uniform1i( uniforms.get("occlusionMap").getLocation(), 0 );
 		gl.uniform1i( uniforms.get("map").getLocation(), 1 );
 
-		gl.bindBuffer( BufferTarget.ARRAY_BUFFER, lensFlare.vertexBuffer );
+		state.bindBuffer( BufferTarget.ARRAY_BUFFER, lensFlare.vertexBuffer );
 		gl.vertexAttribPointer( attributesLocation.get("position"), 2, DataType.FLOAT, false, 2 * 8, 0 );
 		gl.vertexAttribPointer( attributesLocation.get("uv"), 2, DataType.FLOAT, false, 2 * 8, 8 );
 
-		gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, lensFlare.elementBuffer );
+		state.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, lensFlare.elementBuffer );
 
-		gl.disable( EnableCap.CULL_FACE );
-		gl.depthMask( false );
+		state.disable( EnableCap.CULL_FACE );
+		state.depthMask( false );
 
 		for ( int i = 0; i < nFlares; i ++ ) 
 		{
@@ -266,8 +268,8 @@ public final class LensFlarePlugin extends Plugin
 
 				// save current RGB to temp texture
 
-				gl.activeTexture( TextureUnit.TEXTURE1 );
-				gl.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.tempTexture );
+				state.activeTexture( 1 );
+				state.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.tempTexture );
 				gl.copyTexImage2D( TextureTarget.TEXTURE_2D, 0, PixelFormat.RGB, (int)screenPositionPixels.getX() - 8, (int)screenPositionPixels.getY() - 8, 16, 16, 0 );
 
 				// render pink quad
@@ -276,24 +278,24 @@ public final class LensFlarePlugin extends Plugin
 				gl.uniform2f( uniforms.get("scale").getLocation(), scale.getX(), scale.getY() );
 				gl.uniform3f( uniforms.get("screenPosition").getLocation(), screenPosition.getX(), screenPosition.getY(), screenPosition.getZ() );
 
-				gl.disable( EnableCap.BLEND );
-				gl.enable( EnableCap.DEPTH_TEST );
+				state.disable( EnableCap.BLEND );
+				state.enable( EnableCap.DEPTH_TEST );
 
 				gl.drawElements( BeginMode.TRIANGLES, 6, DrawElementsType.UNSIGNED_SHORT, 0 );
 
 				// copy result to occlusionMap
 
-				gl.activeTexture( TextureUnit.TEXTURE0 );
-				gl.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.occlusionTexture );
+				state.activeTexture( 0 );
+				state.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.occlusionTexture );
 				gl.copyTexImage2D( TextureTarget.TEXTURE_2D, 0, PixelFormat.RGBA, (int)screenPositionPixels.getX() - 8, (int)screenPositionPixels.getY() - 8, 16, 16, 0 );
 
 				// restore graphics
 
 				gl.uniform1i( uniforms.get("renderType").getLocation(), 1 );
-				gl.disable( EnableCap.DEPTH_TEST );
+				state.disable( EnableCap.DEPTH_TEST );
 
-				gl.activeTexture( TextureUnit.TEXTURE1 );
-				gl.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.tempTexture );
+				state.activeTexture( 1 );
+				state.bindTexture( TextureTarget.TEXTURE_2D, lensFlare.tempTexture );
 				gl.drawElements( BeginMode.TRIANGLES, 6, DrawElementsType.UNSIGNED_SHORT, 0 );
 
 				// update object positions
@@ -305,7 +307,7 @@ public final class LensFlarePlugin extends Plugin
 				// render flares
 
 				gl.uniform1i( uniforms.get("renderType").getLocation(), 2 );
-				gl.enable( EnableCap.BLEND );
+				state.enable( EnableCap.BLEND );
 
 				for ( int j = 0, jl = flare.getLensFlares().size(); j < jl; j ++ ) 
 				{
@@ -341,8 +343,8 @@ public final class LensFlarePlugin extends Plugin
 
 		// restore gl
 
-		gl.enable( EnableCap.CULL_FACE );
-		gl.enable( EnableCap.DEPTH_TEST );
-		gl.depthMask( true );
+		state.enable( EnableCap.CULL_FACE );
+		state.enable( EnableCap.DEPTH_TEST );
+		state.depthMask( true );
 	}
 }
@@ -23,13 +23,13 @@ import java.util.List;
 
 import thothbot.parallax.core.client.events.ViewportResizeEvent;
 import thothbot.parallax.core.client.events.ViewportResizeHandler;
-import thothbot.parallax.core.client.gl2.WebGLRenderingContext;
 import thothbot.parallax.core.client.gl2.enums.PixelFormat;
 import thothbot.parallax.core.client.gl2.enums.StencilFunction;
 import thothbot.parallax.core.client.gl2.enums.TextureMagFilter;
 import thothbot.parallax.core.client.gl2.enums.TextureMinFilter;
 import thothbot.parallax.core.client.renderers.Plugin;
 import thothbot.parallax.core.client.renderers.WebGLRenderer;
+import thothbot.parallax.core.client.renderers.WebGLState;
 import thothbot.parallax.core.client.textures.RenderTargetTexture;
 import thothbot.parallax.core.shared.Log;
 import thothbot.parallax.core.shared.cameras.Camera;
@@ -138,7 +138,7 @@ public class Postprocessing extends Plugin
 		boolean maskActive = false;
 
 		double delta = 0;
-		WebGLRenderingContext gl = getRenderer().getGL();
+		WebGLState state = getRenderer().getState();
 		
 		for ( Pass pass : this.passes ) 
 		{	
@@ -152,11 +152,11 @@ public class Postprocessing extends Plugin
 			{
 				if ( maskActive ) 
 				{
-					gl.stencilFunc( StencilFunction.NOTEQUAL, 1, 0xffffffff );
+					state.stencilFunc( StencilFunction.NOTEQUAL, 1, 0xffffffff );
 
 					this.copyPass.render( this, delta, true );
 
-					gl.stencilFunc( StencilFunction.EQUAL, 1, 0xffffffff );
+					state.stencilFunc( StencilFunction.EQUAL, 1, 0xffffffff );
 				}
 
 				this.swapBuffers();
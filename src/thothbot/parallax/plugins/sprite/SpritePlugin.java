@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import com.google.gwt.typedarrays.shared.Float32Array;
 import com.google.gwt.typedarrays.shared.Float64Array;
 import com.google.gwt.typedarrays.shared.TypedArrays;
 import com.google.gwt.typedarrays.shared.Uint16Array;
@@ -35,19 +36,22 @@ import thothbot.parallax.core.client.gl2.enums.BufferUsage;
 import thothbot.parallax.core.client.gl2.enums.DataType;
 import thothbot.parallax.core.client.gl2.enums.DrawElementsType;
 import thothbot.parallax.core.client.gl2.enums.EnableCap;
-import thothbot.parallax.core.client.gl2.enums.TextureUnit;
 import thothbot.parallax.core.client.renderers.Plugin;
 import thothbot.parallax.core.client.renderers.WebGLRenderer;
+import thothbot.parallax.core.client.renderers.WebGLState;
+import thothbot.parallax.core.client.shaders.Shader;
 import thothbot.parallax.core.client.shaders.Uniform;
+import thothbot.parallax.core.client.textures.Texture;
 import thothbot.parallax.core.shared.cameras.Camera;
 import thothbot.parallax.core.shared.scenes.Scene;
+import thothbot.parallax.plugins.sprite.shaders.SpriteBatchShader;
 import thothbot.parallax.plugins.sprite.shaders.SpriteShader;
 
 public final class SpritePlugin extends Plugin 
 {
 	private class SpriteGeometry 
 	{
-		Float64Array vertices;
+		Float32Array vertices;
 		Uint16Array faces;
 		
 		WebGLBuffer vertexBuffer;
@@ -58,8 +62,42 @@ public final class SpritePlugin extends Plugin
 		boolean attributesEnabled;
 	}
 	
+	/*
+	 * Dynamic geometry of all visible sprites for the batched mode
+	 */
+	private class SpriteBatch 
+	{
+		// Sprites in the vertex array
+		int capacity;
+
+		Float32Array vertices;
+		Uint16Array faces;
+
+		WebGLBuffer vertexBuffer;
+		WebGLBuffer elementBuffer;
+
+		SpriteBatchShader shader;
+	}
+
+	// Max number of sprites per draw call addressed by 16-bit indices
+	private static final int BATCH_MAX_SPRITES = 16384;
+
+	// Clip space position, uv, color and opacity
+	private static final int BATCH_STRIDE = 4 + 2 + 4;
+
+	// Quad corners and uvs: x, y, u, v
+	private static final double[] QUAD = {
+		-1, -1, 0, 1,
+		 1, -1, 1, 1,
+		 1,  1, 1, 0,
+		-1,  1, 0, 0
+	};
+
 	private SpriteGeometry sprite;
+	private SpriteBatch batch;
 	private List<Sprite> objects;
+
+	private boolean isBatched = false;
 	
 	public SpritePlugin(WebGLRenderer renderer, Scene scene) 
 	{
@@ -68,8 +106,9 @@ public final class SpritePlugin extends Plugin
 		this.sprite = new SpriteGeometry();
 		
 		WebGLRenderingContext gl = getRenderer().getGL();
+		WebGLState state = getRenderer().getState();
 		
-		sprite.vertices = TypedArrays.createFloat64Array( 8 + 8 );
+		sprite.vertices = TypedArrays.createFloat32Array( 8 + 8 );
 		sprite.faces = TypedArrays.createUint16Array( 6 );
 		
 		int i = 0;
@@ -94,10 +133,10 @@ public final class SpritePlugin extends Plugin
 		sprite.vertexBuffer  = gl.createBuffer();
 		sprite.elementBuffer = gl.createBuffer();
 
-		gl.bindBuffer( BufferTarget.ARRAY_BUFFER, sprite.vertexBuffer );
+		state.bindBuffer( BufferTarget.ARRAY_BUFFER, sprite.vertexBuffer );
 		gl.bufferData( BufferTarget.ARRAY_BUFFER, sprite.vertices, BufferUsage.STATIC_DRAW );
 
-		gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, sprite.elementBuffer );
+		state.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, sprite.elementBuffer );
 		gl.bufferData( BufferTarget.ELEMENT_ARRAY_BUFFER, sprite.faces, BufferUsage.STATIC_DRAW );
 
 		sprite.shader = new SpriteShader();
@@ -110,6 +149,22 @@ public final class SpritePlugin extends Plugin
 		return Plugin.TYPE.POST_RENDER;
 	}
 	
+	public boolean isBatched() 
+	{
+		return this.isBatched;
+	}
+
+	/**
+	 * Enables batched mode: all visible sprites are written into one dynamic 
+	 * vertex buffer, already sorted by depth, and rendered by one draw call 
+	 * for every run of sprites with the same texture, blending and 
+	 * merging with 3D.
+	 */
+	public void setBatched(boolean isBatched) 
+	{
+		this.isBatched = isBatched;
+	}
+
 	public List<Sprite> getObjects() 
 	{
 		if(this.objects == null)
@@ -128,7 +183,60 @@ public final class SpritePlugin extends Plugin
 
 		if ( nSprites == 0 ) return;
 
+		WebGLState state = getRenderer().getState();
+
+		// update positions and sort
+
+		for( int i = 0; i < nSprites; i ++ ) 
+		{
+			Sprite sprite = sprites.get( i );
+
+			if ( ! sprite.isVisible() || sprite.getOpacity() == 0 ) continue;
+
+			if( ! sprite.isUseScreenCoordinates() ) 
+			{
+				sprite._modelViewMatrix.multiply( camera.getMatrixWorldInverse(), sprite.getMatrixWorld());
+				sprite.setZ( - sprite._modelViewMatrix.getArray().get(14) );
+			} 
+			else 
+			{
+				sprite.setZ( - sprite.getPosition().getZ() );
+			}
+		}
+
+		Collections.sort((List<Sprite>)(ArrayList)sprites);
+
+		// setup gl
+
+		state.disable( EnableCap.CULL_FACE );
+		state.enable( EnableCap.BLEND );
+		state.depthMask( true );
+
+		if ( isBatched() ) 
+		{
+			renderBatched( camera, sprites, viewportWidth, viewportHeight );
+		}
+		else
+		{
+			renderSprites( camera, sprites, viewportWidth, viewportHeight );
+		}
+
+		// restore gl
+
+		state.enable( EnableCap.CULL_FACE );
+		state.enable( EnableCap.DEPTH_TEST );
+		state.depthMask( true );
+	}
+
+	/*
+	 * Renders sprites one by one using the shared quad
+	 */
+	private void renderSprites( Camera camera, List<Sprite> sprites, int viewportWidth, int viewportHeight ) 
+	{
+		int nSprites = sprites.size();
+
 		WebGLRenderingContext gl = getRenderer().getGL();
+		WebGLState state = getRenderer().getState();
 
 		Map<String, Uniform> uniforms = this.sprite.shader.getUniforms();
 		Map<String, Integer> attributesLocations = this.sprite.shader.getAttributesLocations();
@@ -140,54 +248,27 @@ public final class SpritePlugin extends Plugin
 
 		boolean mergeWith3D = true;
 
-		// setup gl
-
-		gl.useProgram( this.sprite.shader.getProgram() );
+		state.useProgram( this.sprite.shader.getProgram() );
 
 		if ( ! sprite.attributesEnabled ) 
 		{
-			gl.enableVertexAttribArray( attributesLocations.get("position") );
-			gl.enableVertexAttribArray( attributesLocations.get("uv") );
+			state.enableVertexAttribArray( attributesLocations.get("position") );
+			state.enableVertexAttribArray( attributesLocations.get("uv") );
 
 			sprite.attributesEnabled = true;
 		}
 
-		gl.disable( EnableCap.CULL_FACE );
-		gl.enable( EnableCap.BLEND );
-		gl.depthMask( true );
-
-		gl.bindBuffer( BufferTarget.ARRAY_BUFFER, sprite.vertexBuffer );
+		state.bindBuffer( BufferTarget.ARRAY_BUFFER, sprite.vertexBuffer );
 		gl.vertexAttribPointer( attributesLocations.get("position"), 2, DataType.FLOAT, false, 2 * 8, 0 );
 		gl.vertexAttribPointer( attributesLocations.get("uv"), 2, DataType.FLOAT, false, 2 * 8, 8 );
 
-		gl.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, sprite.elementBuffer );
+		state.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, sprite.elementBuffer );
 
 		gl.uniformMatrix4fv( uniforms.get("projectionMatrix").getLocation(), false, camera._projectionMatrixArray );
 
-		gl.activeTexture( TextureUnit.TEXTURE0 );
+		state.activeTexture( 0 );
 		gl.uniform1i( uniforms.get("map").getLocation(), 0 );
 
-		// update positions and sort
-
-		for( int i = 0; i < nSprites; i ++ ) 
-		{
-			Sprite sprite = sprites.get( i );
-
-			if ( ! sprite.isVisible() || sprite.getOpacity() == 0 ) continue;
-
-			if( ! sprite.isUseScreenCoordinates() ) 
-			{
-				sprite._modelViewMatrix.multiply( camera.getMatrixWorldInverse(), sprite.getMatrixWorld());
-				sprite.setZ( - sprite._modelViewMatrix.getArray().get(14) );
-			} 
-			else 
-			{
-				sprite.setZ( - sprite.getPosition().getZ() );
-			}
-		}
-
-		Collections.sort((List<Sprite>)(ArrayList)sprites);
-
 		// render all sprites
 
 		for( int i = 0; i < nSprites; i ++ ) 
@@ -237,12 +318,12 @@ public final class SpritePlugin extends Plugin
 
 				if ( sprite.isMergeWith3D() && !mergeWith3D ) 
 				{
-					gl.enable( EnableCap.DEPTH_TEST );
+					state.enable( EnableCap.DEPTH_TEST );
 					mergeWith3D = true;
 				} 
 				else if ( ! sprite.isMergeWith3D() && mergeWith3D ) 
 				{
-					gl.disable( EnableCap.DEPTH_TEST );
+					state.disable( EnableCap.DEPTH_TEST );
 					mergeWith3D = false;
 				}
 
@@ -253,11 +334,231 @@ public final class SpritePlugin extends Plugin
 				gl.drawElements( BeginMode.TRIANGLES, 6, DrawElementsType.UNSIGNED_SHORT, 0 );
 			}
 		}
+	}
 
-		// restore gl
+	/*
+	 * Renders all visible sprites from one dynamic vertex buffer.
+	 * The vertex shader math of the sprite is done here, so every 
+	 * vertex is already in the clip space.
+	 */
+	private void renderBatched( Camera camera, List<Sprite> sprites, int viewportWidth, int viewportHeight ) 
+	{
+		WebGLRenderingContext gl = getRenderer().getGL();
+		WebGLState state = getRenderer().getState();
+
+		if ( this.batch == null ) 
+			initBatch( gl );
+
+		SpriteBatch batch = this.batch;
+
+		int nSprites = sprites.size();
+
+		if ( batch.capacity < nSprites ) 
+		{
+			batch.capacity = Math.max( nSprites, batch.capacity * 2 );
+			batch.vertices = TypedArrays.createFloat32Array( batch.capacity * 4 * BATCH_STRIDE );
+
+			state.bindBuffer( BufferTarget.ARRAY_BUFFER, batch.vertexBuffer );
+			gl.bufferData( BufferTarget.ARRAY_BUFFER, batch.vertices, BufferUsage.DYNAMIC_DRAW );
+		}
+
+		Float32Array vertices = batch.vertices;
+		Float64Array projection = camera.getProjectionMatrix().getArray();
+
+		double invAspect = (double)viewportHeight / viewportWidth;
+
+		double halfViewportWidth = viewportWidth * 0.5;
+		double halfViewportHeight = viewportHeight * 0.5;
+
+		// fill vertices of the visible sprites in the sorted order
+
+		int count = 0;
+
+		for( int i = 0; i < nSprites; i ++ ) 
+		{
+			Sprite sprite = sprites.get( i );
+
+			if ( ! isRenderable( sprite ) ) continue;
+
+			double size = sprite.getMap().getImage().getOffsetWidth() 
+					/ ( sprite.isScaleByViewport() ? viewportHeight : 1.0 );
+
+			double scaleX = size * invAspect * sprite.getScale().getX();
+			double scaleY = size * sprite.getScale().getY();
+
+			double cos = Math.cos( sprite.getRotationFactor() );
+			double sin = Math.sin( sprite.getRotationFactor() );
+
+			double x, y, z, w, factor;
+
+			if ( sprite.isUseScreenCoordinates() ) 
+			{
+				x = ( sprite.getPosition().getX() - halfViewportWidth  ) / halfViewportWidth;
+				y = ( halfViewportHeight - sprite.getPosition().getY() ) / halfViewportHeight;
+				z = Math.max( 0, Math.min( 1, sprite.getPosition().getZ() ) );
+				w = 1.0;
+				factor = 1.0;
+			}
+			else 
+			{
+				Float64Array mv = sprite._modelViewMatrix.getArray();
+				double mx = mv.get( 12 ), my = mv.get( 13 ), mz = mv.get( 14 );
+
+				x = projection.get( 0 ) * mx + projection.get( 4 ) * my + projection.get( 8 )  * mz + projection.get( 12 );
+				y = projection.get( 1 ) * mx + projection.get( 5 ) * my + projection.get( 9 )  * mz + projection.get( 13 );
+				z = projection.get( 2 ) * mx + projection.get( 6 ) * my + projection.get( 10 ) * mz + projection.get( 14 );
+				w = projection.get( 3 ) * mx + projection.get( 7 ) * my + projection.get( 11 ) * mz + projection.get( 15 );
+				factor = sprite.isAffectedByDistance() ? 1.0 : z;
+			}
+
+			Sprite.ALIGNMENT alignment = sprite.getAlignment();
+			double uOffset = sprite.getUvOffset().getX(), vOffset = sprite.getUvOffset().getY();
+			double uScale = sprite.getUvScale().getX(), vScale = sprite.getUvScale().getY();
+
+			int offset = count * 4 * BATCH_STRIDE;
+
+			for ( int k = 0; k < 4; k ++ ) 
+			{
+				double px = QUAD[ k * 4 ] + alignment.x;
+				double py = QUAD[ k * 4 + 1 ] + alignment.y;
+
+				vertices.set( offset ++, (float)( x + ( cos * px - sin * py ) * scaleX * factor ) );
+				vertices.set( offset ++, (float)( y + ( sin * px + cos * py ) * scaleY * factor ) );
+				vertices.set( offset ++, (float)z );
+				vertices.set( offset ++, (float)w );
+
+				vertices.set( offset ++, (float)( uOffset + QUAD[ k * 4 + 2 ] * uScale ) );
+				vertices.set( offset ++, (float)( vOffset + QUAD[ k * 4 + 3 ] * vScale ) );
+
+				vertices.set( offset ++, (float)sprite.getColor().getR() );
+				vertices.set( offset ++, (float)sprite.getColor().getG() );
+				vertices.set( offset ++, (float)sprite.getColor().getB() );
+				vertices.set( offset ++, (float)sprite.getOpacity() );
+			}
+
+			count ++;
+		}
+
+		if ( count == 0 ) return;
+
+		// setup gl
+
+		int[] attributeSlots = batch.shader.getAttributeSlots();
+		int position = attributeSlots[ Shader.ATTRIBUTE_POSITION ];
+		int uv = attributeSlots[ Shader.ATTRIBUTE_UV ];
+		int color = attributeSlots[ Shader.ATTRIBUTE_COLOR ];
+
+		state.useProgram( batch.shader.getProgram() );
+
+		state.enableVertexAttribArray( position );
+		state.enableVertexAttribArray( uv );
+		state.enableVertexAttribArray( color );
+
+		state.bindBuffer( BufferTarget.ARRAY_BUFFER, batch.vertexBuffer );
+		gl.bufferSubData( BufferTarget.ARRAY_BUFFER, 0, vertices.subarray( 0, count * 4 * BATCH_STRIDE ) );
+
+		state.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, batch.elementBuffer );
+
+		state.activeTexture( 0 );
+		gl.uniform1i( batch.shader.getUniforms().get("map").getLocation(), 0 );
+
+		// one draw call per run of sprites with the same state
+
+		boolean mergeWith3D = true;
+		int runStart = 0;
+		int index = 0;
+		Sprite first = null;
+
+		for( int i = 0; i <= nSprites; i ++ ) 
+		{
+			Sprite sprite = null;
+
+			if ( i < nSprites ) 
+			{
+				sprite = sprites.get( i );
+				if ( ! isRenderable( sprite ) ) continue;
+			}
+
+			if ( first != null && ( sprite == null 
+					|| index - runStart == BATCH_MAX_SPRITES 
+					|| sprite.getMap() != first.getMap() 
+					|| sprite.getBlending() != first.getBlending() 
+					|| sprite.isMergeWith3D() != first.isMergeWith3D() ) ) 
+			{
+				if ( first.isMergeWith3D() && !mergeWith3D ) 
+				{
+					state.enable( EnableCap.DEPTH_TEST );
+					mergeWith3D = true;
+				} 
+				else if ( ! first.isMergeWith3D() && mergeWith3D ) 
+				{
+					state.disable( EnableCap.DEPTH_TEST );
+					mergeWith3D = false;
+				}
+
+				getRenderer().setBlending( first.getBlending() );
+				getRenderer().setTexture( first.getMap(), 0 );
+
+				int stride = BATCH_STRIDE * 4;
+				int start = runStart * 4 * stride;
+
+				gl.vertexAttribPointer( position, 4, DataType.FLOAT, false, stride, start );
+				gl.vertexAttribPointer( uv, 2, DataType.FLOAT, false, stride, start + 4 * 4 );
+				gl.vertexAttribPointer( color, 4, DataType.FLOAT, false, stride, start + 6 * 4 );
+
+				gl.drawElements( BeginMode.TRIANGLES, ( index - runStart ) * 6, DrawElementsType.UNSIGNED_SHORT, 0 );
+
+				runStart = index;
+				first = null;
+			}
+
+			if ( sprite == null ) break;
+
+			if ( first == null ) 
+				first = sprite;
+
+			index ++;
+		}
+
+		// the renderer enables the attributes of its program again when it is used
+		state.disableVertexAttribArray( position );
+		state.disableVertexAttribArray( uv );
+		state.disableVertexAttribArray( color );
+	}
+
+	private boolean isRenderable( Sprite sprite ) 
+	{
+		Texture map = sprite.getMap();
+
+		return sprite.isVisible() && sprite.getOpacity() != 0 
+				&& map != null 
+				&& map.getImage() != null 
+				&& map.getImage().getOffsetWidth() > 0;
+	}
+
+	private void initBatch( WebGLRenderingContext gl ) 
+	{
+		WebGLState state = getRenderer().getState();
+
+		this.batch = new SpriteBatch();
+
+		// indices are relative to the first vertex of the run
+		batch.faces = TypedArrays.createUint16Array( BATCH_MAX_SPRITES * 6 );
+
+		for ( int i = 0, f = 0; i < BATCH_MAX_SPRITES; i ++ ) 
+		{
+			int v = i * 4;
+			batch.faces.set( f++, v ); batch.faces.set( f++, v + 1 ); batch.faces.set( f++, v + 2 );
+			batch.faces.set( f++, v ); batch.faces.set( f++, v + 2 ); batch.faces.set( f++, v + 3 );
+		}
+
+		batch.vertexBuffer  = gl.createBuffer();
+		batch.elementBuffer = gl.createBuffer();
+
+		state.bindBuffer( BufferTarget.ELEMENT_ARRAY_BUFFER, batch.elementBuffer );
+		gl.bufferData( BufferTarget.ELEMENT_ARRAY_BUFFER, batch.faces, BufferUsage.STATIC_DRAW );
 
-		gl.enable( EnableCap.CULL_FACE );
-		gl.enable( EnableCap.DEPTH_TEST );
-		gl.depthMask( true );
+		batch.shader = new SpriteBatchShader();
+		batch.shader.buildProgram(gl);
 	}
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012 Alex Usachev, thothbot@gmail.com
+ * 
+ * This file is part of Parallax project.
+ * 
+ * Parallax is free software: you can redistribute it and/or modify it 
+ * under the terms of the Creative Commons Attribution 3.0 Unported License.
+ * 
+ * Parallax is distributed in the hope that it will be useful, but 
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the Creative Commons Attribution 
+ * 3.0 Unported License. for more details.
+ * 
+ * You should have received a copy of the the Creative Commons Attribution 
+ * 3.0 Unported License along with Parallax. 
+ * If not, see http://creativecommons.org/licenses/by/3.0/.
+ */
+
+package thothbot.parallax.plugins.sprite.shaders;
+
+import thothbot.parallax.core.client.shaders.Shader;
+import thothbot.parallax.core.client.shaders.Uniform;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.resources.client.TextResource;
+
+/**
+ * Shader for the batched sprites. Vertices are already transformed 
+ * into the clip space and carry color and opacity of the sprite.
+ * 
+ * @author thothbot
+ *
+ */
+public final class SpriteBatchShader extends Shader 
+{
+
+	interface Resources extends DefaultResources
+	{
+		Resources INSTANCE = GWT.create(Resources.class);
+
+		@Source("source/sprite_batch.vs")
+		TextResource getVertexShader();
+
+		@Source("source/sprite_batch.fs")
+		TextResource getFragmentShader();
+	}
+
+	public SpriteBatchShader() 
+	{
+		super(Resources.INSTANCE);
+	}
+
+	@Override
+	protected void initUniforms()
+	{
+		this.addUniform("map", new Uniform(Uniform.TYPE.T) );
+	}
+}
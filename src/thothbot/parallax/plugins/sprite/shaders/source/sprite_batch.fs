@@ -0,0 +1,13 @@
+precision mediump float;
+
+uniform sampler2D map;
+
+varying vec2 vUV;
+varying vec4 vColor;
+
+void main() {
+
+	vec4 texture = texture2D( map, vUV );
+	gl_FragColor = vec4( vColor.xyz * texture.xyz, texture.a * vColor.w );
+
+}
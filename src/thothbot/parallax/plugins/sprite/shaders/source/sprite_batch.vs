@@ -0,0 +1,15 @@
+attribute vec4 position;
+attribute vec2 uv;
+attribute vec4 color;
+
+varying vec2 vUV;
+varying vec4 vColor;
+
+void main() {
+
+	vUV = uv;
+	vColor = color;
+
+	gl_Position = position;
+
+}